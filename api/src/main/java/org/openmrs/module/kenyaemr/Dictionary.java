@@ -9,19 +9,35 @@
  */
 package org.openmrs.module.kenyaemr;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.openmrs.Concept;
 import org.openmrs.ConceptNumeric;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.metadatadeploy.MissingMetadataException;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Dictionary for concepts used by KenyaEMR
+ * Dictionary for concepts used by KenyaEMR. Resolved concept ids are cached by identifier so that repeated lookups
+ * don't need to query concept mappings. The cache is cleared whenever a concept is saved, retired or purged.
  */
 public class Dictionary extends Metadata.Concept {
 
+	protected static final Log log = LogFactory.getLog(Dictionary.class);
+
+	private static final ConcurrentMap<String, ResolvedConcept> resolved = new ConcurrentHashMap<String, ResolvedConcept>();
+
+	private static final AtomicLong hits = new AtomicLong();
+
+	private static final AtomicLong misses = new AtomicLong();
+
 	/**
 	 * Gets a concept by an identifier (mapping or UUID)
 	 * @param identifier the identifier
@@ -29,6 +45,78 @@ public class Dictionary extends Metadata.Concept {
 	 * @throws org.openmrs.module.metadatadeploy.MissingMetadataException if the concept could not be found
 	 */
 	public static Concept getConcept(String identifier) {
+		ResolvedConcept cached = resolved.get(identifier);
+		if (cached != null) {
+			Concept concept = cached.numeric ? Context.getConceptService().getConceptNumeric(cached.conceptId) : Context.getConceptService().getConcept(cached.conceptId);
+			if (concept != null) {
+				hits.incrementAndGet();
+				return concept;
+			}
+
+			// Concept has been purged since it was cached
+			resolved.remove(identifier);
+		}
+
+		misses.incrementAndGet();
+
+		Concept concept = resolveConcept(identifier);
+		resolved.put(identifier, new ResolvedConcept(concept.getConceptId(), concept instanceof ConceptNumeric));
+		return concept;
+	}
+
+	/**
+	 * Resolves all the concepts declared as constants, so that they are cached before they are needed. Missing concepts
+	 * are logged and skipped.
+	 */
+	public static void warmCache() {
+		int count = 0;
+		for (Field field : Dictionary.class.getFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType().equals(String.class)) {
+				try {
+					getConcept((String) field.get(null));
+					++count;
+				}
+				catch (MissingMetadataException ex) {
+					log.warn("Unable to resolve concept " + field.getName() + ": " + ex.getMessage());
+				}
+				catch (IllegalAccessException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		}
+		log.info("Cached " + count + " dictionary concepts");
+	}
+
+	/**
+	 * Removes all resolved concepts from the cache
+	 */
+	public static void clearCache() {
+		resolved.clear();
+	}
+
+	/**
+	 * Gets the number of lookups which found a cached concept
+	 * @return the number of hits
+	 */
+	public static long getCacheHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups which had to resolve the concept
+	 * @return the number of misses
+	 */
+	public static long getCacheMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Resolves a concept by its identifier
+	 * @param identifier the identifier
+	 * @return the concept
+	 * @throws org.openmrs.module.metadatadeploy.MissingMetadataException if the concept could not be found
+	 */
+	protected static Concept resolveConcept(String identifier) {
 		Concept concept;
 
 		if (identifier.contains(":")) {
@@ -69,4 +157,19 @@ public class Dictionary extends Metadata.Concept {
 		}
 		return concepts;
 	}
+
+	/**
+	 * A concept resolved from an identifier
+	 */
+	private static class ResolvedConcept {
+
+		private final Integer conceptId;
+
+		private final boolean numeric;
+
+		public ResolvedConcept(Integer conceptId, boolean numeric) {
+			this.conceptId = conceptId;
+			this.numeric = numeric;
+		}
+	}
 }
\ No newline at end of file
@@ -15,8 +15,15 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.DaemonToken;
+import org.openmrs.module.DaemonTokenAware;
 import org.openmrs.module.ModuleActivator;
 import org.openmrs.module.kenyacore.CoreContext;
+import org.openmrs.module.kenyaemr.chore.AbstractChunkedChore;
+import org.openmrs.module.kenyaemr.reporting.adx.AdxOutbox;
+import org.openmrs.module.kenyaemr.reporting.dashboard.FacilityDashboardSnapshotService;
+import org.openmrs.module.kenyaemr.reporting.dataset.DataSetEvaluationPool;
+import org.openmrs.module.kenyaemr.search.PatientSearchIndex;
 import org.openmrs.module.reporting.report.service.ReportService;
 import org.openmrs.util.OpenmrsUtil;
 
@@ -26,10 +33,12 @@ import java.io.IOException;
 /**
  * This class contains the logic that is run every time this module is either started or stopped.
  */
-public class EmrActivator implements ModuleActivator {
+public class EmrActivator implements ModuleActivator, DaemonTokenAware {
 
 	protected static final Log log = LogFactory.getLog(EmrActivator.class);
 
+	private DaemonToken daemonToken;
+
 	static {
 		// Possibly bad practice but we really want to see these startup log messages
 		LogManager.getLogger("org.openmrs.module.kenyacore").setLevel(Level.INFO);
@@ -76,6 +85,19 @@ public class EmrActivator implements ModuleActivator {
 	 */
 	public void started() {
 		Context.getService(ReportService.class).deleteOldReportRequests();
+
+		try {
+			Context.getRegisteredComponents(AdxOutbox.class).get(0).start();
+		}
+		catch (Exception ex) {
+			log.error("Unable to start ADX outbox", ex);
+		}
+
+		Dictionary.warmCache();
+		Context.getRegisteredComponents(PatientSearchIndex.class).get(0).buildInBackground();
+		Context.getRegisteredComponents(FacilityDashboardSnapshotService.class).get(0).start(daemonToken);
+		Context.getRegisteredComponents(DataSetEvaluationPool.class).get(0).start(daemonToken);
+
 		log.info("KenyaEMR started");
 	}
 
@@ -84,6 +106,17 @@ public class EmrActivator implements ModuleActivator {
 	 */
 	public void willStop() {
 		log.info("KenyaEMR stopping...");
+		Context.getRegisteredComponents(AdxOutbox.class).get(0).stop();
+		Context.getRegisteredComponents(FacilityDashboardSnapshotService.class).get(0).stop();
+		Context.getRegisteredComponents(DataSetEvaluationPool.class).get(0).stop();
+	}
+
+	/**
+	 * @see DaemonTokenAware#setDaemonToken(org.openmrs.module.DaemonToken)
+	 */
+	public void setDaemonToken(DaemonToken token) {
+		this.daemonToken = token;
+		AbstractChunkedChore.setDaemonToken(token);
 	}
 
 	/**
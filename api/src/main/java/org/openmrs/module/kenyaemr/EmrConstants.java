@@ -51,6 +51,10 @@ public class EmrConstants {
 	public static final String GP_EXTERNAL_HELP_URL = MODULE_ID + ".externalHelpUrl";
 	public static final String GP_DHIS2_DATASET_MAPPING = MODULE_ID + ".adxDatasetMapping";
 	public static final String GP_3PM_DATASET_MAPPING = KP_MODULE_ID + ".adx3pmDatasetMapping";
+	public static final String GP_DATASET_EVALUATION_THREADS = MODULE_ID + ".datasetEvaluationThreads";
+	public static final String GP_ADX_SUBMISSION_THREADS = MODULE_ID + ".adxSubmissionThreads";
+	public static final String GP_DASHBOARD_REFRESH_MINUTES = MODULE_ID + ".dashboardRefreshMinutes";
+	public static final String GP_MFL_SYNC_CHECKSUM = MODULE_ID + ".mflSyncChecksum";
 
 	/**
 	 * Default global property values
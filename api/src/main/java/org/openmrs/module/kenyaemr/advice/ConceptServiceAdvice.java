@@ -0,0 +1,39 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.openmrs.module.kenyaemr.Dictionary;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Clears the dictionary's resolved concepts when concepts or their mappings are changed
+ */
+public class ConceptServiceAdvice implements AfterReturningAdvice {
+
+	/**
+	 * Methods after which resolved concepts may no longer be valid
+	 */
+	private static final Set<String> CONCEPT_CHANGING_METHODS = new HashSet<String>(Arrays.asList("saveConcept", "retireConcept", "unretireConcept", "purgeConcept", "saveConceptReferenceTerm", "purgeConceptReferenceTerm"));
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (CONCEPT_CHANGING_METHODS.contains(method.getName())) {
+			Dictionary.clearCache();
+		}
+	}
+}
@@ -12,15 +12,25 @@ package org.openmrs.module.kenyaemr.advice;
 import org.openmrs.Encounter;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.handler.EncounterVisitHandler;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagCache;
 import org.openmrs.module.kenyaemr.visit.ExistingEncounterVisitHandler;
+import org.springframework.aop.AfterReturningAdvice;
 import org.springframework.aop.MethodBeforeAdvice;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  *
  */
-public class EncounterServiceAdvice implements MethodBeforeAdvice {
+public class EncounterServiceAdvice implements MethodBeforeAdvice, AfterReturningAdvice {
+
+	/**
+	 * Methods after which the patient's cached flags are no longer valid
+	 */
+	private static final Set<String> PATIENT_CHANGING_METHODS = new HashSet<String>(Arrays.asList("saveEncounter", "voidEncounter", "unvoidEncounter", "purgeEncounter"));
 
 	/**
 	 * @see MethodBeforeAdvice#before(java.lang.reflect.Method, Object[], Object)
@@ -33,6 +43,19 @@ public class EncounterServiceAdvice implements MethodBeforeAdvice {
 		}
 	}
 
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (PATIENT_CHANGING_METHODS.contains(method.getName()) && args.length > 0 && args[0] instanceof Encounter) {
+			Encounter encounter = (Encounter) args[0];
+			if (encounter.getPatient() != null) {
+				Context.getRegisteredComponents(PatientFlagCache.class).get(0).invalidate(encounter.getPatient().getPatientId());
+			}
+		}
+	}
+
 	/**
 	 * Invoked before any call to save encounter
 	 * @param encounter the encounter
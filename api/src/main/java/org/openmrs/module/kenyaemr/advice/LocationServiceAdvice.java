@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.metadata.sync.LocationMflIndex;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Updates the master facility code index, and the cached default location code, when locations are changed
+ */
+public class LocationServiceAdvice implements AfterReturningAdvice {
+
+	/**
+	 * Methods after which a location's code or retired status may have changed
+	 */
+	private static final Set<String> LOCATION_CHANGING_METHODS = new HashSet<String>(Arrays.asList("saveLocation", "retireLocation", "unretireLocation"));
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (args.length == 0 || !(args[0] instanceof Location)) {
+			return;
+		}
+
+		Location location = (Location) args[0];
+		LocationMflIndex index = Context.getRegisteredComponents(LocationMflIndex.class).get(0);
+
+		if ("purgeLocation".equals(method.getName())) {
+			index.remove(location.getLocationId());
+		}
+		else if (LOCATION_CHANGING_METHODS.contains(method.getName())) {
+			index.update(location);
+		}
+		else {
+			return;
+		}
+
+		// The default location's code may have changed
+		Context.getService(KenyaEmrService.class).clearDefaultLocationCache();
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.openmrs.Obs;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagCache;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Removes a patient's cached flags when their obs are changed
+ */
+public class ObsServiceAdvice implements AfterReturningAdvice {
+
+	/**
+	 * Methods after which the patient's cached flags are no longer valid
+	 */
+	private static final Set<String> PATIENT_CHANGING_METHODS = new HashSet<String>(Arrays.asList("saveObs", "voidObs", "unvoidObs", "purgeObs"));
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (PATIENT_CHANGING_METHODS.contains(method.getName()) && args.length > 0 && args[0] instanceof Obs) {
+			Obs obs = (Obs) args[0];
+			if (obs.getPerson() != null) {
+				Context.getRegisteredComponents(PatientFlagCache.class).get(0).invalidate(obs.getPerson().getPersonId());
+			}
+		}
+	}
+}
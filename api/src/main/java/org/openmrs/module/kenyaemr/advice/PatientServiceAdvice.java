@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.search.PatientSearchIndex;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Updates the patient search index when patients or their identifiers are changed, once the changes are committed
+ */
+public class PatientServiceAdvice implements AfterReturningAdvice {
+
+	/**
+	 * Methods after which a patient's names or identifiers may have changed
+	 */
+	private static final Set<String> PATIENT_CHANGING_METHODS = new HashSet<String>(Arrays.asList("savePatient", "voidPatient", "unvoidPatient", "mergePatients", "savePatientIdentifier", "voidPatientIdentifier"));
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		String methodName = method.getName();
+
+		if ("purgePatient".equals(methodName) && args.length > 0 && args[0] instanceof Patient) {
+			getIndex().removeOnCommit(((Patient) args[0]).getPatientId());
+		}
+		else if ("purgePatientIdentifier".equals(methodName) && args.length > 0 && args[0] instanceof PatientIdentifier) {
+			getIndex().updateOnCommit(((PatientIdentifier) args[0]).getPatient());
+		}
+		else if (PATIENT_CHANGING_METHODS.contains(methodName)) {
+			for (Object arg : args) {
+				if (arg instanceof Patient) {
+					getIndex().updateOnCommit((Patient) arg);
+				}
+				else if (arg instanceof PatientIdentifier) {
+					getIndex().updateOnCommit(((PatientIdentifier) arg).getPatient());
+				}
+				else if (arg instanceof List) {
+					for (Object item : (List) arg) {
+						if (item instanceof Patient) {
+							getIndex().updateOnCommit((Patient) item);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the patient search index
+	 * @return the index
+	 */
+	private PatientSearchIndex getIndex() {
+		return Context.getRegisteredComponents(PatientSearchIndex.class).get(0);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.advice;
+
+import org.openmrs.Patient;
+import org.openmrs.Person;
+import org.openmrs.PersonName;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.search.PatientSearchIndex;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Updates the patient search index when a patient's names are changed through the person service, once the changes
+ * are committed
+ */
+public class PersonServiceAdvice implements AfterReturningAdvice {
+
+	/**
+	 * Methods after which a person's names may have changed
+	 */
+	private static final Set<String> PERSON_CHANGING_METHODS = new HashSet<String>(Arrays.asList("savePerson", "voidPerson", "unvoidPerson"));
+
+	/**
+	 * Methods after which one of a person's names may have changed
+	 */
+	private static final Set<String> NAME_CHANGING_METHODS = new HashSet<String>(Arrays.asList("savePersonName", "voidPersonName", "unvoidPersonName"));
+
+	/**
+	 * @see AfterReturningAdvice#afterReturning(Object, java.lang.reflect.Method, Object[], Object)
+	 */
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+		if (args.length == 0) {
+			return;
+		}
+
+		Person person = null;
+		if (PERSON_CHANGING_METHODS.contains(method.getName()) && args[0] instanceof Person) {
+			person = (Person) args[0];
+		}
+		else if (NAME_CHANGING_METHODS.contains(method.getName()) && args[0] instanceof PersonName) {
+			person = ((PersonName) args[0]).getPerson();
+		}
+
+		Patient patient = toPatient(person);
+		if (patient != null) {
+			Context.getRegisteredComponents(PatientSearchIndex.class).get(0).updateOnCommit(patient);
+		}
+	}
+
+	/**
+	 * Gets the patient for a person
+	 * @param person the person (may be null)
+	 * @return the patient, or null if person isn't a patient
+	 */
+	private static Patient toPatient(Person person) {
+		if (person instanceof Patient) {
+			return (Patient) person;
+		}
+		if (person != null && person.getPersonId() != null && person.isPatient()) {
+			return Context.getPatientService().getPatient(person.getPersonId());
+		}
+		return null;
+	}
+}
@@ -15,9 +15,11 @@ import org.openmrs.Visit;
 import org.openmrs.api.OpenmrsService;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Business logic methods for KenyaEMR
@@ -56,6 +58,14 @@ public interface KenyaEmrService extends OpenmrsService {
 	@Transactional(readOnly = true)
 	String getDefaultLocationMflCode();
 
+	/**
+	 * Clears the cached default location and code so that they're reloaded when next used, e.g. after the default
+	 * location has been changed. If called inside a transaction, they're cleared again when it completes so that values
+	 * loaded from uncommitted (or rolled back) changes aren't kept.
+	 */
+	@Transactional(readOnly = true)
+	void clearDefaultLocationCache();
+
 	/**
 	 * Gets the location with the given Master Facility List code
 	 * @return the location (null if no location has the given code)
@@ -81,6 +91,26 @@ public interface KenyaEmrService extends OpenmrsService {
 	@Transactional(readOnly = true)
 	List<Visit> getVisitsByPatientAndDay(Patient patient, Date date);
 
+	/**
+	 * Gets the patients who have a return visit scheduled on the given date
+	 * @param date the day
+	 * @return the patient ids
+	 */
+	@Transactional(readOnly = true)
+	Set<Integer> getPatientsScheduledOnDay(Date date);
+
+	/**
+	 * Gets the encounters of a patient with the given type and form which have obs for any of the given concepts.
+	 * Unlike the results of {@link #executeHqlQuery(String, Map)}, the encounters can be modified and saved.
+	 * @param patient the patient
+	 * @param encounterTypeUuid the encounter type UUID
+	 * @param formUuid the form UUID
+	 * @param conceptUuids the obs concept UUIDs
+	 * @return pairs of encounter and obs concept UUID, in chronological order of encounter
+	 */
+	@Transactional(readOnly = true)
+	List<Object[]> getEncountersWithObsOfConcepts(Patient patient, String encounterTypeUuid, String formUuid, Collection<String> conceptUuids);
+
 	/**
 	 * Setup the medical record number identifier source
 	 * @param startFrom the base identifier to start from
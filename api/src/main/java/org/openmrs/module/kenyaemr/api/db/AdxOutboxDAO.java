@@ -0,0 +1,31 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.api.db;
+
+import org.openmrs.module.kenyaemr.reporting.adx.AdxSubmission;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Database access functions for the ADX outbox. Each call runs in its own transaction.
+ */
+public interface AdxOutboxDAO {
+	public Integer insert(String reportName, String orgUnit, String serverAddress, Reader payload, Date now);
+	public AdxSubmission getSubmission(Integer id);
+	public List<AdxSubmission> getSubmissions(String orgUnit, int max);
+	public List<AdxSubmission> getDueSubmissions(Date now, int max);
+	public void copyPayload(Integer id, Writer out);
+	public int resetStatus(AdxSubmission.Status from, AdxSubmission.Status to);
+	public boolean setStatus(Integer id, AdxSubmission.Status expected, AdxSubmission.Status status);
+	public void recordAttempt(Integer id, AdxSubmission.Status status, int attempts, Date nextAttempt, Integer responseCode, String response, Date dateSent);
+}
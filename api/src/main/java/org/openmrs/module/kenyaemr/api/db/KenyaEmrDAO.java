@@ -9,6 +9,10 @@
  */
 package org.openmrs.module.kenyaemr.api.db;
 
+import org.openmrs.Concept;
+
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +20,8 @@ import java.util.Map;
  * Database access functions
  */
 public interface KenyaEmrDAO {
+	public List<Integer> getPatientIdsWithObsValueDatetimeBetween(Concept question, Date from, Date to);
+	public List<Object[]> getEncountersWithObsOfConcepts(Integer patientId, String encounterTypeUuid, String formUuid, Collection<String> conceptUuids);
 	public List<Object> executeSqlQuery(String query, Map<String, Object> substitutions);
 	public List<Object> executeHqlQuery(String query, Map<String, Object> substitutions);
 }
\ No newline at end of file
@@ -0,0 +1,238 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.api.db.hibernate;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.jdbc.Work;
+import org.openmrs.api.APIException;
+import org.openmrs.module.kenyaemr.api.db.AdxOutboxDAO;
+import org.openmrs.module.kenyaemr.reporting.adx.AdxSubmission;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hibernate specific data access functions for the ADX outbox. Messages are written and read as character streams,
+ * so they are never held in memory as strings. This class should not be used directly.
+ */
+public class HibernateAdxOutboxDAO implements AdxOutboxDAO {
+
+	private static final String SUMMARY_COLUMNS = "id, report_name, org_unit, server_address, status, attempts, next_attempt, last_response_code, last_response, date_created, date_sent";
+
+	private SessionFactory sessionFactory;
+
+	/**
+	 * Sets the session factory
+	 * @param sessionFactory the session factory
+	 */
+	public void setSessionFactory(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	/**
+	 * Convenience method to get current session
+	 * @return the session
+	 */
+	private Session getCurrentSession() {
+		return sessionFactory.getCurrentSession();
+	}
+
+	@Override
+	public Integer insert(final String reportName, final String orgUnit, final String serverAddress, final Reader payload, Date now) {
+		final String uuid = UUID.randomUUID().toString();
+		final Timestamp timestamp = new Timestamp(now.getTime());
+
+		getCurrentSession().doWork(new Work() {
+			@Override
+			public void execute(Connection connection) throws SQLException {
+				PreparedStatement ps = connection.prepareStatement("insert into kenyaemr_adx_outbox (uuid, report_name, org_unit, server_address, payload, status, attempts, next_attempt, date_created)"
+						+ " values (?, ?, ?, ?, ?, ?, 0, ?, ?)");
+				try {
+					ps.setString(1, uuid);
+					ps.setString(2, reportName);
+					ps.setString(3, orgUnit);
+					ps.setString(4, serverAddress);
+					ps.setCharacterStream(5, payload);
+					ps.setString(6, AdxSubmission.Status.PENDING.name());
+					ps.setTimestamp(7, timestamp);
+					ps.setTimestamp(8, timestamp);
+					ps.executeUpdate();
+				}
+				finally {
+					ps.close();
+				}
+			}
+		});
+
+		SQLQuery q = getCurrentSession().createSQLQuery("select id from kenyaemr_adx_outbox where uuid = :uuid");
+		q.setString("uuid", uuid);
+		return ((Number) q.uniqueResult()).intValue();
+	}
+
+	@Override
+	public AdxSubmission getSubmission(Integer id) {
+		SQLQuery q = getCurrentSession().createSQLQuery("select " + SUMMARY_COLUMNS + " from kenyaemr_adx_outbox where id = :id");
+		q.setInteger("id", id);
+		Object row = q.uniqueResult();
+		return row != null ? toSubmission((Object[]) row) : null;
+	}
+
+	@Override
+	public List<AdxSubmission> getSubmissions(String orgUnit, int max) {
+		SQLQuery q = getCurrentSession().createSQLQuery("select " + SUMMARY_COLUMNS + " from kenyaemr_adx_outbox where org_unit = :orgUnit order by id desc");
+		q.setString("orgUnit", orgUnit);
+		q.setMaxResults(max);
+		return toSubmissions(q.list());
+	}
+
+	@Override
+	public List<AdxSubmission> getDueSubmissions(Date now, int max) {
+		SQLQuery q = getCurrentSession().createSQLQuery("select " + SUMMARY_COLUMNS + " from kenyaemr_adx_outbox where status = :pending and next_attempt <= :now order by next_attempt, id");
+		q.setString("pending", AdxSubmission.Status.PENDING.name());
+		q.setTimestamp("now", now);
+		q.setMaxResults(max);
+		return toSubmissions(q.list());
+	}
+
+	@Override
+	public void copyPayload(final Integer id, final Writer out) {
+		getCurrentSession().doWork(new Work() {
+			@Override
+			public void execute(Connection connection) throws SQLException {
+				PreparedStatement ps = connection.prepareStatement("select payload from kenyaemr_adx_outbox where id = ?");
+				try {
+					ps.setInt(1, id);
+					ResultSet rs = ps.executeQuery();
+					if (!rs.next()) {
+						throw new APIException("No ADX submission with id " + id);
+					}
+
+					Reader in = rs.getCharacterStream(1);
+					try {
+						IOUtils.copy(in, out);
+					}
+					finally {
+						IOUtils.closeQuietly(in);
+					}
+				}
+				catch (IOException ex) {
+					throw new APIException("Unable to copy ADX message #" + id, ex);
+				}
+				finally {
+					ps.close();
+				}
+			}
+		});
+	}
+
+	@Override
+	public int resetStatus(AdxSubmission.Status from, AdxSubmission.Status to) {
+		SQLQuery q = getCurrentSession().createSQLQuery("update kenyaemr_adx_outbox set status = :to where status = :from");
+		q.setString("from", from.name());
+		q.setString("to", to.name());
+		return q.executeUpdate();
+	}
+
+	@Override
+	public boolean setStatus(Integer id, AdxSubmission.Status expected, AdxSubmission.Status status) {
+		SQLQuery q = getCurrentSession().createSQLQuery("update kenyaemr_adx_outbox set status = :status where id = :id and status = :expected");
+		q.setInteger("id", id);
+		q.setString("expected", expected.name());
+		q.setString("status", status.name());
+		return q.executeUpdate() > 0;
+	}
+
+	@Override
+	public void recordAttempt(Integer id, AdxSubmission.Status status, int attempts, Date nextAttempt, Integer responseCode, String response, Date dateSent) {
+		String qry = "update kenyaemr_adx_outbox set status = :status, attempts = :attempts, next_attempt = :nextAttempt,"
+				+ " last_response_code = :responseCode, last_response = :response";
+		if (dateSent != null) {
+			qry += ", date_sent = :dateSent";
+		}
+
+		SQLQuery q = getCurrentSession().createSQLQuery(qry + " where id = :id");
+		q.setInteger("id", id);
+		q.setString("status", status.name());
+		q.setInteger("attempts", attempts);
+		q.setTimestamp("nextAttempt", nextAttempt);
+		q.setInteger("responseCode", responseCode != null ? responseCode : -1);
+		q.setString("response", StringUtils.defaultString(response));
+		if (dateSent != null) {
+			q.setTimestamp("dateSent", dateSent);
+		}
+		q.executeUpdate();
+	}
+
+	/**
+	 * Converts rows of summary columns to submissions
+	 * @param rows the rows
+	 * @return the submissions
+	 */
+	private static List<AdxSubmission> toSubmissions(List<?> rows) {
+		List<AdxSubmission> ret = new ArrayList<AdxSubmission>();
+		for (Object row : rows) {
+			ret.add(toSubmission((Object[]) row));
+		}
+		return ret;
+	}
+
+	/**
+	 * Converts a row of summary columns to a submission
+	 * @param values the row values
+	 * @return the submission
+	 */
+	private static AdxSubmission toSubmission(Object[] values) {
+		AdxSubmission submission = new AdxSubmission();
+		submission.setId(((Number) values[0]).intValue());
+		submission.setReportName((String) values[1]);
+		submission.setOrgUnit((String) values[2]);
+		submission.setServerAddress((String) values[3]);
+		submission.setStatus(AdxSubmission.Status.valueOf((String) values[4]));
+		submission.setAttempts(((Number) values[5]).intValue());
+		submission.setNextAttempt((Date) values[6]);
+		submission.setLastResponseCode(values[7] != null && ((Number) values[7]).intValue() >= 0 ? ((Number) values[7]).intValue() : null);
+		submission.setLastResponse(toString(values[8]));
+		submission.setDateCreated((Date) values[9]);
+		submission.setDateSent((Date) values[10]);
+		return submission;
+	}
+
+	/**
+	 * Converts a text column value to a string
+	 * @param value the value, which may be a CLOB
+	 * @return the string
+	 */
+	private static String toString(Object value) {
+		if (value instanceof Clob) {
+			try {
+				return IOUtils.toString(((Clob) value).getCharacterStream());
+			}
+			catch (Exception ex) {
+				throw new APIException("Unable to read text value", ex);
+			}
+		}
+		return (String) value;
+	}
+}
@@ -14,8 +14,11 @@ import org.hibernate.SQLQuery;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.openmrs.Cohort;
+import org.openmrs.Concept;
 import org.openmrs.module.kenyaemr.api.db.KenyaEmrDAO;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -45,24 +48,41 @@ public class HibernateKenyaEmrDAO implements KenyaEmrDAO {
 	}
 
 	@Override
-	public List<Object> executeSqlQuery(String query, Map<String, Object> substitutions) {
-		SQLQuery q = sessionFactory.getCurrentSession().createSQLQuery(query);
+	public List<Integer> getPatientIdsWithObsValueDatetimeBetween(Concept question, Date from, Date to) {
+		SQLQuery q = getCurrentSession().createSQLQuery("select distinct o.person_id from obs o"
+				+ " inner join patient p on p.patient_id = o.person_id and p.voided = 0"
+				+ " where o.voided = 0 and o.concept_id = :conceptId and o.value_datetime between :from and :to");
+		q.setInteger("conceptId", question.getConceptId());
+		q.setTimestamp("from", from);
+		q.setTimestamp("to", to);
+
+		List<Integer> ret = new ArrayList<Integer>();
+		for (Object patientId : q.list()) {
+			ret.add(((Number) patientId).intValue());
+		}
+		return ret;
+	}
 
-		for (Map.Entry<String, Object> e : substitutions.entrySet()) {
-			if (e.getValue() instanceof Collection) {
-				q.setParameterList(e.getKey(), (Collection) e.getValue());
-			} else if (e.getValue() instanceof Object[]) {
-				q.setParameterList(e.getKey(), (Object[]) e.getValue());
-			} else if (e.getValue() instanceof Cohort) {
-				q.setParameterList(e.getKey(), ((Cohort) e.getValue()).getMemberIds());
-			} else if (e.getValue() instanceof Date) {
-				q.setDate(e.getKey(), (Date) e.getValue());
-			} else {
-				q.setParameter(e.getKey(), e.getValue());
-			}
+	@Override
+	public List<Object[]> getEncountersWithObsOfConcepts(Integer patientId, String encounterTypeUuid, String formUuid, Collection<String> conceptUuids) {
+		Query q = getCurrentSession().createQuery("select o.encounter, o.concept.uuid from Obs o"
+				+ " where o.person.personId = :patientId and o.voided = false and o.concept.uuid in (:conceptUuids)"
+				+ " and o.encounter.voided = false and o.encounter.encounterType.uuid = :encounterType and o.encounter.form.uuid = :form"
+				+ " order by o.encounter.encounterDatetime, o.encounter.encounterId");
+		q.setInteger("patientId", patientId);
+		q.setParameterList("conceptUuids", conceptUuids);
+		q.setString("encounterType", encounterTypeUuid);
+		q.setString("form", formUuid);
+
+		// Not read-only, as callers may modify and save the encounters
+		return (List<Object[]>) q.list();
+	}
 
+	@Override
+	public List<Object> executeSqlQuery(String query, Map<String, Object> substitutions) {
+		SQLQuery q = sessionFactory.getCurrentSession().createSQLQuery(query);
 
-		}
+		applySubstitutions(q, substitutions);
 
 		q.setReadOnly(true);
 
@@ -90,6 +110,8 @@ public class HibernateKenyaEmrDAO implements KenyaEmrDAO {
 				q.setParameterList(e.getKey(), (Object[]) e.getValue());
 			} else if (e.getValue() instanceof Cohort) {
 				q.setParameterList(e.getKey(), ((Cohort) e.getValue()).getMemberIds());
+			} else if (e.getValue() instanceof Timestamp) {
+				q.setTimestamp(e.getKey(), (Timestamp) e.getValue());
 			} else if (e.getValue() instanceof Date) {
 				q.setDate(e.getKey(), (Date) e.getValue());
 			} else {
@@ -12,7 +12,10 @@ package org.openmrs.module.kenyaemr.api.impl;
 import au.com.bytecode.opencsv.CSVWriter;
 import org.springframework.stereotype.Component;
 
-import java.io.StringWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.util.List;
 
 /**
@@ -22,25 +25,43 @@ import java.util.List;
 public class CsvMaker {
 
     public byte[] createCsv(List<Object> data, List<Object> headerRow) {
-        StringWriter stringWriter = new StringWriter();
-        CSVWriter writer = new CSVWriter(stringWriter);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
-            if (headerRow != null) {
-                data.add(0, headerRow.toArray());
-            }
-            for (Object object : data) {
-                Object[] values = (Object[]) object;
-                String[] row = new String[values.length];
-                int i = 0;
-                for (Object value : values) {
-                    row[i] = value != null ? value.toString() : null;
-                    i++;
-                }
-                writer.writeNext(row);
-            }
-            return stringWriter.toString().getBytes();
+            writeCsv(data, headerRow, out);
+            return out.toByteArray();
         } catch (Exception ex) {
             throw new RuntimeException("Could not download data dictionary.");
         }
     }
+
+    /**
+     * Writes rows as CSV to a stream as they are iterated, so rows don't need to be held in memory or copied
+     * @param rows the rows, each an array of values
+     * @param headerRow the header values (may be null)
+     * @param out the output stream, which is flushed but not closed
+     * @throws IOException if the rows can't be written
+     */
+    public void writeCsv(Iterable<?> rows, List<Object> headerRow, OutputStream out) throws IOException {
+        CSVWriter writer = new CSVWriter(new OutputStreamWriter(out, "UTF-8"));
+        if (headerRow != null) {
+            writer.writeNext(toStrings(headerRow.toArray()));
+        }
+        for (Object row : rows) {
+            writer.writeNext(toStrings((Object[]) row));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Converts row values to strings
+     * @param values the values
+     * @return the strings
+     */
+    private static String[] toStrings(Object[] values) {
+        String[] row = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            row[i] = values[i] != null ? values[i].toString() : null;
+        }
+        return row;
+    }
 }
@@ -11,6 +11,7 @@ package org.openmrs.module.kenyaemr.api.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Location;
 import org.openmrs.LocationAttributeType;
@@ -18,6 +19,7 @@ import org.openmrs.Patient;
 import org.openmrs.PatientIdentifierType;
 import org.openmrs.Visit;
 import org.openmrs.api.APIException;
+import org.openmrs.api.GlobalPropertyListener;
 import org.openmrs.api.LocationService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.impl.BaseOpenmrsService;
@@ -27,28 +29,35 @@ import org.openmrs.module.idgen.SequentialIdentifierGenerator;
 import org.openmrs.module.idgen.service.IdentifierSourceService;
 import org.openmrs.module.idgen.validator.LuhnModNIdentifierValidator;
 import org.openmrs.module.kenyacore.identifier.IdentifierManager;
+import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.EmrConstants;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.api.db.KenyaEmrDAO;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.kenyaemr.metadata.sync.LocationMflIndex;
 import org.openmrs.module.kenyaemr.wrapper.Facility;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementations of business logic methods for KenyaEMR
  */
-public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrService {
+public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrService, GlobalPropertyListener {
 
 	protected static final Log log = LogFactory.getLog(KenyaEmrServiceImpl.class);
 
@@ -61,8 +70,13 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	@Autowired
 	private LocationService locationService;
 
+	@Autowired
+	private LocationMflIndex mflIndex;
+
 	private boolean setupRequired = true;
 
+	private volatile DefaultLocationInfo defaultLocationInfo;
+
 	private KenyaEmrDAO dao;
 
 	/**
@@ -107,16 +121,18 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	 */
 	@Override
 	public Location getDefaultLocation() {
+		DefaultLocationInfo info = getDefaultLocationInfo();
+		if (info.locationId == null) {
+			return null;
+		}
+
 		try {
 			Context.addProxyPrivilege(PrivilegeConstants.GET_LOCATIONS);
-			Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 
-			GlobalProperty gp = Context.getAdministrationService().getGlobalPropertyObject(EmrConstants.GP_DEFAULT_LOCATION);
-			return gp != null ? ((Location) gp.getValue()) : null;
+			return locationService.getLocation(info.locationId);
 		}
 		finally {
 			Context.removeProxyPrivilege(PrivilegeConstants.GET_LOCATIONS);
-			Context.removeProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 		}
 	}
 	
@@ -125,15 +141,78 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	 */
 	@Override
 	public String getDefaultLocationMflCode() {
+		return getDefaultLocationInfo().mflCode;
+	}
+
+	/**
+	 * @see org.openmrs.module.kenyaemr.api.KenyaEmrService#clearDefaultLocationCache()
+	 */
+	@Override
+	public void clearDefaultLocationCache() {
+		defaultLocationInfo = null;
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					defaultLocationInfo = null;
+				}
+			});
+		}
+	}
+
+	/**
+	 * @see GlobalPropertyListener#supportsPropertyName(String)
+	 */
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return EmrConstants.GP_DEFAULT_LOCATION.equals(propertyName);
+	}
+
+	/**
+	 * @see GlobalPropertyListener#globalPropertyChanged(org.openmrs.GlobalProperty)
+	 */
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		clearDefaultLocationCache();
+	}
+
+	/**
+	 * @see GlobalPropertyListener#globalPropertyDeleted(String)
+	 */
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		clearDefaultLocationCache();
+	}
+
+	/**
+	 * Gets the cached default location id and code, loading them if necessary
+	 * @return the default location info
+	 */
+	protected DefaultLocationInfo getDefaultLocationInfo() {
+		DefaultLocationInfo info = defaultLocationInfo;
+		if (info != null) {
+			return info;
+		}
+
 		try {
+			Context.addProxyPrivilege(PrivilegeConstants.GET_LOCATIONS);
+			Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 			Context.addProxyPrivilege(PrivilegeConstants.GET_LOCATION_ATTRIBUTE_TYPES);
 
-			Location location = getDefaultLocation();
-			return (location != null) ? new Facility(location).getMflCode() : null;
+			GlobalProperty gp = Context.getAdministrationService().getGlobalPropertyObject(EmrConstants.GP_DEFAULT_LOCATION);
+			Location location = gp != null ? ((Location) gp.getValue()) : null;
+
+			info = (location != null) ? new DefaultLocationInfo(location.getLocationId(), new Facility(location).getMflCode()) : new DefaultLocationInfo(null, null);
 		}
 		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.GET_LOCATIONS);
+			Context.removeProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 			Context.removeProxyPrivilege(PrivilegeConstants.GET_LOCATION_ATTRIBUTE_TYPES);
 		}
+
+		defaultLocationInfo = info;
+		return info;
 	}
 
 	/**
@@ -141,13 +220,33 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	 */
 	@Override
 	public Location getLocationByMflCode(String mflCode) {
+		// Codes are validated as five digits so there's no point looking up anything else
+		if (mflCode == null || !mflCode.matches("\\d{5}")) {
+			return null;
+		}
+
+		Integer locationId = mflIndex.getLocationId(mflCode);
+		if (locationId != null) {
+			Location location = locationService.getLocation(locationId);
+			if (location != null && !location.isRetired() && mflCode.equals(new Facility(location).getMflCode())) {
+				return location;
+			}
+
+			// Index is out of date
+			mflIndex.invalidate();
+		}
+
 		LocationAttributeType mflCodeAttrType = MetadataUtils.existing(LocationAttributeType.class, FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE);
 		Map<LocationAttributeType, Object> attrVals = new HashMap<LocationAttributeType, Object>();
 		attrVals.put(mflCodeAttrType, mflCode);
 
 		List<Location> locations = locationService.getLocations(null, null, attrVals, false, null, null);
+		if (locations.isEmpty()) {
+			return null;
+		}
 
-		return locations.size() > 0 ? locations.get(0) : null;
+		mflIndex.update(locations.get(0));
+		return locations.get(0);
 	}
 
 	/**
@@ -181,6 +280,26 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 		return visits;
 	}
 
+	/**
+	 * @see KenyaEmrService#getPatientsScheduledOnDay(java.util.Date)
+	 */
+	@Override
+	public Set<Integer> getPatientsScheduledOnDay(Date date) {
+		Date startOfDay = OpenmrsUtil.firstSecondOfDay(date);
+		Date endOfDay = OpenmrsUtil.getLastMomentOfDay(date);
+
+		Concept returnVisitDate = Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE);
+		return new HashSet<Integer>(dao.getPatientIdsWithObsValueDatetimeBetween(returnVisitDate, startOfDay, endOfDay));
+	}
+
+	/**
+	 * @see KenyaEmrService#getEncountersWithObsOfConcepts(org.openmrs.Patient, String, String, java.util.Collection)
+	 */
+	@Override
+	public List<Object[]> getEncountersWithObsOfConcepts(Patient patient, String encounterTypeUuid, String formUuid, Collection<String> conceptUuids) {
+		return dao.getEncountersWithObsOfConcepts(patient.getPatientId(), encounterTypeUuid, formUuid, conceptUuids);
+	}
+
 	/**
 	 * @see KenyaEmrService#setupMrnIdentifierSource(String)
 	 */
@@ -258,4 +377,19 @@ public class KenyaEmrServiceImpl extends BaseOpenmrsService implements KenyaEmrS
 	public List<Object> executeHqlQuery(String query, Map<String, Object> substitutions) {
 		return dao.executeHqlQuery(query, substitutions);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Cached id and code of the default location
+	 */
+	protected static class DefaultLocationInfo {
+
+		private final Integer locationId;
+
+		private final String mflCode;
+
+		public DefaultLocationInfo(Integer locationId, String mflCode) {
+			this.locationId = locationId;
+			this.mflCode = mflCode;
+		}
+	}
+}
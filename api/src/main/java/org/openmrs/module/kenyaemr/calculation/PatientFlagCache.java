@@ -0,0 +1,233 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of patient flag results, keyed by patient and flag calculation class. A patient's results are removed when
+ * their encounters, obs or program enrollments are saved, and all results expire after a fixed time because many
+ * flags (e.g. lost to follow up, missed appointment) also depend on the current date. Expired results are removed
+ * when they are read, and the number of patients with cached results is bounded.
+ */
+@Component
+public class PatientFlagCache {
+
+	/**
+	 * Default time after which results expire
+	 */
+	public static final long DEFAULT_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+	/**
+	 * Default maximum number of patients with cached results
+	 */
+	public static final int DEFAULT_MAX_PATIENTS = 10000;
+
+	private final ConcurrentMap<Integer, ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry>> results = new ConcurrentHashMap<Integer, ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry>>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private long expiryMillis = DEFAULT_EXPIRY_MILLIS;
+
+	private int maxPatients = DEFAULT_MAX_PATIENTS;
+
+	/**
+	 * Gets a cached result
+	 * @param patientId the patient id
+	 * @param calculationClass the flag calculation class
+	 * @return whether the flag is set, or null if there is no current cached result
+	 */
+	public Boolean get(Integer patientId, Class<? extends PatientFlagCalculation> calculationClass) {
+		ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry> patientResults = results.get(patientId);
+		Entry entry = patientResults != null ? patientResults.get(calculationClass) : null;
+
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		if (entry.isExpired(System.currentTimeMillis())) {
+			patientResults.remove(calculationClass, entry);
+			if (patientResults.isEmpty()) {
+				results.remove(patientId, patientResults);
+			}
+
+			misses.incrementAndGet();
+			return null;
+		}
+
+		hits.incrementAndGet();
+		return entry.flagged;
+	}
+
+	/**
+	 * Caches a result
+	 * @param patientId the patient id
+	 * @param calculationClass the flag calculation class
+	 * @param flagged whether the flag is set
+	 */
+	public void put(Integer patientId, Class<? extends PatientFlagCalculation> calculationClass, boolean flagged) {
+		ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry> patientResults = results.get(patientId);
+		if (patientResults == null) {
+			if (results.size() >= maxPatients) {
+				evictExpired();
+
+				// Results for new patients aren't cached until there is room
+				if (results.size() >= maxPatients) {
+					return;
+				}
+			}
+			ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry> created = new ConcurrentHashMap<Class<? extends PatientFlagCalculation>, Entry>();
+			patientResults = results.putIfAbsent(patientId, created);
+			if (patientResults == null) {
+				patientResults = created;
+			}
+		}
+		patientResults.put(calculationClass, new Entry(flagged, System.currentTimeMillis() + expiryMillis));
+	}
+
+	/**
+	 * Removes all cached results for a patient. If called inside a transaction, they are removed again when it
+	 * completes, as results calculated before the changes are committed would otherwise be cached.
+	 * @param patientId the patient id
+	 */
+	public void invalidate(final Integer patientId) {
+		if (patientId == null) {
+			return;
+		}
+
+		results.remove(patientId);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					results.remove(patientId);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Removes all expired results
+	 */
+	public void evictExpired() {
+		long now = System.currentTimeMillis();
+
+		Iterator<Map.Entry<Integer, ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry>>> patientIterator = results.entrySet().iterator();
+		while (patientIterator.hasNext()) {
+			ConcurrentMap<Class<? extends PatientFlagCalculation>, Entry> patientResults = patientIterator.next().getValue();
+
+			Iterator<Entry> entryIterator = patientResults.values().iterator();
+			while (entryIterator.hasNext()) {
+				if (entryIterator.next().isExpired(now)) {
+					entryIterator.remove();
+				}
+			}
+
+			if (patientResults.isEmpty()) {
+				patientIterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached results
+	 */
+	public void clear() {
+		results.clear();
+	}
+
+	/**
+	 * Gets the number of lookups which found a current result
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups which didn't find a current result
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the number of patients with cached results
+	 * @return the number of patients
+	 */
+	public int getSize() {
+		return results.size();
+	}
+
+	/**
+	 * Gets the time after which results expire
+	 * @return the time in milliseconds
+	 */
+	public long getExpiryMillis() {
+		return expiryMillis;
+	}
+
+	/**
+	 * Sets the time after which results expire
+	 * @param expiryMillis the time in milliseconds
+	 */
+	public void setExpiryMillis(long expiryMillis) {
+		this.expiryMillis = expiryMillis;
+	}
+
+	/**
+	 * Gets the maximum number of patients with cached results
+	 * @return the number of patients
+	 */
+	public int getMaxPatients() {
+		return maxPatients;
+	}
+
+	/**
+	 * Sets the maximum number of patients with cached results
+	 * @param maxPatients the number of patients
+	 */
+	public void setMaxPatients(int maxPatients) {
+		this.maxPatients = maxPatients;
+	}
+
+	/**
+	 * A cached result
+	 */
+	private static class Entry {
+
+		private final boolean flagged;
+
+		private final long expires;
+
+		public Entry(boolean flagged, long expires) {
+			this.flagged = flagged;
+			this.expires = expires;
+		}
+
+		public boolean isExpired(long now) {
+			return expires < now;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResult;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Evaluates patient flag calculations for cohorts of patients, so that list views can get the flags of all their
+ * patients with one evaluation of each calculation
+ */
+@Component
+public class PatientFlagEvaluator {
+
+	@Autowired
+	private PatientFlagCache flagCache;
+
+	/**
+	 * Creates a calculation context which can be shared by the flag calculations of one request
+	 * @return the calculation context
+	 */
+	public PatientCalculationContext createCalculationContext() {
+		return Context.getService(PatientCalculationService.class).createCalculationContext();
+	}
+
+	/**
+	 * Evaluates a flag calculation once for a cohort of patients. Cached results are used where available, so the
+	 * calculation is only evaluated for the remaining patients
+	 * @param patientIds the patient ids
+	 * @param calculation the flag calculation
+	 * @param calculationContext the calculation context
+	 * @return the ids of the patients for whom the flag is set
+	 */
+	public Set<Integer> evaluate(Collection<Integer> patientIds, PatientFlagCalculation calculation, PatientCalculationContext calculationContext) {
+		Set<Integer> flagged = new HashSet<Integer>();
+		Set<Integer> uncached = new HashSet<Integer>();
+
+		for (Integer patientId : patientIds) {
+			Boolean cached = flagCache.get(patientId, calculation.getClass());
+			if (cached == null) {
+				uncached.add(patientId);
+			}
+			else if (cached) {
+				flagged.add(patientId);
+			}
+		}
+
+		if (uncached.isEmpty()) {
+			return flagged;
+		}
+
+		CalculationResultMap results = Context.getService(PatientCalculationService.class).evaluate(uncached, calculation, calculationContext);
+
+		for (Integer patientId : uncached) {
+			CalculationResult result = results.get(patientId);
+			boolean isFlagged = result != null && Boolean.TRUE.equals(result.getValue());
+			if (isFlagged) {
+				flagged.add(patientId);
+			}
+			flagCache.put(patientId, calculation.getClass(), isFlagged);
+		}
+		return flagged;
+	}
+}
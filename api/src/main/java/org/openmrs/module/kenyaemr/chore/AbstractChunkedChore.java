@@ -0,0 +1,326 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.chore;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.APIException;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.module.DaemonToken;
+import org.openmrs.module.kenyacore.chore.AbstractChore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base class for chores which process a large number of items (e.g. patients) by id. Items are processed in chunks,
+ * each in its own transaction, by a pool of worker threads. After each chunk is committed, a checkpoint global
+ * property records what has been completed, so that if the chore fails it resumes from there when it is next run.
+ */
+public abstract class AbstractChunkedChore extends AbstractChore {
+
+	protected static final Log log = LogFactory.getLog(AbstractChunkedChore.class);
+
+	public static final int DEFAULT_CHUNK_SIZE = 200;
+
+	public static final int MAX_WORKERS = 4;
+
+	private static DaemonToken daemonToken;
+
+	@Autowired
+	@Qualifier("transactionManager")
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Chunks in order of item ids
+	 */
+	private List<List<Integer>> chunks;
+
+	private boolean[] completedChunks;
+
+	/**
+	 * Index of the first chunk which isn't complete
+	 */
+	private int nextIncompleteChunk;
+
+	/**
+	 * The checkpoint this run resumed from
+	 */
+	private ChoreCheckpoint initialCheckpoint;
+
+	private ChoreCheckpoint checkpoint;
+
+	private int itemsCompleted;
+
+	private int itemsTotal;
+
+	private final Object checkpointLock = new Object();
+
+	/**
+	 * Sets the token used to run worker threads. Without a token, chunks are processed on the calling thread.
+	 * @param token the daemon token
+	 */
+	public static void setDaemonToken(DaemonToken token) {
+		daemonToken = token;
+	}
+
+	/**
+	 * Gets the ids of all items to be processed
+	 * @return the item ids
+	 */
+	protected abstract Collection<Integer> getItemIds();
+
+	/**
+	 * Processes a single item
+	 * @param id the item id
+	 */
+	protected abstract void processItem(Integer id);
+
+	/**
+	 * Processes a chunk of items. Called inside the chunk's transaction on a worker thread, so should only use
+	 * entities loaded on that thread.
+	 * @param ids the item ids
+	 */
+	protected void processChunk(List<Integer> ids) {
+		for (Integer id : ids) {
+			processItem(id);
+		}
+	}
+
+	/**
+	 * Called before any chunks are processed
+	 * @param out the output writer
+	 */
+	protected void beforeChunks(PrintWriter out) {
+	}
+
+	/**
+	 * Called after all chunks have been processed
+	 * @param out the output writer
+	 */
+	protected void afterChunks(PrintWriter out) {
+	}
+
+	/**
+	 * Gets the number of items in each chunk
+	 * @return the chunk size
+	 */
+	protected int getChunkSize() {
+		return DEFAULT_CHUNK_SIZE;
+	}
+
+	/**
+	 * Gets the number of worker threads
+	 * @return the number of workers
+	 */
+	protected int getWorkerCount() {
+		return daemonToken != null ? Math.min(Runtime.getRuntime().availableProcessors(), MAX_WORKERS) : 1;
+	}
+
+	/**
+	 * Gets the name of the global property which stores this chore's checkpoint
+	 * @return the property name
+	 */
+	protected String getCheckpointPropertyName() {
+		return getId() + ".checkpoint";
+	}
+
+	/**
+	 * @see AbstractChore#perform(java.io.PrintWriter)
+	 */
+	@Override
+	public void perform(final PrintWriter out) {
+		beforeChunks(out);
+
+		initialCheckpoint = loadCheckpoint();
+		checkpoint = initialCheckpoint;
+
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Integer id : getItemIds()) {
+			if (!checkpoint.isCompleted(id)) {
+				ids.add(id);
+			}
+		}
+		Collections.sort(ids);
+
+		chunks = new ArrayList<List<Integer>>();
+		for (int from = 0; from < ids.size(); from += getChunkSize()) {
+			chunks.add(ids.subList(from, Math.min(from + getChunkSize(), ids.size())));
+		}
+		completedChunks = new boolean[chunks.size()];
+		nextIncompleteChunk = 0;
+		itemsCompleted = 0;
+		itemsTotal = ids.size();
+
+		if (checkpoint.getCompletedUpTo() != null || !checkpoint.getCompletedRanges().isEmpty()) {
+			out.println("Resuming from checkpoint " + checkpoint + " with " + itemsTotal + " items remaining");
+		}
+
+		final AtomicInteger nextChunk = new AtomicInteger(0);
+		final List<RuntimeException> failures = Collections.synchronizedList(new ArrayList<RuntimeException>());
+
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int index;
+				while (failures.isEmpty() && (index = nextChunk.getAndIncrement()) < chunks.size()) {
+					try {
+						runChunk(index, out);
+					}
+					catch (RuntimeException ex) {
+						log.error("Chunk " + index + " of chore " + getId() + " failed", ex);
+						failures.add(ex);
+					}
+				}
+			}
+		};
+
+		int workers = Math.min(getWorkerCount(), chunks.size());
+		if (workers > 1) {
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int w = 0; w < workers; w++) {
+				threads.add(Daemon.runInDaemonThread(worker, daemonToken));
+			}
+			for (Thread thread : threads) {
+				try {
+					thread.join();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new APIException("Interrupted while waiting for chore " + getId(), ex);
+				}
+			}
+		}
+		else {
+			worker.run();
+		}
+
+		if (!failures.isEmpty()) {
+			throw new APIException("Chore " + getId() + " failed and will resume from checkpoint " + checkpoint + " when next run", failures.get(0));
+		}
+
+		afterChunks(out);
+
+		deleteCheckpoint();
+	}
+
+	/**
+	 * Processes a chunk in its own transaction, and records it in the checkpoint when it is committed. A new
+	 * transaction is always started, so chunks are committed even if the chore is run inside another transaction.
+	 * @param index the chunk index
+	 * @param out the output writer
+	 */
+	protected void runChunk(int index, PrintWriter out) {
+		List<Integer> ids = chunks.get(index);
+		TransactionStatus tx = transactionManager.getTransaction(new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+		try {
+			processChunk(ids);
+
+			Context.flushSession();
+			Context.clearSession();
+
+			// Commits are serialized so the stored checkpoint always matches what has been committed
+			synchronized (checkpointLock) {
+				completedChunks[index] = true;
+
+				int next = nextIncompleteChunk;
+				while (next < chunks.size() && completedChunks[next]) {
+					next++;
+				}
+				Integer completedUpTo = next > 0 ? last(chunks.get(next - 1)) : null;
+
+				List<ChoreCheckpoint.IdRange> ranges = new ArrayList<ChoreCheckpoint.IdRange>();
+				for (int c = next + 1; c < chunks.size(); c++) {
+					if (completedChunks[c]) {
+						ranges.add(new ChoreCheckpoint.IdRange(chunks.get(c).get(0), last(chunks.get(c))));
+					}
+				}
+
+				ChoreCheckpoint updated = initialCheckpoint.advance(completedUpTo, ranges);
+				try {
+					saveCheckpoint(updated);
+					transactionManager.commit(tx);
+				}
+				catch (RuntimeException ex) {
+					completedChunks[index] = false;
+					throw ex;
+				}
+
+				nextIncompleteChunk = next;
+				checkpoint = updated;
+				itemsCompleted += ids.size();
+
+				out.println("Processed " + itemsCompleted + " of " + itemsTotal + " items");
+				out.flush();
+			}
+		}
+		finally {
+			if (!tx.isCompleted()) {
+				transactionManager.rollback(tx);
+			}
+		}
+	}
+
+	/**
+	 * Loads the stored checkpoint
+	 * @return the checkpoint
+	 */
+	protected ChoreCheckpoint loadCheckpoint() {
+		String value = Context.getAdministrationService().getGlobalProperty(getCheckpointPropertyName());
+		return ChoreCheckpoint.parse(value);
+	}
+
+	/**
+	 * Stores a checkpoint
+	 * @param checkpoint the checkpoint
+	 */
+	protected void saveCheckpoint(ChoreCheckpoint checkpoint) {
+		AdministrationService adminService = Context.getAdministrationService();
+		GlobalProperty gp = adminService.getGlobalPropertyObject(getCheckpointPropertyName());
+		if (gp == null) {
+			gp = new GlobalProperty(getCheckpointPropertyName(), null, "Progress of the " + getId() + " chore");
+		}
+		gp.setPropertyValue(checkpoint.toString());
+		adminService.saveGlobalProperty(gp);
+	}
+
+	/**
+	 * Deletes the stored checkpoint once the chore is complete
+	 */
+	protected void deleteCheckpoint() {
+		AdministrationService adminService = Context.getAdministrationService();
+		GlobalProperty gp = adminService.getGlobalPropertyObject(getCheckpointPropertyName());
+		if (gp != null) {
+			adminService.purgeGlobalProperty(gp);
+		}
+	}
+
+	/**
+	 * Gets the last id in a chunk
+	 * @param chunk the chunk
+	 * @return the id
+	 */
+	private static Integer last(List<Integer> chunk) {
+		return chunk.get(chunk.size() - 1);
+	}
+}
@@ -0,0 +1,187 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.chore;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records which items a chunked chore has completed. Every item with id up to {@link #getCompletedUpTo()} is
+ * complete, as is every item in one of the completed ranges above it (chunks which finished before earlier chunks).
+ * Stored as text, e.g. "1200;1401-1600,1801-2000".
+ */
+public class ChoreCheckpoint {
+
+	private final Integer completedUpTo;
+
+	private final List<IdRange> completedRanges;
+
+	/**
+	 * Creates a checkpoint
+	 * @param completedUpTo the id up to which all items are complete (may be null)
+	 * @param completedRanges the ranges of complete items above that
+	 */
+	public ChoreCheckpoint(Integer completedUpTo, List<IdRange> completedRanges) {
+		this.completedUpTo = completedUpTo;
+
+		List<IdRange> ranges = new ArrayList<IdRange>();
+		for (IdRange range : completedRanges) {
+			if (completedUpTo == null || range.getLast() > completedUpTo) {
+				ranges.add(range);
+			}
+		}
+		this.completedRanges = Collections.unmodifiableList(ranges);
+	}
+
+	/**
+	 * Creates a checkpoint for a chore which hasn't completed anything
+	 * @return the checkpoint
+	 */
+	public static ChoreCheckpoint none() {
+		return new ChoreCheckpoint(null, Collections.<IdRange>emptyList());
+	}
+
+	/**
+	 * Parses a checkpoint
+	 * @param value the text value (may be blank)
+	 * @return the checkpoint
+	 * @throws IllegalArgumentException if value isn't a valid checkpoint
+	 */
+	public static ChoreCheckpoint parse(String value) {
+		if (StringUtils.isBlank(value)) {
+			return none();
+		}
+
+		String[] parts = value.trim().split(";", 2);
+		try {
+			Integer completedUpTo = StringUtils.isNotEmpty(parts[0]) ? Integer.valueOf(parts[0]) : null;
+
+			List<IdRange> ranges = new ArrayList<IdRange>();
+			if (parts.length > 1 && StringUtils.isNotEmpty(parts[1])) {
+				for (String range : parts[1].split(",")) {
+					String[] ends = range.split("-");
+					ranges.add(new IdRange(Integer.valueOf(ends[0]), Integer.valueOf(ends[1])));
+				}
+			}
+			return new ChoreCheckpoint(completedUpTo, ranges);
+		}
+		catch (RuntimeException ex) {
+			throw new IllegalArgumentException("Invalid chore checkpoint: " + value, ex);
+		}
+	}
+
+	/**
+	 * Gets the id up to which all items are complete
+	 * @return the id (may be null)
+	 */
+	public Integer getCompletedUpTo() {
+		return completedUpTo;
+	}
+
+	/**
+	 * Gets the ranges of complete items above {@link #getCompletedUpTo()}
+	 * @return the ranges
+	 */
+	public List<IdRange> getCompletedRanges() {
+		return completedRanges;
+	}
+
+	/**
+	 * Gets whether an item is complete
+	 * @param id the item id
+	 * @return true if complete
+	 */
+	public boolean isCompleted(Integer id) {
+		if (completedUpTo != null && id <= completedUpTo) {
+			return true;
+		}
+		for (IdRange range : completedRanges) {
+			if (range.contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a checkpoint which includes everything complete in this one, plus new progress
+	 * @param newCompletedUpTo the new id up to which all items are complete (may be null)
+	 * @param newRanges the new ranges of complete items
+	 * @return the checkpoint
+	 */
+	public ChoreCheckpoint advance(Integer newCompletedUpTo, List<IdRange> newRanges) {
+		Integer upTo = completedUpTo;
+		if (newCompletedUpTo != null && (upTo == null || newCompletedUpTo > upTo)) {
+			upTo = newCompletedUpTo;
+		}
+
+		List<IdRange> ranges = new ArrayList<IdRange>(completedRanges);
+		ranges.addAll(newRanges);
+		return new ChoreCheckpoint(upTo, ranges);
+	}
+
+	/**
+	 * @see Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		if (completedUpTo != null) {
+			sb.append(completedUpTo);
+		}
+		if (!completedRanges.isEmpty()) {
+			sb.append(";").append(StringUtils.join(completedRanges, ","));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * An inclusive range of item ids
+	 */
+	public static class IdRange {
+
+		private final int first;
+
+		private final int last;
+
+		public IdRange(int first, int last) {
+			this.first = first;
+			this.last = last;
+		}
+
+		public int getFirst() {
+			return first;
+		}
+
+		public int getLast() {
+			return last;
+		}
+
+		/**
+		 * Gets whether an id is in this range
+		 * @param id the id
+		 * @return true if in range
+		 */
+		public boolean contains(Integer id) {
+			return id >= first && id <= last;
+		}
+
+		/**
+		 * @see Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return first + "-" + last;
+		}
+	}
+}
@@ -9,34 +9,29 @@
  */
 package org.openmrs.module.kenyaemr.chore;
 
-import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.time.StopWatch;
 import org.openmrs.Cohort;
 import org.openmrs.Concept;
-import org.openmrs.DrugOrder;
 import org.openmrs.Encounter;
 import org.openmrs.EncounterType;
 import org.openmrs.Form;
 import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Person;
-import org.openmrs.User;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.EncounterService;
-import org.openmrs.api.FormService;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.context.Context;
-import org.openmrs.module.kenyacore.chore.AbstractChore;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.regimen.DrugReference;
 import org.openmrs.module.kenyaemr.regimen.RegimenChange;
 import org.openmrs.module.kenyaemr.regimen.RegimenChangeHistory;
-import org.openmrs.module.kenyaemr.regimen.RegimenComponent;
 import org.openmrs.module.kenyaemr.regimen.RegimenConfiguration;
 import org.openmrs.module.kenyaemr.regimen.RegimenConversionUtil;
 import org.openmrs.module.kenyaemr.regimen.RegimenDefinition;
 import org.openmrs.module.kenyaemr.regimen.RegimenDefinitionGroup;
+import org.openmrs.module.kenyaemr.regimen.RegimenDefinitionIndex;
 import org.openmrs.module.kenyaemr.regimen.RegimenOrder;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.springframework.stereotype.Component;
@@ -52,6 +47,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -63,7 +60,7 @@ import java.util.Set;
  * handles migration of orders to populate model for DrugRegimenHistory
  */
 @Component("kenyaemr.chore.migrateRegimenChangeHistory")
-public class MigrateRegimenChangeHistory extends AbstractChore {
+public class MigrateRegimenChangeHistory extends AbstractChunkedChore {
 
     private Map<String, Integer> masterSetConcepts = new LinkedHashMap<String, Integer>();
 
@@ -71,70 +68,87 @@ public class MigrateRegimenChangeHistory extends AbstractChore {
 
     private Map<String, List<RegimenDefinitionGroup>> regimenGroups = new LinkedHashMap<String, List<RegimenDefinitionGroup>>();
 
+    private Map<String, RegimenDefinitionIndex> definitionIndexes = new HashMap<String, RegimenDefinitionIndex>();
+
     /**
-     * @see AbstractChore#perform(PrintWriter)
+     * @see AbstractChunkedChore#beforeChunks(PrintWriter)
      */
-
     @Override
-    public void perform(PrintWriter out) {
-
-        ConceptService conceptService = Context.getConceptService();
-        Concept ARVRegimenConcept = conceptService.getConcept(1085);
-        Concept TBRegimenConcept = conceptService.getConcept(160021);
-        PatientService patientService = Context.getPatientService();
-        EncounterService encounterService = Context.getEncounterService();
-        FormService formService = Context.getFormService();
-        User defaultUser = Context.getUserService().getUser(1);
-
-        EncounterType encType = encounterService.getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
-        Form form = formService.getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
-
-        int tbRegimenConceptId = 160021;
-        int arvRegimenConceptId = 1085;
-
+    protected void beforeChunks(PrintWriter out) {
         refresh();
+    }
 
-        int counter=0;
+    /**
+     * @see AbstractChunkedChore#getItemIds()
+     */
+    @Override
+    protected Collection<Integer> getItemIds() {
+        return getPatientsWithOrders();
+    }
 
-        for (Integer patientId : getPatientsWithOrders()) {
-            Patient patient = patientService.getPatient(patientId);
-            RegimenChangeHistory tbRegimenHistory = RegimenChangeHistory.forPatient(patient, TBRegimenConcept);
-            RegimenChangeHistory hivRegimenHistory = RegimenChangeHistory.forPatient(patient, ARVRegimenConcept);
+    /**
+     * @see AbstractChunkedChore#processChunk(List)
+     */
+    @Override
+    protected void processChunk(List<Integer> patientIds) {
+        EncounterType encType = Context.getEncounterService().getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
+        Form form = Context.getFormService().getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
 
-            List<RegimenChange> tbRegimenChanges = tbRegimenHistory.getChanges();
-            List<RegimenChange> arvRegimenChanges = hivRegimenHistory.getChanges();
+        for (Integer patientId : patientIds) {
+            processPatient(patientId, form, encType);
+        }
+    }
 
-            if (tbRegimenChanges.size() < 1 && arvRegimenChanges.size() < 1) {
-                continue;
-            }
+    /**
+     * @see AbstractChunkedChore#processItem(Integer)
+     */
+    @Override
+    protected void processItem(Integer patientId) {
+        processChunk(Collections.singletonList(patientId));
+    }
 
-            if (tbRegimenChanges.size() > 0) {
-                processRegimenChanges(patient, tbRegimenConceptId, tbRegimenChanges, form, encType);
-            }
+    /**
+     * @see AbstractChunkedChore#afterChunks(PrintWriter)
+     */
+    @Override
+    protected void afterChunks(PrintWriter out) {
+        out.println("Completed migration for drug regimen history");
+        out.println("Voiding encounters with null regimen....");
+        voidAllEncountersWithNullRegimen();
+        discontinueAllActiveOrders();
+        out.println("Successfully completed all drug regimen migration operations");
+    }
 
-            if (arvRegimenChanges.size() > 0) {
-                processRegimenChanges(patient, arvRegimenConceptId, arvRegimenChanges, form, encType);
+    /**
+     * Creates regimen editor encounters from a patient's TB and ARV regimen changes
+     * @param patientId the patient id
+     * @param form the regimen editor form
+     * @param encType the regimen editor encounter type
+     */
+    private void processPatient(Integer patientId, Form form, EncounterType encType) {
+        ConceptService conceptService = Context.getConceptService();
+        Concept ARVRegimenConcept = conceptService.getConcept(1085);
+        Concept TBRegimenConcept = conceptService.getConcept(160021);
 
-            }
-            counter++;
+        int tbRegimenConceptId = 160021;
+        int arvRegimenConceptId = 1085;
 
-            if ((counter%400)==0) {
-                Context.flushSession();
-                Context.clearSession();
-                counter=0;
+        Patient patient = Context.getPatientService().getPatient(patientId);
+        RegimenChangeHistory tbRegimenHistory = RegimenChangeHistory.forPatient(patient, TBRegimenConcept);
+        RegimenChangeHistory hivRegimenHistory = RegimenChangeHistory.forPatient(patient, ARVRegimenConcept);
 
-            }
+        List<RegimenChange> tbRegimenChanges = tbRegimenHistory.getChanges();
+        List<RegimenChange> arvRegimenChanges = hivRegimenHistory.getChanges();
 
+        if (tbRegimenChanges.size() > 0) {
+            processRegimenChanges(patient, tbRegimenConceptId, tbRegimenChanges, form, encType);
         }
-        out.println("Completed migration for drug regimen history");
-        out.println("Voiding encounters with null regimen....");
-        voidAllEncountersWithNullRegimen();
-        discontinueAllActiveOrders();
-        out.println("Successfully completed all drug regimen migration operations");
 
+        if (arvRegimenChanges.size() > 0) {
+            processRegimenChanges(patient, arvRegimenConceptId, arvRegimenChanges, form, encType);
+        }
     }
 
-
     private void processRegimenChanges(Person patient, int masterSet, List<RegimenChange> changes, Form form, EncounterType encounterType) {
         PatientService patientService = Context.getPatientService();
         String program = masterSet == 1085 ? "ARV" : "TB";
@@ -202,6 +216,7 @@ public class MigrateRegimenChangeHistory extends AbstractChore {
         masterSetConcepts.clear();
         drugs.clear();
         regimenGroups.clear();
+        definitionIndexes.clear();
 
         for (RegimenConfiguration configuration : Context.getRegisteredComponents(RegimenConfiguration.class)) {
             try {
@@ -306,6 +321,7 @@ public class MigrateRegimenChangeHistory extends AbstractChore {
 
             drugs.put(categoryCode, categoryDrugs);
             regimenGroups.put(categoryCode, categoryGroups);
+            definitionIndexes.put(categoryCode, new RegimenDefinitionIndex(categoryGroups));
         }
     }
 
@@ -317,52 +333,12 @@ public class MigrateRegimenChangeHistory extends AbstractChore {
      * @return the definitions
      */
     public List<RegimenDefinition> findDefinitions(String category, RegimenOrder regimenOrder, boolean exact) {
-        List<RegimenDefinitionGroup> groups = regimenGroups.get(category);
-        if (groups == null) {
+        RegimenDefinitionIndex index = definitionIndexes.get(category);
+        if (index == null) {
             throw new IllegalArgumentException("No such category: " + category);
         }
 
-        List<RegimenDefinition> matches = new ArrayList<RegimenDefinition>();
-
-        for (RegimenDefinitionGroup group : groups) {
-            outer:
-            for (RegimenDefinition definition : group.getRegimens()) {
-                List<RegimenComponent> regimen = definition.getComponents();
-                Set<DrugOrder> orders = regimenOrder.getDrugOrders();
-
-                // Skip if regimen doesn't have same number of orders
-                if (regimen.size() != orders.size()) {
-                    continue;
-                }
-
-                // Check each component has an equivalent drug order
-                for (RegimenComponent component : regimen) {
-
-                    // Does regimen have a drug order for this component?
-                    boolean regimenHasComponent = false;
-                    for (DrugOrder order : orders) {
-                        DrugReference componentDrugRef = component.getDrugRef();
-                        DrugReference orderDrugRef = DrugReference.fromDrugOrder(order);
-                        if (componentDrugRef.equals(orderDrugRef)) {
-
-                            if (!exact || (ObjectUtils.equals(order.getDose(), component.getDose()) && order.getDoseUnits().equals(component.getUnits()) && order.getFrequency().getConcept().equals(component.getFrequency()))) {
-                                regimenHasComponent = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (!regimenHasComponent) {
-                        continue outer;
-                    }
-                }
-
-                // Regimen has all components of the definition
-                matches.add(definition);
-            }
-        }
-
-        return matches;
+        return index.findDefinitions(regimenOrder, exact);
     }
 
     protected Set<Integer> getPatientsWithOrders() {
@@ -9,7 +9,6 @@
  */
 package org.openmrs.module.kenyaemr.chore;
 
-import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.Encounter;
 import org.openmrs.EncounterType;
@@ -19,19 +18,16 @@ import org.openmrs.Order;
 import org.openmrs.Patient;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.EncounterService;
-import org.openmrs.api.FormService;
-import org.openmrs.api.OrderService;
-import org.openmrs.api.PatientService;
 import org.openmrs.api.context.Context;
-import org.openmrs.module.kenyacore.chore.AbstractChore;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
-import org.openmrs.module.reporting.cohort.definition.SqlCohortDefinition;
-import org.openmrs.module.reporting.cohort.definition.service.CohortDefinitionService;
-import org.openmrs.module.reporting.evaluation.EvaluationException;
 import org.springframework.stereotype.Component;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,110 +39,107 @@ import java.util.Set;
  * updates reason and date regimen stopped for migrated orders
  */
 @Component("kenyaemr.chore.UpdateRegimenChangeReasonAndDate")
-public class UpdateRegimenChangeReasonAndDate extends AbstractChore {
+public class UpdateRegimenChangeReasonAndDate extends AbstractChunkedChore {
+
+    private static final String REASON_REGIMEN_STOPPED_CODED = "1252AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+    private static final String DATE_REGIMEN_STOPPED = "1191AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+    private static final String REASON_REGIMEN_STOPPED_NON_CODED = "5622AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
 
     /**
-     * @see AbstractChore#perform(PrintWriter)
+     * @see AbstractChunkedChore#getItemIds()
      */
-
     @Override
-    public void perform(PrintWriter out) {
+    protected Collection<Integer> getItemIds() {
+        String sqlQuery = "select distinct patient_id from orders where date_stopped is not null and voided = 0";
+        List<Integer> patientIds = new ArrayList<Integer>();
+        for (Object patientId : Context.getService(KenyaEmrService.class).executeSqlQuery(sqlQuery, new HashMap<String, Object>())) {
+            patientIds.add(((Number) patientId).intValue());
+        }
+        return patientIds;
+    }
 
-        ConceptService conceptService = Context.getConceptService();
-        PatientService patientService = Context.getPatientService();
-        EncounterService encounterService = Context.getEncounterService();
-        FormService formService = Context.getFormService();
-        OrderService orderService = Context.getOrderService();
-        String REASON_REGIMEN_STOPPED_CODED = "1252AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        String DATE_REGIMEN_STOPPED = "1191AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        String REASON_REGIMEN_STOPPED_NON_CODED = "5622AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+    /**
+     * @see AbstractChunkedChore#processChunk(List)
+     */
+    @Override
+    protected void processChunk(List<Integer> patientIds) {
+        EncounterType encType = Context.getEncounterService().getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
+        Form form = Context.getFormService().getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
 
+        for (Integer patientId : patientIds) {
+            processPatient(patientId, form, encType);
+        }
+    }
 
+    /**
+     * @see AbstractChunkedChore#processItem(Integer)
+     */
+    @Override
+    protected void processItem(Integer patientId) {
+        processChunk(Collections.singletonList(patientId));
+    }
 
+    /**
+     * @see AbstractChunkedChore#afterChunks(PrintWriter)
+     */
+    @Override
+    protected void afterChunks(PrintWriter out) {
+        out.println("Completed updating migrated orders with reason for regimen change");
+    }
 
-        EncounterType encType = encounterService.getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
-        Form form = formService.getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
+    /**
+     * Adds date and reason stopped obs to a patient's regimen editor encounters from their discontinued orders
+     * @param patientId the patient id
+     * @param form the regimen editor form
+     * @param encType the regimen editor encounter type
+     */
+    private void processPatient(Integer patientId, Form form, EncounterType encType) {
+        ConceptService conceptService = Context.getConceptService();
+        EncounterService encounterService = Context.getEncounterService();
 
+        Patient p = Context.getPatientService().getPatient(patientId);
 
-        Map<Integer, Set<RegimenChangeReason>> records = new HashMap<Integer, Set<RegimenChangeReason>>();
-        for (Integer orderId : getDiscontinuedOrders().getMemberIds()) {
-            Order o = orderService.getOrder(orderId);
-            Integer patientId = orderService.getOrder(orderId).getPatient().getPatientId();
-            if (records.get(patientId) != null) {
-                records.get(patientId).add(new RegimenChangeReason(o.getPatient().getPatientId(), o.getDateActivated(), o.getDateStopped(), o.getOrderReason(), o.getOrderReasonNonCoded()));
-            } else {
-                Set<RegimenChangeReason> r = new HashSet<RegimenChangeReason>();
-                RegimenChangeReason cr = new RegimenChangeReason(o.getPatient().getPatientId(), o.getDateActivated(), o.getDateStopped(), o.getOrderReason(), o.getOrderReasonNonCoded());
-                r.add(cr);
-                records.put(patientId, r);
+        Set<RegimenChangeReason> changeReasons = new HashSet<RegimenChangeReason>();
+        for (Order o : Context.getOrderService().getAllOrdersByPatient(p)) {
+            if (!o.isVoided() && o.getDateStopped() != null) {
+                changeReasons.add(new RegimenChangeReason(patientId, o.getDateActivated(), o.getDateStopped(), o.getOrderReason(), o.getOrderReasonNonCoded()));
             }
         }
 
-
-        int counter = 0;
-        for (Map.Entry<Integer, Set<RegimenChangeReason>> entry : records.entrySet()) {
-
-            Patient p = patientService.getPatient(entry.getKey());
-            Set<RegimenChangeReason> changeReasons = entry.getValue();
-            List<Encounter> encounters = EmrUtils.AllEncounters(p, encType, form);
-            Map<Date, Encounter> encMap = new HashMap<Date, Encounter>();
-            for (Encounter e : encounters) {
-                encMap.put(e.getEncounterDatetime(), e);
-            }
-
-            for (RegimenChangeReason r : changeReasons) {
-
-                if (encMap.containsKey(r.getDateActivated())) {
-                    Encounter encounter = encMap.get(r.getDateActivated());
-
-                    // compose date stopped and reason stopped obs
-                    Obs dateStoppedObs = new Obs();
-                    dateStoppedObs.setConcept(conceptService.getConceptByUuid(DATE_REGIMEN_STOPPED));
-                    dateStoppedObs.setValueDatetime(r.dateStopped);
-                    dateStoppedObs.setObsDatetime(r.dateStopped);
-                    encounter.addObs(dateStoppedObs);
-
-                    Obs reasonStoppedCodedObs = new Obs();
-                    reasonStoppedCodedObs.setConcept(conceptService.getConceptByUuid(REASON_REGIMEN_STOPPED_CODED));
-                    reasonStoppedCodedObs.setValueCoded(r.reasonCoded);
-                    reasonStoppedCodedObs.setObsDatetime(r.dateStopped);
-                    encounter.addObs(reasonStoppedCodedObs);
-
-                    if (r.getReasonNonCoded() != null) {
-                        Obs reasonStoppedNonCodedObs = new Obs();
-                        reasonStoppedNonCodedObs.setConcept(conceptService.getConceptByUuid(REASON_REGIMEN_STOPPED_NON_CODED));
-                        reasonStoppedNonCodedObs.setValueText(r.reasonNonCoded);
-                        reasonStoppedNonCodedObs.setObsDatetime(r.dateStopped);
-                        encounter.addObs(reasonStoppedNonCodedObs);
-                    }
-                   encounterService.saveEncounter(encounter);
-                }
-            }
-            counter++;
-
-            if ((counter%500)==0) {
-                Context.flushSession();
-                Context.clearSession();
-                counter=0;
-            }
+        List<Encounter> encounters = EmrUtils.AllEncounters(p, encType, form);
+        Map<Date, Encounter> encMap = new HashMap<Date, Encounter>();
+        for (Encounter e : encounters) {
+            encMap.put(e.getEncounterDatetime(), e);
         }
 
-        out.println("Completed updating migrated orders with reason for regimen change");
+        for (RegimenChangeReason r : changeReasons) {
 
-    }
+            if (encMap.containsKey(r.getDateActivated())) {
+                Encounter encounter = encMap.get(r.getDateActivated());
 
+                // compose date stopped and reason stopped obs
+                Obs dateStoppedObs = new Obs();
+                dateStoppedObs.setConcept(conceptService.getConceptByUuid(DATE_REGIMEN_STOPPED));
+                dateStoppedObs.setValueDatetime(r.dateStopped);
+                dateStoppedObs.setObsDatetime(r.dateStopped);
+                encounter.addObs(dateStoppedObs);
 
+                Obs reasonStoppedCodedObs = new Obs();
+                reasonStoppedCodedObs.setConcept(conceptService.getConceptByUuid(REASON_REGIMEN_STOPPED_CODED));
+                reasonStoppedCodedObs.setValueCoded(r.reasonCoded);
+                reasonStoppedCodedObs.setObsDatetime(r.dateStopped);
+                encounter.addObs(reasonStoppedCodedObs);
 
-    private Cohort getDiscontinuedOrders() {
-        String sqlQuery = "select order_id from orders where date_stopped is not null and voided=0;";
-        Cohort cohort = null;
-        SqlCohortDefinition cohortDefinition = new SqlCohortDefinition(sqlQuery);
-        try {
-            cohort = Context.getService(CohortDefinitionService.class).evaluate(cohortDefinition, null);
-        } catch (EvaluationException e) {
-            e.printStackTrace();
+                if (r.getReasonNonCoded() != null) {
+                    Obs reasonStoppedNonCodedObs = new Obs();
+                    reasonStoppedNonCodedObs.setConcept(conceptService.getConceptByUuid(REASON_REGIMEN_STOPPED_NON_CODED));
+                    reasonStoppedNonCodedObs.setValueText(r.reasonNonCoded);
+                    reasonStoppedNonCodedObs.setObsDatetime(r.dateStopped);
+                    encounter.addObs(reasonStoppedNonCodedObs);
+                }
+                encounterService.saveEncounter(encounter);
+            }
         }
-        return cohort;
     }
 
     class RegimenChangeReason {
@@ -147,6 +147,9 @@ public class CommonMetadata extends AbstractMetadataBundle {
 
 		install(globalProperty(EmrConstants.GP_DHIS2_DATASET_MAPPING, "ADX Mapping for KenyaEMR and DHIS2 datasets", adxMappingString));
 		install(globalProperty(EmrConstants.GP_3PM_DATASET_MAPPING, "ADX Mapping for KenyaEMR and 3PM datasets", adx3pmMappingString));
+		install(globalProperty(EmrConstants.GP_DATASET_EVALUATION_THREADS, "Number of threads used to evaluate the data sets of a merged data set. 1 evaluates them one after another. Changes take effect when the module is restarted", "1"));
+		install(globalProperty(EmrConstants.GP_ADX_SUBMISSION_THREADS, "Maximum number of ADX messages posted to the IL server at the same time", "2"));
+		install(globalProperty(EmrConstants.GP_DASHBOARD_REFRESH_MINUTES, "Number of minutes between refreshes of the facility dashboard counts", "30"));
 
 		install(globalProperty("order.drugDosingUnitsConceptUuid", "Drug dosing units concept", "162384AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
 
@@ -9,10 +9,17 @@
  */
 package org.openmrs.module.kenyaemr.metadata;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.GlobalProperty;
 import org.openmrs.Location;
+import org.openmrs.api.context.Context;
 import org.openmrs.customdatatype.datatype.FreeTextDatatype;
 import org.openmrs.customdatatype.datatype.RegexValidatedTextDatatype;
+import org.openmrs.module.kenyaemr.EmrConstants;
 import org.openmrs.module.kenyaemr.metadata.sync.LocationMflCsvSource;
+import org.openmrs.module.kenyaemr.metadata.sync.LocationMflIndex;
 import org.openmrs.module.kenyaemr.metadata.sync.LocationMflSynchronization;
 import org.openmrs.module.metadatadeploy.bundle.AbstractMetadataBundle;
 import org.openmrs.module.metadatadeploy.bundle.Requires;
@@ -20,6 +27,12 @@ import org.openmrs.module.metadatadeploy.source.ObjectSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 import static org.openmrs.module.metadatadeploy.bundle.CoreConstructors.locationAttributeType;
 
 /**
@@ -29,9 +42,19 @@ import static org.openmrs.module.metadatadeploy.bundle.CoreConstructors.location
 @Requires({ CommonMetadata.class })
 public class FacilityMetadata extends AbstractMetadataBundle {
 
+	protected static final Log log = LogFactory.getLog(FacilityMetadata.class);
+
+	/**
+	 * The Master Facility List resource which locations are synced with
+	 */
+	public static final String MFL_RESOURCE = "metadata/mfl_2014-05-12.csv";
+
 	@Autowired
 	private LocationMflSynchronization mflSynchronization;
 
+	@Autowired
+	private LocationMflIndex mflIndex;
+
 	public static final class _Location {
 		public static final String UNKNOWN = "8d6c993e-c2cc-11de-8d13-0010c6dffd0f";
 	}
@@ -82,8 +105,59 @@ public class FacilityMetadata extends AbstractMetadataBundle {
 		));
 
 		if (full) {
-			ObjectSource<Location> source = new LocationMflCsvSource("metadata/mfl_2014-05-12.csv");
+			String checksum = getResourceChecksum(MFL_RESOURCE);
+			if (checksum.equals(Context.getAdministrationService().getGlobalProperty(EmrConstants.GP_MFL_SYNC_CHECKSUM))) {
+				log.info("Skipping facility sync as " + MFL_RESOURCE + " hasn't changed since the last sync");
+				return;
+			}
+
+			ObjectSource<Location> source = new LocationMflCsvSource(MFL_RESOURCE);
 			sync(source, mflSynchronization);
+			mflIndex.invalidate();
+
+			saveSyncChecksum(checksum);
+		}
+	}
+
+	/**
+	 * Gets the checksum of a resource
+	 * @param path the resource path
+	 * @return the checksum as hex
+	 * @throws IOException if the resource can't be read
+	 */
+	protected static String getResourceChecksum(String path) throws IOException {
+		InputStream in = FacilityMetadata.class.getClassLoader().getResourceAsStream(path);
+		if (in == null) {
+			throw new IOException("Resource " + path + " not found");
+		}
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+			return String.format("%032x", new BigInteger(1, digest.digest()));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Records the checksum of the last synced facility list
+	 * @param checksum the checksum
+	 */
+	protected void saveSyncChecksum(String checksum) {
+		GlobalProperty gp = Context.getAdministrationService().getGlobalPropertyObject(EmrConstants.GP_MFL_SYNC_CHECKSUM);
+		if (gp == null) {
+			gp = new GlobalProperty(EmrConstants.GP_MFL_SYNC_CHECKSUM, null, "Checksum of the facility list when it was last synced. Clear to force a sync on the next startup");
 		}
+		gp.setPropertyValue(checksum);
+		Context.getAdministrationService().saveGlobalProperty(gp);
 	}
 }
\ No newline at end of file
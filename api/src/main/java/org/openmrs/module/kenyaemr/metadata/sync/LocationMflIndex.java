@@ -0,0 +1,128 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.metadata.sync;
+
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
+import org.openmrs.module.kenyaemr.wrapper.Facility;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory index of location ids by master facility code, and of codes by location id. It is loaded when first
+ * used, reloaded after the facility list is synced and kept up to date as locations are saved. Callers should
+ * treat it as a hint and check the location they load, as changes made outside the location service (e.g. directly
+ * in the database) aren't seen.
+ */
+@Component
+public class LocationMflIndex {
+
+	private static final String CODES_QUERY = "select la.owner.locationId, la.valueReference, la.owner.retired from LocationAttribute la"
+			+ " where la.voided = false and la.attributeType.uuid = :attrTypeUuid";
+
+	private Map<String, Integer> locationIdsByCode;
+
+	private Map<Integer, String> codesByLocationId;
+
+	/**
+	 * Gets the id of the non-retired location with the given code
+	 * @param mflCode the master facility code
+	 * @return the location id, or null if no location is indexed with that code
+	 */
+	public synchronized Integer getLocationId(String mflCode) {
+		ensureLoaded();
+		return locationIdsByCode.get(mflCode);
+	}
+
+	/**
+	 * Gets the code of a location
+	 * @param locationId the location id
+	 * @return the master facility code, or null if the location isn't indexed with a code
+	 */
+	public synchronized String getMflCode(Integer locationId) {
+		ensureLoaded();
+		return codesByLocationId.get(locationId);
+	}
+
+	/**
+	 * Updates the entries for a location from its current code and retired status
+	 * @param location the location
+	 */
+	public synchronized void update(Location location) {
+		if (locationIdsByCode == null || location == null || location.getLocationId() == null) {
+			return;
+		}
+
+		remove(location.getLocationId());
+
+		String mflCode = new Facility(location).getMflCode();
+		if (mflCode != null) {
+			codesByLocationId.put(location.getLocationId(), mflCode);
+			if (!location.isRetired()) {
+				locationIdsByCode.put(mflCode, location.getLocationId());
+			}
+		}
+	}
+
+	/**
+	 * Removes the entries for a location
+	 * @param locationId the location id
+	 */
+	public synchronized void remove(Integer locationId) {
+		if (locationIdsByCode == null) {
+			return;
+		}
+
+		String oldCode = codesByLocationId.remove(locationId);
+		if (oldCode != null && locationId.equals(locationIdsByCode.get(oldCode))) {
+			locationIdsByCode.remove(oldCode);
+		}
+	}
+
+	/**
+	 * Discards all entries so that the index is reloaded when next used
+	 */
+	public synchronized void invalidate() {
+		locationIdsByCode = null;
+		codesByLocationId = null;
+	}
+
+	/**
+	 * Loads the index from the database if it isn't loaded
+	 */
+	protected void ensureLoaded() {
+		if (locationIdsByCode != null) {
+			return;
+		}
+
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("attrTypeUuid", FacilityMetadata._LocationAttributeType.MASTER_FACILITY_CODE);
+
+		Map<String, Integer> idsByCode = new HashMap<String, Integer>();
+		Map<Integer, String> codesById = new HashMap<Integer, String>();
+		for (Object result : Context.getService(KenyaEmrService.class).executeHqlQuery(CODES_QUERY, params)) {
+			Object[] row = (Object[]) result;
+			Integer locationId = (Integer) row[0];
+			String mflCode = (String) row[1];
+
+			codesById.put(locationId, mflCode);
+			if (!Boolean.TRUE.equals(row[2])) {
+				idsByCode.put(mflCode, locationId);
+			}
+		}
+
+		locationIdsByCode = idsByCode;
+		codesByLocationId = codesById;
+	}
+}
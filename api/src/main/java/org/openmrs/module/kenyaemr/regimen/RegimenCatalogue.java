@@ -0,0 +1,117 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.regimen;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable index of regimen short names and lines by regimen concept reference, parsed once from the regimen concept
+ * JSON. Where a concept is listed more than once, the first entry is used.
+ */
+public class RegimenCatalogue {
+
+	private static volatile RegimenCatalogue instance;
+
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Creates a new catalogue from JSON
+	 * @param regimenJson the JSON array of regimens with name, conceptRef and regimenLine
+	 * @throws IOException if the JSON can't be parsed
+	 */
+	public RegimenCatalogue(String regimenJson) throws IOException {
+		Map<String, Entry> index = new HashMap<String, Entry>();
+
+		for (JsonNode node : new ObjectMapper().readTree(regimenJson)) {
+			String conceptRef = node.get("conceptRef").asText();
+			if (!index.containsKey(conceptRef)) {
+				index.put(conceptRef, new Entry(node.get("name").asText(), node.get("regimenLine").asText()));
+			}
+		}
+
+		this.entries = Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * Gets the catalogue, loading it on first use
+	 * @return the catalogue
+	 */
+	public static RegimenCatalogue getInstance() {
+		RegimenCatalogue catalogue = instance;
+		if (catalogue == null) {
+			catalogue = reload();
+		}
+		return catalogue;
+	}
+
+	/**
+	 * Reloads the catalogue from the regimen concept JSON
+	 * @return the new catalogue
+	 */
+	public static synchronized RegimenCatalogue reload() {
+		try {
+			instance = new RegimenCatalogue(EncounterBasedRegimenUtils.getRegimenConceptJson());
+			return instance;
+		}
+		catch (IOException ex) {
+			throw new RuntimeException("Unable to parse regimen concept JSON", ex);
+		}
+	}
+
+	/**
+	 * Gets the short name of a regimen
+	 * @param conceptRef the regimen concept reference
+	 * @return the name or null if regimen is not in the catalogue
+	 */
+	public String getName(String conceptRef) {
+		Entry entry = entries.get(conceptRef);
+		return entry != null ? entry.name : null;
+	}
+
+	/**
+	 * Gets the line of a regimen
+	 * @param conceptRef the regimen concept reference
+	 * @return the line or null if regimen is not in the catalogue
+	 */
+	public String getLine(String conceptRef) {
+		Entry entry = entries.get(conceptRef);
+		return entry != null ? entry.line : null;
+	}
+
+	/**
+	 * Gets the number of regimens in the catalogue
+	 * @return the number of regimens
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * A regimen name and line
+	 */
+	private static class Entry {
+
+		private final String name;
+
+		private final String line;
+
+		public Entry(String name, String line) {
+			this.name = name;
+			this.line = line;
+		}
+	}
+}
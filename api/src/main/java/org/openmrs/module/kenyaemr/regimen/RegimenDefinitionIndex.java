@@ -0,0 +1,182 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.regimen;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.Concept;
+import org.openmrs.DrugOrder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the regimen definitions in a category by signature, so that the definitions matching a regimen can be
+ * found without comparing it to every definition. A drug signature is the sorted list of a regimen's drug
+ * references, and an exact signature also includes the dose, units and frequency of each drug.
+ */
+public class RegimenDefinitionIndex {
+
+	private final Map<String, List<RegimenDefinition>> byDrugSignature = new HashMap<String, List<RegimenDefinition>>();
+
+	private final Map<String, List<RegimenDefinition>> byExactSignature = new HashMap<String, List<RegimenDefinition>>();
+
+	/**
+	 * Definitions which reference the same drug more than once, which can't be matched by signature
+	 */
+	private final List<RegimenDefinition> unindexed = new ArrayList<RegimenDefinition>();
+
+	private final Map<RegimenDefinition, Integer> positions = new IdentityHashMap<RegimenDefinition, Integer>();
+
+	/**
+	 * Creates an index of the given groups of definitions
+	 * @param groups the definition groups
+	 */
+	public RegimenDefinitionIndex(List<RegimenDefinitionGroup> groups) {
+		for (RegimenDefinitionGroup group : groups) {
+			for (RegimenDefinition definition : group.getRegimens()) {
+				positions.put(definition, positions.size());
+
+				List<String> drugKeys = new ArrayList<String>();
+				List<String> exactKeys = new ArrayList<String>();
+				for (RegimenComponent component : definition.getComponents()) {
+					drugKeys.add(component.getDrugRef().toString());
+					exactKeys.add(exactKey(component.getDrugRef(), component.getDose(), component.getUnits(), component.getFrequency()));
+				}
+
+				if (new HashSet<String>(drugKeys).size() < drugKeys.size()) {
+					unindexed.add(definition);
+					continue;
+				}
+
+				addToIndex(byDrugSignature, signature(drugKeys), definition);
+				addToIndex(byExactSignature, signature(exactKeys), definition);
+			}
+		}
+	}
+
+	/**
+	 * Finds definitions that match the given regimen
+	 * @param regimenOrder the regimen
+	 * @param exact whether matches must be exact (includes dose, units and frequency)
+	 * @return the definitions, in the order they were defined
+	 */
+	public List<RegimenDefinition> findDefinitions(RegimenOrder regimenOrder, boolean exact) {
+		Set<DrugOrder> orders = regimenOrder.getDrugOrders();
+
+		List<String> keys = new ArrayList<String>();
+		for (DrugOrder order : orders) {
+			DrugReference drugRef = DrugReference.fromDrugOrder(order);
+			if (exact) {
+				Concept frequency = order.getFrequency() != null ? order.getFrequency().getConcept() : null;
+				keys.add(exactKey(drugRef, order.getDose(), order.getDoseUnits(), frequency));
+			}
+			else {
+				keys.add(drugRef.toString());
+			}
+		}
+
+		List<RegimenDefinition> indexed = (exact ? byExactSignature : byDrugSignature).get(signature(keys));
+		List<RegimenDefinition> matches = indexed != null ? new ArrayList<RegimenDefinition>(indexed) : new ArrayList<RegimenDefinition>();
+
+		if (!unindexed.isEmpty()) {
+			for (RegimenDefinition definition : unindexed) {
+				if (matchesByComponent(definition, orders, exact)) {
+					matches.add(definition);
+				}
+			}
+
+			Collections.sort(matches, new Comparator<RegimenDefinition>() {
+				@Override
+				public int compare(RegimenDefinition def1, RegimenDefinition def2) {
+					return positions.get(def1).compareTo(positions.get(def2));
+				}
+			});
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Checks whether each component of a definition has an equivalent drug order
+	 * @param definition the definition
+	 * @param orders the drug orders
+	 * @param exact whether matches must be exact (includes dose, units and frequency)
+	 * @return true if definition matches
+	 */
+	protected static boolean matchesByComponent(RegimenDefinition definition, Set<DrugOrder> orders, boolean exact) {
+		List<RegimenComponent> regimen = definition.getComponents();
+		if (regimen.size() != orders.size()) {
+			return false;
+		}
+
+		for (RegimenComponent component : regimen) {
+			boolean regimenHasComponent = false;
+			for (DrugOrder order : orders) {
+				if (component.getDrugRef().equals(DrugReference.fromDrugOrder(order))) {
+					if (!exact || (ObjectUtils.equals(order.getDose(), component.getDose()) && order.getDoseUnits().equals(component.getUnits()) && order.getFrequency().getConcept().equals(component.getFrequency()))) {
+						regimenHasComponent = true;
+						break;
+					}
+				}
+			}
+
+			if (!regimenHasComponent) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the exact key for a single drug
+	 * @param drugRef the drug reference
+	 * @param dose the dose
+	 * @param units the dose units
+	 * @param frequency the frequency concept
+	 * @return the key
+	 */
+	protected static String exactKey(DrugReference drugRef, Double dose, Concept units, Concept frequency) {
+		return drugRef + "|" + dose + "|" + (units != null ? units.getUuid() : null) + "|" + (frequency != null ? frequency.getUuid() : null);
+	}
+
+	/**
+	 * Creates a signature from a list of keys, which doesn't depend on their order
+	 * @param keys the keys
+	 * @return the signature
+	 */
+	protected static String signature(List<String> keys) {
+		List<String> sorted = new ArrayList<String>(keys);
+		Collections.sort(sorted);
+		return StringUtils.join(sorted, ",");
+	}
+
+	/**
+	 * Adds a definition to one of the indexes
+	 * @param index the index
+	 * @param signature the signature
+	 * @param definition the definition
+	 */
+	private static void addToIndex(Map<String, List<RegimenDefinition>> index, String signature, RegimenDefinition definition) {
+		List<RegimenDefinition> definitions = index.get(signature);
+		if (definitions == null) {
+			definitions = new ArrayList<RegimenDefinition>();
+			index.put(signature, definitions);
+		}
+		definitions.add(definition);
+	}
+}
@@ -9,9 +9,7 @@
  */
 package org.openmrs.module.kenyaemr.regimen;
 
-import org.apache.commons.lang.ObjectUtils;
 import org.openmrs.Concept;
-import org.openmrs.DrugOrder;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.ContentManager;
@@ -48,6 +46,8 @@ public class RegimenManager implements ContentManager {
 
 	private Map<String, List<RegimenDefinitionGroup>> regimenGroups = new LinkedHashMap<String, List<RegimenDefinitionGroup>>();
 
+	private Map<String, RegimenDefinitionIndex> definitionIndexes = new HashMap<String, RegimenDefinitionIndex>();
+
 	/**
 	 * @see org.openmrs.module.kenyacore.ContentManager#getPriority()
 	 */
@@ -64,6 +64,7 @@ public class RegimenManager implements ContentManager {
 		masterSetConcepts.clear();
 		drugs.clear();
 		regimenGroups.clear();
+		definitionIndexes.clear();
 
 		for (RegimenConfiguration configuration : Context.getRegisteredComponents(RegimenConfiguration.class)) {
 			try {
@@ -77,6 +78,8 @@ public class RegimenManager implements ContentManager {
 				throw new RuntimeException("Unable to load " + configuration.getModuleId() + ":" + configuration.getDefinitionsPath(), ex);
 			}
 		}
+
+		RegimenCatalogue.reload();
 	}
 
 	/**
@@ -124,53 +127,12 @@ public class RegimenManager implements ContentManager {
 	 * @return the definitions
 	 */
 	public List<RegimenDefinition> findDefinitions(String category, RegimenOrder regimenOrder, boolean exact) {
-		List<RegimenDefinitionGroup> groups = regimenGroups.get(category);
-		if (groups == null) {
+		RegimenDefinitionIndex index = definitionIndexes.get(category);
+		if (index == null) {
 			throw new IllegalArgumentException("No such category: " + category);
 		}
 
-		List<RegimenDefinition> matches = new ArrayList<RegimenDefinition>();
-
-		for (RegimenDefinitionGroup group : groups) {
-			outer:
-			for (RegimenDefinition definition : group.getRegimens()) {
-				List<RegimenComponent> regimen = definition.getComponents();
-				Set<DrugOrder> orders = regimenOrder.getDrugOrders();
-
-				// Skip if regimen doesn't have same number of orders
-				if (regimen.size() != orders.size()) {
-					continue;
-				}
-
-				// Check each component has an equivalent drug order
-				for (RegimenComponent component : regimen) {
-
-					// Does regimen have a drug order for this component?
-					boolean regimenHasComponent = false;
-					for (DrugOrder order : orders) {
-						DrugReference componentDrugRef = component.getDrugRef();
-						DrugReference orderDrugRef = DrugReference.fromDrugOrder(order);
-
-						if (componentDrugRef.equals(orderDrugRef)) {
-
-							if (!exact || (ObjectUtils.equals(order.getDose(), component.getDose()) && order.getDoseUnits().equals(component.getUnits()) && order.getFrequency().getConcept().equals(component.getFrequency()))) {
-								regimenHasComponent = true;
-								break;
-							}
-						}
-					}
-
-					if (!regimenHasComponent) {
-						continue outer;
-					}
-				}
-
-				// Regimen has all components of the definition
-				matches.add(definition);
-			}
-		}
-
-		return matches;
+		return index.findDefinitions(regimenOrder, exact);
 	}
 
 	/**
@@ -264,6 +226,7 @@ public class RegimenManager implements ContentManager {
 
 			drugs.put(categoryCode, categoryDrugs);
 			regimenGroups.put(categoryCode, categoryGroups);
+			definitionIndexes.put(categoryCode, new RegimenDefinitionIndex(categoryGroups));
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting;
+
+import org.openmrs.Cohort;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.context.EncounterEvaluationContext;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.openmrs.module.reporting.query.encounter.EncounterIdSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utility methods for evaluating queries against the ETL tables. Queries are restricted to the patients (or
+ * encounters) of the evaluation context by including an "in (:patientIds)" (or "in (:encounterIds)") condition,
+ * which is bound to the base cohort in chunks, so that only the rows of those patients are read.
+ */
+public class ETLQueryUtils {
+
+	/**
+	 * Name of the parameter bound to the patient ids of the base cohort
+	 */
+	public static final String PATIENT_IDS = "patientIds";
+
+	/**
+	 * Name of the parameter bound to the encounter ids of the base encounters
+	 */
+	public static final String ENCOUNTER_IDS = "encounterIds";
+
+	/**
+	 * Maximum number of ids bound into a single query
+	 */
+	public static final int CHUNK_SIZE = 1000;
+
+	/**
+	 * Evaluates a query which returns a value per patient, restricted to the base cohort of the context
+	 * @param evaluationService the evaluation service
+	 * @param qry the SQL query, containing an "in (:patientIds)" condition
+	 * @param context the evaluation context
+	 * @return the values by patient id
+	 * @throws EvaluationException if query fails
+	 */
+	public static Map<Integer, Object> evaluatePatientData(EvaluationService evaluationService, String qry, EvaluationContext context) throws EvaluationException {
+		return evaluatePatientData(evaluationService, qry, null, context);
+	}
+
+	/**
+	 * Evaluates a query which returns a value per patient, restricted to the base cohort of the context
+	 * @param evaluationService the evaluation service
+	 * @param qry the SQL query, containing an "in (:patientIds)" condition
+	 * @param parameters other parameters of the query, such as report dates (may be null)
+	 * @param context the evaluation context
+	 * @return the values by patient id
+	 * @throws EvaluationException if query fails
+	 */
+	public static Map<Integer, Object> evaluatePatientData(EvaluationService evaluationService, String qry, Map<String, Object> parameters, EvaluationContext context) throws EvaluationException {
+		return evaluateToMap(evaluationService, buildQueries(qry, parameters, PATIENT_IDS, getBaseCohortIds(context)), context);
+	}
+
+	/**
+	 * Evaluates a query which returns rows starting with a patient id, restricted to the base cohort of the context
+	 * @param evaluationService the evaluation service
+	 * @param qry the SQL query, containing an "in (:patientIds)" condition
+	 * @param context the evaluation context
+	 * @return the rows
+	 * @throws EvaluationException if query fails
+	 */
+	public static List<Object[]> evaluatePatientRows(EvaluationService evaluationService, String qry, EvaluationContext context) throws EvaluationException {
+		List<Object[]> ret = new ArrayList<Object[]>();
+		for (SqlQueryBuilder queryBuilder : buildQueries(qry, PATIENT_IDS, getBaseCohortIds(context))) {
+			ret.addAll(evaluationService.evaluateToList(queryBuilder, context));
+		}
+		return ret;
+	}
+
+	/**
+	 * Evaluates a query which returns a value per encounter, restricted to the base encounters of the context
+	 * @param evaluationService the evaluation service
+	 * @param qry the SQL query, containing an "in (:encounterIds)" condition
+	 * @param context the evaluation context
+	 * @return the values by encounter id
+	 * @throws EvaluationException if query fails
+	 */
+	public static Map<Integer, Object> evaluateEncounterData(EvaluationService evaluationService, String qry, EvaluationContext context) throws EvaluationException {
+		return evaluateToMap(evaluationService, buildQueries(qry, ENCOUNTER_IDS, getBaseEncounterIds(context)), context);
+	}
+
+	/**
+	 * Gets the patient ids of the base cohort of a context
+	 * @param context the evaluation context
+	 * @return the patient ids or null if there is no base cohort
+	 */
+	public static Set<Integer> getBaseCohortIds(EvaluationContext context) {
+		Cohort baseCohort = context.getBaseCohort();
+		return baseCohort != null ? baseCohort.getMemberIds() : null;
+	}
+
+	/**
+	 * Gets the encounter ids of the base encounters of a context
+	 * @param context the evaluation context
+	 * @return the encounter ids or null if there are no base encounters
+	 */
+	public static Set<Integer> getBaseEncounterIds(EvaluationContext context) {
+		if (context instanceof EncounterEvaluationContext) {
+			EncounterIdSet baseEncounters = ((EncounterEvaluationContext) context).getBaseEncounters();
+			if (baseEncounters != null) {
+				return baseEncounters.getMemberIds();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the queries needed to cover the given ids. If ids is null, the restriction is removed from the query and
+	 * a single unrestricted query is returned. If ids is empty, no queries are returned.
+	 * @param qry the SQL query
+	 * @param parameter the name of the id parameter
+	 * @param ids the ids
+	 * @return the query builders
+	 */
+	protected static List<SqlQueryBuilder> buildQueries(String qry, String parameter, Set<Integer> ids) {
+		return buildQueries(qry, null, parameter, ids);
+	}
+
+	/**
+	 * Builds the queries needed to cover the given ids, each with the given other parameters
+	 * @param qry the SQL query
+	 * @param parameters the other parameters (may be null)
+	 * @param parameter the name of the id parameter
+	 * @param ids the ids
+	 * @return the query builders
+	 * @see #buildQueries(String, String, java.util.Set)
+	 */
+	protected static List<SqlQueryBuilder> buildQueries(String qry, Map<String, Object> parameters, String parameter, Set<Integer> ids) {
+		List<SqlQueryBuilder> ret = new ArrayList<SqlQueryBuilder>();
+
+		if (ids == null) {
+			Pattern restriction = Pattern.compile("in\\s*\\(\\s*:" + parameter + "\\s*\\)", Pattern.CASE_INSENSITIVE);
+
+			SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
+			queryBuilder.append(restriction.matcher(qry).replaceAll("is not null"));
+			addParameters(queryBuilder, parameters);
+			ret.add(queryBuilder);
+			return ret;
+		}
+
+		List<Integer> idList = new ArrayList<Integer>(ids);
+		for (int start = 0; start < idList.size(); start += CHUNK_SIZE) {
+			SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
+			queryBuilder.append(qry);
+			queryBuilder.addParameter(parameter, new ArrayList<Integer>(idList.subList(start, Math.min(start + CHUNK_SIZE, idList.size()))));
+			addParameters(queryBuilder, parameters);
+			ret.add(queryBuilder);
+		}
+		return ret;
+	}
+
+	/**
+	 * Adds parameters to a query
+	 * @param queryBuilder the query builder
+	 * @param parameters the parameters (may be null)
+	 */
+	private static void addParameters(SqlQueryBuilder queryBuilder, Map<String, Object> parameters) {
+		if (parameters != null) {
+			for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+				queryBuilder.addParameter(parameter.getKey(), parameter.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Evaluates queries which return a value per id, and merges the results
+	 * @param evaluationService the evaluation service
+	 * @param queryBuilders the query builders
+	 * @param context the evaluation context
+	 * @return the merged values
+	 * @throws EvaluationException if a query fails
+	 */
+	private static Map<Integer, Object> evaluateToMap(EvaluationService evaluationService, List<SqlQueryBuilder> queryBuilders, EvaluationContext context) throws EvaluationException {
+		Map<Integer, Object> ret = new HashMap<Integer, Object>();
+		for (SqlQueryBuilder queryBuilder : queryBuilders) {
+			ret.putAll(evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context));
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable lookup of 3PM data element and category option combo ids by KPIF monthly report indicator, loaded once
+ * from a bundled resource
+ */
+public class KpifIndicatorMappings {
+
+	public static final String RESOURCE = "adx/kpif-3pm-indicators.csv";
+
+	private final Map<String, String> mappings;
+
+	/**
+	 * Creates new mappings from indicator,id lines. Blank lines and lines starting with # are ignored.
+	 * @param reader the reader
+	 * @throws IOException if the lines can't be read
+	 * @throws IllegalArgumentException if a line is malformed or an indicator is mapped more than once
+	 */
+	public KpifIndicatorMappings(Reader reader) throws IOException {
+		Map<String, String> index = new HashMap<String, String>();
+		BufferedReader lines = new BufferedReader(reader);
+
+		String line;
+		int lineNumber = 0;
+		while ((line = lines.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.length() == 0 || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] parts = StringUtils.split(line, ",");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Malformed indicator mapping on line " + lineNumber + ": " + line);
+			}
+
+			String indicator = parts[0].trim();
+			if (index.containsKey(indicator)) {
+				throw new IllegalArgumentException("Duplicate indicator mapping on line " + lineNumber + ": " + indicator);
+			}
+			index.put(indicator, parts[1].trim());
+		}
+
+		this.mappings = Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * Gets the mappings bundled with the module, loading them on first use
+	 * @return the mappings
+	 */
+	public static KpifIndicatorMappings getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Gets the 3PM id of an indicator
+	 * @param indicator the indicator name and disaggregation
+	 * @return the DUID-CUID or null if indicator is not mapped
+	 */
+	public String getIndicatorId(String indicator) {
+		return mappings.get(indicator);
+	}
+
+	/**
+	 * Gets the number of mapped indicators
+	 * @return the number of indicators
+	 */
+	public int size() {
+		return mappings.size();
+	}
+
+	/**
+	 * Loads the bundled mappings
+	 * @return the mappings
+	 */
+	private static KpifIndicatorMappings load() {
+		InputStream in = KpifIndicatorMappings.class.getClassLoader().getResourceAsStream(RESOURCE);
+		if (in == null) {
+			throw new RuntimeException("Unable to find " + RESOURCE);
+		}
+		try {
+			return new KpifIndicatorMappings(new InputStreamReader(in, "UTF-8"));
+		}
+		catch (IOException ex) {
+			throw new RuntimeException("Unable to load " + RESOURCE, ex);
+		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Holds the bundled mappings, so that they are loaded on first use
+	 */
+	private static class Holder {
+
+		private static final KpifIndicatorMappings INSTANCE = load();
+	}
+}
@@ -0,0 +1,313 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.adx;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.api.db.AdxOutboxDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent outbox for ADX messages. Messages are saved to the kenyaemr_adx_outbox table and posted by a background
+ * scheduler using a bounded number of threads. Failed posts are retried with exponential backoff until they succeed,
+ * are rejected by the server, or run out of attempts. Messages are streamed into and out of the table, and are
+ * spooled to a temporary file while being posted, so they are never held in memory.
+ */
+@Component
+public class AdxOutbox {
+
+	protected static final Log log = LogFactory.getLog(AdxOutbox.class);
+
+	/**
+	 * Time between checks for due messages
+	 */
+	public static final long POLL_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Delay before the first retry. Each later retry waits twice as long.
+	 */
+	public static final long INITIAL_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Maximum delay between retries
+	 */
+	public static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+	/**
+	 * Number of attempts after which a message is marked as failed
+	 */
+	public static final int MAX_ATTEMPTS = 15;
+
+	/**
+	 * Maximum number of due messages picked up by one check
+	 */
+	public static final int BATCH_SIZE = 20;
+
+	@Autowired
+	private AdxOutboxDAO dao;
+
+	private AdxSender sender = new AdxSender();
+
+	private ScheduledExecutorService scheduler;
+
+	private ExecutorService senders;
+
+	private final Runnable poller = new Runnable() {
+		@Override
+		public void run() {
+			Context.openSession();
+			try {
+				sendDue();
+			}
+			catch (Exception ex) {
+				log.error("Unable to send ADX messages", ex);
+			}
+			finally {
+				Context.closeSession();
+			}
+		}
+	};
+
+	/**
+	 * Starts the background scheduler. Messages which were being sent when the scheduler last stopped are made due.
+	 */
+	public synchronized void start() {
+		if (scheduler != null) {
+			return;
+		}
+
+		dao.resetStatus(AdxSubmission.Status.SENDING, AdxSubmission.Status.PENDING);
+
+		senders = Executors.newFixedThreadPool(getThreadCount());
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.scheduleWithFixedDelay(poller, 0, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background scheduler
+	 */
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			senders.shutdownNow();
+			scheduler = null;
+			senders = null;
+		}
+	}
+
+	/**
+	 * Saves a message to the outbox. It is sent in the background as soon as possible.
+	 * @param reportName the report name
+	 * @param orgUnit the organisation unit, i.e. the facility MFL code
+	 * @param serverAddress the server address
+	 * @param payload the ADX message, which is read to the end but not closed
+	 * @return the submission id
+	 */
+	public Integer submit(String reportName, String orgUnit, String serverAddress, Reader payload) {
+		Integer id = dao.insert(reportName, orgUnit, serverAddress, payload, new Date());
+
+		synchronized (this) {
+			if (scheduler != null) {
+				scheduler.execute(poller);
+			}
+		}
+
+		return id;
+	}
+
+	/**
+	 * Gets a submission, without its message
+	 * @param id the submission id
+	 * @return the submission or null
+	 */
+	public AdxSubmission getSubmission(Integer id) {
+		return dao.getSubmission(id);
+	}
+
+	/**
+	 * Gets the most recent submissions for a facility, without their messages
+	 * @param orgUnit the organisation unit, i.e. the facility MFL code
+	 * @param max the maximum number of submissions
+	 * @return the submissions, newest first
+	 */
+	public List<AdxSubmission> getSubmissions(String orgUnit, int max) {
+		return dao.getSubmissions(orgUnit, max);
+	}
+
+	/**
+	 * Sends the messages which are due, waiting until they have all been attempted. If the scheduler isn't running,
+	 * they are sent one after another on the calling thread.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void sendDue() throws InterruptedException {
+		List<AdxSubmission> due = dao.getDueSubmissions(new Date(), BATCH_SIZE);
+
+		ExecutorService executor;
+		synchronized (this) {
+			executor = senders;
+		}
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (final AdxSubmission submission : due) {
+			if (!dao.setStatus(submission.getId(), AdxSubmission.Status.PENDING, AdxSubmission.Status.SENDING)) {
+				continue;
+			}
+
+			if (executor == null) {
+				// scheduler isn't running so send on this thread
+				send(submission);
+				continue;
+			}
+
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					Context.openSession();
+					try {
+						send(submission);
+					}
+					finally {
+						Context.closeSession();
+					}
+					return null;
+				}
+			});
+		}
+
+		if (!tasks.isEmpty()) {
+			executor.invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Gets the delay before retrying a message
+	 * @param attempts the number of attempts so far
+	 * @return the delay in milliseconds
+	 */
+	public static long getRetryDelay(int attempts) {
+		long delay = INITIAL_RETRY_DELAY_MILLIS;
+		for (int a = 1; a < attempts && delay < MAX_RETRY_DELAY_MILLIS; a++) {
+			delay *= 2;
+		}
+		return Math.min(delay, MAX_RETRY_DELAY_MILLIS);
+	}
+
+	/**
+	 * Sets the sender (used for testing)
+	 * @param sender the sender
+	 */
+	public void setSender(AdxSender sender) {
+		this.sender = sender;
+	}
+
+	/**
+	 * Posts a message and records the result
+	 * @param submission the submission
+	 */
+	protected void send(AdxSubmission submission) {
+		Integer id = submission.getId();
+		int attempt = submission.getAttempts() + 1;
+
+		Integer responseCode = null;
+		String response;
+		AdxSubmission.Status status;
+
+		try {
+			AdxSender.Response result = post(submission);
+			responseCode = result.getCode();
+			response = result.getMessage();
+
+			if (result.isSuccessful()) {
+				status = AdxSubmission.Status.SENT;
+			}
+			else {
+				status = result.isRetryable() && attempt < MAX_ATTEMPTS ? AdxSubmission.Status.PENDING : AdxSubmission.Status.FAILED;
+			}
+		}
+		catch (Exception ex) {
+			log.warn("Unable to post ADX message #" + id + " to " + submission.getServerAddress() + " (attempt " + attempt + ")", ex);
+			response = ex.toString();
+			status = attempt < MAX_ATTEMPTS ? AdxSubmission.Status.PENDING : AdxSubmission.Status.FAILED;
+		}
+
+		long now = System.currentTimeMillis();
+		Date dateSent = status == AdxSubmission.Status.SENT ? new Date(now) : null;
+
+		dao.recordAttempt(id, status, attempt, new Date(now + getRetryDelay(attempt)), responseCode, StringUtils.abbreviate(response, 1000), dateSent);
+	}
+
+	/**
+	 * Posts a message by spooling it to a temporary file, so that the database connection isn't held while posting
+	 * @param submission the submission
+	 * @return the response
+	 * @throws IOException if the message can't be spooled or the server can't be reached
+	 */
+	protected AdxSender.Response post(AdxSubmission submission) throws IOException {
+		File spool = File.createTempFile("adx-outbox-" + submission.getId() + "-", ".xml");
+		try {
+			Writer out = new OutputStreamWriter(new FileOutputStream(spool), "UTF-8");
+			try {
+				dao.copyPayload(submission.getId(), out);
+			}
+			finally {
+				out.close();
+			}
+
+			InputStream in = new BufferedInputStream(new FileInputStream(spool));
+			try {
+				return sender.post(submission.getServerAddress(), in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		finally {
+			if (!spool.delete()) {
+				spool.deleteOnExit();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of threads used to post messages
+	 * @return the number of threads
+	 */
+	protected int getThreadCount() {
+		String value = Context.getAdministrationService().getGlobalProperty(EmrConstants.GP_ADX_SUBMISSION_THREADS);
+		try {
+			return StringUtils.isNotBlank(value) ? Math.max(Integer.parseInt(value.trim()), 1) : 2;
+		}
+		catch (NumberFormatException ex) {
+			return 2;
+		}
+	}
+}
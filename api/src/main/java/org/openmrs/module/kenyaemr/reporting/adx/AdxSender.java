@@ -0,0 +1,131 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.adx;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Posts ADX messages to a server
+ */
+public class AdxSender {
+
+	public static final int CONNECT_TIMEOUT_MILLIS = 30000;
+
+	public static final int READ_TIMEOUT_MILLIS = 120000;
+
+	/**
+	 * Posts a message
+	 * @param serverAddress the server address
+	 * @param payload the ADX message
+	 * @return the response
+	 * @throws IOException if the server can't be reached
+	 */
+	public Response post(String serverAddress, String payload) throws IOException {
+		return post(serverAddress, new ByteArrayInputStream(payload.getBytes("UTF-8")));
+	}
+
+	/**
+	 * Posts a message. The body is copied from the stream in chunks so it doesn't need to be buffered to get its length.
+	 * @param serverAddress the server address
+	 * @param payload the UTF-8 encoded ADX message
+	 * @return the response
+	 * @throws IOException if the server can't be reached
+	 */
+	public Response post(String serverAddress, InputStream payload) throws IOException {
+		HttpURLConnection con = (HttpURLConnection) new URL(serverAddress).openConnection();
+		try {
+			con.setRequestMethod("POST");
+			con.setRequestProperty("Content-Type", "application/adx+xml");
+			con.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+			con.setReadTimeout(READ_TIMEOUT_MILLIS);
+			con.setChunkedStreamingMode(0);
+			con.setDoOutput(true);
+
+			OutputStream out = con.getOutputStream();
+			try {
+				IOUtils.copy(payload, out);
+			}
+			finally {
+				out.close();
+			}
+
+			int responseCode = con.getResponseCode();
+			InputStream in = responseCode < HttpURLConnection.HTTP_BAD_REQUEST ? con.getInputStream() : con.getErrorStream();
+			String message = null;
+			if (in != null) {
+				try {
+					message = IOUtils.toString(in, "UTF-8");
+				}
+				finally {
+					IOUtils.closeQuietly(in);
+				}
+			}
+			return new Response(responseCode, message);
+		}
+		finally {
+			con.disconnect();
+		}
+	}
+
+	/**
+	 * The response to a posted message
+	 */
+	public static class Response {
+
+		private final int code;
+
+		private final String message;
+
+		public Response(int code, String message) {
+			this.code = code;
+			this.message = message;
+		}
+
+		/**
+		 * Gets the HTTP status code
+		 * @return the status code
+		 */
+		public int getCode() {
+			return code;
+		}
+
+		/**
+		 * Gets the response body
+		 * @return the body or null
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * Gets whether the message was accepted
+		 * @return true if accepted
+		 */
+		public boolean isSuccessful() {
+			return code >= 200 && code < 300;
+		}
+
+		/**
+		 * Gets whether sending the message again might succeed. Client errors other than timeouts and rate limiting
+		 * are not retried.
+		 * @return true if retryable
+		 */
+		public boolean isRetryable() {
+			return code >= 500 || code == HttpURLConnection.HTTP_CLIENT_TIMEOUT || code == 429;
+		}
+	}
+}
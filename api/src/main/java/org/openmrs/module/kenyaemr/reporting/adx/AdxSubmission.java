@@ -0,0 +1,223 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.adx;
+
+import java.util.Date;
+
+/**
+ * An ADX message in the outbox
+ */
+public class AdxSubmission {
+
+	/**
+	 * Possible submission statuses
+	 */
+	public enum Status {
+		PENDING, SENDING, SENT, FAILED
+	}
+
+	private Integer id;
+
+	private String reportName;
+
+	private String orgUnit;
+
+	private String serverAddress;
+
+	private Status status;
+
+	private int attempts;
+
+	private Date nextAttempt;
+
+	private Integer lastResponseCode;
+
+	private String lastResponse;
+
+	private Date dateCreated;
+
+	private Date dateSent;
+
+	/**
+	 * Gets the id
+	 * @return the id
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Sets the id
+	 * @param id the id
+	 */
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * Gets the report name
+	 * @return the report name
+	 */
+	public String getReportName() {
+		return reportName;
+	}
+
+	/**
+	 * Sets the report name
+	 * @param reportName the report name
+	 */
+	public void setReportName(String reportName) {
+		this.reportName = reportName;
+	}
+
+	/**
+	 * Gets the organisation unit, i.e. the facility MFL code
+	 * @return the organisation unit
+	 */
+	public String getOrgUnit() {
+		return orgUnit;
+	}
+
+	/**
+	 * Sets the organisation unit
+	 * @param orgUnit the organisation unit
+	 */
+	public void setOrgUnit(String orgUnit) {
+		this.orgUnit = orgUnit;
+	}
+
+	/**
+	 * Gets the server address
+	 * @return the server address
+	 */
+	public String getServerAddress() {
+		return serverAddress;
+	}
+
+	/**
+	 * Sets the server address
+	 * @param serverAddress the server address
+	 */
+	public void setServerAddress(String serverAddress) {
+		this.serverAddress = serverAddress;
+	}
+
+	/**
+	 * Gets the status
+	 * @return the status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Sets the status
+	 * @param status the status
+	 */
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	/**
+	 * Gets the number of send attempts
+	 * @return the number of attempts
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * Sets the number of send attempts
+	 * @param attempts the number of attempts
+	 */
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Gets the time of the next send attempt
+	 * @return the time
+	 */
+	public Date getNextAttempt() {
+		return nextAttempt;
+	}
+
+	/**
+	 * Sets the time of the next send attempt
+	 * @param nextAttempt the time
+	 */
+	public void setNextAttempt(Date nextAttempt) {
+		this.nextAttempt = nextAttempt;
+	}
+
+	/**
+	 * Gets the HTTP status code of the last attempt
+	 * @return the status code or null
+	 */
+	public Integer getLastResponseCode() {
+		return lastResponseCode;
+	}
+
+	/**
+	 * Sets the HTTP status code of the last attempt
+	 * @param lastResponseCode the status code
+	 */
+	public void setLastResponseCode(Integer lastResponseCode) {
+		this.lastResponseCode = lastResponseCode;
+	}
+
+	/**
+	 * Gets the response or error message of the last attempt
+	 * @return the message or null
+	 */
+	public String getLastResponse() {
+		return lastResponse;
+	}
+
+	/**
+	 * Sets the response or error message of the last attempt
+	 * @param lastResponse the message
+	 */
+	public void setLastResponse(String lastResponse) {
+		this.lastResponse = lastResponse;
+	}
+
+	/**
+	 * Gets the date created
+	 * @return the date
+	 */
+	public Date getDateCreated() {
+		return dateCreated;
+	}
+
+	/**
+	 * Sets the date created
+	 * @param dateCreated the date
+	 */
+	public void setDateCreated(Date dateCreated) {
+		this.dateCreated = dateCreated;
+	}
+
+	/**
+	 * Gets the date sent
+	 * @return the date or null
+	 */
+	public Date getDateSent() {
+		return dateSent;
+	}
+
+	/**
+	 * Sets the date sent
+	 * @param dateSent the date
+	 */
+	public void setDateSent(Date dateSent) {
+		this.dateSent = dateSent;
+	}
+}
@@ -27,6 +27,7 @@ import org.openmrs.module.kenyaemr.reporting.calculation.converter.*;
 import org.openmrs.module.kenyaemr.reporting.cohort.definition.ActivePatientsSnapshotCohortDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.CalculationResultConverter;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.*;
+import org.openmrs.module.kenyaemr.reporting.dataset.definition.ETLPatientDataSetDefinition;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.data.DataDefinition;
@@ -94,7 +95,7 @@ public class ActivePatientSnapshotReportBuilder extends AbstractHybridReportBuil
 
     protected PatientDataSetDefinition activePatientsDataSetDefinition(String datasetName) {
 
-        PatientDataSetDefinition dsd = new PatientDataSetDefinition(datasetName);
+        PatientDataSetDefinition dsd = new ETLPatientDataSetDefinition(datasetName);
         dsd.addParameter(new Parameter("startDate", "Start Date", Date.class));
         dsd.addParameter(new Parameter("endDate", "End Date", Date.class));
         String defParam = "startDate=${startDate},endDate=${endDate}";
@@ -18,6 +18,7 @@ import org.openmrs.module.kenyacore.report.builder.Builds;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.reporting.cohort.definition.EnhancedAdherenceRegisterCohortDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.enhancedAdherence.*;
+import org.openmrs.module.kenyaemr.reporting.dataset.definition.ETLPatientDataSetDefinition;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.data.DataDefinition;
@@ -81,7 +82,7 @@ public class EnhancedAdherenceRegisterReportBuilder extends AbstractHybridReport
 	}
 
 	protected PatientDataSetDefinition enhancedAdherenceDataSetDefinition() {
-		PatientDataSetDefinition dsd = new PatientDataSetDefinition("EnhancedAdherenceRegister");
+		PatientDataSetDefinition dsd = new ETLPatientDataSetDefinition("EnhancedAdherenceRegister");
 		dsd.addParameter(new Parameter("startDate", "Start Date", Date.class));
 		dsd.addParameter(new Parameter("endDate", "End Date", Date.class));
 
@@ -18,6 +18,7 @@ import org.openmrs.module.kenyacore.report.builder.Builds;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.reporting.cohort.definition.ARTPreparationRegisterCohortDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.*;
+import org.openmrs.module.kenyaemr.reporting.dataset.definition.ETLPatientDataSetDefinition;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.data.DataDefinition;
@@ -81,7 +82,7 @@ public class ARTPreparationRegisterReportBuilder extends AbstractHybridReportBui
 
 	protected PatientDataSetDefinition artPreparationDataSetDefinition() {
 
-		PatientDataSetDefinition dsd = new PatientDataSetDefinition("ARTPrepRegister");
+		PatientDataSetDefinition dsd = new ETLPatientDataSetDefinition("ARTPrepRegister");
 		dsd.addParameter(new Parameter("startDate", "Start Date", Date.class));
 		dsd.addParameter(new Parameter("endDate", "End Date", Date.class));
 
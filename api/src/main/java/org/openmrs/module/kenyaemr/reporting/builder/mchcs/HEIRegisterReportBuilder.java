@@ -20,6 +20,7 @@ import org.openmrs.module.kenyaemr.reporting.calculation.converter.GenderConvert
 import org.openmrs.module.kenyaemr.reporting.cohort.definition.HEIRegisterCohortDefinition;
 import org.openmrs.module.kenyaemr.reporting.cohort.definition.RDQACohortDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.hei.*;
+import org.openmrs.module.kenyaemr.reporting.dataset.definition.ETLPatientDataSetDefinition;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
 import org.openmrs.module.reporting.common.SortCriteria;
@@ -84,7 +85,7 @@ public class HEIRegisterReportBuilder extends AbstractHybridReportBuilder {
 
 	protected PatientDataSetDefinition heiDataSetDefinition() {
 
-		PatientDataSetDefinition dsd = new PatientDataSetDefinition("HEIRegister");
+		PatientDataSetDefinition dsd = new ETLPatientDataSetDefinition("HEIRegister");
 		dsd.addSortCriteria("DOBAndAge", SortCriteria.SortDirection.DESC);
 		dsd.addParameter(new Parameter("startDate", "Start Date", Date.class));
 		dsd.addParameter(new Parameter("endDate", "End Date", Date.class));
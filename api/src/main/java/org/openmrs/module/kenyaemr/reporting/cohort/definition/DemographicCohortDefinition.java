@@ -0,0 +1,87 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition;
+
+import org.openmrs.module.reporting.cohort.definition.BaseCohortDefinition;
+import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.reporting.common.Localized;
+import org.openmrs.module.reporting.definition.configuration.ConfigurationProperty;
+import org.openmrs.module.reporting.definition.configuration.ConfigurationPropertyCachingStrategy;
+import org.openmrs.module.reporting.evaluation.caching.Caching;
+
+import java.util.Date;
+
+/**
+ * Persons of a given gender and/or age range on ${effectiveDate}. Equivalent to the reporting module's gender and
+ * age cohort definitions, but evaluated in memory from the demographics of all persons, which are fetched once per
+ * evaluation context, so that the options of age and gender dimensions don't each query the database.
+ */
+@Caching(strategy = ConfigurationPropertyCachingStrategy.class)
+@Localized("reporting.DemographicCohortDefinition")
+public class DemographicCohortDefinition extends BaseCohortDefinition {
+
+    @ConfigurationProperty
+    private String gender;
+
+    @ConfigurationProperty
+    private Integer minAge;
+
+    @ConfigurationProperty
+    private Integer maxAge;
+
+    @ConfigurationProperty
+    private DurationUnit ageUnit = DurationUnit.YEARS;
+
+    @ConfigurationProperty
+    private Date effectiveDate;
+
+    public DemographicCohortDefinition() {
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public DurationUnit getAgeUnit() {
+        return ageUnit;
+    }
+
+    public void setAgeUnit(DurationUnit ageUnit) {
+        this.ageUnit = ageUnit;
+    }
+
+    public Date getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public void setEffectiveDate(Date effectiveDate) {
+        this.effectiveDate = effectiveDate;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.openmrs.Cohort;
+import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.DemographicCohortDefinition;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
+import org.openmrs.module.reporting.cohort.definition.evaluator.CohortDefinitionEvaluator;
+import org.openmrs.module.reporting.common.DurationUnit;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluator for demographic cohorts. The gender and birthdate of all non-voided persons are fetched with a single
+ * query and kept on the evaluation context, so every age/gender option of a report is computed from the same rows.
+ * The age range is applied the same way as the reporting module's age cohort definition.
+ */
+@Handler(supports = {DemographicCohortDefinition.class})
+public class DemographicCohortDefinitionEvaluator implements CohortDefinitionEvaluator {
+
+    private static final String CACHE_KEY = DemographicCohortDefinitionEvaluator.class.getName() + ":demographics";
+
+    @Autowired
+    private EvaluationService evaluationService;
+
+    @Override
+    public EvaluatedCohort evaluate(CohortDefinition cohortDefinition, EvaluationContext context) throws EvaluationException {
+
+        DemographicCohortDefinition definition = (DemographicCohortDefinition) cohortDefinition;
+
+        if (definition == null)
+            return null;
+
+        Date effectiveDate = definition.getEffectiveDate() != null ? definition.getEffectiveDate() : new Date();
+        DurationUnit ageUnit = definition.getAgeUnit() != null ? definition.getAgeUnit() : DurationUnit.YEARS;
+
+        // Born on or before this date to be at least minAge, and strictly after this date to be at most maxAge
+        Date latestBirthdate = definition.getMinAge() != null ? adjustDate(effectiveDate, -definition.getMinAge(), ageUnit) : null;
+        Date earliestBirthdate = definition.getMaxAge() != null ? adjustDate(effectiveDate, -(definition.getMaxAge() + 1), ageUnit) : null;
+
+        Cohort baseCohort = context.getBaseCohort();
+        Set<Integer> memberIds = new HashSet<Integer>();
+
+        for (Object[] row : getDemographics(context)) {
+            Integer personId = ((Number) row[0]).intValue();
+            Date birthdate = (Date) row[1];
+            String gender = (String) row[2];
+
+            if (baseCohort != null && !baseCohort.contains(personId)) {
+                continue;
+            }
+            if (definition.getGender() != null && !definition.getGender().equalsIgnoreCase(gender)) {
+                continue;
+            }
+            if (latestBirthdate != null || earliestBirthdate != null) {
+                if (birthdate == null) {
+                    continue;
+                }
+                if (latestBirthdate != null && birthdate.getTime() > latestBirthdate.getTime()) {
+                    continue;
+                }
+                if (earliestBirthdate != null && birthdate.getTime() <= earliestBirthdate.getTime()) {
+                    continue;
+                }
+            }
+            memberIds.add(personId);
+        }
+
+        Cohort newCohort = new Cohort();
+        newCohort.setMemberIds(memberIds);
+        return new EvaluatedCohort(newCohort, definition, context);
+    }
+
+    /**
+     * Gets the id, birthdate and gender of all non-voided persons, fetching them on the first call for a context
+     * @param context the evaluation context
+     * @return the rows
+     * @throws EvaluationException if query fails
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Object[]> getDemographics(EvaluationContext context) throws EvaluationException {
+        synchronized (context.getCache()) {
+            List<Object[]> rows = (List<Object[]>) context.getFromCache(CACHE_KEY);
+            if (rows == null) {
+                SqlQueryBuilder builder = new SqlQueryBuilder();
+                builder.append("select person_id, birthdate, gender from person where voided = 0");
+                rows = evaluationService.evaluateToList(builder, context);
+                context.addToCache(CACHE_KEY, rows);
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Adds an amount of the given unit to a date
+     * @param date the date
+     * @param amount the amount
+     * @param unit the unit
+     * @return the adjusted date
+     */
+    protected static Date adjustDate(Date date, int amount, DurationUnit unit) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+
+        switch (unit) {
+            case DAYS:
+                calendar.add(Calendar.DATE, amount);
+                break;
+            case WEEKS:
+                calendar.add(Calendar.WEEK_OF_YEAR, amount);
+                break;
+            case MONTHS:
+                calendar.add(Calendar.MONTH, amount);
+                break;
+            case YEARS:
+                calendar.add(Calendar.YEAR, amount);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported age unit: " + unit);
+        }
+        return calendar.getTime();
+    }
+}
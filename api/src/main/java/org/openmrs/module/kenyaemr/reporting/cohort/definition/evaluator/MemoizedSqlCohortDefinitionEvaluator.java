@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.openmrs.Cohort;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.annotation.Handler;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
+import org.openmrs.module.reporting.cohort.definition.SqlCohortDefinition;
+import org.openmrs.module.reporting.cohort.definition.evaluator.SqlCohortDefinitionEvaluator;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Evaluator for SQL cohorts which remembers each result on the evaluation context, keyed by the query, the parameter
+ * values and the base cohort. Report libraries create a new definition for every indicator, so the same query (e.g.
+ * current on ART) is otherwise re-executed for each indicator and data set of a report run. Takes precedence over
+ * the reporting module's evaluator.
+ */
+@Handler(supports = {SqlCohortDefinition.class}, order = 50)
+public class MemoizedSqlCohortDefinitionEvaluator extends SqlCohortDefinitionEvaluator {
+
+    private static final String CACHE_KEY_PREFIX = MemoizedSqlCohortDefinitionEvaluator.class.getName() + ":";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public EvaluatedCohort evaluate(CohortDefinition cohortDefinition, EvaluationContext context) throws EvaluationException {
+        SqlCohortDefinition definition = (SqlCohortDefinition) cohortDefinition;
+        String cacheKey = getCacheKey(definition, context);
+
+        // Results by base cohort member ids, with null for no base cohort
+        Map<Set<Integer>, Set<Integer>> results;
+        synchronized (context.getCache()) {
+            results = (Map<Set<Integer>, Set<Integer>>) context.getFromCache(cacheKey);
+            if (results == null) {
+                results = new HashMap<Set<Integer>, Set<Integer>>();
+                context.addToCache(cacheKey, results);
+            }
+        }
+
+        Set<Integer> baseIds = context.getBaseCohort() != null ? new HashSet<Integer>(context.getBaseCohort().getMemberIds()) : null;
+
+        synchronized (results) {
+            Set<Integer> memberIds = results.get(baseIds);
+            if (memberIds == null) {
+                memberIds = new HashSet<Integer>(super.evaluate(definition, context).getMemberIds());
+                results.put(baseIds, memberIds);
+            }
+
+            Cohort cohort = new Cohort();
+            cohort.setMemberIds(new HashSet<Integer>(memberIds));
+            return new EvaluatedCohort(cohort, definition, context);
+        }
+    }
+
+    /**
+     * Gets the cache key for a definition, which combines the query with the parameter values of the context
+     * @param definition the definition
+     * @param context the evaluation context
+     * @return the cache key
+     */
+    protected static String getCacheKey(SqlCohortDefinition definition, EvaluationContext context) {
+        Map<String, String> values = new TreeMap<String, String>();
+        for (Map.Entry<String, Object> entry : context.getParameterValues().entrySet()) {
+            values.put(entry.getKey(), valueToString(entry.getValue()));
+        }
+        return CACHE_KEY_PREFIX + definition.getQuery() + values;
+    }
+
+    /**
+     * Converts a parameter value to a string which identifies it
+     * @param value the value
+     * @return the string
+     */
+    protected static String valueToString(Object value) {
+        if (value instanceof Date) {
+            return "date:" + ((Date) value).getTime();
+        }
+        if (value instanceof Cohort) {
+            return "cohort:" + new TreeSet<Integer>(((Cohort) value).getMemberIds());
+        }
+        if (value instanceof OpenmrsObject) {
+            return value.getClass().getName() + ":" + ((OpenmrsObject) value).getUuid();
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.dashboard;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The counts shown on the facility dashboard, as computed at a point in time
+ */
+public class FacilityDashboardSnapshot {
+
+	private final Map<String, Integer> counts;
+
+	private final String reportPeriod;
+
+	private final Date dateComputed;
+
+	/**
+	 * Creates a new snapshot
+	 * @param counts the counts by name
+	 * @param reportPeriod the reporting period, e.g. Jan-2020
+	 * @param dateComputed the date the counts were computed
+	 */
+	public FacilityDashboardSnapshot(Map<String, Integer> counts, String reportPeriod, Date dateComputed) {
+		this.counts = Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(counts));
+		this.reportPeriod = reportPeriod;
+		this.dateComputed = dateComputed;
+	}
+
+	/**
+	 * Gets the counts by name
+	 * @return the counts
+	 */
+	public Map<String, Integer> getCounts() {
+		return counts;
+	}
+
+	/**
+	 * Gets a count
+	 * @param name the count name
+	 * @return the count, or 0 if there is no count with that name
+	 */
+	public int getCount(String name) {
+		Integer count = counts.get(name);
+		return count != null ? count : 0;
+	}
+
+	/**
+	 * Gets the reporting period
+	 * @return the reporting period
+	 */
+	public String getReportPeriod() {
+		return reportPeriod;
+	}
+
+	/**
+	 * Gets the date the counts were computed
+	 * @return the date
+	 */
+	public Date getDateComputed() {
+		return dateComputed;
+	}
+}
@@ -0,0 +1,267 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.dashboard;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.module.DaemonToken;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.reporting.builder.hiv.DashBoardCohorts;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.springframework.stereotype.Component;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the facility dashboard counts in the background on a schedule, so that the dashboard can be shown from
+ * the last snapshot rather than evaluating every cohort on every view
+ */
+@Component
+public class FacilityDashboardSnapshotService {
+
+	protected static final Log log = LogFactory.getLog(FacilityDashboardSnapshotService.class);
+
+	public static final int DEFAULT_REFRESH_MINUTES = 30;
+
+	private final Object refreshLock = new Object();
+
+	private volatile FacilityDashboardSnapshot snapshot;
+
+	private ScheduledExecutorService scheduler;
+
+	private DaemonToken daemonToken;
+
+	private final Runnable refresher = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				refresh();
+			}
+			catch (Exception ex) {
+				log.error("Unable to compute facility dashboard snapshot", ex);
+			}
+		}
+	};
+
+	/**
+	 * Starts refreshing the snapshot in the background, beginning immediately
+	 * @param daemonToken the token used to run refreshes as the daemon user
+	 */
+	public synchronized void start(DaemonToken daemonToken) {
+		if (scheduler != null) {
+			return;
+		}
+
+		this.daemonToken = daemonToken;
+
+		int refreshMinutes = getRefreshMinutes();
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				runAsDaemon(refresher);
+			}
+		}, 0, refreshMinutes, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Stops refreshing the snapshot in the background
+	 */
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * Refreshes the snapshot in the background as soon as possible, e.g. after the ETL tables have been updated
+	 */
+	public synchronized void refreshInBackground() {
+		if (scheduler != null) {
+			scheduler.execute(new Runnable() {
+				@Override
+				public void run() {
+					runAsDaemon(refresher);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Gets the last computed snapshot
+	 * @return the snapshot, or null if it hasn't been computed yet
+	 */
+	public FacilityDashboardSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Computes a new snapshot in the current session
+	 * @return the snapshot
+	 */
+	public FacilityDashboardSnapshot refresh() {
+		synchronized (refreshLock) {
+			long start = System.currentTimeMillis();
+
+			snapshot = compute(new Date());
+
+			log.info("Computed facility dashboard snapshot in " + (System.currentTimeMillis() - start) + "ms");
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Computes the dashboard counts for the month before the given date. All cohorts are evaluated in the same
+	 * evaluation context so that cohorts they share are only evaluated once.
+	 * @param now the current date
+	 * @return the snapshot
+	 */
+	protected FacilityDashboardSnapshot compute(Date now) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(now);
+		Map<String, Date> dateMap = getReportDates(now, calendar.get(Calendar.MONTH) - 1);
+		Date startDate = dateMap.get("startDate");
+		Date endDate = dateMap.get("endDate");
+
+		EvaluationContext context = new EvaluationContext();
+		context.addParameterValue("startDate", startDate);
+		context.addParameterValue("endDate", endDate);
+		context.addParameterValue("enrolledOnOrBefore", endDate);
+
+		Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+		counts.put("allPatients", size(DashBoardCohorts.allPatients(context)));
+		counts.put("inCare", size(DashBoardCohorts.inCare(context)));
+		counts.put("onArt", size(DashBoardCohorts.onART(context)));
+		counts.put("newOnArt", size(DashBoardCohorts.newOnART(context)));
+		counts.put("cumulativeEnrolledInHiv", size(DashBoardCohorts.enrolledInHiv(context)));
+		counts.put("newlyEnrolledInHiv", size(DashBoardCohorts.newlyEnrolledInHiv(context)));
+		counts.put("vlResults", size(DashBoardCohorts.viralLoadResultsIn12Months(context)));
+		counts.put("suppressedVl", size(DashBoardCohorts.viralLoadSuppressionIn12Months(context)));
+		counts.put("patientsScheduled", size(DashBoardCohorts.patientsScheduledToday(context)));
+		counts.put("patientsSeen", size(DashBoardCohorts.patientsSeen(context)));
+		counts.put("checkedIn", size(DashBoardCohorts.checkedInAppointments(context)));
+		counts.put("unscheduled", size(DashBoardCohorts.unscheduledAppointments(context)));
+		counts.put("htsTested", size(DashBoardCohorts.htsTotalTested(context)));
+		counts.put("htsPositive", size(DashBoardCohorts.htsTotalPositive(context)));
+		counts.put("htsLinked", size(DashBoardCohorts.htsTotalLinked(context)));
+		counts.put("htsTestedFamily", size(DashBoardCohorts.htsTotalTestedFamily(context)));
+		counts.put("htsPositiveFamily", size(DashBoardCohorts.htsTotalPositiveFamily(context)));
+		counts.put("htsUnknownStatusFamily", size(DashBoardCohorts.htsUnknownStatusFamily(context)));
+		counts.put("htsLinkedFamily", size(DashBoardCohorts.htsTotalLinkedFamily(context)));
+		counts.put("htsTestedPartners", size(DashBoardCohorts.htsTotalTestedPartner(context)));
+		counts.put("htsPositivePartner", size(DashBoardCohorts.htsTotalPositivePartner(context)));
+		counts.put("htsUnknownStatusPartner", size(DashBoardCohorts.htsUnknownStatusPartner(context)));
+		counts.put("htsLinkedPartner", size(DashBoardCohorts.htsTotalLinkedPartners(context)));
+		counts.put("htsTestedIDU", size(DashBoardCohorts.htsTotalTestedIDU(context)));
+		counts.put("htsPositiveIDU", size(DashBoardCohorts.htsTotalPositiveIDU(context)));
+		counts.put("htsUnknownStatusIDU", size(DashBoardCohorts.htsUnknownStatusIDU(context)));
+		counts.put("htsLinkedIDU", size(DashBoardCohorts.htsTotalLinkedIDU(context)));
+		counts.put("stableOver4mtca", size(DashBoardCohorts.stableOver4Monthstca(context)));
+		counts.put("stableUnder4mtca", size(DashBoardCohorts.stableUnder4Monthstca(context)));
+		counts.put("unstableUnder15", size(DashBoardCohorts.unstablePatientsUnder15(context)));
+		counts.put("unstableFemales15Plus", size(DashBoardCohorts.unstableFemalePatients15Plus(context)));
+		counts.put("unstableMales15Plus", size(DashBoardCohorts.unstableMalePatients15Plus(context)));
+		counts.put("currInCareOnART", size(DashBoardCohorts.currentInCareOnART(context)));
+		counts.put("stableOver4mtcaBelow15", size(DashBoardCohorts.stableOver4MonthstcaUnder15(context)));
+		counts.put("stableOver4mtcaOver15M", size(DashBoardCohorts.stableOver4MonthstcaOver15Male(context)));
+		counts.put("stableOver4mtcaOver15F", size(DashBoardCohorts.stableOver4MonthstcaOver15Female(context)));
+		counts.put("stableUnder4mtcaBelow15", size(DashBoardCohorts.stableUnder4MonthstcaUnder15(context)));
+		counts.put("stableUnder4mtcaOver15M", size(DashBoardCohorts.stableUnder4MonthstcaOver15Male(context)));
+		counts.put("stableUnder4mtcaOver15F", size(DashBoardCohorts.stableUnder4MonthstcaOver15Female(context)));
+		counts.put("currInCareOnARTUnder15", size(DashBoardCohorts.currentInCareOnARTUnder15(context)));
+		counts.put("currInCareOnARTOver15M", size(DashBoardCohorts.currentInCareOnARTOver15Male(context)));
+		counts.put("currInCareOnARTOver15F", size(DashBoardCohorts.currentInCareOnARTOver15Female(context)));
+		counts.put("undocumentedStability", size(DashBoardCohorts.undocumentedPatientStability(context)));
+
+		String reportPeriod = new SimpleDateFormat("MMM-yyyy").format(endDate);
+		return new FacilityDashboardSnapshot(counts, reportPeriod, new Date());
+	}
+
+	/**
+	 * Gets the number of minutes between refreshes
+	 * @return the number of minutes
+	 */
+	protected int getRefreshMinutes() {
+		String value = Context.getAdministrationService().getGlobalProperty(EmrConstants.GP_DASHBOARD_REFRESH_MINUTES);
+		try {
+			return StringUtils.isNotBlank(value) ? Math.max(Integer.parseInt(value.trim()), 1) : DEFAULT_REFRESH_MINUTES;
+		}
+		catch (NumberFormatException ex) {
+			return DEFAULT_REFRESH_MINUTES;
+		}
+	}
+
+	/**
+	 * Runs a task as the daemon user and waits for it to finish, as cohort evaluation needs the privileges of an
+	 * authenticated user
+	 * @param task the task
+	 */
+	private void runAsDaemon(Runnable task) {
+		if (daemonToken == null) {
+			log.warn("Unable to refresh facility dashboard snapshot without a daemon token");
+			return;
+		}
+
+		try {
+			Daemon.runInDaemonThread(task, daemonToken).join();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the size of a cohort
+	 * @param cohort the cohort
+	 * @return the number of members
+	 */
+	private static int size(EvaluatedCohort cohort) {
+		return cohort != null && cohort.getMemberIds() != null ? cohort.getMemberIds().size() : 0;
+	}
+
+	/**
+	 * Gets the start and end of a month of the year of the given date
+	 * @param now the date
+	 * @param month the month
+	 * @return the start and end dates
+	 */
+	private static Map<String, Date> getReportDates(Date now, int month) {
+		Map<String, Date> reportDates = new LinkedHashMap<String, Date>();
+		Calendar gc = new GregorianCalendar();
+		gc.setTime(now);
+		gc.set(Calendar.MONTH, month);
+		gc.set(Calendar.DAY_OF_MONTH, 1);
+		gc.clear(Calendar.HOUR);
+		gc.clear(Calendar.HOUR_OF_DAY);
+		gc.clear(Calendar.MINUTE);
+		gc.clear(Calendar.SECOND);
+		gc.clear(Calendar.MILLISECOND);
+		Date monthStart = gc.getTime();
+		reportDates.put("startDate", monthStart);
+		gc.add(Calendar.MONTH, 1);
+		gc.add(Calendar.DAY_OF_MONTH, -1);
+		Date monthEnd = gc.getTime();
+		reportDates.put("endDate", monthEnd);
+		return reportDates;
+	}
+}
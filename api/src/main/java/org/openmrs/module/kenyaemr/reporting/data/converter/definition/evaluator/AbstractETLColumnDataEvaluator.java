@@ -0,0 +1,78 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
+
+import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
+import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
+import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+
+/**
+ * Base class for evaluators which produce a single column per patient from an ETL table, i.e.
+ * select patient_id, [column] from kenyaemr_etl.[table] group by patient_id, restricted to the base cohort. If a
+ * batch for the table has been registered on the evaluation context, the column is taken from that rather than
+ * queried separately.
+ */
+public abstract class AbstractETLColumnDataEvaluator implements PersonDataEvaluator {
+
+    @Autowired
+    private EvaluationService evaluationService;
+
+    private final String table;
+
+    private final String column;
+
+    /**
+     * Creates a new evaluator
+     * @param table the ETL table name (without the schema)
+     * @param column the column expression
+     */
+    protected AbstractETLColumnDataEvaluator(String table, String column) {
+        this.table = table;
+        this.column = column;
+    }
+
+    /**
+     * Gets the ETL table
+     * @return the table name
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the column expression
+     * @return the column expression
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @see PersonDataEvaluator#evaluate(PersonDataDefinition, EvaluationContext)
+     */
+    public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
+        EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
+
+        ETLColumnBatch batch = ETLColumnBatch.getRegistered(context, table);
+        if (batch != null && batch.contains(column)) {
+            c.setData(batch.getData(column, evaluationService, context));
+        }
+        else {
+            c.setData(ETLColumnBatch.fetch(evaluationService, table, Collections.singleton(column), context).get(column));
+        }
+        return c;
+    }
+}
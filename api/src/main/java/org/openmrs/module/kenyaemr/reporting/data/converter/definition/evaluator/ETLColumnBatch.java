@@ -0,0 +1,168 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
+
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.module.reporting.evaluation.service.EvaluationService;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A group of columns from one ETL table which are fetched together with a single query. Batches are registered on
+ * an evaluation context by a data set evaluator, and consumed by {@link AbstractETLColumnDataEvaluator}s
+ */
+public class ETLColumnBatch {
+
+    private static final String CACHE_KEY_PREFIX = ETLColumnBatch.class.getName() + ":";
+
+    private final String table;
+
+    private final Set<String> columns = new LinkedHashSet<String>();
+
+    private Map<String, Map<Integer, Object>> data;
+
+    private Set<Integer> fetchedPatientIds;
+
+    /**
+     * Creates a new batch
+     * @param table the ETL table name (without the schema)
+     */
+    public ETLColumnBatch(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Gets the ETL table
+     * @return the table name
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the columns in this batch
+     * @return the column expressions
+     */
+    public Set<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Adds a column to this batch
+     * @param column the column expression
+     */
+    public void addColumn(String column) {
+        columns.add(column);
+    }
+
+    /**
+     * Checks whether this batch contains the given column
+     * @param column the column expression
+     * @return true if batch contains column
+     */
+    public boolean contains(String column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * Gets the values of the given column. All columns in this batch are fetched on the first call, for the base
+     * cohort of that call. Later calls for patients outside of that cohort fetch the column separately.
+     * @param column the column expression
+     * @param evaluationService the evaluation service
+     * @param context the evaluation context
+     * @return the values by patient id
+     * @throws EvaluationException if query fails
+     */
+    public synchronized Map<Integer, Object> getData(String column, EvaluationService evaluationService, EvaluationContext context) throws EvaluationException {
+        Set<Integer> patientIds = ETLQueryUtils.getBaseCohortIds(context);
+
+        if (data == null) {
+            data = fetch(evaluationService, table, columns, context);
+            fetchedPatientIds = patientIds;
+        }
+        else if (fetchedPatientIds != null && (patientIds == null || !fetchedPatientIds.containsAll(patientIds))) {
+            return fetch(evaluationService, table, Collections.singleton(column), context).get(column);
+        }
+        return data.get(column);
+    }
+
+    /**
+     * Fetches one or more columns from an ETL table with a single query, restricted to the base cohort
+     * @param evaluationService the evaluation service
+     * @param table the ETL table name
+     * @param columns the column expressions
+     * @param context the evaluation context
+     * @return the values by patient id, for each column
+     * @throws EvaluationException if query fails
+     */
+    public static Map<String, Map<Integer, Object>> fetch(EvaluationService evaluationService, String table, Collection<String> columns, EvaluationContext context) throws EvaluationException {
+        StringBuilder qry = new StringBuilder("select patient_id");
+        for (String column : columns) {
+            qry.append(", ").append(column);
+        }
+        qry.append(" from kenyaemr_etl.").append(table).append(" where patient_id in (:patientIds) group by patient_id;");
+
+        List<Object[]> rows = ETLQueryUtils.evaluatePatientRows(evaluationService, qry.toString(), context);
+
+        Map<String, Map<Integer, Object>> ret = new HashMap<String, Map<Integer, Object>>();
+        for (String column : columns) {
+            ret.put(column, new HashMap<Integer, Object>());
+        }
+
+        for (Object[] row : rows) {
+            Integer patientId = ((Number) row[0]).intValue();
+            int index = 1;
+            for (String column : columns) {
+                ret.get(column).put(patientId, row[index++]);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Registers batches on an evaluation context
+     * @param context the evaluation context
+     * @param batches the batches
+     */
+    public static void register(EvaluationContext context, Collection<ETLColumnBatch> batches) {
+        for (ETLColumnBatch batch : batches) {
+            context.addToCache(CACHE_KEY_PREFIX + batch.getTable(), batch);
+        }
+    }
+
+    /**
+     * Removes batches from an evaluation context
+     * @param context the evaluation context
+     * @param batches the batches
+     */
+    public static void unregister(EvaluationContext context, Collection<ETLColumnBatch> batches) {
+        for (ETLColumnBatch batch : batches) {
+            context.getCache().remove(CACHE_KEY_PREFIX + batch.getTable());
+        }
+    }
+
+    /**
+     * Gets the batch registered on an evaluation context for the given table
+     * @param context the evaluation context
+     * @param table the ETL table name
+     * @return the batch or null
+     */
+    public static ETLColumnBatch getRegistered(EvaluationContext context, String table) {
+        return (ETLColumnBatch) context.getFromCache(CACHE_KEY_PREFIX + table);
+    }
+}
@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.HIVTestTwoDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -34,11 +34,9 @@ public class HIVTestTwoDataEvaluator implements EncounterDataEvaluator {
     public EvaluatedEncounterData evaluate(EncounterDataDefinition definition, EvaluationContext context) throws EvaluationException {
         EvaluatedEncounterData c = new EvaluatedEncounterData(definition, context);
 
-        String qry = "select encounter_id, CONCAT_WS('\\n', test_2_kit_name,'____________', test_2_kit_lot_no, '____________', test_2_kit_expiry, '____________', test_2_result) AS test_result from kenyaemr_etl.etl_hts_test; ";
+        String qry = "select encounter_id, CONCAT_WS('\\n', test_2_kit_name,'____________', test_2_kit_lot_no, '____________', test_2_kit_expiry, '____________', test_2_result) AS test_result from kenyaemr_etl.etl_hts_test where encounter_id in (:encounterIds); ";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
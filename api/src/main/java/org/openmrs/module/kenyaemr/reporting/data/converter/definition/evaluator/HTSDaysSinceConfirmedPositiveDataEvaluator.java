@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.HTSDaysSinceConfirmedPositiveDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -36,11 +36,9 @@ public class HTSDaysSinceConfirmedPositiveDataEvaluator implements PersonDataEva
 
         String qry = "SELECT t.patient_id, datediff(curdate(), t.visit_date) as numDays \n" +
                 "from kenyaemr_etl.etl_hts_test t\n" +
-                "where t.final_test_result = 'Positive' and t.voided = 0 and t.test_type=2 group by patient_id";
+                "where t.final_test_result = 'Positive' and t.voided = 0 and t.test_type=2 and t.patient_id in (:patientIds) group by patient_id";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.HTSLinkageIdentifierDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -37,12 +37,10 @@ public class HTSLinkageIdentifierDataEvaluator implements PersonDataEvaluator {
         String qry = "select t.patient_id, coalesce(p.unique_patient_no, l.ccc_number) as upn\n" +
                 "from kenyaemr_etl.etl_hts_test t\n" +
                 "inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id=t.patient_id and p.voided=0\n" +
-                "left join kenyaemr_etl.etl_hts_referral_and_linkage l on l.patient_id=t.patient_id and l.voided=0 and l.ccc_number is not null\n" +
+                "left join kenyaemr_etl.etl_hts_referral_and_linkage l on l.patient_id=t.patient_id and l.voided=0 and l.ccc_number is not null where t.patient_id in (:patientIds)\n" +
                 "group by t.patient_id having upn is not null";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
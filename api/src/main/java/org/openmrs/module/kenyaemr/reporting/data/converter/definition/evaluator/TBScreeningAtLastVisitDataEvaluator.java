@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.TBScreeningAtLastVisitDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -45,12 +45,10 @@ public class TBScreeningAtLastVisitDataEvaluator implements PersonDataEvaluator
                 "        LEFT OUTER JOIN kenyaemr_etl.etl_tb_screening s\n" +
                 "            ON s.patient_id = f.patient_id AND date(s.visit_date) = date(f.visit_date)\n" +
                 "    GROUP BY f.patient_id\n" +
-                ") v\n" +
+                ") v where patient_id in (:patientIds)\n" +
                 "GROUP BY patient_id;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.anc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.anc.ANCCaCxScreeningResultsDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -39,11 +39,9 @@ public class ANCCaCxScreeningResultsDataEvaluator implements EncounterDataEvalua
                 "  CONCAT_WS('\\r\\n',(case v.cacx_screening_method when 885 then \"Papanicolaou Smear\" when 162816 then \"Colposcopy of cervix with acetic acid\" when 5622 then \"Other\" else \"\" end),\n" +
                 "            (case v.cacx_screening when 703 then \"POSITIVE\" when 664 then \"NEGATIVE\" when 159393 then \"Presumed\" when 1118 then \"Not Done\" when 1175 then \"N/A\" else \"\" end)\n" +
                 "       ) as Caxc_done_results\n" +
-                "from kenyaemr_etl.etl_mch_antenatal_visit v;";
+                "from kenyaemr_etl.etl_mch_antenatal_visit v where v.encounter_id in (:encounterIds);";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.anc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.anc.EDCandANCNumberPreg1DataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.anc.EDCandANCNumberPreg2DataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
@@ -20,7 +21,6 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -44,12 +44,10 @@ public class EDCandANCNumberPreg2DataEvaluator implements PersonDataEvaluator {
                 "from  (SELECT patient_id,\n" +
                 "              mid(max(concat(visit_date,lmp)),11) as lmp,\n" +
                 "              mid(max(concat(visit_date,anc_number)),11) as anc_number,\n" +
-                "              COUNT(patient_id) as c FROM kenyaemr_etl.etl_mch_enrollment GROUP BY patient_id  HAVING c = 2) e\n" +
+                "              COUNT(patient_id) as c FROM kenyaemr_etl.etl_mch_enrollment GROUP BY patient_id  HAVING c = 2) e where e.patient_id in (:patientIds)\n" +
                 "GROUP BY e.patient_id;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
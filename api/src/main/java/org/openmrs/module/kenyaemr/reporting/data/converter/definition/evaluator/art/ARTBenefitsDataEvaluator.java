@@ -12,35 +12,15 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ARTBenefitsDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.HIVStatusDisclosureDataDefinition;
-import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
-import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
-import org.openmrs.module.reporting.evaluation.EvaluationContext;
-import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
-
-import java.util.Map;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.AbstractETLColumnDataEvaluator;
 
 /**
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports= ARTBenefitsDataDefinition.class, order=50)
-public class ARTBenefitsDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
-
-    public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
-        EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
-
-        String qry = "select patient_id,understands_hiv_art_benefits from kenyaemr_etl.etl_ART_preparation group by patient_id;";
+public class ARTBenefitsDataEvaluator extends AbstractETLColumnDataEvaluator {
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
-        c.setData(data);
-        return c;
+    public ARTBenefitsDataEvaluator() {
+        super("etl_ART_preparation", "understands_hiv_art_benefits");
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.art;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ARTFirstSubstitutionDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ARTPatientOutcomeDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
@@ -17,7 +18,6 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -49,12 +49,10 @@ public class ARTPatientOutcomeDataEvaluator implements PersonDataEvaluator {
                 "                                          when 1067 then \"Unknown\"\n" +
                 "                                          else \"\" end), \"\" )),20) as outcome,\n" +
                 "               COUNT(patient_id) as p_id FROM kenyaemr_etl.etl_patient_program_discontinuation WHERE program_name='HIV' GROUP BY patient_id  HAVING p_id > 0) disc\n" +
-                "    on disc.patient_id = fdr.patient_id\n" +
+                "    on disc.patient_id = fdr.patient_id where fdr.patient_id in (:patientIds)\n" +
                 "GROUP BY fdr.patient_id;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
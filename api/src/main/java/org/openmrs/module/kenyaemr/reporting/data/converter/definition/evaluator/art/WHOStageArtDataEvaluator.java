@@ -12,45 +12,15 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.HTSDiscordanceArtDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.WHOStageArtDataDefinition;
-import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
-import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
-import org.openmrs.module.reporting.evaluation.EvaluationContext;
-import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
-
-import java.util.Map;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.AbstractETLColumnDataEvaluator;
 
 /**
  * Evaluates Art Cohort WHO Stage Data Definition
  */
 @Handler(supports=WHOStageArtDataDefinition.class, order=50)
-public class WHOStageArtDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
-
-    public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
-        EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
-
-        String qry = "select patient_id,\n" +
-                "  mid(max(concat(visit_date,(case who_stage\n" +
-                "                             when 1204 then \"1\"\n" +
-                "                             when 1220 then \"1\"\n" +
-                "                             when 1205 then \"2\"\n" +
-                "                             when 1221 then \"2\"\n" +
-                "                             when 1206 then \"3\"\n" +
-                "                             when 1222 then \"3\"\n" +
-                "                             when 1207 then \"4\"\n" +
-                "                             when 1223 then \"4\"  else \"\" end), \"\" )),11) as who_stage from kenyaemr_etl.etl_patient_hiv_followup\n" +
-                "GROUP BY patient_id;";
+public class WHOStageArtDataEvaluator extends AbstractETLColumnDataEvaluator {
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
-        c.setData(data);
-        return c;
+    public WHOStageArtDataEvaluator() {
+        super("etl_patient_hiv_followup", "mid(max(concat(visit_date,(case who_stage when 1204 then \"1\" when 1220 then \"1\" when 1205 then \"2\" when 1221 then \"2\" when 1206 then \"3\" when 1222 then \"3\" when 1207 then \"4\" when 1223 then \"4\" else \"\" end), \"\" )),11) as who_stage");
     }
 }
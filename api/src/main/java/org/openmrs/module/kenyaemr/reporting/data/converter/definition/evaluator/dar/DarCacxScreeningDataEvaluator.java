@@ -10,17 +10,17 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarCacxScreeningDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -37,13 +37,11 @@ public class DarCacxScreeningDataEvaluator implements PersonDataEvaluator {
         String qry = "SELECT f.patient_id, 'X' as cacxScreening\n" +
                 "FROM kenyaemr_etl.etl_patient_hiv_followup f\n" +
                 "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 and TIMESTAMPDIFF(YEAR, date(p.DOB), date(:startDate)) >= 18 and p.Gender = 'F'\n" +
-                "where date(f.visit_date) = date(:startDate) and f.voided = 0 and f.cacx_screening in (664,703) ";
+                "where f.patient_id in (:patientIds) and date(f.visit_date) = date(:startDate) and f.voided = 0 and f.cacx_screening in (664,703) ";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
@@ -10,17 +10,17 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarCurrentOnArtDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -46,7 +46,7 @@ public class DarCurrentOnArtDataEvaluator implements PersonDataEvaluator {
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 and p.Gender = ':sex'\n" +
                     "         inner join kenyaemr_etl.etl_drug_event d on d.patient_id = f.patient_id  and  date(d.date_started) <= date(:startDate)  and ifnull(d.voided,0)= 0\n" +
                     "         left join kenyaemr_etl.etl_patient_hiv_followup f2 on f.patient_id = f2.patient_id  and  date(f.visit_date) = date(f2.next_appointment_date) and f2.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 ";
+                    "where f.patient_id in (:patientIds) and date(f.visit_date) = date(:startDate) and f.voided = 0 ";
         } else {
             qry = "SELECT f.patient_id, if(f2.patient_id is not null,\n" +
                     "    TIMESTAMPDIFF(MONTH , date(f.visit_date), date(f.next_appointment_date)), 'R' ) as res\n" +
@@ -54,7 +54,7 @@ public class DarCurrentOnArtDataEvaluator implements PersonDataEvaluator {
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 \n" +
                     "         inner join kenyaemr_etl.etl_drug_event d on d.patient_id = f.patient_id  and  date(d.date_started) <= date(:startDate)  and ifnull(d.voided,0)= 0\n" +
                     "         left join kenyaemr_etl.etl_patient_hiv_followup f2 on f.patient_id = f2.patient_id  and  date(f.visit_date) = date(f2.next_appointment_date) and f2.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 ";
+                    "where f.patient_id in (:patientIds) and date(f.visit_date) = date(:startDate) and f.voided = 0 ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -77,11 +77,9 @@ public class DarCurrentOnArtDataEvaluator implements PersonDataEvaluator {
         if (sex != null) {
             qry = qry.replace(":sex", sex);
         }
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
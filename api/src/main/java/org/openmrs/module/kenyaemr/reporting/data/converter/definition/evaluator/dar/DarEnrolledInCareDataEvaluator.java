@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarEnrolledInCareDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarStartingArtDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
@@ -17,11 +18,10 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -44,12 +44,12 @@ public class DarEnrolledInCareDataEvaluator implements PersonDataEvaluator {
             qry = "SELECT e.patient_id, 'X' enrolled\n" +
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 and p.Gender = ':sex' \n" +
-                    "where e.entry_point <> 160563 and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and e.transfer_in_date is null and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
+                    "where e.patient_id in (:patientIds) and e.entry_point <> 160563 and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and e.transfer_in_date is null and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
         } else {
             qry = "SELECT e.patient_id, 'X' enrolled\n" +
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
-                    "where e.entry_point <> 160563  and e.transfer_in_date is null and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
+                    "where e.patient_id in (:patientIds) and e.entry_point <> 160563  and e.transfer_in_date is null and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -72,11 +72,9 @@ public class DarEnrolledInCareDataEvaluator implements PersonDataEvaluator {
         if (sex != null) {
             qry = qry.replace(":sex", sex);
         }
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
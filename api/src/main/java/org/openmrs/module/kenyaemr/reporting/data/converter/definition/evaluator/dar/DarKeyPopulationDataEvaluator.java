@@ -10,17 +10,17 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarKeyPopulationDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -43,7 +43,7 @@ public class DarKeyPopulationDataEvaluator implements PersonDataEvaluator {
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
                     "         inner join kenyaemr_etl.etl_patient_hiv_followup f on f.patient_id = e.patient_id and  date(f.visit_date) = date(:startDate) and f.voided = 0 and f.population_type=164929 \n" +
-                    "where e.entry_point <> 160563  and e.transfer_in_date is null and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
+                    "where e.patient_id in (:patientIds) and e.entry_point <> 160563  and e.transfer_in_date is null and (e.patient_type not in (160563, 164931, 159833) or e.patient_type is null ) and date(e.visit_date) = date(:startDate) and e.voided = 0 ";
         } else if (section.equals("Starting ART")) {
             qry = "select patient_id, 'X' as kp\n" +
                     "from \n" +
@@ -55,7 +55,7 @@ public class DarKeyPopulationDataEvaluator implements PersonDataEvaluator {
                     "      (select e.patient_id, min(e.date_started) as date_started\n" +
                     "        from kenyaemr_etl.etl_drug_event e\n" +
                     "        join kenyaemr_etl.etl_patient_demographics p on p.patient_id=e.patient_id\n" +
-                    "        where e.program = 'HIV'\n" +
+                    "        where e.patient_id in (:patientIds) and e.program = 'HIV'\n" +
                     "        group by e.patient_id) e\n" +
                     " inner join kenyaemr_etl.etl_hiv_enrollment enr on enr.patient_id=e.patient_id\n" +
                     " inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
@@ -71,14 +71,12 @@ public class DarKeyPopulationDataEvaluator implements PersonDataEvaluator {
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 \n" +
                     "         inner join kenyaemr_etl.etl_drug_event d on d.patient_id = f.patient_id  and  date(d.date_started) <= date(:startDate)  and ifnull(d.voided,0)= 0\n" +
                     "         left join kenyaemr_etl.etl_patient_hiv_followup f2 on f.patient_id = f2.patient_id  and  date(f.visit_date) = date(f2.next_appointment_date) and f2.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 and f.population_type=164929";
+                    "where f.patient_id in (:patientIds) and date(f.visit_date) = date(:startDate) and f.voided = 0 and f.population_type=164929";
         }
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
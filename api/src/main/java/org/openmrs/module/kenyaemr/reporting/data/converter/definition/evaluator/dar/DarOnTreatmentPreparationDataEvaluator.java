@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarEnrolledInCareDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarOnTreatmentPreparationDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
@@ -17,11 +18,10 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -45,13 +45,13 @@ public class DarOnTreatmentPreparationDataEvaluator implements PersonDataEvaluat
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 and p.Gender = ':sex' \n" +
                     "         inner join kenyaemr_etl.etl_ART_preparation tp on tp.patient_id = e.patient_id and  date(tp.visit_date) = date(:startDate) \n" +
-                    "where e.voided = 0 ";
+                    "where e.patient_id in (:patientIds) and e.voided = 0 ";
         } else {
             qry = "SELECT e.patient_id, 'X' treatmentPrep\n" +
                     "FROM kenyaemr_etl.etl_hiv_enrollment e\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
                     "         inner join kenyaemr_etl.etl_ART_preparation tp on tp.patient_id = e.patient_id and  date(tp.visit_date) = date(:startDate) \n" +
-                    "where e.voided = 0 ";
+                    "where e.patient_id in (:patientIds) and e.voided = 0 ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -74,11 +74,9 @@ public class DarOnTreatmentPreparationDataEvaluator implements PersonDataEvaluat
         if (sex != null) {
             qry = qry.replace(":sex", sex);
         }
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
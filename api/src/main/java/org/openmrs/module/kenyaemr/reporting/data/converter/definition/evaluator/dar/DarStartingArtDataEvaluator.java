@@ -10,17 +10,17 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarStartingArtDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -50,7 +50,7 @@ public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
                     "      (select e.patient_id, min(e.date_started) as date_started\n" +
                     "        from kenyaemr_etl.etl_drug_event e\n" +
                     "        join kenyaemr_etl.etl_patient_demographics p on p.patient_id=e.patient_id\n" +
-                    "        where e.program = 'HIV'\n" +
+                    "        where e.patient_id in (:patientIds) and e.program = 'HIV'\n" +
                     "        group by e.patient_id) e\n" +
                     " inner join kenyaemr_etl.etl_hiv_enrollment enr on enr.patient_id=e.patient_id\n" +
                     " inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 and p.Gender = ':sex'\n" +
@@ -69,7 +69,7 @@ public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
                     "      (select e.patient_id, min(e.date_started) as date_started\n" +
                     "        from kenyaemr_etl.etl_drug_event e\n" +
                     "        join kenyaemr_etl.etl_patient_demographics p on p.patient_id=e.patient_id\n" +
-                    "        where e.program = 'HIV'\n" +
+                    "        where e.patient_id in (:patientIds) and e.program = 'HIV'\n" +
                     "        group by e.patient_id) e\n" +
                     " inner join kenyaemr_etl.etl_hiv_enrollment enr on enr.patient_id=e.patient_id\n" +
                     " inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = e.patient_id and  p.voided = 0 \n" +
@@ -99,11 +99,9 @@ public class DarStartingArtDataEvaluator implements PersonDataEvaluator {
         if (sex != null) {
             qry = qry.replace(":sex", sex);
         }
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.dar;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarCtxDapsoneDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.dar.DarTbScreeningDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
@@ -17,11 +18,10 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -46,14 +46,14 @@ public class DarTbScreeningDataEvaluator implements PersonDataEvaluator {
                     "FROM kenyaemr_etl.etl_patient_hiv_followup f\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 and p.Gender = ':sex'\n" +
                     "         left join kenyaemr_etl.etl_patient_hiv_followup f2 on f.patient_id = f2.patient_id  and  date(f.visit_date) = date(f2.next_appointment_date) and f2.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 and f.tb_status != 160737 ";
+                    "where f.patient_id in (:patientIds) and date(f.visit_date) = date(:startDate) and f.voided = 0 and f.tb_status != 160737 ";
         } else {
             qry = "SELECT f.patient_id, if(f2.patient_id is not null,\n" +
                     "    TIMESTAMPDIFF(MONTH , date(f.visit_date), date(f.next_appointment_date)), 'R' ) as res\n" +
                     "FROM kenyaemr_etl.etl_patient_hiv_followup f\n" +
                     "         inner join kenyaemr_etl.etl_patient_demographics p on p.patient_id = f.patient_id and  p.voided = 0 \n" +
                     "         left join kenyaemr_etl.etl_patient_hiv_followup f2 on f.patient_id = f2.patient_id  and  date(f.visit_date) = date(f2.next_appointment_date) and f2.voided = 0\n" +
-                    "where date(f.visit_date) = date(:startDate) and f.voided = 0 and f.tb_status != 160737 ";
+                    "where f.patient_id in (:patientIds) and date(f.visit_date) = date(:startDate) and f.voided = 0 and f.tb_status != 160737 ";
         }
         String ageConditionString = "";
         if (minAge != null && maxAge != null) {
@@ -76,11 +76,9 @@ public class DarTbScreeningDataEvaluator implements PersonDataEvaluator {
         if (sex != null) {
             qry = qry.replace(":sex", sex);
         }
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Date startDate = (Date)context.getParameterValue("startDate");
-        queryBuilder.addParameter("startDate", startDate);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("startDate", context.getParameterValue("startDate"));
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
     }
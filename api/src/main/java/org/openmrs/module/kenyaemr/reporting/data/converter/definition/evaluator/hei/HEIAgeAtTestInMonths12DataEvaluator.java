@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.hei;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.hei.HEIAgeAtTestInMonths12DataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -40,12 +40,10 @@ public class HEIAgeAtTestInMonths12DataEvaluator implements PersonDataEvaluator
                 "from kenyaemr_etl.etl_patient_demographics d\n" +
                 "  INNER JOIN kenyaemr_etl.etl_hei_follow_up_visit f ON\n" +
                 "  d.patient_id = f.patient_id\n" +
-                "WHERE round(DATEDIFF(f.visit_date,d.DOB)/7) =48\n" +
+                "WHERE round(DATEDIFF(f.visit_date,d.DOB)/7) =48 and d.patient_id in (:patientIds)\n" +
                 "GROUP BY patient_id";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -11,39 +11,15 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.hei.HEIEntryPointDataDefinition;
-import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
-import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
-import org.openmrs.module.reporting.evaluation.EvaluationContext;
-import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
-
-import java.util.Map;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.AbstractETLColumnDataEvaluator;
 
 /**
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports= HEIEntryPointDataDefinition.class, order=50)
-public class HEIEntryPointDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
-
-    public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
-        EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
-
-        String qry = "select\n" +
-                "  patient_id,\n" +
-                "  (case referral_source when 5485 then \"1\" when 160542 then \"2\" when 160456 then \"3\" when 162050 then \"4\"  when 160538 then \"5\" when 5622 then \"6\" else \"\" end) as referral_source\n" +
-                "from kenyaemr_etl.etl_hei_enrollment\n" +
-                "GROUP BY patient_id;";
+public class HEIEntryPointDataEvaluator extends AbstractETLColumnDataEvaluator {
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
-        c.setData(data);
-        return c;
+    public HEIEntryPointDataEvaluator() {
+        super("etl_hei_enrollment", "(case referral_source when 5485 then \"1\" when 160542 then \"2\" when 160456 then \"3\" when 162050 then \"4\" when 160538 then \"5\" when 5622 then \"6\" else \"\" end) as referral_source");
     }
-}
\ No newline at end of file
+}
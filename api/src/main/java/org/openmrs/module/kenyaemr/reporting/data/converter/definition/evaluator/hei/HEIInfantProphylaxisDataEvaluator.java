@@ -11,39 +11,15 @@ package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluato
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.hei.HEIInfantProphylaxisDataDefinition;
-import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
-import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
-import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
-import org.openmrs.module.reporting.evaluation.EvaluationContext;
-import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
-import org.openmrs.module.reporting.evaluation.service.EvaluationService;
-import org.springframework.beans.factory.annotation.Autowired;
-
-import java.util.Map;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.AbstractETLColumnDataEvaluator;
 
 /**
  * Evaluates a PersonDataDefinition
  */
 @Handler(supports= HEIInfantProphylaxisDataDefinition.class, order=50)
-public class HEIInfantProphylaxisDataEvaluator implements PersonDataEvaluator {
-
-    @Autowired
-    private EvaluationService evaluationService;
-
-    public EvaluatedPersonData evaluate(PersonDataDefinition definition, EvaluationContext context) throws EvaluationException {
-        EvaluatedPersonData c = new EvaluatedPersonData(definition, context);
-
-        String qry = "select\n" +
-                "  patient_id,\n" +
-                "  (case infant_prophylaxis when 80586 then \"Sd NVP Only\" when 1652 then \"sd NVP+AZT+3TC\" when 1149 then \"NVP for 6 weeks(Mother on HAART)\" when 1107 then \"None\" else \"\" end) as infant_prophylaxis\n" +
-                "from kenyaemr_etl.etl_hei_enrollment\n" +
-                "GROUP BY patient_id";
+public class HEIInfantProphylaxisDataEvaluator extends AbstractETLColumnDataEvaluator {
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
-        c.setData(data);
-        return c;
+    public HEIInfantProphylaxisDataEvaluator() {
+        super("etl_hei_enrollment", "(case infant_prophylaxis when 80586 then \"Sd NVP Only\" when 1652 then \"sd NVP+AZT+3TC\" when 1149 then \"NVP for 6 weeks(Mother on HAART)\" when 1107 then \"None\" else \"\" end) as infant_prophylaxis");
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.ipt;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ipt.DateStartedARTDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ipt.HIVTestDateDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
@@ -17,11 +18,9 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
 import java.util.Map;
 
 /**
@@ -55,21 +54,15 @@ public class DateStartedARTDataEvaluator implements PersonDataEvaluator {
                 "                                                                                                          max(if(discontinued,1,0))as alternative_regimen\n" +
                 "                                                                                                   from kenyaemr_etl.etl_drug_event e\n" +
                 "                                                                                                          join kenyaemr_etl.etl_patient_demographics p on p.patient_id=e.patient_id\n" +
-                "                                                                                                   group by e.patient_id) e\n" +
+                "                                                                                                   where e.patient_id in (:patientIds) group by e.patient_id) e\n" +
                 "                                                                                                    left outer join kenyaemr_etl.etl_patient_program_discontinuation d on d.patient_id=e.patient_id\n" +
                 "                                                                                                    left outer join kenyaemr_etl.etl_hiv_enrollment enr on enr.patient_id=e.patient_id\n" +
                 "                                                                                                    left outer join kenyaemr_etl.etl_patient_hiv_followup fup on fup.patient_id=e.patient_id\n" +
                 "                                                                                             group by e.patient_id\n" +
                 "                                                                                             having TI_on_art=0\n" +
-                "                                                                                             )net on init.patient_id = net.patient_id;";
+                "                                                                                             )net on init.patient_id = net.patient_id where init.patient_id in (:patientIds);";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,17 +10,17 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.ipt;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.ipt.PostIPTTBStatusDateDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -43,18 +43,13 @@ public class PostIPTTBStatusDateDataEvaluator implements PersonDataEvaluator {
             "                                                                                                                                                                            left outer join kenyaemr_etl.etl_patient_program_discontinuation d on init.patient_id = d.patient_id\n" +
             "                                                                                                                                                                            left outer join kenyaemr_etl.etl_tb_screening tbs on init.patient_id = tbs.patient_id\n" +
             "                                                                                                                                                                            left outer join kenyaemr_etl.etl_patient_hiv_followup fup on init.patient_id = fup.patient_id\n" +
-            "where d.program_name = \"IPT\" and d.discontinuation_reason = 1267 and timestampdiff(DAY ,date(d.visit_date),COALESCE(date(fup.visit_date),date(tbs.visit_date)))  between :minDays and :maxDays\n" +
+            "where init.patient_id in (:patientIds) and d.program_name = \"IPT\" and d.discontinuation_reason = 1267 and timestampdiff(DAY ,date(d.visit_date),COALESCE(date(fup.visit_date),date(tbs.visit_date)))  between :minDays and :maxDays\n" +
             "group by init.patient_id;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.addParameter("minDays", minDays);
-        queryBuilder.addParameter("maxDays", maxDays);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("minDays", minDays);
+        params.put("maxDays", maxDays);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, params, context);
         c.setData(data);
         return c;
 
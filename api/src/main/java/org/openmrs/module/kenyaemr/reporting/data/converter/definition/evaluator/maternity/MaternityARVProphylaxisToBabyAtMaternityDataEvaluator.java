@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.maternity;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.maternity.MaternityARVProphylaxisToBabyAtMaternityDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -38,11 +38,9 @@ public class MaternityARVProphylaxisToBabyAtMaternityDataEvaluator implements Pe
                 "                 patient_id,\n" +
                 "               (case when etl_mchs_delivery.baby_azt_dispensed = 1 then \"Yes\" when etl_mchs_delivery.baby_azt_dispensed  = 0 then \"No\"\n" +
                 "             when  etl_mchs_delivery.baby_nvp_dispensed = 1 then \"Yes\" when etl_mchs_delivery.baby_nvp_dispensed = 0 then \"No\"  else \" \" end) as baby_prophlyaxis_given\n" +
-                "from kenyaemr_etl.etl_mchs_delivery;";
+                "from kenyaemr_etl.etl_mchs_delivery where patient_id in (:patientIds);";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
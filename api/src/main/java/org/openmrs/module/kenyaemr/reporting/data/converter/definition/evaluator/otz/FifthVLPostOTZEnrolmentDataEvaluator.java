@@ -10,17 +10,16 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.FifthVLPostOTZEnrolmentDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
 import java.util.Map;
 
 /**
@@ -45,18 +44,12 @@ public class FifthVLPostOTZEnrolmentDataEvaluator implements PersonDataEvaluator
                 "                                                                                                           ) as rn\n" +
                 "                                                                                                from kenyaemr_etl.etl_laboratory_extract t cross join\n" +
                 "                                                                                                         (select @v := -1, @rn := 0) params\n" +
-                "                                                                                                where t.lab_test in (1305, 856)\n" +
+                "                                                                                                where t.patient_id in (:patientIds) and t.lab_test in (1305, 856)\n" +
                 "                                                                                                order by t.patient_id, t.visit_date asc\n" +
                 "                                                                                               ) t\n" +
                 "                                                                                          where rn=5)n on n.patient_id= e.patient_id group by e.patient_id having max(date(e.visit_date)) <= date(n.visit_date))f;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,17 +10,16 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.TransitionDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
 import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
 import java.util.Map;
 
 /**
@@ -38,16 +37,10 @@ public class TransitionDataEvaluator implements PersonDataEvaluator {
         String qry = "select e.patient_id,concat_ws('\\r\\n', case d.discontinuation_reason when 5240 then 'Lost to Followup' when 159836 then 'Opt out of OTZ' when 159492 then 'Transfer Out' when 160034\n" +
                 "                               then 'Died' when 165363 then 'Transition to Adult Care' else '' end,d.disc_date) as otz_outome\n" +
                 "from kenyaemr_etl.etl_otz_enrollment e left join\n" +
-                "                                                       (select d.patient_id,d.discontinuation_reason,d.program_name,max(date(d.visit_date)) as disc_date from kenyaemr_etl.etl_patient_program_discontinuation d where d.program_name='OTZ' group by d.patient_id)d\n" +
-                "                                                       on e.patient_id = d.patient_id  group by e.patient_id;";
+                "                                                       (select d.patient_id,d.discontinuation_reason,d.program_name,max(date(d.visit_date)) as disc_date from kenyaemr_etl.etl_patient_program_discontinuation d where d.patient_id in (:patientIds) and d.program_name='OTZ' group by d.patient_id)d\n" +
+                "                                                       on e.patient_id = d.patient_id where e.patient_id in (:patientIds) group by e.patient_id;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
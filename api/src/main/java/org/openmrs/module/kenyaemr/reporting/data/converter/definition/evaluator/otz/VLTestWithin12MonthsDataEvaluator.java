@@ -10,6 +10,7 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.otz;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.SecondRegimenSwitchDataDefinition;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.otz.VLTestWithin12MonthsDataDefinition;
 import org.openmrs.module.reporting.data.person.EvaluatedPersonData;
@@ -17,11 +18,9 @@ import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
 import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Date;
 import java.util.Map;
 
 /**
@@ -40,18 +39,12 @@ public class VLTestWithin12MonthsDataEvaluator implements PersonDataEvaluator {
                 "                                            join (select le.patient_id, concat_ws('\\r\\n',mid(max(concat(le.visit_date,le.urgency)),11),mid(max(concat(le.visit_date,le.test_result)),11),max(le.visit_date)) as latest_vl,\n" +
                 "                                                         max(le.visit_date) as latest_vl_date\n" +
                 "                                                  from kenyaemr_etl.etl_laboratory_extract le\n" +
-                "                                                  where lab_test in (1305, 856)\n" +
+                "                                                  where le.patient_id in (:patientIds) and lab_test in (1305, 856)\n" +
                 "                                                  group by le.patient_id)v on v.patient_id = otzenr.patient_id\n" +
                 "where otzenr.visit_date >=v.latest_vl_date\n" +
                 "group by otzenr.patient_id;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        Date startDate = (Date)context.getParameterValue("startDate");
-        Date endDate = (Date)context.getParameterValue("endDate");
-        queryBuilder.addParameter("endDate", endDate);
-        queryBuilder.addParameter("startDate", startDate);
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluatePatientData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pnc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pnc.PNCHAARTForMotherWithin6WeeksDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -38,11 +38,9 @@ public class PNCHAARTForMotherWithin6WeeksDataEvaluator implements EncounterData
                 "(case de.date_started when \"\" then 'No' else 'Yes' end)as HAART_For_Mother_At_PNC_Over_6Weeks\n" +
                 " from kenyaemr_etl.etl_drug_event de\n" +
                 " join kenyaemr_etl.etl_mchs_delivery d on d.patient_id = de.patient_id\n" +
-                " where de.program = 'HIV' and timestampdiff(week,d.date_of_delivery,date(de.date_started))<=6 ;";
+                " where de.program = 'HIV' and timestampdiff(week,d.date_of_delivery,date(de.date_started))<=6 and d.encounter_id in (:encounterIds) ;";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
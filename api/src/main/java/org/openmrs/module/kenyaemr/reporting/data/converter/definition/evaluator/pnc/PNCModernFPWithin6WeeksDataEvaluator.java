@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pnc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pnc.PNCModernFPWithin6WeeksDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -40,11 +40,9 @@ public class PNCModernFPWithin6WeeksDataEvaluator implements EncounterDataEvalua
                 "        when 1472 then \"Yes\" when 190 then \"Yes\" when 1489 then \"Yes\" when 162332 then \"No\" else \"\" end) as Modern_FP_Within_6Weeks\n" +
                 "from kenyaemr_etl.etl_mch_postnatal_visit v\n" +
                 "       join kenyaemr_etl.etl_mchs_delivery d on d.patient_id = v.patient_id\n" +
-                "where timestampdiff(week,d.date_of_delivery,date(v.visit_date))<=6;";
+                "where timestampdiff(week,d.date_of_delivery,date(v.visit_date))<=6 and v.encounter_id in (:encounterIds);";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
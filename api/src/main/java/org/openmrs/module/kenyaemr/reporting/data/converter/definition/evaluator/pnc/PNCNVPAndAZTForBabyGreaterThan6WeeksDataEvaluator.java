@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pnc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pnc.PNCNVPAndAZTForBabyGreaterThan6WeeksDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -39,11 +39,9 @@ public class PNCNVPAndAZTForBabyGreaterThan6WeeksDataEvaluator implements Encoun
                 "                      when (v.baby_azt_dispensed = 1175 or v.baby_nvp_dispensed = 1175) then \"N/A\" else \"\" end) as azt_nvp_dispensed\n" +
                 "    from kenyaemr_etl.etl_mch_postnatal_visit v\n" +
                 "    join kenyaemr_etl.etl_mchs_delivery d on d.patient_id = v.patient_id\n" +
-                "    where timestampdiff(week,d.date_of_delivery,date(v.visit_date))>6;";
+                "    where timestampdiff(week,d.date_of_delivery,date(v.visit_date))>6 and v.encounter_id in (:encounterIds);";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pnc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pnc.PNCPostpartumVisitTimingDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -41,11 +41,9 @@ public class PNCPostpartumVisitTimingDataEvaluator implements EncounterDataEvalu
                 "             when timestampdiff(day ,d.date_of_delivery,date(v.visit_date)) > 42 then 4 else \"\" end)\n" +
                 "             as postpartum_timing\n" +
                 "from kenyaemr_etl.etl_mch_postnatal_visit v\n" +
-                "    inner   JOIN kenyaemr_etl.etl_mchs_delivery d ON d.patient_id = v.patient_id;\n";
+                "    inner   JOIN kenyaemr_etl.etl_mchs_delivery d ON d.patient_id = v.patient_id where v.encounter_id in (:encounterIds);\n";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
@@ -10,13 +10,13 @@
 package org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.pnc;
 
 import org.openmrs.annotation.Handler;
+import org.openmrs.module.kenyaemr.reporting.ETLQueryUtils;
 import org.openmrs.module.kenyaemr.reporting.data.converter.definition.pnc.PNCTestedForHIVAtPNCDataDefinition;
 import org.openmrs.module.reporting.data.encounter.EvaluatedEncounterData;
 import org.openmrs.module.reporting.data.encounter.definition.EncounterDataDefinition;
 import org.openmrs.module.reporting.data.encounter.evaluator.EncounterDataEvaluator;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.evaluation.EvaluationException;
-import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
 import org.openmrs.module.reporting.evaluation.service.EvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -35,15 +35,13 @@ public class PNCTestedForHIVAtPNCDataEvaluator implements EncounterDataEvaluator
         EvaluatedEncounterData c = new EvaluatedEncounterData(definition, context);
 
         String qry = "select\n" +
-                "       max(v.encounter_id),\n" +
-                "       (case (SELECT count(encounter_id)  FROM kenyaemr_etl.etl_mch_postnatal_visit WHERE\n" +
-                "           encounter_id != (SELECT MAX(v1.encounter_id) FROM kenyaemr_etl.etl_mch_postnatal_visit v1)\n" +
-                "           and  final_test_result = \"Negative\")  when 0 then \"Initial\" else \"Retest\" end)\n" +
-                "from kenyaemr_etl.etl_mch_postnatal_visit v;";
+                "       v.encounter_id,\n" +
+                "       (case (SELECT count(v1.encounter_id)  FROM kenyaemr_etl.etl_mch_postnatal_visit v1 WHERE\n" +
+                "           v1.patient_id = v.patient_id and v1.encounter_id < v.encounter_id\n" +
+                "           and  v1.final_test_result = \"Negative\")  when 0 then \"Initial\" else \"Retest\" end)\n" +
+                "from kenyaemr_etl.etl_mch_postnatal_visit v where v.encounter_id in (:encounterIds);";
 
-        SqlQueryBuilder queryBuilder = new SqlQueryBuilder();
-        queryBuilder.append(qry);
-        Map<Integer, Object> data = evaluationService.evaluateToMap(queryBuilder, Integer.class, Object.class, context);
+        Map<Integer, Object> data = ETLQueryUtils.evaluateEncounterData(evaluationService, qry, context);
         c.setData(data);
         return c;
     }
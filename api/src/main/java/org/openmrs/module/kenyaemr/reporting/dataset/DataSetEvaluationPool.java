@@ -0,0 +1,165 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.dataset;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.openmrs.module.DaemonToken;
+import org.openmrs.module.kenyaemr.EmrConstants;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Shared pool of daemon threads on which the data sets of a merged data set are evaluated in parallel. The pool is
+ * sized from the data set evaluation threads global property when the module starts, and each worker runs as the
+ * daemon user with its own session, so tasks never share a user context or Hibernate session.
+ */
+@Component
+public class DataSetEvaluationPool {
+
+	protected static final Log log = LogFactory.getLog(DataSetEvaluationPool.class);
+
+	private final BlockingQueue<FutureTask<?>> queue = new LinkedBlockingQueue<FutureTask<?>>();
+
+	private final List<Thread> workers = new ArrayList<Thread>();
+
+	private final ThreadLocal<Boolean> isWorker = new ThreadLocal<Boolean>();
+
+	private volatile boolean running = false;
+
+	private final Runnable worker = new Runnable() {
+		@Override
+		public void run() {
+			isWorker.set(Boolean.TRUE);
+			try {
+				while (running) {
+					FutureTask<?> task = queue.take();
+
+					// Each task gets a fresh session so that entities never leak between evaluations
+					Context.closeSession();
+					Context.openSession();
+					task.run();
+					Context.clearSession();
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				isWorker.remove();
+			}
+		}
+	};
+
+	/**
+	 * Starts the worker threads, if the global property allows more than one
+	 * @param daemonToken the token used to run workers as the daemon user
+	 */
+	public synchronized void start(DaemonToken daemonToken) {
+		if (running) {
+			return;
+		}
+
+		int threads = getThreadCount();
+		if (threads <= 1) {
+			return;
+		}
+		if (daemonToken == null) {
+			log.warn("Unable to start data set evaluation pool without a daemon token");
+			return;
+		}
+
+		running = true;
+		for (int t = 0; t < threads; t++) {
+			workers.add(Daemon.runInDaemonThread(worker, daemonToken));
+		}
+
+		log.info("Started data set evaluation pool with " + threads + " threads");
+	}
+
+	/**
+	 * Stops the worker threads. Tasks which haven't started are cancelled.
+	 */
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		for (Thread thread : workers) {
+			thread.interrupt();
+		}
+		workers.clear();
+
+		List<FutureTask<?>> pending = new ArrayList<FutureTask<?>>();
+		queue.drainTo(pending);
+		for (FutureTask<?> task : pending) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * Gets whether the pool has been started
+	 * @return true if running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Gets whether the current thread is one of the pool's workers. Tasks running on a worker shouldn't wait on other
+	 * tasks, as all workers could end up waiting.
+	 * @return true if current thread is a worker
+	 */
+	public boolean isWorkerThread() {
+		return Boolean.TRUE.equals(isWorker.get());
+	}
+
+	/**
+	 * Submits a task to be run by a worker
+	 * @param task the task
+	 * @return the future result
+	 * @throws RejectedExecutionException if the pool isn't running
+	 */
+	public synchronized <T> Future<T> submit(Callable<T> task) {
+		if (!running) {
+			throw new RejectedExecutionException("Data set evaluation pool isn't running");
+		}
+
+		FutureTask<T> future = new FutureTask<T>(task);
+		queue.add(future);
+		return future;
+	}
+
+	/**
+	 * Gets the number of threads from the global property, where 1 or less means data sets are evaluated serially
+	 * @return the number of threads
+	 */
+	protected int getThreadCount() {
+		String value = Context.getAdministrationService().getGlobalProperty(EmrConstants.GP_DATASET_EVALUATION_THREADS);
+		try {
+			return StringUtils.isNotBlank(value) ? Integer.parseInt(value.trim()) : 1;
+		}
+		catch (NumberFormatException ex) {
+			return 1;
+		}
+	}
+}
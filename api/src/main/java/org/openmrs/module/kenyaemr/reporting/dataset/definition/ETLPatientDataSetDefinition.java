@@ -0,0 +1,35 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.dataset.definition;
+
+import org.openmrs.module.reporting.dataset.definition.PatientDataSetDefinition;
+
+/**
+ * A patient data set whose ETL columns are fetched with one query per ETL table rather than one query per column
+ */
+public class ETLPatientDataSetDefinition extends PatientDataSetDefinition {
+
+	public static final long serialVersionUID = 1L;
+
+	/**
+	 * Default constructor
+	 */
+	public ETLPatientDataSetDefinition() {
+		super();
+	}
+
+	/**
+	 * Constructor to populate name only
+	 * @param name the name
+	 */
+	public ETLPatientDataSetDefinition(String name) {
+		super(name);
+	}
+}
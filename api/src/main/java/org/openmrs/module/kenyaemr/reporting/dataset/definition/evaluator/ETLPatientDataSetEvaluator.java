@@ -0,0 +1,120 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.dataset.definition.evaluator;
+
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.APIException;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.AbstractETLColumnDataEvaluator;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.ETLColumnBatch;
+import org.openmrs.module.kenyaemr.reporting.dataset.definition.ETLPatientDataSetDefinition;
+import org.openmrs.module.reporting.data.DataDefinition;
+import org.openmrs.module.reporting.data.patient.definition.PersonToPatientDataDefinition;
+import org.openmrs.module.reporting.data.person.definition.ConvertedPersonDataDefinition;
+import org.openmrs.module.reporting.data.person.definition.PersonDataDefinition;
+import org.openmrs.module.reporting.data.person.evaluator.PersonDataEvaluator;
+import org.openmrs.module.reporting.dataset.SimpleDataSet;
+import org.openmrs.module.reporting.dataset.column.definition.ColumnDefinition;
+import org.openmrs.module.reporting.dataset.column.definition.RowPerObjectColumnDefinition;
+import org.openmrs.module.reporting.dataset.definition.DataSetDefinition;
+import org.openmrs.module.reporting.dataset.definition.evaluator.PatientDataSetEvaluator;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.EvaluationException;
+import org.openmrs.util.HandlerUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluator for ETL patient data sets. Columns from the same ETL table are grouped into batches which are fetched
+ * with a single query, and then the data set is evaluated as a normal patient data set.
+ */
+@Handler(supports = ETLPatientDataSetDefinition.class, order = 50)
+public class ETLPatientDataSetEvaluator extends PatientDataSetEvaluator {
+
+	/**
+	 * @see PatientDataSetEvaluator#evaluate(DataSetDefinition, EvaluationContext)
+	 */
+	@Override
+	public SimpleDataSet evaluate(DataSetDefinition dataSetDefinition, EvaluationContext context) throws EvaluationException {
+		ETLPatientDataSetDefinition dsd = (ETLPatientDataSetDefinition) dataSetDefinition;
+
+		Collection<ETLColumnBatch> batches = getBatches(dsd);
+		ETLColumnBatch.register(context, batches);
+		try {
+			return super.evaluate(dsd, context);
+		}
+		finally {
+			ETLColumnBatch.unregister(context, batches);
+		}
+	}
+
+	/**
+	 * Groups the ETL columns of a data set by table. Tables with only one column are left out as they gain nothing
+	 * from batching
+	 * @param dsd the data set definition
+	 * @return the batches
+	 */
+	protected Collection<ETLColumnBatch> getBatches(ETLPatientDataSetDefinition dsd) {
+		Map<String, ETLColumnBatch> batches = new LinkedHashMap<String, ETLColumnBatch>();
+
+		for (ColumnDefinition column : dsd.getColumnDefinitions()) {
+			if (!(column instanceof RowPerObjectColumnDefinition)) {
+				continue;
+			}
+
+			AbstractETLColumnDataEvaluator evaluator = getETLEvaluator(((RowPerObjectColumnDefinition) column).getDataDefinition().getParameterizable());
+			if (evaluator != null) {
+				ETLColumnBatch batch = batches.get(evaluator.getTable());
+				if (batch == null) {
+					batch = new ETLColumnBatch(evaluator.getTable());
+					batches.put(evaluator.getTable(), batch);
+				}
+				batch.addColumn(evaluator.getColumn());
+			}
+		}
+
+		List<ETLColumnBatch> ret = new ArrayList<ETLColumnBatch>();
+		for (ETLColumnBatch batch : batches.values()) {
+			if (batch.getColumns().size() > 1) {
+				ret.add(batch);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the ETL column evaluator for a data definition, unwrapping person-to-patient and converted definitions
+	 * @param definition the data definition
+	 * @return the evaluator or null if definition isn't evaluated by an ETL column evaluator
+	 */
+	protected AbstractETLColumnDataEvaluator getETLEvaluator(DataDefinition definition) {
+		if (definition instanceof PersonToPatientDataDefinition) {
+			return getETLEvaluator(((PersonToPatientDataDefinition) definition).getJoinedDefinition());
+		}
+		else if (definition instanceof ConvertedPersonDataDefinition) {
+			return getETLEvaluator(((ConvertedPersonDataDefinition) definition).getDefinition().getParameterizable());
+		}
+		else if (definition instanceof PersonDataDefinition) {
+			try {
+				PersonDataEvaluator evaluator = HandlerUtil.getPreferredHandler(PersonDataEvaluator.class, definition.getClass());
+				if (evaluator instanceof AbstractETLColumnDataEvaluator) {
+					return (AbstractETLColumnDataEvaluator) evaluator;
+				}
+			}
+			catch (APIException ex) {
+				// No evaluator, so data set evaluation will report this
+			}
+		}
+		return null;
+	}
+}
@@ -11,6 +11,7 @@ package org.openmrs.module.kenyaemr.reporting.dataset.definition.evaluator;
 
 import org.openmrs.annotation.Handler;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.reporting.dataset.DataSetEvaluationPool;
 import org.openmrs.module.kenyaemr.reporting.dataset.definition.MergingDataSetDefinition;
 import org.openmrs.module.reporting.dataset.DataSet;
 import org.openmrs.module.reporting.dataset.DataSetColumn;
@@ -25,10 +26,16 @@ import org.openmrs.util.OpenmrsUtil;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
- * Evaluator for merged data sets
+ * Evaluator for merged data sets. Contained data sets are evaluated in parallel on the shared
+ * {@link DataSetEvaluationPool} if it is running, and are always merged in the order they were added.
  */
 @Handler(supports = MergingDataSetDefinition.class)
 public class MergingDataSetEvaluator implements DataSetEvaluator {
@@ -40,22 +47,118 @@ public class MergingDataSetEvaluator implements DataSetEvaluator {
 	public MapDataSet evaluate(DataSetDefinition dataSetDefinition, EvaluationContext context) throws EvaluationException {
 		MergingDataSetDefinition dsd = (MergingDataSetDefinition) dataSetDefinition;
 
-		List<MapDataSet> dataSets = new ArrayList<MapDataSet>();
+		List<DataSet> dataSets;
 
-		DataSetDefinitionService dss = Context.getService(DataSetDefinitionService.class);
+		DataSetEvaluationPool pool = getPool();
 
-		for (DataSetDefinition childDsd : dsd.getDataSetDefinitions()) {
-			DataSet dataSet = dss.evaluate(childDsd, context);
+		// Data sets evaluated on a worker are evaluated serially, as waiting on other workers could deadlock the pool
+		if (pool.isRunning() && !pool.isWorkerThread() && dsd.getDataSetDefinitions().size() > 1) {
+			dataSets = evaluateInParallel(dsd.getDataSetDefinitions(), context, pool);
+		}
+		else {
+			dataSets = new ArrayList<DataSet>();
+
+			DataSetDefinitionService dss = Context.getService(DataSetDefinitionService.class);
 
+			for (DataSetDefinition childDsd : dsd.getDataSetDefinitions()) {
+				dataSets.add(dss.evaluate(childDsd, context));
+			}
+		}
+
+		List<MapDataSet> mapDataSets = new ArrayList<MapDataSet>();
+		for (DataSet dataSet : dataSets) {
 			if (dataSet instanceof MapDataSet) {
-				dataSets.add((MapDataSet) dataSet);
+				mapDataSets.add((MapDataSet) dataSet);
 			}
 			else {
 				throw new EvaluationException("Can only merge single dimension data sets");
 			}
 		}
 
-		return mergeDataSets(dataSets, dsd, context);
+		return mergeDataSets(mapDataSets, dsd, context);
+	}
+
+	/**
+	 * Evaluates data sets on the shared pool. Each data set gets its own copy of the evaluation context, but all
+	 * copies share one synchronized cache, so cohorts and data cached by one data set are reused by the others and
+	 * by the rest of the report.
+	 * @param dataSetDefinitions the data set definitions
+	 * @param context the evaluation context
+	 * @param pool the pool
+	 * @return the data sets, in the same order as the definitions
+	 * @throws EvaluationException if any data set could not be evaluated
+	 */
+	protected List<DataSet> evaluateInParallel(List<DataSetDefinition> dataSetDefinitions, EvaluationContext context, DataSetEvaluationPool pool) throws EvaluationException {
+		Map<String, Object> parentCache = context.getCache();
+		Map<String, Object> sharedCache = Collections.synchronizedMap(new HashMap<String, Object>(parentCache));
+
+		List<Future<DataSet>> futures = new ArrayList<Future<DataSet>>();
+		try {
+			for (final DataSetDefinition childDsd : dataSetDefinitions) {
+				final EvaluationContext childContext = copyContext(context, sharedCache);
+
+				futures.add(pool.submit(new Callable<DataSet>() {
+					@Override
+					public DataSet call() throws Exception {
+						return Context.getService(DataSetDefinitionService.class).evaluate(childDsd, childContext);
+					}
+				}));
+			}
+
+			List<DataSet> ret = new ArrayList<DataSet>();
+			for (int index = 0; index < futures.size(); ++index) {
+				try {
+					ret.add(futures.get(index).get());
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new EvaluationException(dataSetDefinitions.get(index).getName(), ex);
+				}
+				catch (ExecutionException ex) {
+					throw new EvaluationException(dataSetDefinitions.get(index).getName(), ex.getCause());
+				}
+				catch (RuntimeException ex) {
+					throw new EvaluationException(dataSetDefinitions.get(index).getName(), ex);
+				}
+			}
+			return ret;
+		}
+		finally {
+			for (Future<DataSet> future : futures) {
+				future.cancel(false);
+			}
+
+			// Pass anything cached by the data sets back to the report's own cache
+			synchronized (sharedCache) {
+				synchronized (parentCache) {
+					parentCache.putAll(sharedCache);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies an evaluation context for use on another thread. The copy shares the parameter values and base cohort,
+	 * and uses the given cache
+	 * @param context the evaluation context
+	 * @param cache the cache, which must be thread safe
+	 * @return the copy
+	 */
+	protected EvaluationContext copyContext(EvaluationContext context, Map<String, Object> cache) {
+		EvaluationContext ret = new EvaluationContext(context.getEvaluationDate());
+		ret.setParameterValues(new HashMap<String, Object>(context.getParameterValues()));
+		ret.setBaseCohort(context.getBaseCohort());
+		ret.setLimit(context.getLimit());
+		ret.setCache(cache);
+		return ret;
+	}
+
+	/**
+	 * Gets the shared evaluation pool
+	 * @return the pool
+	 */
+	protected DataSetEvaluationPool getPool() {
+		return Context.getRegisteredComponents(DataSetEvaluationPool.class).get(0);
 	}
 
 	/**
@@ -9,14 +9,10 @@
  */
 package org.openmrs.module.kenyaemr.reporting.indicator.evaluator;
 
-import org.apache.commons.lang.time.DateUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.openmrs.Concept;
-import org.openmrs.Encounter;
 import org.openmrs.Form;
 import org.openmrs.Location;
-import org.openmrs.Obs;
 import org.openmrs.annotation.Handler;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
@@ -36,10 +32,11 @@ import org.openmrs.module.reporting.indicator.SimpleIndicatorResult;
 import org.openmrs.module.reporting.indicator.evaluator.IndicatorEvaluator;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.ArrayList;
+import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Evaluator for HIV care visit indicators
@@ -59,80 +56,105 @@ public class HivCareVisitsIndicatorEvaluator implements IndicatorEvaluator {
 	public SimpleIndicatorResult evaluate(Indicator indicator, EvaluationContext context) throws EvaluationException {
 		HivCareVisitsIndicator visitIndicator = (HivCareVisitsIndicator) indicator;
 
-		List<Form> hivCareForms = Arrays.asList(
-			MetadataUtils.existing(Form.class, HivMetadata._Form.CLINICAL_ENCOUNTER_HIV_ADDENDUM),
-			MetadataUtils.existing(Form.class, HivMetadata._Form.MOH_257_VISIT_SUMMARY)
-		);
-
 		Date fromDate = visitIndicator.getStartDate();
 		Date toDate = DateUtil.getEndOfDayIfTimeExcluded(visitIndicator.getEndDate());
 
 		Location defaultLocation = kenyaEmrService.getDefaultLocation();
 
-		List<Encounter> hivCareEncounters = Context.getEncounterService().getEncounters(null, defaultLocation, fromDate, toDate, hivCareForms, null, null, null, null, false);
-		List<Encounter> filtered = new ArrayList<Encounter>();
-
+		EvaluatedCohort females18AndOver = null;
 		if (HivCareVisitsIndicator.Filter.FEMALES_18_AND_OVER.equals(visitIndicator.getFilter())) {
-			EvaluatedCohort females18AndOver = Context.getService(CohortDefinitionService.class).evaluate(
+			females18AndOver = Context.getService(CohortDefinitionService.class).evaluate(
 					ReportUtils.map(cohortLibrary.femalesAgedAtLeast18(), "effectiveDate", "${endDate}"), context
 			);
+		}
+
+		// Native queries don't trigger a flush of pending changes
+		Context.flushSession();
+
+		int count = 0;
 
-			for (Encounter enc : hivCareEncounters) {
-				if (females18AndOver.contains(enc.getPatient().getPatientId())) {
-					filtered.add(enc);
+		for (Object row : kenyaEmrService.executeSqlQuery(buildVisitCountsQuery(defaultLocation), getVisitCountsParameters(fromDate, toDate, defaultLocation))) {
+			Object[] cols = (Object[]) row;
+			Integer patientId = ((Number) cols[0]).intValue();
+			int visits = ((Number) cols[1]).intValue();
+			int scheduledVisits = ((Number) cols[2]).intValue();
+
+			if (HivCareVisitsIndicator.Filter.FEMALES_18_AND_OVER.equals(visitIndicator.getFilter())) {
+				if (females18AndOver.contains(patientId)) {
+					count += visits;
 				}
 			}
-		}
-		else if (HivCareVisitsIndicator.Filter.SCHEDULED.equals(visitIndicator.getFilter())) {
-			for (Encounter enc : hivCareEncounters) {
-				if (wasScheduledVisit(enc)) {
-					filtered.add(enc);
-				}
+			else if (HivCareVisitsIndicator.Filter.SCHEDULED.equals(visitIndicator.getFilter())) {
+				count += scheduledVisits;
 			}
-		}
-		else if (HivCareVisitsIndicator.Filter.UNSCHEDULED.equals(visitIndicator.getFilter())) {
-			for (Encounter enc : hivCareEncounters) {
-				if (!wasScheduledVisit(enc)) {
-					filtered.add(enc);
-				}
+			else if (HivCareVisitsIndicator.Filter.UNSCHEDULED.equals(visitIndicator.getFilter())) {
+				count += visits - scheduledVisits;
+			}
+			else {
+				count += visits;
 			}
-		}
-		else {
-			filtered = hivCareEncounters;
 		}
 
 		SimpleIndicatorResult result = new SimpleIndicatorResult();
 		result.setIndicator(indicator);
 		result.setContext(context);
-		result.setNumeratorResult(filtered.size());
+		result.setNumeratorResult(count);
 
 		return result;
 	}
 
 	/**
-	 * Determines whether the given encounter was part of a scheduled visit
-	 * @param encounter the encounter
-	 * @return true if was part of scheduled visit
+	 * Builds the query which counts each patient's HIV care encounters in the period, and how many of those were
+	 * part of a scheduled visit. A visit was scheduled if the encounter has a scheduled visit obs with value true,
+	 * or if the patient has a return visit date obs for the day of the visit.
+	 * @param location the location to restrict encounters to (may be null)
+	 * @return the query
 	 */
-	private boolean wasScheduledVisit(Encounter encounter) {
-		// Firstly look for a scheduled visit obs which has value = true
-		Concept scheduledVisit = Dictionary.getConcept(Dictionary.SCHEDULED_VISIT);
-		for (Obs obs : encounter.getAllObs()) {
-			if (obs.getConcept().equals(scheduledVisit) && obs.getValueAsBoolean()) {
-				return true;
-			}
+	protected String buildVisitCountsQuery(Location location) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("select e.patient_id, count(*), sum(case when");
+		sb.append(" exists (select 1 from obs s where s.encounter_id = e.encounter_id and s.voided = 0");
+		sb.append("   and s.concept_id = :scheduledVisitConcept and (s.value_coded = :trueConcept or s.value_numeric = 1))");
+		sb.append(" or exists (select 1 from obs r where r.person_id = e.patient_id and r.voided = 0");
+		sb.append("   and r.concept_id = :returnVisitDateConcept");
+		sb.append("   and cast(r.value_datetime as date) = cast(coalesce(v.date_started, e.encounter_datetime) as date))");
+		sb.append(" then 1 else 0 end)");
+		sb.append(" from encounter e");
+		sb.append(" inner join patient p on p.patient_id = e.patient_id and p.voided = 0");
+		sb.append(" left outer join visit v on v.visit_id = e.visit_id");
+		sb.append(" where e.voided = 0 and e.form_id in (:forms)");
+		sb.append(" and e.encounter_datetime >= :fromDate and e.encounter_datetime <= :toDate");
+		if (location != null) {
+			sb.append(" and e.location_id = :location");
 		}
+		sb.append(" group by e.patient_id");
+		return sb.toString();
+	}
 
-		Date visitDate = (encounter.getVisit() != null) ? encounter.getVisit().getStartDatetime() : encounter.getEncounterDatetime();
-		Concept returnVisitDate = Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE);
-		List<Obs> returnVisitObss = Context.getObsService().getObservationsByPersonAndConcept(encounter.getPatient(), returnVisitDate);
-
-		for (Obs returnVisitObs : returnVisitObss) {
-			if (returnVisitObs != null && returnVisitObs.getValueDate() != null && DateUtils.isSameDay(returnVisitObs.getValueDate(), visitDate)) {
-				return true;
-			}
+	/**
+	 * Gets the parameter values for the visit counts query
+	 * @param fromDate the start of the period
+	 * @param toDate the end of the period
+	 * @param location the location to restrict encounters to (may be null)
+	 * @return the parameter values
+	 */
+	protected Map<String, Object> getVisitCountsParameters(Date fromDate, Date toDate, Location location) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("scheduledVisitConcept", Dictionary.getConcept(Dictionary.SCHEDULED_VISIT).getConceptId());
+		params.put("trueConcept", Context.getConceptService().getTrueConcept().getConceptId());
+		params.put("returnVisitDateConcept", Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE).getConceptId());
+		params.put("forms", Arrays.asList(
+				MetadataUtils.existing(Form.class, HivMetadata._Form.CLINICAL_ENCOUNTER_HIV_ADDENDUM).getFormId(),
+				MetadataUtils.existing(Form.class, HivMetadata._Form.MOH_257_VISIT_SUMMARY).getFormId()
+		));
+
+		// Timestamps so that the times aren't dropped
+		params.put("fromDate", new Timestamp(fromDate.getTime()));
+		params.put("toDate", new Timestamp(toDate.getTime()));
+
+		if (location != null) {
+			params.put("location", location.getLocationId());
 		}
-
-		return false;
+		return params;
 	}
-}
\ No newline at end of file
+}
@@ -9,6 +9,9 @@
  */
 package org.openmrs.module.kenyaemr.reporting.library.shared.common;
 
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.DemographicCohortDefinition;
+import org.openmrs.module.reporting.cohort.definition.CohortDefinition;
+import org.openmrs.module.reporting.common.DurationUnit;
 import org.openmrs.module.reporting.evaluation.parameter.Parameter;
 import org.openmrs.module.reporting.indicator.dimension.CohortDefinitionDimension;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,8 +37,8 @@ public class CommonDimensionLibrary {
     public CohortDefinitionDimension gender() {
         CohortDefinitionDimension dim = new CohortDefinitionDimension();
         dim.setName("gender");
-        dim.addCohortDefinition("M", map(commonCohortLibrary.males()));
-        dim.addCohortDefinition("F", map(commonCohortLibrary.females()));
+        dim.addCohortDefinition("M", map(ofGender("M")));
+        dim.addCohortDefinition("F", map(ofGender("F")));
         return dim;
     }
 
@@ -95,29 +98,29 @@ public class CommonDimensionLibrary {
         CohortDefinitionDimension dim = new CohortDefinitionDimension();
         dim.setName("fine age between(<1, btw 1 and 9, btw 10 and 14, btw 15 and 19, btw 20 and 24, btw 25 and 49, 50+");
         dim.addParameter(new Parameter("onDate", "Date", Date.class));
-        dim.addCohortDefinition("<1", map(commonCohortLibrary.agedAtMost(0), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-4", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 4), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("5-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(5, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-14", map(commonCohortLibrary.agedAtLeastAgedAtMost(10, 14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15-19", map(commonCohortLibrary.agedAtLeastAgedAtMost(15, 19), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("20-24", map(commonCohortLibrary.agedAtLeastAgedAtMost(20, 24), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("25-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(25, 49), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<1", map(aged(null, 0, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-4", map(aged(1, 4, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("5-9", map(aged(5, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-9", map(aged(1, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-14", map(aged(10, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15-19", map(aged(15, 19, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("20-24", map(aged(20, 24, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25-49", map(aged(25, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         // new age disaggregations
-        dim.addCohortDefinition("25-29", map(commonCohortLibrary.agedAtLeastAgedAtMost(25, 29), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("30-34", map(commonCohortLibrary.agedAtLeastAgedAtMost(30, 34), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("35-39", map(commonCohortLibrary.agedAtLeastAgedAtMost(35, 39), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("40-44", map(commonCohortLibrary.agedAtLeastAgedAtMost(40, 44), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("45-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(45, 49), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("40-49", map(commonCohortLibrary.agedAtLeastAgedAtMost(40, 49), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25-29", map(aged(25, 29, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("30-34", map(aged(30, 34, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("35-39", map(aged(35, 39, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("40-44", map(aged(40, 44, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("45-49", map(aged(45, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("40-49", map(aged(40, 49, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         // previous one
-        dim.addCohortDefinition("50+", map(commonCohortLibrary.agedAtLeast(50), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("50+", map(aged(50, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
         //Age group in months
-        dim.addCohortDefinition("0-2", map(commonCohortLibrary.agedAtLeastAgedAtMostInMonths(0, 2), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("2-12", map(commonCohortLibrary.agedAtLeastAgedAtMostInMonths(2, 12), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-2", map(aged(0, 2, DurationUnit.MONTHS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("2-12", map(aged(2, 12, DurationUnit.MONTHS), "effectiveDate=${onDate}"));
 
-        dim.addCohortDefinition("<15", map(commonCohortLibrary.agedAtMost(14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15+", map(commonCohortLibrary.agedAtLeast(15), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<15", map(aged(null, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15+", map(aged(15, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
 
         return dim;
     }
@@ -130,15 +133,15 @@ public class CommonDimensionLibrary {
         CohortDefinitionDimension dim = new CohortDefinitionDimension();
         dim.setName("fine age between(<1, btw 1 and 9, btw 10 and 14, btw 15 and 19, btw 20 and 24, 25+");
         dim.addParameter(new Parameter("onDate", "Date", Date.class));
-        dim.addCohortDefinition("<1", map(commonCohortLibrary.agedAtMost(0), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("1-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(1, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("0-9", map(commonCohortLibrary.agedAtLeastAgedAtMost(0, 9), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("0-14", map(commonCohortLibrary.agedAtMost(14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15+", map(commonCohortLibrary.agedAtLeast(15), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("10-14", map(commonCohortLibrary.agedAtLeastAgedAtMost(10, 14), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("15-19", map(commonCohortLibrary.agedAtLeastAgedAtMost(15, 19), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("20-24", map(commonCohortLibrary.agedAtLeastAgedAtMost(20, 24), "effectiveDate=${onDate}"));
-        dim.addCohortDefinition("25+", map(commonCohortLibrary.agedAtLeast(25), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("<1", map(aged(null, 0, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("1-9", map(aged(1, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-9", map(aged(0, 9, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("0-14", map(aged(null, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15+", map(aged(15, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("10-14", map(aged(10, 14, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("15-19", map(aged(15, 19, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("20-24", map(aged(20, 24, DurationUnit.YEARS), "effectiveDate=${onDate}"));
+        dim.addCohortDefinition("25+", map(aged(25, null, DurationUnit.YEARS), "effectiveDate=${onDate}"));
 
         return dim;
     }
@@ -185,4 +188,33 @@ public class CommonDimensionLibrary {
         dim.addCohortDefinition("15+", map(commonCohortLibrary.agedAtLeast(15), "effectiveDate=${onDate}"));
         return dim;
     }
-}
\ No newline at end of file
+
+    /**
+     * Persons of the given gender, evaluated in memory for dimensions
+     * @param gender the gender
+     * @return the cohort definition
+     */
+    private CohortDefinition ofGender(String gender) {
+        DemographicCohortDefinition cd = new DemographicCohortDefinition();
+        cd.setName("gender " + gender);
+        cd.setGender(gender);
+        return cd;
+    }
+
+    /**
+     * Persons aged between minAge and maxAge on ${effectiveDate}, evaluated in memory for dimensions
+     * @param minAge the minimum age or null
+     * @param maxAge the maximum age or null
+     * @param ageUnit the unit of the ages
+     * @return the cohort definition
+     */
+    private CohortDefinition aged(Integer minAge, Integer maxAge, DurationUnit ageUnit) {
+        DemographicCohortDefinition cd = new DemographicCohortDefinition();
+        cd.setName("aged between " + minAge + " and " + maxAge + " " + ageUnit);
+        cd.addParameter(new Parameter("effectiveDate", "Effective Date", Date.class));
+        cd.setMinAge(minAge);
+        cd.setMaxAge(maxAge);
+        cd.setAgeUnit(ageUnit);
+        return cd;
+    }
+}
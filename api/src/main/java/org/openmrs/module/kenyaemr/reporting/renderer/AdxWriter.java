@@ -0,0 +1,102 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.renderer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+
+/**
+ * Streaming writer for ADX messages. Groups and data values are written to the output stream as they are added, so
+ * the message is never held in memory.
+ */
+public class AdxWriter {
+
+    public static final String ADX_NAMESPACE = "urn:ihe:qrph:adx:2015";
+
+    public static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final XMLStreamWriter writer;
+
+    /**
+     * Creates a new writer
+     * @param out the output stream, which is not closed by this writer
+     * @throws XMLStreamException if writer can't be created
+     */
+    public AdxWriter(OutputStream out) throws XMLStreamException {
+        this.writer = OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+    }
+
+    /**
+     * Starts the message
+     * @param exported the export timestamp
+     * @throws XMLStreamException if write fails
+     */
+    public void startAdx(String exported) throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("adx");
+        writer.writeDefaultNamespace(ADX_NAMESPACE);
+        writer.writeNamespace("xsi", XSI_NAMESPACE);
+        writer.writeAttribute("xsi", XSI_NAMESPACE, "schemaLocation", ADX_NAMESPACE + " ../schema/adx_loose.xsd");
+        writer.writeAttribute("exported", exported);
+    }
+
+    /**
+     * Starts a group of data values
+     * @param orgUnit the organisation unit
+     * @param period the period
+     * @param dataSet the data set
+     * @throws XMLStreamException if write fails
+     */
+    public void startGroup(String orgUnit, String period, String dataSet) throws XMLStreamException {
+        writer.writeStartElement("group");
+        writer.writeAttribute("orgUnit", orgUnit);
+        writer.writeAttribute("period", period);
+        writer.writeAttribute("dataSet", dataSet);
+    }
+
+    /**
+     * Writes a data value in the current group
+     * @param dataElement the data element
+     * @param categoryOptionCombo the category option combo (may be null)
+     * @param value the value
+     * @throws XMLStreamException if write fails
+     */
+    public void dataValue(String dataElement, String categoryOptionCombo, Object value) throws XMLStreamException {
+        writer.writeEmptyElement("dataValue");
+        writer.writeAttribute("dataElement", dataElement);
+        if (categoryOptionCombo != null) {
+            writer.writeAttribute("categoryOptionCombo", categoryOptionCombo);
+        }
+        writer.writeAttribute("value", value.toString());
+    }
+
+    /**
+     * Ends the current group
+     * @throws XMLStreamException if write fails
+     */
+    public void endGroup() throws XMLStreamException {
+        writer.writeEndElement();
+    }
+
+    /**
+     * Ends the message and flushes it to the output stream
+     * @throws XMLStreamException if write fails
+     */
+    public void endAdx() throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+}
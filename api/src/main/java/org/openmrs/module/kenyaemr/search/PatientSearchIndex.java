@@ -0,0 +1,559 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.search;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of patient name tokens, identifiers and phonetic name keys. It is built in the background when the
+ * module starts and kept up to date as patients, their names and their identifiers are saved. Searches match name
+ * tokens and identifiers by prefix, and fall back to phonetic matching of names when nothing else matches.
+ */
+@Component
+public class PatientSearchIndex {
+
+	protected static final Log log = LogFactory.getLog(PatientSearchIndex.class);
+
+	private static final String NAME_KEY = "n:";
+
+	private static final String IDENTIFIER_KEY = "i:";
+
+	private static final String PHONETIC_KEY = "p:";
+
+	private static final String NAMES_QUERY = "select pn.person_id, pn.given_name, pn.middle_name, pn.family_name, pn.family_name2 from person_name pn"
+			+ " inner join patient p on p.patient_id = pn.person_id and p.voided = 0 where pn.voided = 0";
+
+	private static final String IDENTIFIERS_QUERY = "select pi.patient_id, pi.identifier from patient_identifier pi"
+			+ " inner join patient p on p.patient_id = pi.patient_id and p.voided = 0 where pi.voided = 0";
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private NavigableMap<String, Set<Integer>> patientsByKey = new TreeMap<String, Set<Integer>>();
+
+	private Map<Integer, Set<String>> keysByPatient = new HashMap<Integer, Set<String>>();
+
+	/**
+	 * Changes made while the index is being built, to be applied over the loaded entries
+	 */
+	private Map<Integer, Set<String>> changesDuringBuild;
+
+	private boolean ready = false;
+
+	/**
+	 * Builds the index on a background thread
+	 */
+	public void buildInBackground() {
+		Thread builder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Context.openSession();
+				try {
+					build();
+				}
+				catch (Exception ex) {
+					log.error("Unable to build patient search index", ex);
+				}
+				finally {
+					Context.closeSession();
+				}
+			}
+		}, "kenyaemr-patient-search-index");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	/**
+	 * Builds the index from the names and identifiers of all non-voided patients
+	 */
+	public void build() {
+		lock.writeLock().lock();
+		try {
+			changesDuringBuild = new HashMap<Integer, Set<String>>();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+
+		long start = System.currentTimeMillis();
+
+		Map<Integer, Set<String>> loaded = new HashMap<Integer, Set<String>>();
+		try {
+			KenyaEmrService service = Context.getService(KenyaEmrService.class);
+			Map<String, Object> params = new HashMap<String, Object>();
+
+			for (Object result : service.executeSqlQuery(NAMES_QUERY, params)) {
+				Object[] row = (Object[]) result;
+				Set<String> keys = getOrCreateKeys(loaded, ((Number) row[0]).intValue());
+				for (int part = 1; part < row.length; ++part) {
+					addNameKeys(keys, (String) row[part]);
+				}
+			}
+
+			for (Object result : service.executeSqlQuery(IDENTIFIERS_QUERY, params)) {
+				Object[] row = (Object[]) result;
+				addIdentifierKey(getOrCreateKeys(loaded, ((Number) row[0]).intValue()), (String) row[1]);
+			}
+		}
+		catch (RuntimeException ex) {
+			lock.writeLock().lock();
+			try {
+				changesDuringBuild = null;
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+			throw ex;
+		}
+
+		lock.writeLock().lock();
+		try {
+			loaded.putAll(changesDuringBuild);
+			changesDuringBuild = null;
+
+			keysByPatient = new HashMap<Integer, Set<String>>();
+			patientsByKey = new TreeMap<String, Set<Integer>>();
+			for (Map.Entry<Integer, Set<String>> entry : loaded.entrySet()) {
+				if (!entry.getValue().isEmpty()) {
+					add(entry.getKey(), entry.getValue());
+				}
+			}
+			ready = true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("Indexed " + loaded.size() + " patients for search in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * Gets whether the index has been built
+	 * @return true if built
+	 */
+	public boolean isReady() {
+		lock.readLock().lock();
+		try {
+			return ready;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Updates the entries for a patient from their current names and identifiers. Voided patients are removed.
+	 * @param patient the patient
+	 */
+	public void update(Patient patient) {
+		if (patient != null && patient.getPatientId() != null) {
+			replace(patient.getPatientId(), getKeys(patient));
+		}
+	}
+
+	/**
+	 * Updates the entries for a patient when the current transaction is committed, so that searches never find
+	 * changes which are rolled back. The patient's keys are taken now, while their names and identifiers can still be
+	 * loaded.
+	 * @param patient the patient
+	 */
+	public void updateOnCommit(Patient patient) {
+		if (patient != null && patient.getPatientId() != null) {
+			replaceOnCommit(patient.getPatientId(), getKeys(patient));
+		}
+	}
+
+	/**
+	 * Removes the entries for a patient
+	 * @param patientId the patient id
+	 */
+	public void remove(Integer patientId) {
+		if (patientId != null) {
+			replace(patientId, new HashSet<String>());
+		}
+	}
+
+	/**
+	 * Removes the entries for a patient when the current transaction is committed
+	 * @param patientId the patient id
+	 */
+	public void removeOnCommit(Integer patientId) {
+		if (patientId != null) {
+			replaceOnCommit(patientId, new HashSet<String>());
+		}
+	}
+
+	/**
+	 * Searches for patients by name or identifier. Each word in the query must be the start of one of a patient's
+	 * names, or the whole query the start of one of their identifiers.
+	 * @param query the name or identifier
+	 * @return the matching patient ids, or null if the index isn't ready
+	 */
+	public Set<Integer> search(String query) {
+		lock.readLock().lock();
+		try {
+			if (!ready) {
+				return null;
+			}
+
+			Set<Integer> matched = new TreeSet<Integer>();
+
+			String identifier = normalize(query);
+			if (identifier.length() > 0) {
+				matched.addAll(getPatientsByKeyPrefix(IDENTIFIER_KEY + identifier));
+			}
+
+			List<String> terms = tokenize(query);
+			Set<Integer> matchedByName = null;
+			for (String term : terms) {
+				matchedByName = intersect(matchedByName, getPatientsByKeyPrefix(NAME_KEY + term));
+			}
+			if (matchedByName != null) {
+				matched.addAll(matchedByName);
+			}
+
+			// Only match names by sound if nothing else matches
+			if (matched.isEmpty()) {
+				Set<Integer> matchedBySound = null;
+				for (String term : terms) {
+					String phonetic = getPhoneticKey(term);
+					if (phonetic == null) {
+						return matched;
+					}
+					Set<Integer> patientIds = patientsByKey.get(PHONETIC_KEY + phonetic);
+					matchedBySound = intersect(matchedBySound, patientIds != null ? patientIds : new HashSet<Integer>());
+				}
+				if (matchedBySound != null) {
+					matched.addAll(matchedBySound);
+				}
+			}
+
+			return matched;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches for patients by identifier only, ranking exact matches before prefix matches
+	 * @param query the identifier
+	 * @return the matching patient ids, exact matches first and each group in id order, or null if the index isn't
+	 * ready
+	 */
+	public List<Integer> searchIdentifiers(String query) {
+		lock.readLock().lock();
+		try {
+			if (!ready) {
+				return null;
+			}
+
+			List<Integer> matched = new ArrayList<Integer>();
+			String identifier = normalize(query);
+			if (identifier.length() > 0) {
+				Set<Integer> exact = patientsByKey.get(IDENTIFIER_KEY + identifier);
+				Set<Integer> exactSorted = exact != null ? new TreeSet<Integer>(exact) : new TreeSet<Integer>();
+				matched.addAll(exactSorted);
+
+				for (Integer patientId : new TreeSet<Integer>(getPatientsByKeyPrefix(IDENTIFIER_KEY + identifier))) {
+					if (!exactSorted.contains(patientId)) {
+						matched.add(patientId);
+					}
+				}
+			}
+			return matched;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of indexed patients
+	 * @return the number of patients
+	 */
+	public int getSize() {
+		lock.readLock().lock();
+		try {
+			return keysByPatient.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the keys for a patient from their current names and identifiers
+	 * @param patient the patient
+	 * @return the keys, which are empty for a voided patient
+	 */
+	protected static Set<String> getKeys(Patient patient) {
+		Set<String> keys = new HashSet<String>();
+		if (!patient.isVoided()) {
+			for (PersonName name : patient.getNames()) {
+				if (!name.isVoided()) {
+					addNameKeys(keys, name.getGivenName());
+					addNameKeys(keys, name.getMiddleName());
+					addNameKeys(keys, name.getFamilyName());
+					addNameKeys(keys, name.getFamilyName2());
+				}
+			}
+			for (PatientIdentifier identifier : patient.getIdentifiers()) {
+				if (!identifier.isVoided()) {
+					addIdentifierKey(keys, identifier.getIdentifier());
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Replaces all the keys for a patient when the current transaction is committed, or now if there is no transaction
+	 * @param patientId the patient id
+	 * @param keys the new keys
+	 */
+	protected void replaceOnCommit(final Integer patientId, final Set<String> keys) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					replace(patientId, keys);
+				}
+			});
+		}
+		else {
+			replace(patientId, keys);
+		}
+	}
+
+	/**
+	 * Replaces all the keys for a patient
+	 * @param patientId the patient id
+	 * @param keys the new keys
+	 */
+	protected void replace(Integer patientId, Set<String> keys) {
+		lock.writeLock().lock();
+		try {
+			if (changesDuringBuild != null) {
+				changesDuringBuild.put(patientId, keys);
+			}
+
+			Set<String> oldKeys = keysByPatient.remove(patientId);
+			if (oldKeys != null) {
+				for (String key : oldKeys) {
+					Set<Integer> patientIds = patientsByKey.get(key);
+					patientIds.remove(patientId);
+					if (patientIds.isEmpty()) {
+						patientsByKey.remove(key);
+					}
+				}
+			}
+
+			if (!keys.isEmpty()) {
+				add(patientId, keys);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds keys for a patient who has none. Callers must hold the write lock.
+	 * @param patientId the patient id
+	 * @param keys the keys
+	 */
+	private void add(Integer patientId, Set<String> keys) {
+		keysByPatient.put(patientId, keys);
+		for (String key : keys) {
+			Set<Integer> patientIds = patientsByKey.get(key);
+			if (patientIds == null) {
+				patientIds = new HashSet<Integer>();
+				patientsByKey.put(key, patientIds);
+			}
+			patientIds.add(patientId);
+		}
+	}
+
+	/**
+	 * Gets the patients with any key starting with the given prefix. Callers must hold the read lock.
+	 * @param prefix the key prefix
+	 * @return the patient ids
+	 */
+	private Set<Integer> getPatientsByKeyPrefix(String prefix) {
+		Set<Integer> patientIds = new HashSet<Integer>();
+		for (Set<Integer> keyPatientIds : patientsByKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+			patientIds.addAll(keyPatientIds);
+		}
+		return patientIds;
+	}
+
+	/**
+	 * Adds the keys for a name, i.e. each of its words and their phonetic keys
+	 * @param keys the keys
+	 * @param name the name (may be null)
+	 */
+	protected static void addNameKeys(Set<String> keys, String name) {
+		for (String token : tokenize(name)) {
+			keys.add(NAME_KEY + token);
+
+			String phonetic = getPhoneticKey(token);
+			if (phonetic != null) {
+				keys.add(PHONETIC_KEY + phonetic);
+			}
+		}
+	}
+
+	/**
+	 * Adds the key for an identifier
+	 * @param keys the keys
+	 * @param identifier the identifier (may be null)
+	 */
+	protected static void addIdentifierKey(Set<String> keys, String identifier) {
+		String normalized = normalize(identifier);
+		if (normalized.length() > 0) {
+			keys.add(IDENTIFIER_KEY + normalized);
+		}
+	}
+
+	/**
+	 * Splits text into lower case words, ignoring punctuation
+	 * @param text the text (may be null)
+	 * @return the words
+	 */
+	protected static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<String>();
+		if (text != null) {
+			for (String word : text.split("[\\s\\-]+")) {
+				String token = normalize(word);
+				if (token.length() > 0) {
+					tokens.add(token);
+				}
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Converts text to lower case and removes anything that isn't a letter or digit
+	 * @param text the text (may be null)
+	 * @return the normalized text
+	 */
+	protected static String normalize(String text) {
+		return StringUtils.isEmpty(text) ? "" : text.toLowerCase().replaceAll("[^\\p{L}\\p{N}]", "");
+	}
+
+	/**
+	 * Gets the Soundex code of a word, so that e.g. Wanjiku and Wanjicu match
+	 * @param word the normalized word
+	 * @return the code, or null if the word doesn't start with a letter from a to z
+	 */
+	protected static String getPhoneticKey(String word) {
+		if (word.length() == 0 || word.charAt(0) < 'a' || word.charAt(0) > 'z') {
+			return null;
+		}
+
+		StringBuilder code = new StringBuilder(4);
+		code.append(Character.toUpperCase(word.charAt(0)));
+
+		char last = getSoundexDigit(word.charAt(0));
+		for (int i = 1; i < word.length() && code.length() < 4; ++i) {
+			char c = word.charAt(i);
+			char digit = getSoundexDigit(c);
+			if (digit != '0' && digit != last) {
+				code.append(digit);
+			}
+			// h and w don't separate letters with the same code
+			if (c != 'h' && c != 'w') {
+				last = digit;
+			}
+		}
+
+		while (code.length() < 4) {
+			code.append('0');
+		}
+		return code.toString();
+	}
+
+	/**
+	 * Gets the Soundex digit of a letter
+	 * @param c the letter
+	 * @return the digit, or '0' for vowels and other characters
+	 */
+	private static char getSoundexDigit(char c) {
+		switch (c) {
+			case 'b': case 'f': case 'p': case 'v':
+				return '1';
+			case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+				return '2';
+			case 'd': case 't':
+				return '3';
+			case 'l':
+				return '4';
+			case 'm': case 'n':
+				return '5';
+			case 'r':
+				return '6';
+			default:
+				return '0';
+		}
+	}
+
+	/**
+	 * Intersects a set of patients with another
+	 * @param patientIds the set so far, or null to start with the other set
+	 * @param other the other set
+	 * @return the intersection
+	 */
+	private static Set<Integer> intersect(Set<Integer> patientIds, Collection<Integer> other) {
+		if (patientIds == null) {
+			return new HashSet<Integer>(other);
+		}
+		patientIds.retainAll(other);
+		return patientIds;
+	}
+
+	/**
+	 * Gets the keys for a patient, creating them if necessary
+	 * @param keysByPatient the keys by patient
+	 * @param patientId the patient id
+	 * @return the keys
+	 */
+	private static Set<String> getOrCreateKeys(Map<Integer, Set<String>> keysByPatient, Integer patientId) {
+		Set<String> keys = keysByPatient.get(patientId);
+		if (keys == null) {
+			keys = new HashSet<String>();
+			keysByPatient.put(patientId, keys);
+		}
+		return keys;
+	}
+}
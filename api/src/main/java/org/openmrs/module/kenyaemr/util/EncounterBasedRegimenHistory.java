@@ -0,0 +1,128 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.util;
+
+import org.openmrs.Encounter;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.ui.framework.SimpleObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The regimen editor encounters of a patient, loaded with a single query and grouped by category (ARV or TB) in
+ * chronological order. Use one instance to answer several history/first/last questions for the same patient.
+ */
+public class EncounterBasedRegimenHistory {
+
+    public static final String ARV_TREATMENT_PLAN_EVENT_CONCEPT = "1255AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+
+    public static final String TB_TREATMENT_PLAN_CONCEPT = "1268AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+
+    private final Map<String, List<Encounter>> encountersByCategoryConcept;
+
+    /**
+     * Creates a new history
+     * @param encountersByCategoryConcept the encounters in chronological order, by category concept UUID
+     */
+    protected EncounterBasedRegimenHistory(Map<String, List<Encounter>> encountersByCategoryConcept) {
+        this.encountersByCategoryConcept = encountersByCategoryConcept;
+    }
+
+    /**
+     * Loads the regimen history of a patient
+     * @param patient the patient
+     * @return the history
+     */
+    public static EncounterBasedRegimenHistory forPatient(Patient patient) {
+        Map<String, List<Encounter>> encountersByCategoryConcept = new HashMap<String, List<Encounter>>();
+        encountersByCategoryConcept.put(ARV_TREATMENT_PLAN_EVENT_CONCEPT, new ArrayList<Encounter>());
+        encountersByCategoryConcept.put(TB_TREATMENT_PLAN_CONCEPT, new ArrayList<Encounter>());
+
+        List<Object[]> rows = Context.getService(KenyaEmrService.class).getEncountersWithObsOfConcepts(patient,
+                CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR, CommonMetadata._Form.DRUG_REGIMEN_EDITOR,
+                Arrays.asList(ARV_TREATMENT_PLAN_EVENT_CONCEPT, TB_TREATMENT_PLAN_CONCEPT));
+
+        for (Object[] values : rows) {
+            List<Encounter> encounters = encountersByCategoryConcept.get(values[1]);
+
+            // An encounter can have more than one obs for the category
+            if (!encounters.contains(values[0])) {
+                encounters.add((Encounter) values[0]);
+            }
+        }
+
+        return new EncounterBasedRegimenHistory(encountersByCategoryConcept);
+    }
+
+    /**
+     * Gets the regimen editor encounters for a category
+     * @param category the category, i.e. "ARV" or "TB"
+     * @return the encounters in chronological order
+     */
+    public List<Encounter> getEncounters(String category) {
+        String categoryConceptUuid = category.equals("ARV") ? ARV_TREATMENT_PLAN_EVENT_CONCEPT : TB_TREATMENT_PLAN_CONCEPT;
+        return Collections.unmodifiableList(encountersByCategoryConcept.get(categoryConceptUuid));
+    }
+
+    /**
+     * Gets the first regimen editor encounter for a category
+     * @param category the category, i.e. "ARV" or "TB"
+     * @return the encounter or null
+     */
+    public Encounter getFirstEncounter(String category) {
+        List<Encounter> encounters = getEncounters(category);
+        if (encounters.isEmpty()) {
+            return null;
+        }
+
+        // Of encounters with the same date, the last is used
+        Encounter first = encounters.get(0);
+        for (Encounter encounter : encounters) {
+            if (encounter.getEncounterDatetime().getTime() != first.getEncounterDatetime().getTime()) {
+                break;
+            }
+            first = encounter;
+        }
+        return first;
+    }
+
+    /**
+     * Gets the last regimen editor encounter for a category
+     * @param category the category, i.e. "ARV" or "TB"
+     * @return the encounter or null
+     */
+    public Encounter getLastEncounter(String category) {
+        List<Encounter> encounters = getEncounters(category);
+        return encounters.isEmpty() ? null : encounters.get(encounters.size() - 1);
+    }
+
+    /**
+     * Gets the regimen changes for a category
+     * @param category the category, i.e. "ARV" or "TB"
+     * @return the regimen change objects in chronological order
+     */
+    public List<SimpleObject> getHistory(String category) {
+        List<SimpleObject> history = new ArrayList<SimpleObject>();
+        for (Encounter e : getEncounters(category)) {
+            SimpleObject object = EncounterBasedRegimenUtils.buildRegimenChangeObject(e.getObs(), e);
+            if (object != null)
+                history.add(object);
+        }
+        return history;
+    }
+}
@@ -9,118 +9,33 @@
  */
 package org.openmrs.module.kenyaemr.util;
 
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ArrayNode;
-import org.codehaus.jackson.node.ObjectNode;
 import org.openmrs.Encounter;
-import org.openmrs.EncounterType;
-import org.openmrs.Form;
 import org.openmrs.Obs;
 import org.openmrs.Patient;
-import org.openmrs.api.EncounterService;
-import org.openmrs.api.FormService;
-import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.CoreConstants;
-import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.regimen.RegimenCatalogue;
 import org.openmrs.ui.framework.SimpleObject;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.NavigableMap;
 import java.util.Set;
-import java.util.TreeMap;
 
 public class EncounterBasedRegimenUtils {
 
     static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd-MMM-yyyy");
 
     public static List<SimpleObject> getRegimenHistoryFromObservations (Patient patient, String category) {
-
-        FormService formService = Context.getFormService();
-        EncounterService encounterService = Context.getEncounterService();
-        String ARV_TREATMENT_PLAN_EVENT_CONCEPT = "1255AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        String TB_TREATMENT_PLAN_CONCEPT = "1268AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        List<SimpleObject> history = new ArrayList<SimpleObject>();
-        String categoryConceptUuid = category.equals("ARV")? ARV_TREATMENT_PLAN_EVENT_CONCEPT : TB_TREATMENT_PLAN_CONCEPT;
-
-        EncounterType et = encounterService.getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
-        Form form = formService.getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
-
-        List<Encounter> regimenChangeHistory = EmrUtils.AllEncounters(patient, et, form);
-        if (regimenChangeHistory != null && regimenChangeHistory.size() > 0) {
-            for (Encounter e : regimenChangeHistory) {
-                Set<Obs> obs = e.getObs();
-                if (programEncounterMatching(obs, categoryConceptUuid)) {
-                    SimpleObject object = buildRegimenChangeObject(obs, e);
-                    if (object != null)
-                        history.add(object);
-                }
-            }
-            return history;
-        }
-        return new ArrayList<SimpleObject>();
+        return EncounterBasedRegimenHistory.forPatient(patient).getHistory(category);
     }
 
     public static Encounter getLastEncounterForCategory (Patient patient, String category) {
-
-        FormService formService = Context.getFormService();
-        EncounterService encounterService = Context.getEncounterService();
-        String ARV_TREATMENT_PLAN_EVENT_CONCEPT = "1255AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        String TB_TREATMENT_PLAN_CONCEPT = "1268AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        List<SimpleObject> history = new ArrayList<SimpleObject>();
-        String categoryConceptUuid = category.equals("ARV")? ARV_TREATMENT_PLAN_EVENT_CONCEPT : TB_TREATMENT_PLAN_CONCEPT;
-
-        EncounterType et = encounterService.getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
-        Form form = formService.getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
-
-        List<Encounter> encs = EmrUtils.AllEncounters(patient, et, form);
-        NavigableMap<Date, Encounter> programEncs = new TreeMap<Date, Encounter>();
-        for (Encounter e : encs) {
-            if (e != null) {
-                Set<Obs> obs = e.getObs();
-                if (programEncounterMatching(obs, categoryConceptUuid)) {
-                    programEncs.put(e.getEncounterDatetime(), e);
-                }
-            }
-        }
-        if (!programEncs.isEmpty()) {
-            return programEncs.lastEntry().getValue();
-        }
-        return null;
+        return EncounterBasedRegimenHistory.forPatient(patient).getLastEncounter(category);
     }
 
     public static Encounter getFirstEncounterForCategory (Patient patient, String category) {
-
-        FormService formService = Context.getFormService();
-        EncounterService encounterService = Context.getEncounterService();
-        String ARV_TREATMENT_PLAN_EVENT_CONCEPT = "1255AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        String TB_TREATMENT_PLAN_CONCEPT = "1268AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
-        List<SimpleObject> history = new ArrayList<SimpleObject>();
-        String categoryConceptUuid = category.equals("ARV")? ARV_TREATMENT_PLAN_EVENT_CONCEPT : TB_TREATMENT_PLAN_CONCEPT;
-
-        EncounterType et = encounterService.getEncounterTypeByUuid(CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
-        Form form = formService.getFormByUuid(CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
-
-        List<Encounter> encs = EmrUtils.AllEncounters(patient, et, form);
-        NavigableMap<Date, Encounter> programEncs = new TreeMap<Date, Encounter>();
-        for (Encounter e : encs) {
-            if (e != null) {
-                Set<Obs> obs = e.getObs();
-                if (programEncounterMatching(obs, categoryConceptUuid)) {
-                    programEncs.put(e.getEncounterDatetime(), e);
-                }
-            }
-        }
-        if (!programEncs.isEmpty()) {
-            return programEncs.firstEntry().getValue();
-        }
-        return null;
+        return EncounterBasedRegimenHistory.forPatient(patient).getFirstEncounter(category);
     }
 
     public static boolean programEncounterMatching(Set<Obs> obs, String conceptUuidToMatch) {
@@ -155,11 +70,11 @@ public class EncounterBasedRegimenUtils {
 
             if (obs.getConcept().getUuid().equals(CURRENT_DRUGS) ) {
                 regimen = obs.getValueCoded() != null ? obs.getValueCoded().getFullySpecifiedName(CoreConstants.LOCALE).getName() : "Unresolved Regimen name";
-                try {
-                    regimenShort = getRegimenNameFromRegimensXMLString(obs.getValueCoded().getUuid(), getRegimenConceptJson());
-                    regimenLine = getRegimenLineFromRegimensXMLString(obs.getValueCoded().getUuid(), getRegimenConceptJson());
-                } catch (IOException e1) {
-                    e1.printStackTrace();
+                if (obs.getValueCoded() != null) {
+                    RegimenCatalogue catalogue = RegimenCatalogue.getInstance();
+                    String conceptRef = obs.getValueCoded().getUuid();
+                    regimenShort = catalogue.getName(conceptRef) != null ? catalogue.getName(conceptRef) : "Unknown";
+                    regimenLine = catalogue.getLine(conceptRef) != null ? catalogue.getLine(conceptRef) : "Unknown";
                 }
                 regimenUuid = obs.getValueCoded() != null ? obs.getValueCoded().getUuid() : "";
             } else if (obs.getConcept().getUuid().equals(CURRENT_DRUG_NON_STANDARD) ) {
@@ -227,32 +142,18 @@ public class EncounterBasedRegimenUtils {
 
     public static String getRegimenNameFromRegimensXMLString(String conceptRef, String regimenJson) throws IOException {
 
-        ObjectMapper mapper = new ObjectMapper();
-        ArrayNode conf = (ArrayNode) mapper.readTree(regimenJson);
-
-        for (Iterator<JsonNode> it = conf.iterator(); it.hasNext(); ) {
-            ObjectNode node = (ObjectNode) it.next();
-            if (node.get("conceptRef").asText().equals(conceptRef)) {
-                return node.get("name").asText();
-            }
-        }
-
-        return "Unknown";
+        RegimenCatalogue catalogue = regimenJson.equals(getRegimenConceptJson()) ? RegimenCatalogue.getInstance() : new RegimenCatalogue(regimenJson);
+        String value = catalogue.getName(conceptRef);
+        return value != null ? value : "Unknown";
     }
-    public static String getRegimenLineFromRegimensXMLString(String conceptRef, String regimenJson) throws IOException {
 
-        ObjectMapper mapper = new ObjectMapper();
-        ArrayNode conf = (ArrayNode) mapper.readTree(regimenJson);
-
-        for (Iterator<JsonNode> it = conf.iterator(); it.hasNext(); ) {
-            ObjectNode node = (ObjectNode) it.next();
-            if (node.get("conceptRef").asText().equals(conceptRef)) {
-                return node.get("regimenLine").asText();
-            }
-        }
+    public static String getRegimenLineFromRegimensXMLString(String conceptRef, String regimenJson) throws IOException {
 
-        return "Unknown";
+        RegimenCatalogue catalogue = regimenJson.equals(getRegimenConceptJson()) ? RegimenCatalogue.getInstance() : new RegimenCatalogue(regimenJson);
+        String value = catalogue.getLine(conceptRef);
+        return value != null ? value : "Unknown";
     }
+
     public static String getRegimenConceptJson() {
         String json = "[\n" +
                 "  {\n" +
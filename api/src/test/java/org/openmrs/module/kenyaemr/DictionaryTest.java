@@ -52,6 +52,23 @@ public class DictionaryTest extends BaseModuleContextSensitiveTest {
 		Assert.assertThat(fetched, is(instanceOf(ConceptNumeric.class)));
 	}
 
+	/**
+	 * @see Dictionary#getConcept(String)
+	 */
+	@Test
+	public void getConcept_shouldCacheResolvedConcepts() {
+		Dictionary.clearCache();
+		long hits = Dictionary.getCacheHits(), misses = Dictionary.getCacheMisses();
+
+		Concept cd4 = Dictionary.getConcept(Dictionary.CD4_COUNT);
+		Assert.assertThat(Dictionary.getCacheMisses(), is(misses + 1));
+
+		Concept fetched = Dictionary.getConcept(Dictionary.CD4_COUNT);
+		Assert.assertThat(fetched, is(cd4));
+		Assert.assertThat(fetched, is(instanceOf(ConceptNumeric.class)));
+		Assert.assertThat(Dictionary.getCacheHits(), is(hits + 1));
+	}
+
 	/**
 	 * @see Dictionary#getConcept(String)
 	 */
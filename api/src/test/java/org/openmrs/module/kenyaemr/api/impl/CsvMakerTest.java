@@ -0,0 +1,40 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.api.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link CsvMaker}
+ */
+public class CsvMakerTest {
+
+    /**
+     * @see CsvMaker#createCsv(java.util.List, java.util.List)
+     */
+    @Test
+    public void createCsv_shouldWriteHeaderAndRowsWithoutChangingData() throws Exception {
+        List<Object> data = new ArrayList<Object>();
+        data.add(new Object[] { "Jane", 30, null });
+        List<Object> header = Arrays.<Object>asList("Name", "Age", "Last VL");
+
+        String csv = new String(new CsvMaker().createCsv(data, header), "UTF-8");
+
+        Assert.assertThat(csv, is("\"Name\",\"Age\",\"Last VL\"\n\"Jane\",\"30\",\n"));
+        Assert.assertThat(data.size(), is(1));
+    }
+}
@@ -12,6 +12,7 @@ package org.openmrs.module.kenyaemr.api.impl;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.openmrs.Concept;
 import org.openmrs.Location;
 import org.openmrs.LocationAttributeType;
 import org.openmrs.Patient;
@@ -19,6 +20,7 @@ import org.openmrs.Visit;
 import org.openmrs.VisitType;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
@@ -27,6 +29,7 @@ import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
@@ -98,6 +101,21 @@ public class KenyaEmrServiceImplTest extends BaseModuleContextSensitiveTest {
 		Assert.assertThat(service.getDefaultLocationMflCode(), is("15001"));
 	}
 
+	/**
+	 * @see org.openmrs.module.kenyaemr.api.impl.KenyaEmrServiceImpl#getDefaultLocationMflCode()
+	 */
+	@Test
+	public void getDefaultLocationMflCode_shouldReflectChangesToTheDefaultLocation() throws Exception {
+		service.setDefaultLocation(Context.getLocationService().getLocation(1));
+
+		Assert.assertThat(service.getDefaultLocationMflCode(), is("15001"));
+
+		service.setDefaultLocation(Context.getLocationService().getLocation(2));
+
+		Assert.assertThat(service.getDefaultLocation(), is(Context.getLocationService().getLocation(2)));
+		Assert.assertThat(service.getDefaultLocationMflCode(), is("15002"));
+	}
+
 	/**
 	 * @see org.openmrs.module.kenyaemr.api.impl.KenyaEmrServiceImpl#getLocationByMflCode(String)
 	 * @verifies find the location with that code
@@ -110,6 +128,19 @@ public class KenyaEmrServiceImplTest extends BaseModuleContextSensitiveTest {
 		Assert.assertNull(service.getLocationByMflCode("XXXXX")); // No such MFL code
 	}
 
+	/**
+	 * @see org.openmrs.module.kenyaemr.api.impl.KenyaEmrServiceImpl#getLocationByMflCode(String)
+	 */
+	@Test
+	public void getLocationByMflCode_shouldNotReturnLocationRetiredSinceItWasIndexed() throws Exception {
+		Location location2 = Context.getLocationService().getLocation(2);
+		Assert.assertEquals(location2, service.getLocationByMflCode("15002"));
+
+		Context.getLocationService().retireLocation(location2, "Testing");
+
+		Assert.assertNull(service.getLocationByMflCode("15002"));
+	}
+
 	/**
 	 * @see KenyaEmrServiceImpl#isSetupRequired()
 	 * @verifies return true after everything is configured
@@ -198,4 +229,20 @@ public class KenyaEmrServiceImplTest extends BaseModuleContextSensitiveTest {
 		Assert.assertEquals(1, visits.size());
 		Assert.assertEquals(visit2, visits.get(0));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @see org.openmrs.module.kenyaemr.api.impl.KenyaEmrServiceImpl#getPatientsScheduledOnDay(java.util.Date)
+	 */
+	@Test
+	public void getPatientsScheduledOnDay_shouldGetPatientsWithReturnVisitDateOnDay() {
+		Concept returnVisitDate = Dictionary.getConcept(Dictionary.RETURN_VISIT_DATE);
+
+		// Patient #7 has scheduled visit on 1-Jan-2012, patient #8 on 2-Jan-2012
+		TestUtils.saveObs(TestUtils.getPatient(7), returnVisitDate, TestUtils.date(2012, 1, 1, 10, 0, 0), TestUtils.date(2011, 12, 30));
+		TestUtils.saveObs(TestUtils.getPatient(8), returnVisitDate, TestUtils.date(2012, 1, 2), TestUtils.date(2011, 12, 30));
+
+		Assert.assertThat(service.getPatientsScheduledOnDay(TestUtils.date(2011, 12, 31)), is(Collections.<Integer>emptySet()));
+		Assert.assertThat(service.getPatientsScheduledOnDay(TestUtils.date(2012, 1, 1)), is(Collections.singleton(7)));
+		Assert.assertThat(service.getPatientsScheduledOnDay(TestUtils.date(2012, 1, 2)), is(Collections.singleton(8)));
+	}
+}
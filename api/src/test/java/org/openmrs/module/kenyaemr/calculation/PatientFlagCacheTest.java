@@ -0,0 +1,120 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.calculation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.kenyaemr.calculation.library.IsPregnantCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.mchms.NotOnArtCalculation;
+
+/**
+ * Tests for {@link PatientFlagCache}
+ */
+public class PatientFlagCacheTest {
+
+	private PatientFlagCache cache;
+
+	@Before
+	public void setup() {
+		cache = new PatientFlagCache();
+	}
+
+	/**
+	 * @see PatientFlagCache#get(Integer, Class)
+	 */
+	@Test
+	public void get_shouldReturnCachedResultsAndCountHitsAndMisses() {
+		Assert.assertNull(cache.get(7, IsPregnantCalculation.class));
+
+		cache.put(7, IsPregnantCalculation.class, true);
+		cache.put(7, NotOnArtCalculation.class, false);
+
+		Assert.assertEquals(Boolean.TRUE, cache.get(7, IsPregnantCalculation.class));
+		Assert.assertEquals(Boolean.FALSE, cache.get(7, NotOnArtCalculation.class));
+		Assert.assertNull(cache.get(8, IsPregnantCalculation.class));
+
+		Assert.assertEquals(2, cache.getHits());
+		Assert.assertEquals(2, cache.getMisses());
+	}
+
+	/**
+	 * @see PatientFlagCache#get(Integer, Class)
+	 */
+	@Test
+	public void get_shouldNotReturnExpiredResults() {
+		cache.setExpiryMillis(-1);
+		cache.put(7, IsPregnantCalculation.class, true);
+
+		Assert.assertNull(cache.get(7, IsPregnantCalculation.class));
+	}
+
+	/**
+	 * @see PatientFlagCache#get(Integer, Class)
+	 */
+	@Test
+	public void get_shouldRemoveExpiredResults() {
+		cache.setExpiryMillis(-1);
+		cache.put(7, IsPregnantCalculation.class, true);
+		Assert.assertEquals(1, cache.getSize());
+
+		cache.get(7, IsPregnantCalculation.class);
+
+		Assert.assertEquals(0, cache.getSize());
+	}
+
+	/**
+	 * @see PatientFlagCache#put(Integer, Class, boolean)
+	 */
+	@Test
+	public void put_shouldNotCacheMoreThanMaximumNumberOfPatients() {
+		cache.setMaxPatients(2);
+		cache.put(7, IsPregnantCalculation.class, true);
+		cache.put(8, IsPregnantCalculation.class, true);
+		cache.put(9, IsPregnantCalculation.class, true);
+
+		Assert.assertEquals(2, cache.getSize());
+		Assert.assertNull(cache.get(9, IsPregnantCalculation.class));
+
+		// Existing patients can still be updated
+		cache.put(8, NotOnArtCalculation.class, false);
+		Assert.assertEquals(Boolean.FALSE, cache.get(8, NotOnArtCalculation.class));
+	}
+
+	/**
+	 * @see PatientFlagCache#evictExpired()
+	 */
+	@Test
+	public void evictExpired_shouldRemoveOnlyExpiredResults() {
+		cache.put(7, IsPregnantCalculation.class, true);
+		cache.setExpiryMillis(-1);
+		cache.put(7, NotOnArtCalculation.class, true);
+		cache.put(8, IsPregnantCalculation.class, true);
+
+		cache.evictExpired();
+
+		Assert.assertEquals(1, cache.getSize());
+		Assert.assertEquals(Boolean.TRUE, cache.get(7, IsPregnantCalculation.class));
+	}
+
+	/**
+	 * @see PatientFlagCache#invalidate(Integer)
+	 */
+	@Test
+	public void invalidate_shouldRemoveAllResultsForPatient() {
+		cache.put(7, IsPregnantCalculation.class, true);
+		cache.put(8, IsPregnantCalculation.class, true);
+
+		cache.invalidate(7);
+
+		Assert.assertNull(cache.get(7, IsPregnantCalculation.class));
+		Assert.assertEquals(Boolean.TRUE, cache.get(8, IsPregnantCalculation.class));
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.chore;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.APIException;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link AbstractChunkedChore}. Chunks are committed in new transactions, outside of the test transaction,
+ * so each chore is also run in its own transaction and the checkpoint property is removed after each test.
+ */
+public class AbstractChunkedChoreTest extends BaseModuleContextSensitiveTest {
+
+	private static final String CHECKPOINT_PROPERTY = "kenyaemr.chore.test.checkpoint";
+
+	@Autowired
+	@Qualifier("transactionManager")
+	private PlatformTransactionManager transactionManager;
+
+	private StubChunkedChore chore;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		AbstractChunkedChore.setDaemonToken(null);
+
+		chore = new StubChunkedChore();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(chore);
+	}
+
+	/**
+	 * Cleanup after each test
+	 */
+	@After
+	public void cleanup() {
+		inNewTransaction(new Runnable() {
+			@Override
+			public void run() {
+				AdministrationService adminService = Context.getAdministrationService();
+				GlobalProperty gp = adminService.getGlobalPropertyObject(CHECKPOINT_PROPERTY);
+				if (gp != null) {
+					adminService.purgeGlobalProperty(gp);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @see AbstractChunkedChore#perform(java.io.PrintWriter)
+	 */
+	@Test
+	public void perform_shouldProcessAllItemsInChunksAndDeleteCheckpoint() {
+		StringWriter out = perform(chore);
+
+		Assert.assertThat(chore.processed, is(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+		Assert.assertThat(chore.chunks.size(), is(4));
+		Assert.assertThat(chore.chunks.get(3), is(Arrays.asList(10)));
+		Assert.assertThat(out.toString(), containsString("Processed 10 of 10 items"));
+		Assert.assertThat(getStoredCheckpoint(), nullValue());
+	}
+
+	/**
+	 * @see AbstractChunkedChore#perform(java.io.PrintWriter)
+	 */
+	@Test
+	public void perform_shouldResumeFromCheckpointAfterFailedChunk() {
+		chore.failOnItem = 5;
+		chore.runBeforeFailingChunk = 2;
+
+		try {
+			perform(chore);
+			Assert.fail("Chore should have failed");
+		}
+		catch (APIException ex) {
+			Assert.assertThat(ex.getMessage(), containsString("3;7-9"));
+		}
+
+		// Chunk #2 completed before chunk #1 failed, so it is stored as a range after the completed id
+		Assert.assertThat(getStoredCheckpoint(), is("3;7-9"));
+
+		StubChunkedChore rerun = new StubChunkedChore();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(rerun);
+		StringWriter out = perform(rerun);
+
+		Assert.assertThat(out.toString(), containsString("Resuming from checkpoint 3;7-9 with 4 items remaining"));
+		Assert.assertThat(rerun.processed, is(Arrays.asList(4, 5, 6, 10)));
+		Assert.assertThat(rerun.chunks, is(Arrays.asList(Arrays.asList(4, 5, 6), Arrays.asList(10))));
+		Assert.assertThat(getStoredCheckpoint(), nullValue());
+	}
+
+	/**
+	 * Performs a chore in a new transaction
+	 * @param chunkedChore the chore
+	 * @return the chore output
+	 */
+	private StringWriter perform(final AbstractChunkedChore chunkedChore) {
+		final StringWriter out = new StringWriter();
+		inNewTransaction(new Runnable() {
+			@Override
+			public void run() {
+				chunkedChore.perform(new PrintWriter(out));
+			}
+		});
+		return out;
+	}
+
+	/**
+	 * Gets the stored checkpoint value
+	 * @return the value or null
+	 */
+	private String getStoredCheckpoint() {
+		Context.clearSession();
+		return Context.getAdministrationService().getGlobalProperty(CHECKPOINT_PROPERTY);
+	}
+
+	/**
+	 * Runs a task in a new transaction which is committed if it succeeds
+	 * @param task the task
+	 */
+	private void inNewTransaction(final Runnable task) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		template.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				task.run();
+			}
+		});
+	}
+
+	/**
+	 * Chore which records the items it processes, and can fail on a given item
+	 */
+	private static class StubChunkedChore extends AbstractChunkedChore {
+
+		private final List<Integer> processed = new ArrayList<Integer>();
+
+		private final List<List<Integer>> chunks = new ArrayList<List<Integer>>();
+
+		private Integer failOnItem;
+
+		/**
+		 * Index of a chunk to run before the failing chunk, as another worker would
+		 */
+		private Integer runBeforeFailingChunk;
+
+		@Override
+		protected Collection<Integer> getItemIds() {
+			return Arrays.asList(10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
+		}
+
+		@Override
+		protected void processChunk(List<Integer> ids) {
+			chunks.add(new ArrayList<Integer>(ids));
+			super.processChunk(ids);
+		}
+
+		@Override
+		protected void processItem(Integer id) {
+			if (id.equals(failOnItem)) {
+				throw new APIException("Failed on item " + id);
+			}
+			processed.add(id);
+		}
+
+		@Override
+		protected void runChunk(int index, PrintWriter out) {
+			if (runBeforeFailingChunk != null && index == 1) {
+				super.runChunk(runBeforeFailingChunk, out);
+			}
+			super.runChunk(index, out);
+		}
+
+		@Override
+		protected int getChunkSize() {
+			return 3;
+		}
+
+		@Override
+		protected String getCheckpointPropertyName() {
+			return CHECKPOINT_PROPERTY;
+		}
+	}
+}
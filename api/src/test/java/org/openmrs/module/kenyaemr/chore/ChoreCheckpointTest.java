@@ -0,0 +1,80 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.chore;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link ChoreCheckpoint}
+ */
+public class ChoreCheckpointTest {
+
+	/**
+	 * @see ChoreCheckpoint#parse(String)
+	 */
+	@Test
+	public void parse_shouldParseCompletedIdAndRanges() {
+		Assert.assertThat(ChoreCheckpoint.parse(null).toString(), is(""));
+		Assert.assertThat(ChoreCheckpoint.parse("1200").getCompletedUpTo(), is(1200));
+
+		ChoreCheckpoint checkpoint = ChoreCheckpoint.parse("1200;1401-1600,1801-2000");
+		Assert.assertThat(checkpoint.getCompletedUpTo(), is(1200));
+		Assert.assertThat(checkpoint.getCompletedRanges().size(), is(2));
+		Assert.assertThat(checkpoint.toString(), is("1200;1401-1600,1801-2000"));
+
+		Assert.assertThat(ChoreCheckpoint.parse(";5-10").toString(), is(";5-10"));
+	}
+
+	/**
+	 * @see ChoreCheckpoint#parse(String)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void parse_shouldThrowExceptionForInvalidValue() {
+		ChoreCheckpoint.parse("1200;x");
+	}
+
+	/**
+	 * @see ChoreCheckpoint#isCompleted(Integer)
+	 */
+	@Test
+	public void isCompleted_shouldIncludeIdsUpToCompletedIdAndInRanges() {
+		ChoreCheckpoint checkpoint = ChoreCheckpoint.parse("100;201-300");
+
+		Assert.assertThat(checkpoint.isCompleted(1), is(true));
+		Assert.assertThat(checkpoint.isCompleted(100), is(true));
+		Assert.assertThat(checkpoint.isCompleted(101), is(false));
+		Assert.assertThat(checkpoint.isCompleted(250), is(true));
+		Assert.assertThat(checkpoint.isCompleted(301), is(false));
+	}
+
+	/**
+	 * @see ChoreCheckpoint#advance(Integer, java.util.List)
+	 */
+	@Test
+	public void advance_shouldDropRangesBelowNewCompletedId() {
+		ChoreCheckpoint checkpoint = ChoreCheckpoint.parse("100;201-300");
+
+		checkpoint = checkpoint.advance(null, Arrays.asList(new ChoreCheckpoint.IdRange(401, 500)));
+		Assert.assertThat(checkpoint.toString(), is("100;201-300,401-500"));
+
+		checkpoint = checkpoint.advance(300, Collections.<ChoreCheckpoint.IdRange>emptyList());
+		Assert.assertThat(checkpoint.toString(), is("300;401-500"));
+
+		// Completed id never goes backwards
+		checkpoint = checkpoint.advance(250, Collections.<ChoreCheckpoint.IdRange>emptyList());
+		Assert.assertThat(checkpoint.getCompletedUpTo(), is(300));
+	}
+}
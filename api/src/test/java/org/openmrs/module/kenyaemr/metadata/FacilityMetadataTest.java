@@ -13,9 +13,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.openmrs.GlobalProperty;
 import org.openmrs.Location;
 import org.openmrs.api.LocationService;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyaemr.EmrConstants;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.wrapper.Facility;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
@@ -65,6 +67,24 @@ public class FacilityMetadataTest extends BaseModuleContextSensitiveTest {
 		Context.flushSession();
 	}
 
+	/**
+	 * @see org.openmrs.module.kenyaemr.metadata.FacilityMetadata#install()
+	 */
+	@Test
+	public void install_shouldSkipFacilitySyncIfFacilityListUnchanged() throws Exception {
+		facilityMetadata.install(false);
+
+		String checksum = FacilityMetadata.getResourceChecksum(FacilityMetadata.MFL_RESOURCE);
+		Assert.assertThat(checksum.length(), is(32));
+		Context.getAdministrationService().saveGlobalProperty(new GlobalProperty(EmrConstants.GP_MFL_SYNC_CHECKSUM, checksum));
+
+		int locationCount = locationService.getAllLocations(true).size();
+
+		facilityMetadata.install();
+
+		Assert.assertThat(locationService.getAllLocations(true), hasSize(locationCount));
+	}
+
 	/**
 	 * @see org.openmrs.module.kenyaemr.metadata.FacilityMetadata#install()
 	 *
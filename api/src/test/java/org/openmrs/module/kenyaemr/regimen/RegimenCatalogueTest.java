@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.regimen;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RegimenCatalogue}
+ */
+public class RegimenCatalogueTest {
+
+	/**
+	 * @see RegimenCatalogue#getName(String)
+	 * @see RegimenCatalogue#getLine(String)
+	 */
+	@Test
+	public void getNameAndLine_shouldUseFirstEntryForConcept() throws Exception {
+		RegimenCatalogue catalogue = new RegimenCatalogue("[" +
+				"{\"name\": \"ABC/3TC/LPV/r\", \"conceptRef\": \"162200AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA\", \"regimenLine\": \"adult_second\"}," +
+				"{\"name\": \"TDF/3TC/EFV\", \"conceptRef\": \"164505AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA\", \"regimenLine\": \"adult_first\"}," +
+				"{\"name\": \"ABC/3TC/LPV/r\", \"conceptRef\": \"162200AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA\", \"regimenLine\": \"child_first\"}" +
+				"]");
+
+		Assert.assertEquals(2, catalogue.size());
+		Assert.assertEquals("TDF/3TC/EFV", catalogue.getName("164505AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+		Assert.assertEquals("adult_first", catalogue.getLine("164505AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+		Assert.assertEquals("adult_second", catalogue.getLine("162200AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+		Assert.assertNull(catalogue.getName("xxx"));
+	}
+
+	/**
+	 * @see RegimenCatalogue#getInstance()
+	 */
+	@Test
+	public void getInstance_shouldIndexRegimenConceptJson() {
+		RegimenCatalogue catalogue = RegimenCatalogue.getInstance();
+
+		Assert.assertEquals("TDF/3TC/DTG", catalogue.getName("9fb85385-b4fb-468c-b7c1-22f75834b4b0"));
+		Assert.assertEquals("adult_first", catalogue.getLine("9fb85385-b4fb-468c-b7c1-22f75834b4b0"));
+	}
+}
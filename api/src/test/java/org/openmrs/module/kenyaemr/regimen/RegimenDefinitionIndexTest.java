@@ -0,0 +1,127 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.regimen;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.DrugOrder;
+import org.openmrs.OrderFrequency;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link RegimenDefinitionIndex}
+ */
+public class RegimenDefinitionIndexTest {
+
+	private Concept mg = concept("mg");
+
+	private Concept od = concept("OD");
+
+	private Concept bd = concept("BD");
+
+	private Concept lamivudine = concept("3TC");
+
+	private Concept stavudine = concept("D4T");
+
+	/**
+	 * @see RegimenDefinitionIndex#findDefinitions(RegimenOrder, boolean)
+	 */
+	@Test
+	public void findDefinitions_shouldFindDefinitionsInOrderTheyWereDefined() {
+		RegimenDefinitionGroup group1 = new RegimenDefinitionGroup("group1", "Group #1");
+		RegimenDefinition regimen1 = definition(group1, "regimen1");
+		regimen1.addComponent(DrugReference.fromConceptUuid(stavudine.getUuid()), 30d, mg, od);
+		regimen1.addComponent(DrugReference.fromConceptUuid(lamivudine.getUuid()), 150d, mg, bd);
+
+		// Same drug twice so can't be indexed by signature
+		RegimenDefinition regimen2 = definition(group1, "regimen2");
+		regimen2.addComponent(DrugReference.fromConceptUuid(lamivudine.getUuid()), null, null, null);
+		regimen2.addComponent(DrugReference.fromConceptUuid(lamivudine.getUuid()), null, null, null);
+
+		RegimenDefinitionGroup group2 = new RegimenDefinitionGroup("group2", "Group #2");
+		RegimenDefinition regimen3 = definition(group2, "regimen3");
+		regimen3.addComponent(DrugReference.fromConceptUuid(lamivudine.getUuid()), null, mg, null);
+		regimen3.addComponent(DrugReference.fromConceptUuid(stavudine.getUuid()), null, mg, null);
+
+		RegimenDefinitionIndex index = new RegimenDefinitionIndex(Arrays.asList(group1, group2));
+
+		RegimenOrder regimen = new RegimenOrder(new HashSet<DrugOrder>(Arrays.asList(
+				drugOrder(lamivudine, 150d, bd),
+				drugOrder(stavudine, 30d, od)
+		)));
+
+		List<RegimenDefinition> exact = index.findDefinitions(regimen, true);
+		Assert.assertThat(exact.size(), is(1));
+		Assert.assertThat(exact.get(0), is(regimen1));
+
+		List<RegimenDefinition> nonExact = index.findDefinitions(regimen, false);
+		Assert.assertThat(nonExact.size(), is(2));
+		Assert.assertThat(nonExact.get(0), is(regimen1));
+		Assert.assertThat(nonExact.get(1), is(regimen3));
+
+		// Definitions with repeated drugs are still matched by component
+		regimen = new RegimenOrder(new HashSet<DrugOrder>(Arrays.asList(
+				drugOrder(lamivudine, 150d, bd),
+				drugOrder(lamivudine, 150d, od)
+		)));
+
+		nonExact = index.findDefinitions(regimen, false);
+		Assert.assertThat(nonExact.size(), is(1));
+		Assert.assertThat(nonExact.get(0), is(regimen2));
+	}
+
+	/**
+	 * Creates a definition in a group
+	 * @param group the group
+	 * @param name the name
+	 * @return the definition
+	 */
+	private RegimenDefinition definition(RegimenDefinitionGroup group, String name) {
+		RegimenDefinition definition = new RegimenDefinition(name, group);
+		group.addRegimen(definition);
+		return definition;
+	}
+
+	/**
+	 * Creates a drug order
+	 * @param drug the drug concept
+	 * @param dose the dose in mg
+	 * @param frequency the frequency concept
+	 * @return the drug order
+	 */
+	private DrugOrder drugOrder(Concept drug, Double dose, Concept frequency) {
+		OrderFrequency orderFrequency = new OrderFrequency();
+		orderFrequency.setConcept(frequency);
+
+		DrugOrder order = new DrugOrder();
+		order.setConcept(drug);
+		order.setDose(dose);
+		order.setDoseUnits(mg);
+		order.setFrequency(orderFrequency);
+		return order;
+	}
+
+	/**
+	 * Creates a concept with a predictable UUID
+	 * @param name the name
+	 * @return the concept
+	 */
+	private static Concept concept(String name) {
+		Concept concept = new Concept();
+		concept.setUuid(name + "-uuid");
+		return concept;
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Cohort;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.querybuilder.SqlQueryBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link ETLQueryUtils}
+ */
+public class ETLQueryUtilsTest {
+
+	private static final String QRY = "select patient_id, weight from kenyaemr_etl.etl_patient_hiv_followup where patient_id in (:patientIds) group by patient_id";
+
+	/**
+	 * @see ETLQueryUtils#buildQueries(String, String, java.util.Set)
+	 */
+	@Test
+	public void buildQueries_shouldReturnSingleQueryIfNoIds() {
+		Assert.assertEquals(1, ETLQueryUtils.buildQueries(QRY, ETLQueryUtils.PATIENT_IDS, null).size());
+	}
+
+	/**
+	 * @see ETLQueryUtils#buildQueries(String, String, java.util.Set)
+	 */
+	@Test
+	public void buildQueries_shouldReturnNoQueriesIfIdsEmpty() {
+		Assert.assertEquals(0, ETLQueryUtils.buildQueries(QRY, ETLQueryUtils.PATIENT_IDS, Collections.<Integer>emptySet()).size());
+	}
+
+	/**
+	 * @see ETLQueryUtils#buildQueries(String, String, java.util.Set)
+	 */
+	@Test
+	public void buildQueries_shouldChunkIds() {
+		Set<Integer> ids = new HashSet<Integer>();
+		for (int id = 1; id <= ETLQueryUtils.CHUNK_SIZE * 2 + 1; id++) {
+			ids.add(id);
+		}
+		Assert.assertEquals(3, ETLQueryUtils.buildQueries(QRY, ETLQueryUtils.PATIENT_IDS, ids).size());
+	}
+
+	/**
+	 * @see ETLQueryUtils#buildQueries(String, java.util.Map, String, java.util.Set)
+	 */
+	@Test
+	public void buildQueries_shouldAddOtherParametersToEachQuery() {
+		Set<Integer> ids = new HashSet<Integer>();
+		for (int id = 1; id <= ETLQueryUtils.CHUNK_SIZE + 1; id++) {
+			ids.add(id);
+		}
+		Date startDate = new Date();
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("startDate", startDate);
+
+		List<SqlQueryBuilder> queries = ETLQueryUtils.buildQueries(QRY, parameters, ETLQueryUtils.PATIENT_IDS, ids);
+		Assert.assertEquals(2, queries.size());
+		for (SqlQueryBuilder query : queries) {
+			Assert.assertEquals(startDate, query.getParameters().get("startDate"));
+		}
+
+		queries = ETLQueryUtils.buildQueries(QRY, parameters, ETLQueryUtils.PATIENT_IDS, null);
+		Assert.assertEquals(startDate, queries.get(0).getParameters().get("startDate"));
+	}
+
+	/**
+	 * @see ETLQueryUtils#getBaseCohortIds(org.openmrs.module.reporting.evaluation.EvaluationContext)
+	 */
+	@Test
+	public void getBaseCohortIds() {
+		EvaluationContext context = new EvaluationContext();
+		Assert.assertNull(ETLQueryUtils.getBaseCohortIds(context));
+
+		context.setBaseCohort(new Cohort("2,7"));
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(2, 7)), ETLQueryUtils.getBaseCohortIds(context));
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link KpifIndicatorMappings}
+ */
+public class KpifIndicatorMappingsTest {
+
+	/**
+	 * @see KpifIndicatorMappings#getInstance()
+	 */
+	@Test
+	public void getInstance_shouldLoadBundledMappings() {
+		KpifIndicatorMappings mappings = KpifIndicatorMappings.getInstance();
+
+		Assert.assertThat(mappings.size(), is(2212));
+		Assert.assertThat(mappings.getIndicatorId("CHANGE_HRH_unknown"), is("UZp3V6V5rnK-HllvX50cXC0"));
+		Assert.assertThat(mappings.getIndicatorId("ENROL_HTS_TST_unknown"), is("xTpuBPLezo7-nJevmP4V2K0"));
+		Assert.assertThat(mappings.getIndicatorId("XXX"), is(nullValue()));
+	}
+
+	/**
+	 * @see KpifIndicatorMappings#KpifIndicatorMappings(java.io.Reader)
+	 */
+	@Test
+	public void KpifIndicatorMappings_shouldIgnoreCommentsAndBlankLines() throws Exception {
+		KpifIndicatorMappings mappings = new KpifIndicatorMappings(new StringReader("# comment\n\nA_unknown,x-1\n#A_unknown,x-2\n"));
+
+		Assert.assertThat(mappings.size(), is(1));
+		Assert.assertThat(mappings.getIndicatorId("A_unknown"), is("x-1"));
+	}
+
+	/**
+	 * @see KpifIndicatorMappings#KpifIndicatorMappings(java.io.Reader)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void KpifIndicatorMappings_shouldThrowExceptionForDuplicateIndicator() throws Exception {
+		new KpifIndicatorMappings(new StringReader("A_unknown,x-1\nA_unknown,x-2\n"));
+	}
+
+	/**
+	 * @see KpifIndicatorMappings#KpifIndicatorMappings(java.io.Reader)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void KpifIndicatorMappings_shouldThrowExceptionForMalformedLine() throws Exception {
+		new KpifIndicatorMappings(new StringReader("A_unknown\n"));
+	}
+}
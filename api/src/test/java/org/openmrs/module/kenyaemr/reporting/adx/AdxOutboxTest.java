@@ -0,0 +1,168 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.adx;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link AdxOutbox}
+ */
+public class AdxOutboxTest extends BaseModuleContextSensitiveTest {
+
+	@Autowired
+	private AdxOutbox outbox;
+
+	private StubSender sender;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		// The outbox table is created by the omod's liquibase changesets, which don't run for API tests. A transactional
+		// temporary table is used so that creating it doesn't commit the test transaction.
+		Context.getAdministrationService().executeSQL("create local temporary table if not exists kenyaemr_adx_outbox ("
+				+ "id int auto_increment primary key, uuid char(38) not null unique, report_name varchar(255) not null,"
+				+ " org_unit varchar(50) not null, server_address varchar(1024) not null, payload clob not null,"
+				+ " status varchar(20) not null, attempts int default 0 not null, next_attempt timestamp not null,"
+				+ " last_response_code int, last_response varchar(1000), date_created timestamp not null, date_sent timestamp"
+				+ ") transactional", false);
+
+		sender = new StubSender();
+		outbox.setSender(sender);
+	}
+
+	/**
+	 * @see AdxOutbox#sendDue()
+	 */
+	@Test
+	public void sendDue_shouldSendSubmittedMessage() throws Exception {
+		Integer id = outbox.submit("MOH 731", "15204", "http://localhost/api/", new StringReader("<adx/>"));
+
+		AdxSubmission submission = outbox.getSubmission(id);
+		Assert.assertThat(submission.getStatus(), is(AdxSubmission.Status.PENDING));
+		Assert.assertThat(submission.getAttempts(), is(0));
+
+		sender.responseCode = 200;
+		outbox.sendDue();
+
+		Assert.assertThat(sender.received, is(Arrays.asList("<adx/>")));
+
+		submission = outbox.getSubmission(id);
+		Assert.assertThat(submission.getStatus(), is(AdxSubmission.Status.SENT));
+		Assert.assertThat(submission.getAttempts(), is(1));
+		Assert.assertThat(submission.getLastResponseCode(), is(200));
+		Assert.assertThat(submission.getDateSent(), notNullValue());
+	}
+
+	/**
+	 * @see AdxOutbox#sendDue()
+	 */
+	@Test
+	public void sendDue_shouldRescheduleFailedMessageWithBackoff() throws Exception {
+		Integer id = outbox.submit("MOH 731", "15204", "http://localhost/api/", new StringReader("<adx/>"));
+
+		sender.responseCode = 503;
+		long before = System.currentTimeMillis();
+		outbox.sendDue();
+
+		AdxSubmission submission = outbox.getSubmission(id);
+		Assert.assertThat(submission.getStatus(), is(AdxSubmission.Status.PENDING));
+		Assert.assertThat(submission.getAttempts(), is(1));
+		Assert.assertThat(submission.getLastResponseCode(), is(503));
+		Assert.assertThat(submission.getDateSent(), nullValue());
+		Assert.assertThat(submission.getNextAttempt().getTime(), greaterThanOrEqualTo(before + AdxOutbox.getRetryDelay(1) - 1000));
+
+		// Not due again until the retry delay has passed
+		outbox.sendDue();
+		Assert.assertThat(sender.received.size(), is(1));
+	}
+
+	/**
+	 * @see AdxOutbox#sendDue()
+	 */
+	@Test
+	public void sendDue_shouldGiveUpAfterMaximumAttempts() throws Exception {
+		Integer id = outbox.submit("MOH 731", "15204", "http://localhost/api/", new StringReader("<adx/>"));
+		Context.getAdministrationService().executeSQL("update kenyaemr_adx_outbox set attempts = " + (AdxOutbox.MAX_ATTEMPTS - 1) + " where id = " + id, false);
+
+		sender.failure = new IOException("Connection refused");
+		outbox.sendDue();
+
+		AdxSubmission submission = outbox.getSubmission(id);
+		Assert.assertThat(submission.getStatus(), is(AdxSubmission.Status.FAILED));
+		Assert.assertThat(submission.getAttempts(), is(AdxOutbox.MAX_ATTEMPTS));
+		Assert.assertThat(submission.getLastResponseCode(), nullValue());
+	}
+
+	/**
+	 * @see AdxOutbox#sendDue()
+	 */
+	@Test
+	public void sendDue_shouldNotRetryMessageRejectedByServer() throws Exception {
+		Integer id = outbox.submit("MOH 731", "15204", "http://localhost/api/", new StringReader("<adx/>"));
+
+		sender.responseCode = 400;
+		outbox.sendDue();
+
+		Assert.assertThat(outbox.getSubmission(id).getStatus(), is(AdxSubmission.Status.FAILED));
+	}
+
+	/**
+	 * @see AdxOutbox#getRetryDelay(int)
+	 */
+	@Test
+	public void getRetryDelay_shouldDoubleUpToMaximum() {
+		Assert.assertThat(AdxOutbox.getRetryDelay(1), is(AdxOutbox.INITIAL_RETRY_DELAY_MILLIS));
+		Assert.assertThat(AdxOutbox.getRetryDelay(2), is(AdxOutbox.INITIAL_RETRY_DELAY_MILLIS * 2));
+		Assert.assertThat(AdxOutbox.getRetryDelay(4), is(AdxOutbox.INITIAL_RETRY_DELAY_MILLIS * 8));
+		Assert.assertThat(AdxOutbox.getRetryDelay(AdxOutbox.MAX_ATTEMPTS), is(AdxOutbox.MAX_RETRY_DELAY_MILLIS));
+	}
+
+	/**
+	 * Sender which records messages instead of posting them
+	 */
+	private static class StubSender extends AdxSender {
+
+		private final List<String> received = new ArrayList<String>();
+
+		private int responseCode = 200;
+
+		private IOException failure;
+
+		@Override
+		public Response post(String serverAddress, InputStream payload) throws IOException {
+			received.add(IOUtils.toString(payload, "UTF-8"));
+
+			if (failure != null) {
+				throw failure;
+			}
+			return new Response(responseCode, "stub " + responseCode);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.adx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link AdxSender}, against a local stub server
+ */
+public class AdxSenderTest {
+
+	private HttpServer server;
+
+	private String received;
+
+	private int responseCode;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/api/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				received = IOUtils.toString(exchange.getRequestBody(), "UTF-8");
+
+				byte[] body = ("received " + received.length()).getBytes("UTF-8");
+				exchange.sendResponseHeaders(responseCode, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * Cleanup after each test
+	 */
+	@After
+	public void cleanup() {
+		server.stop(0);
+	}
+
+	/**
+	 * @see AdxSender#post(String, String)
+	 */
+	@Test
+	public void post_shouldSendMessageAndReturnResponse() throws Exception {
+		responseCode = 200;
+
+		AdxSender.Response response = new AdxSender().post(getAddress(), "<adx/>");
+
+		Assert.assertThat(received, is("<adx/>"));
+		Assert.assertThat(response.getCode(), is(200));
+		Assert.assertThat(response.getMessage(), is("received 6"));
+		Assert.assertThat(response.isSuccessful(), is(true));
+	}
+
+	/**
+	 * @see AdxSender#post(String, String)
+	 */
+	@Test
+	public void post_shouldReturnErrorResponses() throws Exception {
+		responseCode = 503;
+
+		AdxSender.Response response = new AdxSender().post(getAddress(), "<adx/>");
+		Assert.assertThat(response.getCode(), is(503));
+		Assert.assertThat(response.isSuccessful(), is(false));
+		Assert.assertThat(response.isRetryable(), is(true));
+
+		responseCode = 400;
+
+		response = new AdxSender().post(getAddress(), "<adx/>");
+		Assert.assertThat(response.getMessage(), is("received 6"));
+		Assert.assertThat(response.isRetryable(), is(false));
+	}
+
+	/**
+	 * Gets the address of the stub server
+	 * @return the address
+	 */
+	private String getAddress() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/";
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.ReportingTestUtils;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.reporting.cohort.definition.DemographicCohortDefinition;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.cohort.definition.service.CohortDefinitionService;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link DemographicCohortDefinitionEvaluator}
+ */
+public class DemographicCohortDefinitionEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	private EvaluationContext context;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		List<Integer> cohort = Arrays.asList(2, 6, 7, 8, 999);
+		context = ReportingTestUtils.reportingContext(cohort, TestUtils.date(2012, 6, 1), TestUtils.date(2012, 6, 30));
+	}
+
+	/**
+	 * @see DemographicCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldReturnPersonsOfGender() throws Exception {
+		DemographicCohortDefinition cd = new DemographicCohortDefinition();
+		cd.setGender("F");
+		EvaluatedCohort evaluated = Context.getService(CohortDefinitionService.class).evaluate(cd, context);
+
+		// #2 and #6 are male, #999 is voided
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(7, 8), evaluated);
+	}
+
+	/**
+	 * @see DemographicCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldReturnPersonsInAgeRange() throws Exception {
+		DemographicCohortDefinition cd = new DemographicCohortDefinition();
+		cd.setMaxAge(35);
+		cd.setEffectiveDate(TestUtils.date(2012, 6, 30));
+		EvaluatedCohort evaluated = Context.getService(CohortDefinitionService.class).evaluate(cd, context);
+
+		// #6 will be 5, #7 will be 35, #8 has no birthdate, #999 is voided
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(6, 7), evaluated);
+
+		cd = new DemographicCohortDefinition();
+		cd.setMinAge(35);
+		cd.setEffectiveDate(TestUtils.date(2012, 6, 30));
+		evaluated = Context.getService(CohortDefinitionService.class).evaluate(cd, context);
+
+		// #7 will be 35, #8 has no birthdate, #999 is voided
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 7), evaluated);
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.cohort.definition.evaluator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Cohort;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.ReportingTestUtils;
+import org.openmrs.module.reporting.cohort.EvaluatedCohort;
+import org.openmrs.module.reporting.cohort.definition.SqlCohortDefinition;
+import org.openmrs.module.reporting.evaluation.EvaluationContext;
+import org.openmrs.module.reporting.evaluation.parameter.Parameter;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link MemoizedSqlCohortDefinitionEvaluator}. The database is changed between evaluations, so a result
+ * which doesn't reflect the change must have come from the cache.
+ */
+public class MemoizedSqlCohortDefinitionEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	private static final String QUERY = "select person_id from person where gender = :gender and voided = 0";
+
+	@Autowired
+	private MemoizedSqlCohortDefinitionEvaluator evaluator;
+
+	private EvaluationContext context;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() throws Exception {
+		context = new EvaluationContext();
+		context.addParameterValue("gender", "M");
+	}
+
+	/**
+	 * @see MemoizedSqlCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldQueryDatabaseOnceForSameQueryAndParameterValues() throws Exception {
+		// #2 and #6 are male
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(createDefinition(), context));
+
+		executeSql("UPDATE person SET gender = 'F' WHERE person_id = 6");
+
+		// A different definition instance with the same query and parameter values gets the cached result
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(createDefinition(), context));
+
+		// A new context doesn't share the cache so sees the change
+		EvaluationContext newContext = new EvaluationContext();
+		newContext.addParameterValue("gender", "M");
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2), evaluator.evaluate(createDefinition(), newContext));
+	}
+
+	/**
+	 * @see MemoizedSqlCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldCacheSeparatelyForDifferentParameterValues() throws Exception {
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(createDefinition(), context));
+
+		context.addParameterValue("gender", "F");
+
+		// #7 and #8 are female
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(7, 8), evaluator.evaluate(createDefinition(), context));
+
+		executeSql("UPDATE person SET gender = 'F' WHERE person_id = 6");
+
+		// Both results are cached, neither reflects the change
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(7, 8), evaluator.evaluate(createDefinition(), context));
+		context.addParameterValue("gender", "M");
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(createDefinition(), context));
+	}
+
+	/**
+	 * @see MemoizedSqlCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldCacheSeparatelyForDifferentBaseCohorts() throws Exception {
+		SqlCohortDefinition definition = createDefinition();
+
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(definition, context));
+
+		executeSql("UPDATE person SET gender = 'F' WHERE person_id = 6");
+
+		// A base cohort isn't served from the result without one, so the query is re-executed and sees the change
+		context.setBaseCohort(new Cohort(Arrays.asList(2, 6, 7)));
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2), evaluator.evaluate(definition, context));
+
+		context.setBaseCohort(null);
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(definition, context));
+
+		Map<?, ?> results = (Map<?, ?>) context.getFromCache(MemoizedSqlCohortDefinitionEvaluator.getCacheKey(definition, context));
+		Assert.assertThat(results.size(), is(2));
+	}
+
+	/**
+	 * @see MemoizedSqlCohortDefinitionEvaluator#evaluate(org.openmrs.module.reporting.cohort.definition.CohortDefinition, EvaluationContext)
+	 */
+	@Test
+	public void evaluate_shouldNotAllowCachedResultToBeModified() throws Exception {
+		EvaluatedCohort evaluated = evaluator.evaluate(createDefinition(), context);
+		evaluated.getMemberIds().remove(2);
+		evaluated.getMemberIds().add(7);
+
+		ReportingTestUtils.assertCohortEquals(Arrays.asList(2, 6), evaluator.evaluate(createDefinition(), context));
+	}
+
+	/**
+	 * Creates a new definition of the test query
+	 * @return the definition
+	 */
+	private SqlCohortDefinition createDefinition() {
+		SqlCohortDefinition definition = new SqlCohortDefinition(QUERY);
+		definition.addParameter(new Parameter("gender", "Gender", String.class));
+		return definition;
+	}
+
+	/**
+	 * Helper method to execute SQL on the test database
+	 * @param sql the SQL statement
+	 */
+	private void executeSql(String sql) throws Exception {
+		PreparedStatement ps = getConnection().prepareStatement(sql);
+		ps.execute();
+		ps.close();
+
+		Context.clearSession();
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.dataset.definition.evaluator;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ARTBenefitsDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ARTDrugAdminTrainingDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.art.ETLLastVisitDateDataDefinition;
+import org.openmrs.module.kenyaemr.reporting.data.converter.definition.evaluator.ETLColumnBatch;
+import org.openmrs.module.kenyaemr.reporting.dataset.definition.ETLPatientDataSetDefinition;
+import org.openmrs.module.reporting.data.converter.ObjectFormatter;
+import org.openmrs.module.reporting.data.person.definition.ConvertedPersonDataDefinition;
+import org.openmrs.module.reporting.data.person.definition.GenderDataDefinition;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link ETLPatientDataSetEvaluator}
+ */
+public class ETLPatientDataSetEvaluatorTest extends BaseModuleContextSensitiveTest {
+
+	private ETLPatientDataSetEvaluator evaluator = new ETLPatientDataSetEvaluator();
+
+	/**
+	 * @see ETLPatientDataSetEvaluator#getBatches(ETLPatientDataSetDefinition)
+	 */
+	@Test
+	public void getBatches_shouldGroupETLColumnsByTable() {
+		ETLPatientDataSetDefinition dsd = new ETLPatientDataSetDefinition("test");
+		dsd.addColumn("Sex", new GenderDataDefinition(), "");
+		dsd.addColumn("Benefits", new ARTBenefitsDataDefinition(), "");
+		dsd.addColumn("Last visit", new ETLLastVisitDateDataDefinition(), "");
+		dsd.addColumn("Drug admin", new ConvertedPersonDataDefinition("drugAdmin", new ARTDrugAdminTrainingDataDefinition(), new ObjectFormatter()), "");
+
+		List<ETLColumnBatch> batches = new ArrayList<ETLColumnBatch>(evaluator.getBatches(dsd));
+
+		// Only etl_ART_preparation has more than one column
+		Assert.assertThat(batches.size(), is(1));
+		Assert.assertThat(batches.get(0).getTable(), is("etl_ART_preparation"));
+		Assert.assertThat(new ArrayList<String>(batches.get(0).getColumns()), contains("understands_hiv_art_benefits", "trained_drug_admin"));
+	}
+}
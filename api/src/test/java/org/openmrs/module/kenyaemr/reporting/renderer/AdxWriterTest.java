@@ -0,0 +1,47 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.reporting.renderer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * Tests for {@link AdxWriter}
+ */
+public class AdxWriterTest {
+
+    /**
+     * @see AdxWriter#dataValue(String, String, Object)
+     */
+    @Test
+    public void dataValue_shouldWriteDataValuesInGroups() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        AdxWriter adx = new AdxWriter(out);
+        adx.startAdx("2020-01-01T00:00+0300");
+        adx.startGroup("12345", "2020-01-01/P1M", "ds1");
+        adx.dataValue("HV01-01", null, 5);
+        adx.dataValue("abc", "def", "1 < 2");
+        adx.endGroup();
+        adx.endAdx();
+
+        String xml = out.toString("UTF-8");
+        Assert.assertThat(xml, containsString("<adx xmlns=\"urn:ihe:qrph:adx:2015\""));
+        Assert.assertThat(xml, containsString("xsi:schemaLocation=\"urn:ihe:qrph:adx:2015 ../schema/adx_loose.xsd\""));
+        Assert.assertThat(xml, containsString("<group orgUnit=\"12345\" period=\"2020-01-01/P1M\" dataSet=\"ds1\">"));
+        Assert.assertThat(xml, containsString("<dataValue dataElement=\"HV01-01\" value=\"5\"/>"));
+        Assert.assertThat(xml, containsString("<dataValue dataElement=\"abc\" categoryOptionCombo=\"def\" value=\"1 &lt; 2\"/>"));
+        Assert.assertThat(xml, containsString("</group></adx>"));
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.search;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link PatientSearchIndex}
+ */
+public class PatientSearchIndexTest extends BaseModuleContextSensitiveTest {
+
+	private PatientSearchIndex index;
+
+	/**
+	 * Setup each test
+	 */
+	@Before
+	public void setup() {
+		index = new PatientSearchIndex();
+		index.build();
+
+		index.update(createPatient(1001, "Mary-Anne", "Wanjiku", "Kamau", "ZQ-0099-77"));
+		index.update(createPatient(1002, "Peter", null, "Kamau", "ZQ88701"));
+	}
+
+	/**
+	 * @see PatientSearchIndex#search(String)
+	 */
+	@Test
+	public void search_shouldMatchNameWordsAndIdentifiersByPrefix() {
+		Assert.assertThat(index.search("kam"), is(set(1001, 1002)));
+		Assert.assertThat(index.search("anne kamau"), is(set(1001)));
+		Assert.assertThat(index.search("kamau mar"), is(set(1001)));
+		Assert.assertThat(index.search("zq009977"), is(set(1001)));
+		Assert.assertThat(index.search("zq887"), is(set(1002)));
+	}
+
+	/**
+	 * @see PatientSearchIndex#search(String)
+	 */
+	@Test
+	public void search_shouldMatchNamesBySoundIfNothingElseMatches() {
+		Assert.assertThat(index.search("wanjicu"), is(set(1001)));
+		Assert.assertThat(index.search("xyzzy"), is(set()));
+	}
+
+	/**
+	 * @see PatientSearchIndex#searchIdentifiers(String)
+	 */
+	@Test
+	public void searchIdentifiers_shouldRankExactMatchesBeforePrefixMatches() {
+		index.update(createPatient(1003, "John", null, "Otieno", "ZQ887"));
+
+		Assert.assertThat(index.searchIdentifiers("ZQ-887"), is(Arrays.asList(1003, 1002)));
+		Assert.assertThat(index.searchIdentifiers("zq88"), is(Arrays.asList(1002, 1003)));
+		Assert.assertThat(index.searchIdentifiers("kamau").isEmpty(), is(true));
+	}
+
+	/**
+	 * @see PatientSearchIndex#update(org.openmrs.Patient)
+	 */
+	@Test
+	public void update_shouldRemoveVoidedPatientsAndOldNames() {
+		Patient peter = createPatient(1002, "Pete", null, "Otieno", "99887");
+		index.update(peter);
+
+		Assert.assertThat(index.search("kamau"), is(set(1001)));
+		Assert.assertThat(index.search("otieno"), is(set(1002)));
+
+		peter.setVoided(true);
+		index.update(peter);
+
+		Assert.assertThat(index.search("zq887"), is(set()));
+	}
+
+	/**
+	 * @see PatientSearchIndex#updateOnCommit(org.openmrs.Patient)
+	 */
+	@Test
+	public void updateOnCommit_shouldUpdateEntriesOnlyWhenTransactionIsCommitted() {
+		index.updateOnCommit(createPatient(1003, "Grace", null, "Achieng", "ZQ55501"));
+		index.removeOnCommit(1002);
+
+		Assert.assertThat(index.search("achieng"), is(set()));
+		Assert.assertThat(index.search("peter"), is(set(1002)));
+
+		// Test transactions are rolled back, so simulate the commit
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+
+		Assert.assertThat(index.search("achieng"), is(set(1003)));
+		Assert.assertThat(index.search("peter"), is(set()));
+	}
+
+	/**
+	 * Creates a patient with the given name and identifier
+	 */
+	private static Patient createPatient(Integer patientId, String givenName, String middleName, String familyName, String identifier) {
+		Patient patient = new Patient(patientId);
+		PersonName name = new PersonName(givenName, middleName, familyName);
+		patient.addName(name);
+		PatientIdentifier patientIdentifier = new PatientIdentifier();
+		patientIdentifier.setIdentifier(identifier);
+		patient.addIdentifier(patientIdentifier);
+		return patient;
+	}
+
+	/**
+	 * Creates a set of patient ids
+	 */
+	private static HashSet<Integer> set(Integer... patientIds) {
+		return new HashSet<Integer>(Arrays.asList(patientIds));
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.Encounter;
+import org.openmrs.EncounterType;
+import org.openmrs.Form;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link EncounterBasedRegimenHistory}
+ */
+public class EncounterBasedRegimenHistoryTest extends BaseModuleContextSensitiveTest {
+
+    @Autowired
+    private CommonMetadata commonMetadata;
+
+    /**
+     * Setup each test
+     */
+    @Before
+    public void setup() throws Exception {
+        executeDataSet("dataset/test-concepts.xml");
+
+        commonMetadata.install();
+    }
+
+    /**
+     * @see EncounterBasedRegimenHistory#forPatient(org.openmrs.Patient)
+     */
+    @Test
+    public void forPatient_shouldReturnEmptyHistoryForPatientWithoutRegimenEncounters() {
+        Patient patient = Context.getPatientService().getPatient(7);
+
+        EncounterBasedRegimenHistory history = EncounterBasedRegimenHistory.forPatient(patient);
+
+        Assert.assertThat(history.getEncounters("ARV").size(), is(0));
+        Assert.assertThat(history.getHistory("TB").size(), is(0));
+        Assert.assertThat(history.getFirstEncounter("ARV"), is(nullValue()));
+        Assert.assertThat(history.getLastEncounter("TB"), is(nullValue()));
+    }
+
+    /**
+     * @see EncounterBasedRegimenHistory#forPatient(org.openmrs.Patient)
+     */
+    @Test
+    public void forPatient_shouldReturnEncountersWhichCanBeModifiedAndSaved() {
+        Patient patient = Context.getPatientService().getPatient(7);
+        EncounterType regimenEditor = MetadataUtils.existing(EncounterType.class, CommonMetadata._EncounterType.DRUG_REGIMEN_EDITOR);
+        Form regimenEditorForm = MetadataUtils.existing(Form.class, CommonMetadata._Form.DRUG_REGIMEN_EDITOR);
+        Concept arvPlan = Context.getConceptService().getConceptByUuid(EncounterBasedRegimenHistory.ARV_TREATMENT_PLAN_EVENT_CONCEPT);
+        Concept startDrugs = Context.getConceptService().getConceptByUuid("1256AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+
+        TestUtils.saveEncounter(patient, regimenEditor, regimenEditorForm, TestUtils.date(2012, 1, 1),
+                TestUtils.saveObs(patient, arvPlan, startDrugs, TestUtils.date(2012, 1, 1))
+        );
+        Context.flushSession();
+        Context.clearSession();
+
+        Encounter encounter = EncounterBasedRegimenHistory.forPatient(patient).getLastEncounter("ARV");
+        Assert.assertThat(encounter.getEncounterDatetime(), is(TestUtils.date(2012, 1, 1)));
+
+        encounter.setEncounterDatetime(TestUtils.date(2012, 1, 2));
+        Context.getEncounterService().saveEncounter(encounter);
+        Context.flushSession();
+        Context.clearSession();
+
+        encounter = EncounterBasedRegimenHistory.forPatient(patient).getLastEncounter("ARV");
+        Assert.assertThat(encounter.getEncounterDatetime(), is(TestUtils.date(2012, 1, 2)));
+    }
+}
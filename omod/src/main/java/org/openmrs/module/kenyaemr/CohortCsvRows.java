@@ -0,0 +1,176 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr;
+
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.api.context.Context;
+import org.openmrs.calculation.patient.PatientCalculationContext;
+import org.openmrs.calculation.patient.PatientCalculationService;
+import org.openmrs.calculation.result.CalculationResult;
+import org.openmrs.calculation.result.CalculationResultMap;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.art.DateOfEnrollmentArtCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.art.InitialArtStartDateCalculation;
+import org.openmrs.module.kenyaemr.calculation.library.hiv.art.LastViralLoadResultCalculation;
+import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
+import org.openmrs.module.kenyaemr.metadata.HivMetadata;
+import org.openmrs.module.metadatadeploy.MetadataUtils;
+import org.openmrs.ui.framework.SimpleObject;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Rows of an indicator cohort download. The calculations are evaluated for the whole cohort up front, but patients
+ * are loaded in batches as the rows are iterated, so that only one batch is held in memory at a time.
+ */
+class CohortCsvRows implements Iterable<Object[]> {
+
+	static final List<Object> HEADER = Collections.unmodifiableList(Arrays.<Object>asList("Name", "Age", "Gender",
+			"UPN/Patient Clinic Number", "Enrollment Date", "ART Initiation Date", "Last VL", "Last VL Date"));
+
+	static final int BATCH_SIZE = 500;
+
+	private final List<Integer> patientIds;
+
+	private final CalculationResultMap enrollmentDates;
+
+	private final CalculationResultMap artInitializationDates;
+
+	private final CalculationResultMap lastVlResults;
+
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+
+	private final PatientIdentifierType upnIdType;
+
+	private final PatientIdentifierType clinicNoIdType;
+
+	/**
+	 * Creates the rows for a cohort, evaluating the calculations as of the given date
+	 * @param patientIds the cohort member ids
+	 * @param endDate the report end date
+	 */
+	CohortCsvRows(Collection<Integer> patientIds, Date endDate) {
+		this.patientIds = new ArrayList<Integer>(patientIds);
+
+		PatientCalculationContext calculationContext = Context.getService(PatientCalculationService.class).createCalculationContext();
+		calculationContext.setNow(endDate);
+
+		enrollmentDates = new DateOfEnrollmentArtCalculation().evaluate(patientIds, null, calculationContext);
+		artInitializationDates = new InitialArtStartDateCalculation().evaluate(patientIds, null, calculationContext);
+		lastVlResults = new LastViralLoadResultCalculation().evaluate(patientIds, null, calculationContext);
+
+		upnIdType = MetadataUtils.existing(PatientIdentifierType.class, HivMetadata._PatientIdentifierType.UNIQUE_PATIENT_NUMBER);
+		clinicNoIdType = MetadataUtils.existing(PatientIdentifierType.class, CommonMetadata._PatientIdentifierType.PATIENT_CLINIC_NUMBER);
+	}
+
+	/**
+	 * @see Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Object[]> iterator() {
+		return new Iterator<Object[]>() {
+
+			private int nextBatch = 0;
+
+			private Iterator<Patient> batch = Collections.<Patient>emptyList().iterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!batch.hasNext() && nextBatch < patientIds.size()) {
+					List<Integer> ids = patientIds.subList(nextBatch, Math.min(nextBatch + BATCH_SIZE, patientIds.size()));
+					nextBatch += ids.size();
+
+					// Evict the previous batch before loading the next one
+					Context.clearSession();
+					batch = Context.getPatientSetService().getPatients(ids).iterator();
+				}
+				return batch.hasNext();
+			}
+
+			@Override
+			public Object[] next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return toRow(batch.next());
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Creates the row for a patient
+	 * @param patient the patient
+	 * @return the row values
+	 */
+	protected Object[] toRow(Patient patient) {
+		String lastVlResult = null;
+		String lastVlResultDate = null;
+		CalculationResult lastVl = lastVlResults.get(patient.getId());
+		if (lastVl != null && lastVl.getValue() != null) {
+			SimpleObject res = (SimpleObject) lastVl.getValue();
+			lastVlResult = res.get("lastVl").toString();
+			lastVlResultDate = dateFormat.format((Date) res.get("lastVlDate"));
+		}
+
+		return new Object[] {
+				patient.getPersonName().getFullName(),
+				patient.getAge(),
+				patient.getGender(),
+				getUpn(patient),
+				formatDate(enrollmentDates.get(patient.getId())),
+				formatDate(artInitializationDates.get(patient.getId())),
+				lastVlResult,
+				lastVlResultDate
+		};
+	}
+
+	/**
+	 * Formats a date calculation result
+	 * @param result the result (may be null)
+	 * @return the formatted date or null
+	 */
+	private String formatDate(CalculationResult result) {
+		return result != null && result.getValue() != null ? dateFormat.format((Date) result.getValue()) : null;
+	}
+
+	/**
+	 * Gets the patient's UPN, or their clinic number if they don't have one
+	 * @param patient the patient
+	 * @return the identifier or null
+	 */
+	private PatientIdentifier getUpn(Patient patient) {
+		for (PatientIdentifier patientIdentifier : patient.getIdentifiers()) {
+			if (patientIdentifier.getIdentifierType().equals(upnIdType)) {
+				return patientIdentifier;
+			}
+		}
+
+		for (PatientIdentifier patientIdentifier : patient.getIdentifiers()) {
+			if (patientIdentifier.getIdentifierType().equals(clinicNoIdType)) {
+				return patientIdentifier;
+			}
+		}
+		return null;
+	}
+}
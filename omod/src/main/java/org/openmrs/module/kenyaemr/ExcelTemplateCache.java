@@ -0,0 +1,111 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr;
+
+import org.apache.commons.io.FileUtils;
+import org.openmrs.module.kenyacore.UiResource;
+import org.openmrs.module.kenyacore.report.HybridReportDescriptor;
+import org.openmrs.module.kenyacore.report.IndicatorReportDescriptor;
+import org.openmrs.module.kenyacore.report.ReportDescriptor;
+import org.openmrs.module.reporting.report.ReportDesign;
+import org.openmrs.module.reporting.report.ReportDesignResource;
+import org.openmrs.module.reporting.report.renderer.ExcelTemplateRenderer;
+import org.openmrs.ui.framework.resource.ResourceFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the Excel report designs of indicator and hybrid reports, so that templates aren't read from disk on every
+ * export. A design is reloaded if its template file changes. This is a singleton bean, so the whole cache is discarded
+ * with the application context when it is refreshed.
+ */
+@Component
+public class ExcelTemplateCache {
+
+	private final ConcurrentMap<ReportDescriptor, Entry> designs = new ConcurrentHashMap<ReportDescriptor, Entry>();
+
+	/**
+	 * Gets the Excel report design for a report
+	 * @param report the report
+	 * @param resourceFactory the resource factory
+	 * @return the report design
+	 * @throws IOException if the template couldn't be loaded
+	 */
+	public ReportDesign getDesign(ReportDescriptor report, ResourceFactory resourceFactory) throws IOException {
+		if (!(report instanceof IndicatorReportDescriptor) && !(report instanceof HybridReportDescriptor)) {
+			throw new RuntimeException("Only indicator/hybrid reports can be rendered as Excel");
+		}
+
+		UiResource template = (report instanceof IndicatorReportDescriptor) ? ((IndicatorReportDescriptor) report).getTemplate() : ((HybridReportDescriptor) report).getTemplate();
+
+		if (template == null || !template.getPath().endsWith(".xls")) {
+			throw new RuntimeException("Report doesn't specify a Excel template");
+		}
+
+		File file = resourceFactory.getResource(template.getProvider(), "reports/" + template.getPath());
+
+		Entry entry = designs.get(report);
+		if (entry == null || entry.lastModified != file.lastModified()) {
+			entry = new Entry(createDesign(report, FileUtils.readFileToByteArray(file)), file.lastModified());
+			designs.put(report, entry);
+		}
+		return entry.design;
+	}
+
+	/**
+	 * Creates a report design for a report template. This is a bit of a hack, copied from ExcelRendererTest in the
+	 * reporting module, to avoid needing to save the template and report design in the database
+	 * @param report the report
+	 * @param templateData the template contents
+	 * @return the report design
+	 */
+	protected ReportDesign createDesign(ReportDescriptor report, byte[] templateData) {
+		ReportDesignResource resource = new ReportDesignResource();
+		resource.setName("template.xls");
+		resource.setContents(templateData);
+
+		ReportDesign design = new ReportDesign();
+		design.setName(report.getName());
+		design.setReportDefinition(report.getTarget());
+		design.setRendererType(ExcelTemplateRenderer.class);
+
+		if (report instanceof HybridReportDescriptor) {
+			Properties props = new Properties();
+			String repeatingSections = ((HybridReportDescriptor) report).getRepeatingSection();
+			if (repeatingSections != null) {
+				props.put("repeatingSections", repeatingSections);
+				design.setProperties(props);
+			}
+		}
+
+		design.addResource(resource);
+		return design;
+	}
+
+	/**
+	 * A cached design
+	 */
+	private static class Entry {
+
+		private final ReportDesign design;
+
+		private final long lastModified;
+
+		public Entry(ReportDesign design, long lastModified) {
+			this.design = design;
+			this.lastModified = lastModified;
+		}
+	}
+}
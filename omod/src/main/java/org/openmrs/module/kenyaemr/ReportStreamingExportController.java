@@ -0,0 +1,192 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.kenyaemr;
+
+import org.apache.commons.io.FileUtils;
+import org.openmrs.Cohort;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.appframework.domain.AppDescriptor;
+import org.openmrs.module.appframework.service.AppFrameworkService;
+import org.openmrs.module.kenyacore.CoreUtils;
+import org.openmrs.module.kenyacore.report.ReportDescriptor;
+import org.openmrs.module.kenyacore.report.ReportManager;
+import org.openmrs.module.kenyaemr.api.impl.CsvMaker;
+import org.openmrs.module.kenyaemr.page.controller.ReportExportPageController;
+import org.openmrs.module.reporting.common.ContentType;
+import org.openmrs.module.reporting.dataset.DataSetColumn;
+import org.openmrs.module.reporting.dataset.MapDataSet;
+import org.openmrs.module.reporting.indicator.dimension.CohortIndicatorAndDimensionResult;
+import org.openmrs.module.reporting.report.ReportData;
+import org.openmrs.module.reporting.report.ReportDesign;
+import org.openmrs.module.reporting.report.ReportRequest;
+import org.openmrs.module.reporting.report.definition.ReportDefinition;
+import org.openmrs.module.reporting.report.service.ReportService;
+import org.openmrs.ui.framework.resource.ResourceFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+/**
+ * Streams exported report data to the response, so that large exports aren't copied into memory first as they are by
+ * a UI framework file download. CSV, including indicator cohort downloads, is written straight to the response. Excel
+ * workbooks are rendered to a temporary file which is then copied to the response.
+ */
+@Controller
+public class ReportStreamingExportController {
+
+	private static final String EXPORT_TYPE_EXCEL = "excel";
+	private static final String EXPORT_TYPE_CSV = "csv";
+
+	@RequestMapping("/kenyaemr/reportExport.htm")
+	public void export(@RequestParam("appId") String appId,
+					   @RequestParam("request") Integer requestId,
+					   @RequestParam(value = "type", required = false, defaultValue = EXPORT_TYPE_CSV) String type,
+					   HttpServletResponse response) throws IOException {
+
+		ReportRequest reportRequest = Context.getService(ReportService.class).getReportRequest(requestId);
+		if (reportRequest == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		ReportDefinition definition = reportRequest.getReportDefinition().getParameterizable();
+		ReportDescriptor report = Context.getRegisteredComponents(ReportManager.class).get(0).getReportDescriptor(definition);
+
+		CoreUtils.checkAccess(report, getAppForCurrentUser(appId));
+
+		ReportData reportData = Context.getService(ReportService.class).loadReportData(reportRequest);
+
+		ReportExportPageController exporter = new ReportExportPageController();
+
+		if (EXPORT_TYPE_CSV.equals(type)) {
+			startDownload(response, exporter.getDownloadFilename(report.getTarget(), reportData.getContext(), "csv"), ContentType.CSV.getContentType());
+
+			OutputStream out = new BufferedOutputStream(response.getOutputStream());
+			exporter.writeCsv(report, reportData, out);
+			out.flush();
+		}
+		else if (EXPORT_TYPE_EXCEL.equals(type)) {
+			ResourceFactory resourceFactory = Context.getRegisteredComponents(ResourceFactory.class).get(0);
+			ReportDesign design = Context.getRegisteredComponents(ExcelTemplateCache.class).get(0).getDesign(report, resourceFactory);
+
+			File workbook = File.createTempFile("kenyaemr-report", ".xls");
+			try {
+				OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(workbook));
+				try {
+					exporter.writeExcel(report, reportData, design, fileOut);
+				}
+				finally {
+					fileOut.close();
+				}
+
+				startDownload(response, exporter.getDownloadFilename(report.getTarget(), reportData.getContext(), "xls"), ContentType.EXCEL.getContentType());
+				response.setContentLength((int) workbook.length());
+				FileUtils.copyFile(workbook, response.getOutputStream());
+				response.flushBuffer();
+			}
+			finally {
+				FileUtils.deleteQuietly(workbook);
+			}
+		}
+		else {
+			throw new RuntimeException("Unrecognised export type: " + type);
+		}
+	}
+
+	/**
+	 * Exports the patients of an indicator cohort as CSV. Rows are built as they are written, from batches of
+	 * patients, so the whole file is never held in memory.
+	 */
+	@RequestMapping("/kenyaemr/cohortExport.htm")
+	public void exportCohort(@RequestParam("appId") String appId,
+							 @RequestParam("request") Integer requestId,
+							 @RequestParam("dataset") String dataSetName,
+							 @RequestParam("column") String columnName,
+							 HttpServletResponse response) throws IOException {
+
+		ReportRequest reportRequest = Context.getService(ReportService.class).getReportRequest(requestId);
+		if (reportRequest == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		ReportDefinition definition = reportRequest.getReportDefinition().getParameterizable();
+		ReportDescriptor report = Context.getRegisteredComponents(ReportManager.class).get(0).getReportDescriptor(definition);
+
+		CoreUtils.checkAccess(report, getAppForCurrentUser(appId));
+
+		ReportData reportData = Context.getService(ReportService.class).loadReportData(reportRequest);
+
+		MapDataSet dataSet = (MapDataSet) reportData.getDataSets().get(dataSetName);
+		DataSetColumn dataSetColumn = dataSet != null ? dataSet.getMetaData().getColumn(columnName) : null;
+		if (dataSetColumn == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		Object result = dataSet.getData(dataSetColumn);
+		Cohort cohort = null;
+		if (result instanceof CohortIndicatorAndDimensionResult) {
+			cohort = ((CohortIndicatorAndDimensionResult) result).getCohortIndicatorAndDimensionCohort();
+		}
+		else if (result instanceof Cohort) {
+			cohort = (Cohort) result;
+		}
+		if (cohort == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		Date endDate = (Date) reportRequest.getReportDefinition().getParameterMappings().get("endDate");
+		CohortCsvRows rows = new CohortCsvRows(cohort.getMemberIds(), endDate);
+
+		String filename = dataSetColumn.getName() != null ? dataSetColumn.getName().replaceAll(" ", "_") + "_Cohort.csv" : "Cohort.csv";
+		startDownload(response, filename, ContentType.CSV.getContentType());
+
+		OutputStream out = new BufferedOutputStream(response.getOutputStream());
+		Context.getRegisteredComponents(CsvMaker.class).get(0).writeCsv(rows, CohortCsvRows.HEADER, out);
+		out.flush();
+	}
+
+	/**
+	 * Sets the headers of a file download
+	 * @param response the response
+	 * @param filename the file name
+	 * @param contentType the content type
+	 */
+	protected void startDownload(HttpServletResponse response, String filename, String contentType) {
+		response.setContentType(contentType);
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + filename.replace("\"", "") + "\"");
+	}
+
+	/**
+	 * Gets an app which the current user can access
+	 * @param appId the app id
+	 * @return the app
+	 * @throws APIAuthenticationException if the current user can't access the app
+	 */
+	protected AppDescriptor getAppForCurrentUser(String appId) {
+		for (AppDescriptor app : Context.getService(AppFrameworkService.class).getAppsForCurrentUser()) {
+			if (app.getId().equals(appId)) {
+				return app;
+			}
+		}
+		throw new APIAuthenticationException("Access denied to app " + appId);
+	}
+}
@@ -28,6 +28,7 @@ import org.openmrs.api.LocationService;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.CoreConstants;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.search.PatientSearchIndex;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.ui.framework.UiUtils;
 import org.openmrs.util.OpenmrsConstants;
@@ -44,6 +45,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -88,10 +90,11 @@ public class SearchFragmentController {
 		}
 
 		// Run main patient search query based on id/name
-		List<Patient> matchedByNameOrID = Context.getPatientService().getPatients(query);
+		List<Patient> matchedByNameOrID = getPatientsByNameOrID(query);
 
-		// Gather up active visits for all patients. These are attached to the returned patient representations.
-		Map<Patient, Visit> patientActiveVisits = getActiveVisitsByPatients();
+		// Gather up active visits for the matched patients, or for all patients if there's no query. These are attached
+		// to the returned patient representations.
+		Map<Patient, Visit> patientActiveVisits = StringUtils.isBlank(query) ? getActiveVisitsByPatients() : getActiveVisitsByPatients(matchedByNameOrID);
 
 		List<Patient> matched = new ArrayList<Patient>();
 
@@ -334,13 +337,116 @@ public class SearchFragmentController {
 		return simpleConcepts;
 	}
 
+	/**
+	 * Helper method to search for patients by name or identifier. The patient search index is used if it's ready and
+	 * finds any patients, otherwise the database is searched. Queries shorter than the minimum search characters are
+	 * left to the database search, which applies that minimum. Matches are ranked before the maximum person search
+	 * results are applied: exact identifier matches first, then identifier prefix matches, then name matches ordered
+	 * by name.
+	 * @param query the name or identifier
+	 * @return the matching patients
+	 */
+	protected List<Patient> getPatientsByNameOrID(String query) {
+		if (StringUtils.isBlank(query) || query.trim().length() < getMinSearchCharacters()) {
+			return Context.getPatientService().getPatients(query);
+		}
+
+		PatientSearchIndex index = Context.getRegisteredComponents(PatientSearchIndex.class).get(0);
+		Set<Integer> patientIds = index.search(query);
+		List<Integer> identifierMatches = index.searchIdentifiers(query);
+		if (patientIds == null || patientIds.isEmpty() || identifierMatches == null) {
+			return Context.getPatientService().getPatients(query);
+		}
+
+		int maxResults = getMaxSearchResults();
+
+		List<Patient> patients = new ArrayList<Patient>();
+		if (!identifierMatches.isEmpty()) {
+			List<Integer> ids = identifierMatches.subList(0, Math.min(maxResults, identifierMatches.size()));
+			Map<Integer, Patient> patientsById = new HashMap<Integer, Patient>();
+			for (Patient patient : getPatients(ids)) {
+				patientsById.put(patient.getPatientId(), patient);
+			}
+			for (Integer id : ids) {
+				if (patientsById.containsKey(id)) {
+					patients.add(patientsById.get(id));
+				}
+			}
+		}
+
+		Set<Integer> nameMatches = new TreeSet<Integer>(patientIds);
+		nameMatches.removeAll(identifierMatches);
+		if (patients.size() < maxResults && !nameMatches.isEmpty()) {
+			List<Patient> matchedByName = getPatients(getIdsOrderedByName(nameMatches, maxResults - patients.size()));
+			Collections.sort(matchedByName, new PersonByNameComparator());
+			patients.addAll(matchedByName);
+		}
+		return patients;
+	}
+
+	/**
+	 * Helper method to get the first of the given patients when ordered by name. Patients are ordered by the fields of
+	 * their preferred name which {@link PersonByNameComparator} compares, and those without a preferred name come last.
+	 * Only ids are loaded so that a broad search doesn't load every matched patient.
+	 * @param patientIds the patient ids
+	 * @param max the maximum number of ids to return
+	 * @return the ids
+	 */
+	protected List<Integer> getIdsOrderedByName(Set<Integer> patientIds, int max) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("patientIds", patientIds);
+
+		Set<Integer> ordered = new LinkedHashSet<Integer>();
+		String hql = "select pn.person.personId from PersonName pn where pn.person.personId in (:patientIds) and pn.voided = false"
+				+ " and pn.preferred = true order by pn.familyName, pn.familyName2, pn.givenName, pn.middleName, pn.person.personId";
+		for (Object id : Context.getService(KenyaEmrService.class).executeHqlQuery(hql, params)) {
+			ordered.add((Integer) id);
+		}
+		ordered.addAll(patientIds);
+
+		return new ArrayList<Integer>(ordered).subList(0, Math.min(max, ordered.size()));
+	}
+
+	/**
+	 * Helper method to load the non-voided patients with the given ids
+	 * @param patientIds the patient ids
+	 * @return the patients, in no particular order
+	 */
+	protected List<Patient> getPatients(Collection<Integer> patientIds) {
+		List<Patient> patients = new ArrayList<Patient>();
+		if (patientIds.isEmpty()) {
+			return patients;
+		}
+
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("patientIds", patientIds);
+
+		for (Object patient : Context.getService(KenyaEmrService.class).executeHqlQuery("from Patient p where p.patientId in (:patientIds) and p.voided = false", params)) {
+			patients.add((Patient) patient);
+		}
+		return patients;
+	}
+
 	/**
 	 * Helper method to get all active visits organised by patient
 	 * @return the map of patients to active visits
 	 */
 	protected Map<Patient, Visit> getActiveVisitsByPatients() {
-		List<Visit> activeVisits = Context.getVisitService().getVisits(null, null, null, null, null, null, null, null, null, false, false);
+		return getActiveVisitsByPatients(null);
+	}
+
+	/**
+	 * Helper method to get the active visits of the given patients organised by patient
+	 * @param patients the patients (null for all patients)
+	 * @return the map of patients to active visits
+	 */
+	protected Map<Patient, Visit> getActiveVisitsByPatients(Collection<Patient> patients) {
 		Map<Patient, Visit> patientToVisits = new HashMap<Patient, Visit>();
+		if (patients != null && patients.isEmpty()) {
+			return patientToVisits;
+		}
+
+		List<Visit> activeVisits = Context.getVisitService().getVisits(null, patients, null, null, null, null, null, null, null, false, false);
 		for (Visit visit : activeVisits) {
 			patientToVisits.put(visit.getPatient(), visit);
 		}
@@ -395,6 +501,23 @@ public class SearchFragmentController {
 		return minSearchCharacters;
 	}
 
+	/**
+	 * Gets the maximum number of patients loaded for a search
+	 * @return the value of person search max results
+	 */
+	protected static int getMaxSearchResults() {
+		int maxResults = OpenmrsConstants.GLOBAL_PROPERTY_PERSON_SEARCH_MAX_RESULTS_DEFAULT_VALUE;
+		String maxResultsStr = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_PERSON_SEARCH_MAX_RESULTS);
+
+		try {
+			maxResults = Integer.valueOf(maxResultsStr);
+		}
+		catch (NumberFormatException e) {
+			//do nothing
+		}
+		return maxResults;
+	}
+
 	/**
 	 * returns a list of peer educators
 	 * @param query
@@ -412,10 +535,11 @@ public class SearchFragmentController {
 		}
 
 		// Run main patient search query based on id/name
-		List<Patient> matchedByNameOrID = Context.getPatientService().getPatients(query);
+		List<Patient> matchedByNameOrID = getPatientsByNameOrID(query);
 
-		// Gather up active visits for all patients. These are attached to the returned patient representations.
-		Map<Patient, Visit> patientActiveVisits = getActiveVisitsByPatients();
+		// Gather up active visits for the matched patients, or for all patients if there's no query. These are attached
+		// to the returned patient representations.
+		Map<Patient, Visit> patientActiveVisits = StringUtils.isBlank(query) ? getActiveVisitsByPatients() : getActiveVisitsByPatients(matchedByNameOrID);
 
 		List<Patient> matched = new ArrayList<Patient>();
 		List<Patient> peerEducators = new ArrayList<Patient>();
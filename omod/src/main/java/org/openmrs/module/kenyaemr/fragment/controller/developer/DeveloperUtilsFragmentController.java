@@ -15,10 +15,12 @@ import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.groovy.GroovyUtil;
 import org.openmrs.module.kenyaemr.EmrConstants;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagCache;
 import org.openmrs.module.kenyaui.annotation.AppAction;
 import org.openmrs.module.reporting.evaluation.EvaluationProfiler;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.ui.framework.UiUtils;
+import org.openmrs.ui.framework.annotation.SpringBean;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
@@ -68,6 +70,22 @@ public class DeveloperUtilsFragmentController {
 		}
 	}
 
+	/**
+	 * Gets the statistics of the patient flag cache
+	 */
+	@AppAction(EmrConstants.APP_DEVELOPER)
+	public SimpleObject getFlagCacheStatistics(@SpringBean PatientFlagCache flagCache) {
+		return SimpleObject.create("hits", flagCache.getHits(), "misses", flagCache.getMisses(), "patients", flagCache.getSize(), "expiryMillis", flagCache.getExpiryMillis());
+	}
+
+	/**
+	 * Clears the patient flag cache
+	 */
+	@AppAction(EmrConstants.APP_DEVELOPER)
+	public void clearFlagCache(@SpringBean PatientFlagCache flagCache) {
+		flagCache.clear();
+	}
+
 	/**
 	 * Validate patient records
 	 */
@@ -15,7 +15,6 @@ import org.openmrs.*;
 import org.openmrs.api.context.Context;
 import org.openmrs.calculation.patient.PatientCalculationContext;
 import org.openmrs.calculation.patient.PatientCalculationService;
-import org.openmrs.calculation.result.CalculationResult;
 import org.openmrs.calculation.result.CalculationResultMap;
 import org.openmrs.calculation.result.ListResult;
 import org.openmrs.module.kenyacore.calculation.CalculationManager;
@@ -23,7 +22,8 @@ import org.openmrs.module.kenyacore.calculation.CalculationUtils;
 import org.openmrs.module.kenyacore.calculation.PatientFlagCalculation;
 import org.openmrs.module.kenyaemr.Dictionary;
 import org.openmrs.module.kenyaemr.EmrConstants;
-import org.openmrs.module.kenyaemr.calculation.library.ScheduledVisitOnDayCalculation;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
 import org.openmrs.module.kenyaemr.calculation.library.VisitsOnDayCalculation;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.regimen.RegimenChange;
@@ -44,10 +44,11 @@ import org.openmrs.util.PersonByNameComparator;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,24 +65,62 @@ public class PatientUtilsFragmentController {
 	 * flag with a message with the name of the offending calculation
 	 * @param patientId the patient id
 	 * @param calculationManager the calculation manager
+	 * @param flagEvaluator the flag evaluator
 	 * @return the flags as simple objects
 	 */
 	@SharedAction
-	public List<SimpleObject> getFlags(@RequestParam("patientId") Integer patientId, @SpringBean CalculationManager calculationManager) {
+	public List<SimpleObject> getFlags(@RequestParam("patientId") Integer patientId, @SpringBean CalculationManager calculationManager, @SpringBean PatientFlagEvaluator flagEvaluator) {
+		return evaluateFlags(Collections.singletonList(patientId), calculationManager, flagEvaluator).get(patientId);
+	}
+
+	/**
+	 * Gets the patient flags for each of the given patients, e.g. for the patients of a list view. Each flag calculation
+	 * is evaluated once for all of the patients. If any of the calculations throws an exception, each patient will have a
+	 * single flag with a message with the name of the offending calculation
+	 * @param patientIds the patient ids
+	 * @param calculationManager the calculation manager
+	 * @param flagEvaluator the flag evaluator
+	 * @return the flags as simple objects by patient id
+	 */
+	@SharedAction
+	public SimpleObject getFlagsForPatients(@RequestParam("patientIds") List<Integer> patientIds, @SpringBean CalculationManager calculationManager, @SpringBean PatientFlagEvaluator flagEvaluator) {
+		SimpleObject ret = new SimpleObject();
+		for (Map.Entry<Integer, List<SimpleObject>> entry : evaluateFlags(patientIds, calculationManager, flagEvaluator).entrySet()) {
+			ret.put(String.valueOf(entry.getKey()), entry.getValue());
+		}
+		return ret;
+	}
+
+	/**
+	 * Evaluates all flag calculations for the given patients
+	 * @param patientIds the patient ids
+	 * @param calculationManager the calculation manager
+	 * @param flagEvaluator the flag evaluator
+	 * @return the flags as simple objects by patient id
+	 */
+	private Map<Integer, List<SimpleObject>> evaluateFlags(List<Integer> patientIds, CalculationManager calculationManager, PatientFlagEvaluator flagEvaluator) {
+		Set<Integer> cohort = new LinkedHashSet<Integer>(patientIds);
 
-		List<SimpleObject> flags = new ArrayList<SimpleObject>();
+		Map<Integer, List<SimpleObject>> flags = new LinkedHashMap<Integer, List<SimpleObject>>();
+		for (Integer patientId : cohort) {
+			flags.put(patientId, new ArrayList<SimpleObject>());
+		}
+
+		PatientCalculationContext calcContext = flagEvaluator.createCalculationContext();
 
 		// Gather all flag calculations that evaluate to true
 		for (PatientFlagCalculation calc : calculationManager.getFlagCalculations()) {
 			try {
-				CalculationResult result = Context.getService(PatientCalculationService.class).evaluate(patientId, calc);
-				if (result != null && (Boolean) result.getValue()) {
-					flags.add(SimpleObject.create("message", calc.getFlagMessage()));
+				for (Integer patientId : flagEvaluator.evaluate(cohort, calc, calcContext)) {
+					flags.get(patientId).add(SimpleObject.create("message", calc.getFlagMessage()));
 				}
 			}
 			catch (Exception ex) {
 				log.error("Error evaluating " + calc.getClass(), ex);
-				return Collections.singletonList(SimpleObject.create("message", "ERROR EVALUATING '" +  calc.getFlagMessage() + "'"));
+				for (Integer patientId : cohort) {
+					flags.put(patientId, Collections.singletonList(SimpleObject.create("message", "ERROR EVALUATING '" +  calc.getFlagMessage() + "'")));
+				}
+				return flags;
 			}
 		}
 		return flags;
@@ -95,15 +134,16 @@ public class PatientUtilsFragmentController {
 	 */
 	@SharedAction
 	public List<SimpleObject> getScheduled(@RequestParam("date") Date date, UiUtils ui) {
-		// Run the calculations to get patients with scheduled visits
+		// Look up patients with scheduled visits by their return visit date obs
+		Set<Integer> scheduled = Context.getService(KenyaEmrService.class).getPatientsScheduledOnDay(date);
+
+		// Run the calculation to get their visits on that day
 		PatientCalculationService cs = Context.getService(PatientCalculationService.class);
-		Set<Integer> allPatients = Context.getPatientSetService().getAllPatients().getMemberIds();
 
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("date", date);
 		PatientCalculationContext calcContext = cs.createCalculationContext();
 
-		Set<Integer> scheduled = CalculationUtils.patientsThatPass(cs.evaluate(allPatients, new ScheduledVisitOnDayCalculation(), params, calcContext));
 		CalculationResultMap actual = cs.evaluate(scheduled, new VisitsOnDayCalculation(), params, calcContext);
 
 		// Sort patients and convert to simple objects
@@ -129,26 +169,30 @@ public class PatientUtilsFragmentController {
 
 		Date startOfDay = DateUtil.getStartOfDay(date);
 		Date endOfDay = DateUtil.getEndOfDay(date);
-		List<Patient> allPatients = Context.getPatientService().getAllPatients();
-		List<Patient> requiredPatients = new ArrayList<Patient>();
-		List<SimpleObject> simplifiedObj = new ArrayList<SimpleObject>();
 
-		// look for visits that started before endOfDay and ended after startOfDay
-		List<Visit> visits = Context.getVisitService().getVisits(null, allPatients, null, null, startOfDay, endOfDay, null, null, null, true, true);
+		// look for visits of any patient that started on that day, and group them by patient
+		List<Visit> visits = Context.getVisitService().getVisits(null, null, null, null, startOfDay, endOfDay, null, null, null, true, true);
 
-		if(visits.size() > 0){
-			for (Visit visit : visits) {
-				requiredPatients.add(visit.getPatient());
+		Map<Patient, List<Visit>> visitsByPatient = new LinkedHashMap<Patient, List<Visit>>();
+		for (Visit visit : visits) {
+			if (visit.getPatient().isVoided()) {
+				continue;
 			}
-		}
-		for(Patient p:requiredPatients) {
-			SimpleObject so = ui.simplifyObject(p);
-			List<Visit> patientVisit = Context.getVisitService().getVisits(null, Arrays.asList(p), null, null, startOfDay, endOfDay, null, null, null, true, true);
-			so.put("visits", ui.simplifyCollection(patientVisit));
-			simplifiedObj.add(so);
 
+			List<Visit> patientVisits = visitsByPatient.get(visit.getPatient());
+			if (patientVisits == null) {
+				patientVisits = new ArrayList<Visit>();
+				visitsByPatient.put(visit.getPatient(), patientVisits);
+			}
+			patientVisits.add(visit);
 		}
 
+		List<SimpleObject> simplifiedObj = new ArrayList<SimpleObject>();
+		for (Map.Entry<Patient, List<Visit>> entry : visitsByPatient.entrySet()) {
+			SimpleObject so = ui.simplifyObject(entry.getKey());
+			so.put("visits", ui.simplifyCollection(entry.getValue()));
+			simplifiedObj.add(so);
+		}
 
 		return simplifiedObj;
 	}
@@ -21,6 +21,7 @@ import org.openmrs.module.kenyaemr.calculation.library.hiv.LastCd4PercentageCalc
 import org.openmrs.module.kenyaemr.calculation.library.hiv.LastWhoStageCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.hiv.art.ViralLoadAndLdlCalculation;
 import org.openmrs.module.kenyaemr.regimen.RegimenManager;
+import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenHistory;
 import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.ui.framework.annotation.FragmentParam;
@@ -47,11 +48,12 @@ public class HivCarePanelFragmentController {
 
 		Map<String, CalculationResult> calculationResults = new HashMap<String, CalculationResult>();
 
+		EncounterBasedRegimenHistory regimenHistory = EncounterBasedRegimenHistory.forPatient(patient);
 		SimpleObject firstEncDetails = null;
 
 
 		if (complete != null && complete.booleanValue()) {
-			Encounter firstEnc = EncounterBasedRegimenUtils.getFirstEncounterForCategory(patient, "ARV");
+			Encounter firstEnc = regimenHistory.getFirstEncounter("ARV");
 
 			if (firstEnc != null) {
 				firstEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(firstEnc.getObs(), firstEnc);
@@ -105,9 +107,9 @@ public class HivCarePanelFragmentController {
 
 		model.addAttribute("graphingConcepts", Dictionary.getConcepts(Dictionary.WEIGHT_KG, Dictionary.CD4_COUNT, Dictionary.CD4_PERCENT, Dictionary.HIV_VIRAL_LOAD));
 
-		List<SimpleObject> obshistory = EncounterBasedRegimenUtils.getRegimenHistoryFromObservations(patient, "ARV");
+		List<SimpleObject> obshistory = regimenHistory.getHistory("ARV");
 		model.put("regimenFromObs", obshistory);
-		Encounter lastEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "ARV");
+		Encounter lastEnc = regimenHistory.getLastEncounter("ARV");
 		SimpleObject lastEncDetails = null;
 		if (lastEnc != null) {
 			lastEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastEnc.getObs(), lastEnc);
@@ -19,6 +19,7 @@ import org.openmrs.module.kenyaemr.calculation.library.tb.TbDiseaseClassificatio
 import org.openmrs.module.kenyaemr.calculation.library.tb.TbPatientClassificationCalculation;
 import org.openmrs.module.kenyaemr.calculation.library.tb.TbTreatmentNumberCalculation;
 import org.openmrs.module.kenyaemr.regimen.RegimenManager;
+import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenHistory;
 import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
 import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.ui.framework.annotation.FragmentParam;
@@ -65,9 +66,10 @@ public class TbCarePanelFragmentController {
 		model.addAttribute("calculations", calculationResults);
 		model.addAttribute("result", message);
 
-		List<SimpleObject> obshistory = EncounterBasedRegimenUtils.getRegimenHistoryFromObservations(patient, "TB");
+		EncounterBasedRegimenHistory regimenHistory = EncounterBasedRegimenHistory.forPatient(patient);
+		List<SimpleObject> obshistory = regimenHistory.getHistory("TB");
 		model.put("regimenFromObs", obshistory);
-		Encounter lastEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, "TB");
+		Encounter lastEnc = regimenHistory.getLastEncounter("TB");
 		SimpleObject lastEncDetails = null;
 		if (lastEnc != null) {
 			lastEncDetails = EncounterBasedRegimenUtils.buildRegimenChangeObject(lastEnc.getObs(), lastEnc);
@@ -26,6 +26,11 @@ import org.openmrs.module.facilityreporting.api.restUtil.FacilityReporting;
 import org.openmrs.module.facilityreporting.api.restUtil.ReportDatasetValueEntryMapper;
 import org.openmrs.module.kenyacore.report.ReportDescriptor;
 import org.openmrs.module.kenyacore.report.ReportManager;
+import org.openmrs.module.kenyaemr.api.KenyaEmrService;
+import org.openmrs.module.kenyaemr.reporting.KpifIndicatorMappings;
+import org.openmrs.module.kenyaemr.reporting.adx.AdxOutbox;
+import org.openmrs.module.kenyaemr.reporting.adx.AdxSubmission;
+import org.openmrs.module.kenyaemr.reporting.renderer.AdxWriter;
 import org.openmrs.module.kenyaemr.util.EmrUtils;
 import org.openmrs.module.kenyaemr.wrapper.Facility;
 import org.openmrs.module.kenyaui.KenyaUiUtils;
@@ -41,24 +46,20 @@ import org.openmrs.ui.framework.annotation.SpringBean;
 import org.openmrs.ui.framework.page.PageModel;
 import org.openmrs.ui.framework.page.PageRequest;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import javax.validation.constraints.Null;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.text.DateFormat;
@@ -241,7 +242,8 @@ public class AdxViewFragmentController {
 
     public SimpleObject buildXmlDocument(@RequestParam("request") ReportRequest reportRequest,
                                          @RequestParam("returnUrl") String returnUrl,
-                                         @SpringBean ReportService reportService) throws ParserConfigurationException, IOException, TransformerException {
+                                         @SpringBean ReportService reportService,
+                                         @SpringBean AdxOutbox adxOutbox) throws IOException, XMLStreamException {
 
         ReportData reportData = reportService.loadReportData(reportRequest);
         String reportName = reportData.getDefinition().getName();
@@ -276,174 +278,145 @@ public class AdxViewFragmentController {
             mfl = new Facility(location).getMflCode();
         }
 
-        DocumentBuilderFactory documentFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = documentFactory.newDocumentBuilder();
-        Document document = documentBuilder.newDocument();
+        if (reportName.equals(MOH_731) && serverAddress != null) {
+            SERVER_ADDRESS = serverAddress;
+        }
 
-        Element root = document.createElement("adx");
-        root.setAttribute("xmlns", "urn:ihe:qrph:adx:2015");
-        root.setAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
-        root.setAttribute("xsi:schemaLocation", "urn:ihe:qrph:adx:2015 ../schema/adx_loose.xsd");
-        root.setAttribute("exported", isoDateTimeFormat.format(new Date()));
+        // additional MOH 731 indicators for air
+        List<ReportDatasetValueEntryMapper> facilityReportData = reportName.equals(MOH_731)
+                ? getFaclityReportData(MOH_731_ID, isoDateFormat.format(reportDate), isoDateFormat.format(endDate))
+                : Collections.<ReportDatasetValueEntryMapper>emptyList();
 
-        for (String dsKey : reportData.getDataSets().keySet()) {
+        String period = isoDateFormat.format(reportDate).concat("/P1M");
+
+        // the message is written to a temporary file and streamed into the outbox, so it is never held in memory
+        File payload = File.createTempFile("adx-", ".xml");
+        Integer submissionId;
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(payload));
+            try {
+                AdxWriter adx = new AdxWriter(out);
+                adx.startAdx(isoDateTimeFormat.format(new Date()));
 
-            String datasetName = null;
+                for (String dsKey : reportData.getDataSets().keySet()) {
 
-            if (reportName.equals(MOH_731)) {
-                if (mappingDetails.get("datasets").getElements() != null) {
-                    for (Iterator<JsonNode> it = mappingDetails.get("datasets").iterator(); it.hasNext(); ) {
-                        ObjectNode node = (ObjectNode) it.next();
-                        if (node.get("name").asText().equals(dsKey)) {
-                            datasetName = node.get("dhisName").getTextValue();
-                            break;
+                    String datasetName = null;
+
+                    if (reportName.equals(MOH_731)) {
+                        if (mappingDetails.get("datasets").getElements() != null) {
+                            for (Iterator<JsonNode> it = mappingDetails.get("datasets").iterator(); it.hasNext(); ) {
+                                ObjectNode node = (ObjectNode) it.next();
+                                if (node.get("name").asText().equals(dsKey)) {
+                                    datasetName = node.get("dhisName").getTextValue();
+                                    break;
+                                }
+                            }
                         }
-                    }
-                }
-            } else if (reportName.equals(KPIF_MONTHLY_REPORT)) {
-                if (mappingDetails.get("datasets").getElements() != null) {
-                    for (Iterator<JsonNode> it = mappingDetails.get("datasets").iterator(); it.hasNext(); ) {
-                        ObjectNode node = (ObjectNode) it.next();
-                        if (node.get("name").asText().equals(dsKey)) {
-                            datasetName = node.get("3pmName").getTextValue();
-                            break;
+                    } else if (reportName.equals(KPIF_MONTHLY_REPORT)) {
+                        if (mappingDetails.get("datasets").getElements() != null) {
+                            for (Iterator<JsonNode> it = mappingDetails.get("datasets").iterator(); it.hasNext(); ) {
+                                ObjectNode node = (ObjectNode) it.next();
+                                if (node.get("name").asText().equals(dsKey)) {
+                                    datasetName = node.get("3pmName").getTextValue();
+                                    break;
+                                }
+                            }
                         }
                     }
-                }
-            }
 
-            if (datasetName == null)
-                continue;
+                    if (datasetName == null)
+                        continue;
 
-            Element eDataset = document.createElement("group");
-            // add group attributes
-            eDataset.setAttribute("orgUnit", mfl);
-            eDataset.setAttribute("period", isoDateFormat.format(reportDate).concat("/P1M"));
-            eDataset.setAttribute("dataSet", datasetName);
+                    adx.startGroup(mfl, period, datasetName);
 
-            DataSet dataset = reportData.getDataSets().get(dsKey);
-            List<DataSetColumn> columns = dataset.getMetaData().getColumns();
-            for (DataSetRow row : dataset) {
-                for (DataSetColumn column : columns) {
-                    String name = column.getName();
-                    Object value = row.getColumnValue(column);
+                    DataSet dataset = reportData.getDataSets().get(dsKey);
+                    List<DataSetColumn> columns = dataset.getMetaData().getColumns();
+                    for (DataSetRow row : dataset) {
+                        for (DataSetColumn column : columns) {
+                            String name = column.getName();
+                            Object value = row.getColumnValue(column);
 
-                    // add data values
-                    Element dataValue = document.createElement("dataValue");
-                    if (reportName.equals(MOH_731)) {
-                        dataValue.setAttribute("dataElement", columnPrefix.concat(name));
-                        dataValue.setAttribute("value", value.toString());
-                    }
-                    else if(reportName.equals(KPIF_MONTHLY_REPORT)){
-                        if (name.contains("PWUD"))
-                            continue;
-                        mappedIndicatorId = get3PIndicatorId(name);
-                        String[] combos = mappedIndicatorId.split("-");
-                        dataValue.setAttribute("dataElement", columnPrefix.concat(combos[0]));
-                        dataValue.setAttribute("categoryOptionCombo", columnPrefix.concat(combos[1]));
-                        dataValue.setAttribute("value", value.toString());
+                            // add data values
+                            if (reportName.equals(MOH_731)) {
+                                adx.dataValue(columnPrefix.concat(name), null, value);
+                            }
+                            else if(reportName.equals(KPIF_MONTHLY_REPORT)){
+                                if (name.contains("PWUD"))
+                                    continue;
+                                mappedIndicatorId = get3PIndicatorId(name);
+                                String[] combos = mappedIndicatorId.split("-");
+                                adx.dataValue(columnPrefix.concat(combos[0]), columnPrefix.concat(combos[1]), value);
+                            }
+                        }
                     }
-                    eDataset.appendChild(dataValue);
+                    adx.endGroup();
                 }
-            }
-            root.appendChild(eDataset);
-        }
 
-        // add additional MOH 731 indicators for air
-        if (reportName.equals(MOH_731)) {
-            for (ReportDatasetValueEntryMapper e : getFaclityReportData(MOH_731_ID, isoDateFormat.format(reportDate), isoDateFormat.format(endDate))) {
-                if (e.getDatasetID() != null) {
-
-                    Integer datasetId = Integer.parseInt(e.getDatasetID());
-                    FacilityReportDataset ds = facilityreportingService.getDatasetById(datasetId);
-                    String datasetName = ds.getMapping();
-
-                    Element eDataset = document.createElement("group");
-                    // add group attributes
-                    eDataset.setAttribute("orgUnit", mfl);
-                    eDataset.setAttribute("period", isoDateFormat.format(reportDate).concat("/P1M"));
-                    eDataset.setAttribute("dataSet", datasetName);
-
-                    for (DatasetIndicatorDetails row : e.getIndicators()) {
-                        if (row.getValue() != null && !"".equals(row.getValue()) && StringUtils.isNotEmpty(row.getValue())) {
-                            String name = row.getName();
-                            Object value = row.getValue();
-                            // add data values
-                            Element dataValue = document.createElement("dataValue");
-                            dataValue.setAttribute("dataElement", columnPrefix.concat(name));
-                            dataValue.setAttribute("value", value.toString());
-                            eDataset.appendChild(dataValue);
+                // add additional MOH 731 indicators for air
+                for (ReportDatasetValueEntryMapper e : facilityReportData) {
+                    if (e.getDatasetID() != null) {
 
-                        }
-                    }
+                        Integer datasetId = Integer.parseInt(e.getDatasetID());
+                        FacilityReportDataset ds = facilityreportingService.getDatasetById(datasetId);
 
-                    root.appendChild(eDataset);
-                }
-            }
-        }
+                        adx.startGroup(mfl, period, ds.getMapping());
 
-        document.appendChild(root);
+                        for (DatasetIndicatorDetails row : e.getIndicators()) {
+                            if (row.getValue() != null && !"".equals(row.getValue()) && StringUtils.isNotEmpty(row.getValue())) {
+                                adx.dataValue(columnPrefix.concat(row.getName()), null, row.getValue());
+                            }
+                        }
 
-        // create the xml file
-        //transform the DOM Object to an XML File
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-        DOMSource domSource = new DOMSource(document);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        StreamResult inMemory = new StreamResult(out);
+                        adx.endGroup();
+                    }
+                }
 
-        //transformer.transform(domSource, printOut);
-        transformer.transform(domSource, inMemory);
-        if(reportName.equals(MOH_731)){
-        if (serverAddress != null) {
+                adx.endAdx();
+            }
+            finally {
+                out.close();
+            }
 
-            SERVER_ADDRESS = serverAddress;
+            // the message is posted in the background so that the page doesn't wait for the IL server
+            Reader in = new InputStreamReader(new FileInputStream(payload), "UTF-8");
+            try {
+                submissionId = adxOutbox.submit(reportName, mfl, reportName.equals(MOH_731) ? SERVER_ADDRESS : KPIF_SERVER_ADDRESS, in);
+            }
+            finally {
+                in.close();
+            }
         }
-
+        finally {
+            payload.delete();
         }
 
-        return postAdxToIL(out, reportName.equals(MOH_731)? SERVER_ADDRESS : KPIF_SERVER_ADDRESS);
+        return SimpleObject.create("submissionId", submissionId, "status", AdxSubmission.Status.PENDING.name());
     }
 
-    private SimpleObject postAdxToIL(ByteArrayOutputStream outStream, String serverAddress) throws IOException {
-
-        URL url = new URL(serverAddress);
-
-        HttpURLConnection con = (HttpURLConnection) url.openConnection();
-        con.setRequestMethod("POST");
-        con.setRequestProperty("Content-Type", "application/adx+xml");
-        con.setRequestProperty("Content-Length", Integer.toString(outStream.size()));
-        con.setDoOutput(true);
-
-        DataOutputStream out = new DataOutputStream(con.getOutputStream());
-
-
-        out.writeBytes(outStream.toString());
-
-
-        out.flush();
-        out.close();
-
-        //Get Response
-        int responseCode = con.getResponseCode();
-        String httpResponse = null;
-
-        if (responseCode == HttpURLConnection.HTTP_OK) { //success
-            BufferedReader in = new BufferedReader(new InputStreamReader(
-                    con.getInputStream()));
-            String inputLine;
-            StringBuffer response = new StringBuffer();
-
-            while ((inputLine = in.readLine()) != null) {
-                response.append(inputLine);
-            }
-            in.close();
-            httpResponse = response.toString();
-
+    /**
+     * Gets the most recent ADX submissions for this facility
+     * @param adxOutbox the ADX outbox
+     * @return the submissions
+     */
+    public List<SimpleObject> getSubmissions(@SpringBean AdxOutbox adxOutbox) {
+        Location location = Context.getService(KenyaEmrService.class).getDefaultLocation();
+        String mfl = location != null ? new Facility(location).getMflCode() : "Unknown";
+
+        List<SimpleObject> ret = new ArrayList<SimpleObject>();
+        for (AdxSubmission submission : adxOutbox.getSubmissions(mfl, 20)) {
+            ret.add(SimpleObject.create(
+                    "id", submission.getId(),
+                    "reportName", submission.getReportName(),
+                    "status", submission.getStatus().name(),
+                    "attempts", submission.getAttempts(),
+                    "nextAttempt", submission.getNextAttempt(),
+                    "lastResponseCode", submission.getLastResponseCode(),
+                    "lastResponse", submission.getLastResponse(),
+                    "dateCreated", submission.getDateCreated(),
+                    "dateSent", submission.getDateSent()
+            ));
         }
-        return SimpleObject.create("statusCode", String.valueOf(responseCode), "statusMsg", httpResponse);
+        return ret;
     }
 
     private SimpleObject getDataFromFacilityReportingModule(ByteArrayOutputStream outStream, String serverAddress) throws IOException {
@@ -486,50 +459,6 @@ public class AdxViewFragmentController {
         return SimpleObject.create("statusCode", String.valueOf(responseCode), "statusMsg", httpResponse);
     }
 
-    private HttpURLConnection getConnection(URL entries) throws InterruptedException, IOException {
-        int retry = 0;
-        boolean delay = false;
-        do {
-            if (delay) {
-                Thread.sleep(5);
-            }
-            HttpURLConnection con = (HttpURLConnection) entries.openConnection();
-            con.setRequestMethod("POST");
-            con.setRequestProperty("Content-Type", "application/adx+xml");
-            //con.setRequestProperty("Content-Length", Integer.toString(outStream.size()));
-            con.setDoOutput(true);
-
-            if (con.getResponseCode() != HttpURLConnection.HTTP_OK) {
-
-                return con;
-
-            } else if (con.getResponseCode() == HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
-                //return null;
-                System.out.println("Timeout. Retrying");
-            } else if (con.getResponseCode() == HttpURLConnection.HTTP_UNAVAILABLE) {
-                //return null;
-                System.out.println("Server unavailable");
-            } else {
-                //return null;
-            }
-
-            // we did not succeed with connection (or we would have returned the connection).
-            con.disconnect();
-            // retry
-            retry++;
-            System.out.println("Failed retry " + retry + "/");
-            if (retry == 4) {
-                delay = false;
-            } else {
-                delay = true;
-            }
-
-        } while (retry < 4);
-
-        return null;
-
-    }
-
     public SimpleObject saveOrUpdateServerAddress(@RequestParam("newUrl") String newUrl) {
         administrationService = Context.getAdministrationService();
         GlobalProperty gp = administrationService.getGlobalPropertyObject("ilServer.address");
@@ -567,2716 +496,6 @@ public class AdxViewFragmentController {
 
     //Mappings for KPIF monthly report indicators to 3pm DUIDs/CUIDs
     public static String get3PIndicatorId(String indicatorDisaggr) {
-
-        HashMap<String, String> map
-                = new HashMap();
-
-        map.put("CHANGE_HRH_unknown", "UZp3V6V5rnK-HllvX50cXC0");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-hTS4AwHXmy4");
-        map.put("ENROL_HTS_TST_PWID-07", "xTpuBPLezo7-lQrQJYcTquG");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-PAXPnr3E0bq");
-        map.put("ENROL_HTS_TST_TG_SW-01", "xTpuBPLezo7-RQIIGrbMcFp");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-NjZP8M1crEZ");
-        map.put("ENROL_HTS_TST_PWID-05", "xTpuBPLezo7-u2wSZLv6s7m");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-xpXBknJgiGa");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-KWKBKX5TOZn");
-        map.put("ENROL_HTS_TST_MSW-02", "xTpuBPLezo7-G1GYY8G4GGU");
-        map.put("ENROL_HTS_TST_TG_NOT_SW-04", "xTpuBPLezo7-CDcn8cYAj0A");
-        map.put("ENROL_HTS_TST_FSW-02", "xTpuBPLezo7-LkV9MIzKs8R");
-        map.put("ENROL_HTS_TST_FSW-03", "xTpuBPLezo7-KmdEfKbuS5M");
-        map.put("ENROL_HTS_TST_TG_NOT_SW-02", "xTpuBPLezo7-GrhWQaCDCQ4");
-        map.put("ENROL_HTS_TST_TG_NOT_SW-01", "xTpuBPLezo7-XWsizEtBiKC");
-        map.put("ENROL_HTS_TST_TG_SW-03", "xTpuBPLezo7-l0L6BfZ0L56");
-        map.put("ENROL_HTS_TST_TG_SW-04", "xTpuBPLezo7-hAs4V5N4bJW");
-        map.put("ENROL_HTS_TST_FSW-01", "xTpuBPLezo7-IYgcWYnFZn0");
-        map.put("ENROL_HTS_TST_PWID-04", "xTpuBPLezo7-OeyhGmHtEKP");
-        map.put("ENROL_HTS_TST_FSW-04", "xTpuBPLezo7-rx6RuqMmJYh");
-        map.put("ENROL_HTS_TST_PWID-06", "xTpuBPLezo7-SmTngpAmqW3");
-        map.put("ENROL_HTS_TST_TG_NOT_SW-03", "xTpuBPLezo7-t48Hbcn9Ych");
-        map.put("ENROL_HTS_TST_MSM-01", "xTpuBPLezo7-TejGomIjzWu");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-Ik8JJyPcQ2K");
-        map.put("ENROL_HTS_TST_PWID-01", "xTpuBPLezo7-cwsDiWLZ68M");
-        map.put("ENROL_HTS_TST_MSW-03", "xTpuBPLezo7-JrMuAKI6YlN");
-        map.put("ENROL_HTS_TST_MSW-04", "xTpuBPLezo7-qyDLjwtfCNy");
-        map.put("ENROL_HTS_TST_PWID-08", "xTpuBPLezo7-ow8lNkkzEBr");
-        map.put("ENROL_HTS_TST_MSM-03", "xTpuBPLezo7-O1bh1C2P1E8");
-        map.put("ENROL_HTS_TST_PWID-02", "xTpuBPLezo7-D1Pib2THuTj");
-        map.put("ENROL_HTS_TST_PWID-03", "xTpuBPLezo7-nzh3CoCJGY8");
-        map.put("ENROL_HTS_TST_MSM-04", "xTpuBPLezo7-pB7iwg7m0n7");
-        map.put("ENROL_HTS_TST_TG_SW-02", "xTpuBPLezo7-FAKFHbbYrby");
-        map.put("ENROL_HTS_TST_unknown", "xTpuBPLezo7-nJevmP4V2K0");
-        map.put("ENROL_HTS_TST_MSW-01", "xTpuBPLezo7-SsB5mmWsigU");
-        map.put("ENROL_HTS_TST_MSM-02", "xTpuBPLezo7-EuibuYaLJpe");
-        map.put("ENROL_HTS_TST_POS_PWID-04", "cakCs9wAFh1-OeyhGmHtEKP");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-nJevmP4V2K0");
-        map.put("ENROL_HTS_TST_POS_PWID-01", "cakCs9wAFh1-cwsDiWLZ68M");
-        map.put("ENROL_HTS_TST_POS_PWID-02", "cakCs9wAFh1-D1Pib2THuTj");
-        map.put("ENROL_HTS_TST_POS_FSW-02", "cakCs9wAFh1-LkV9MIzKs8R");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-NjZP8M1crEZ");
-        map.put("ENROL_HTS_TST_POS_TG_SW-02", "cakCs9wAFh1-FAKFHbbYrby");
-        map.put("ENROL_HTS_TST_POS_MSM-04", "cakCs9wAFh1-pB7iwg7m0n7");
-        map.put("ENROL_HTS_TST_POS_TG_NOT_SW-03", "cakCs9wAFh1-t48Hbcn9Ych");
-        map.put("ENROL_HTS_TST_POS_MSM-03", "cakCs9wAFh1-O1bh1C2P1E8");
-        map.put("ENROL_HTS_TST_POS_FSW-04", "cakCs9wAFh1-rx6RuqMmJYh");
-        map.put("ENROL_HTS_TST_POS_MSW-01", "cakCs9wAFh1-SsB5mmWsigU");
-        map.put("ENROL_HTS_TST_POS_MSW-04", "cakCs9wAFh1-qyDLjwtfCNy");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-KWKBKX5TOZn");
-        map.put("ENROL_HTS_TST_POS_TG_SW-03", "cakCs9wAFh1-l0L6BfZ0L56");
-        map.put("ENROL_HTS_TST_POS_TG_SW-04", "cakCs9wAFh1-hAs4V5N4bJW");
-        map.put("ENROL_HTS_TST_POS_PWID-08", "cakCs9wAFh1-ow8lNkkzEBr");
-        map.put("ENROL_HTS_TST_POS_TG_SW-01", "cakCs9wAFh1-RQIIGrbMcFp");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-xpXBknJgiGa");
-        map.put("ENROL_HTS_TST_POS_PWID-05", "cakCs9wAFh1-u2wSZLv6s7m");
-        map.put("ENROL_HTS_TST_POS_PWID-03", "cakCs9wAFh1-nzh3CoCJGY8");
-        map.put("ENROL_HTS_TST_POS_FSW-03", "cakCs9wAFh1-KmdEfKbuS5M");
-        map.put("ENROL_HTS_TST_POS_FSW-01", "cakCs9wAFh1-IYgcWYnFZn0");
-        map.put("ENROL_HTS_TST_POS_MSW-03", "cakCs9wAFh1-JrMuAKI6YlN");
-        map.put("ENROL_HTS_TST_POS_TG_NOT_SW-04", "cakCs9wAFh1-CDcn8cYAj0A");
-        map.put("ENROL_HTS_TST_POS_MSM-02", "cakCs9wAFh1-EuibuYaLJpe");
-        map.put("ENROL_HTS_TST_POS_MSW-02", "cakCs9wAFh1-G1GYY8G4GGU");
-        map.put("ENROL_HTS_TST_POS_TG_NOT_SW-01", "cakCs9wAFh1-XWsizEtBiKC");
-        map.put("ENROL_HTS_TST_POS_PWID-06", "cakCs9wAFh1-SmTngpAmqW3");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-hTS4AwHXmy4");
-        map.put("ENROL_HTS_TST_POS_PWID-07", "cakCs9wAFh1-lQrQJYcTquG");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-Ik8JJyPcQ2K");
-        map.put("ENROL_HTS_TST_POS_TG_NOT_SW-02", "cakCs9wAFh1-GrhWQaCDCQ4");
-        map.put("ENROL_HTS_TST_POS_MSM-01", "cakCs9wAFh1-TejGomIjzWu");
-        map.put("ENROL_HTS_TST_POS_unknown", "cakCs9wAFh1-PAXPnr3E0bq");
-        map.put("ENROL_KNOWN_POSITIVE_FSW-03", "pbIycq1Q1aR-KmdEfKbuS5M");
-        map.put("ENROL_KNOWN_POSITIVE_MSM-04", "pbIycq1Q1aR-pB7iwg7m0n7");
-        map.put("ENROL_KNOWN_POSITIVE_TG_NOT_SW-03", "pbIycq1Q1aR-t48Hbcn9Ych");
-        map.put("ENROL_KNOWN_POSITIVE_TG_SW-02", "pbIycq1Q1aR-FAKFHbbYrby");
-        map.put("ENROL_KNOWN_POSITIVE_TG_SW-03", "pbIycq1Q1aR-l0L6BfZ0L56");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-PAXPnr3E0bq");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-02", "pbIycq1Q1aR-D1Pib2THuTj");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-04", "pbIycq1Q1aR-OeyhGmHtEKP");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-KWKBKX5TOZn");
-        map.put("ENROL_KNOWN_POSITIVE_MSW-02", "pbIycq1Q1aR-G1GYY8G4GGU");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-NjZP8M1crEZ");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-xpXBknJgiGa");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-03", "pbIycq1Q1aR-nzh3CoCJGY8");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-08", "pbIycq1Q1aR-ow8lNkkzEBr");
-        map.put("ENROL_KNOWN_POSITIVE_TG_NOT_SW-01", "pbIycq1Q1aR-XWsizEtBiKC");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-05", "pbIycq1Q1aR-u2wSZLv6s7m");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-01", "pbIycq1Q1aR-cwsDiWLZ68M");
-        map.put("ENROL_KNOWN_POSITIVE_MSW-03", "pbIycq1Q1aR-JrMuAKI6YlN");
-        map.put("ENROL_KNOWN_POSITIVE_MSW-01", "pbIycq1Q1aR-SsB5mmWsigU");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-hTS4AwHXmy4");
-        map.put("ENROL_KNOWN_POSITIVE_TG_NOT_SW-04", "pbIycq1Q1aR-CDcn8cYAj0A");
-        map.put("ENROL_KNOWN_POSITIVE_FSW-04", "pbIycq1Q1aR-rx6RuqMmJYh");
-        map.put("ENROL_KNOWN_POSITIVE_MSM-02", "pbIycq1Q1aR-EuibuYaLJpe");
-        map.put("ENROL_KNOWN_POSITIVE_TG_SW-04", "pbIycq1Q1aR-hAs4V5N4bJW");
-        map.put("ENROL_KNOWN_POSITIVE_MSM-03", "pbIycq1Q1aR-O1bh1C2P1E8");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-07", "pbIycq1Q1aR-lQrQJYcTquG");
-        map.put("ENROL_KNOWN_POSITIVE_PWID-06", "pbIycq1Q1aR-SmTngpAmqW3");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-nJevmP4V2K0");
-        map.put("ENROL_KNOWN_POSITIVE_FSW-02", "pbIycq1Q1aR-LkV9MIzKs8R");
-        map.put("ENROL_KNOWN_POSITIVE_MSW-04", "pbIycq1Q1aR-qyDLjwtfCNy");
-        map.put("ENROL_KNOWN_POSITIVE_TG_SW-01", "pbIycq1Q1aR-RQIIGrbMcFp");
-        map.put("ENROL_KNOWN_POSITIVE_MSM-01", "pbIycq1Q1aR-TejGomIjzWu");
-        map.put("ENROL_KNOWN_POSITIVE_unknown", "pbIycq1Q1aR-Ik8JJyPcQ2K");
-        map.put("ENROL_KNOWN_POSITIVE_TG_NOT_SW-02", "pbIycq1Q1aR-GrhWQaCDCQ4");
-        map.put("ENROL_KNOWN_POSITIVE_FSW-01", "pbIycq1Q1aR-IYgcWYnFZn0");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-PAXPnr3E0bq");
-        map.put("ENROL_NEW_PWID-01", "VhJ7miYpzzZ-cwsDiWLZ68M");
-        map.put("ENROL_NEW_TG_SW-04", "VhJ7miYpzzZ-hAs4V5N4bJW");
-        map.put("ENROL_NEW_PWID-06", "VhJ7miYpzzZ-SmTngpAmqW3");
-        map.put("ENROL_NEW_MSM-01", "VhJ7miYpzzZ-TejGomIjzWu");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-xpXBknJgiGa");
-        map.put("ENROL_NEW_PWID-04", "VhJ7miYpzzZ-OeyhGmHtEKP");
-        map.put("ENROL_NEW_MSM-03", "VhJ7miYpzzZ-O1bh1C2P1E8");
-        map.put("ENROL_NEW_PWID-02", "VhJ7miYpzzZ-D1Pib2THuTj");
-        map.put("ENROL_NEW_MSW-04", "VhJ7miYpzzZ-qyDLjwtfCNy");
-        map.put("ENROL_NEW_PWID-03", "VhJ7miYpzzZ-nzh3CoCJGY8");
-        map.put("ENROL_NEW_TG_NOT_SW-01", "VhJ7miYpzzZ-XWsizEtBiKC");
-        map.put("ENROL_NEW_MSW-03", "VhJ7miYpzzZ-JrMuAKI6YlN");
-        map.put("ENROL_NEW_FSW-01", "VhJ7miYpzzZ-IYgcWYnFZn0");
-        map.put("ENROL_NEW_FSW-04", "VhJ7miYpzzZ-rx6RuqMmJYh");
-        map.put("ENROL_NEW_TG_NOT_SW-02", "VhJ7miYpzzZ-GrhWQaCDCQ4");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-nJevmP4V2K0");
-        map.put("ENROL_NEW_TG_SW-03", "VhJ7miYpzzZ-l0L6BfZ0L56");
-        map.put("ENROL_NEW_PWID-08", "VhJ7miYpzzZ-ow8lNkkzEBr");
-        map.put("ENROL_NEW_MSM-04", "VhJ7miYpzzZ-pB7iwg7m0n7");
-        map.put("ENROL_NEW_FSW-03", "VhJ7miYpzzZ-KmdEfKbuS5M");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-Ik8JJyPcQ2K");
-        map.put("ENROL_NEW_TG_NOT_SW-03", "VhJ7miYpzzZ-t48Hbcn9Ych");
-        map.put("ENROL_NEW_FSW-02", "VhJ7miYpzzZ-LkV9MIzKs8R");
-        map.put("ENROL_NEW_PWID-07", "VhJ7miYpzzZ-lQrQJYcTquG");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-hTS4AwHXmy4");
-        map.put("ENROL_NEW_TG_SW-01", "VhJ7miYpzzZ-RQIIGrbMcFp");
-        map.put("ENROL_NEW_MSW-01", "VhJ7miYpzzZ-SsB5mmWsigU");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-NjZP8M1crEZ");
-        map.put("ENROL_NEW_PWID-05", "VhJ7miYpzzZ-u2wSZLv6s7m");
-        map.put("ENROL_NEW_TG_NOT_SW-04", "VhJ7miYpzzZ-CDcn8cYAj0A");
-        map.put("ENROL_NEW_MSM-02", "VhJ7miYpzzZ-EuibuYaLJpe");
-        map.put("ENROL_NEW_TG_SW-02", "VhJ7miYpzzZ-FAKFHbbYrby");
-        map.put("ENROL_NEW_MSW-02", "VhJ7miYpzzZ-G1GYY8G4GGU");
-        map.put("ENROL_NEW_unknown", "VhJ7miYpzzZ-KWKBKX5TOZn");
-        map.put("FLEXI_TIME_FSW-03", "SJRTf1PxVHk-KmdEfKbuS5M");
-        map.put("FLEXI_TIME_MSM-02", "SJRTf1PxVHk-EuibuYaLJpe");
-        map.put("FLEXI_TIME_MSW-03", "SJRTf1PxVHk-JrMuAKI6YlN");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-Ik8JJyPcQ2K");
-        map.put("FLEXI_TIME_TG_NOT_SW-02", "SJRTf1PxVHk-GrhWQaCDCQ4");
-        map.put("FLEXI_TIME_MSW-02", "SJRTf1PxVHk-G1GYY8G4GGU");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-PAXPnr3E0bq");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-hTS4AwHXmy4");
-        map.put("FLEXI_TIME_MSW-04", "SJRTf1PxVHk-qyDLjwtfCNy");
-        map.put("FLEXI_TIME_PWID-08", "SJRTf1PxVHk-ow8lNkkzEBr");
-        map.put("FLEXI_TIME_TG_SW-01", "SJRTf1PxVHk-RQIIGrbMcFp");
-        map.put("FLEXI_TIME_MSM-01", "SJRTf1PxVHk-TejGomIjzWu");
-        map.put("FLEXI_TIME_TG_NOT_SW-03", "SJRTf1PxVHk-t48Hbcn9Ych");
-        map.put("FLEXI_TIME_PWID-05", "SJRTf1PxVHk-u2wSZLv6s7m");
-        map.put("FLEXI_TIME_PWID-06", "SJRTf1PxVHk-SmTngpAmqW3");
-        map.put("FLEXI_TIME_PWID-07", "SJRTf1PxVHk-lQrQJYcTquG");
-        map.put("FLEXI_TIME_TG_SW-03", "SJRTf1PxVHk-l0L6BfZ0L56");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-nJevmP4V2K0");
-        map.put("FLEXI_TIME_TG_SW-04", "SJRTf1PxVHk-hAs4V5N4bJW");
-        map.put("FLEXI_TIME_TG_NOT_SW-04", "SJRTf1PxVHk-CDcn8cYAj0A");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-NjZP8M1crEZ");
-        map.put("FLEXI_TIME_FSW-01", "SJRTf1PxVHk-IYgcWYnFZn0");
-        map.put("FLEXI_TIME_PWID-03", "SJRTf1PxVHk-nzh3CoCJGY8");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-KWKBKX5TOZn");
-        map.put("FLEXI_TIME_unknown", "SJRTf1PxVHk-xpXBknJgiGa");
-        map.put("FLEXI_TIME_FSW-04", "SJRTf1PxVHk-rx6RuqMmJYh");
-        map.put("FLEXI_TIME_MSM-04", "SJRTf1PxVHk-pB7iwg7m0n7");
-        map.put("FLEXI_TIME_PWID-01", "SJRTf1PxVHk-cwsDiWLZ68M");
-        map.put("FLEXI_TIME_PWID-04", "SJRTf1PxVHk-OeyhGmHtEKP");
-        map.put("FLEXI_TIME_TG_SW-02", "SJRTf1PxVHk-FAKFHbbYrby");
-        map.put("FLEXI_TIME_TG_NOT_SW-01", "SJRTf1PxVHk-XWsizEtBiKC");
-        map.put("FLEXI_TIME_FSW-02", "SJRTf1PxVHk-LkV9MIzKs8R");
-        map.put("FLEXI_TIME_PWID-02", "SJRTf1PxVHk-D1Pib2THuTj");
-        map.put("FLEXI_TIME_MSW-01", "SJRTf1PxVHk-SsB5mmWsigU");
-        map.put("FLEXI_TIME_MSM-03", "SJRTf1PxVHk-O1bh1C2P1E8");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-PAXPnr3E0bq");
-        map.put("GBV_CLINICAL_MSW-02", "ZgJZbVBlRTP-G1GYY8G4GGU");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-hTS4AwHXmy4");
-        map.put("GBV_CLINICAL_TG_SW-02", "ZgJZbVBlRTP-FAKFHbbYrby");
-        map.put("GBV_CLINICAL_PWID-08", "ZgJZbVBlRTP-ow8lNkkzEBr");
-        map.put("GBV_CLINICAL_TG_SW-01", "ZgJZbVBlRTP-RQIIGrbMcFp");
-        map.put("GBV_CLINICAL_MSM-02", "ZgJZbVBlRTP-EuibuYaLJpe");
-        map.put("GBV_CLINICAL_PWID-01", "ZgJZbVBlRTP-cwsDiWLZ68M");
-        map.put("GBV_CLINICAL_PWID-07", "ZgJZbVBlRTP-lQrQJYcTquG");
-        map.put("GBV_CLINICAL_TG_NOT_SW-04", "ZgJZbVBlRTP-CDcn8cYAj0A");
-        map.put("GBV_CLINICAL_TG_NOT_SW-01", "ZgJZbVBlRTP-XWsizEtBiKC");
-        map.put("GBV_CLINICAL_FSW-03", "ZgJZbVBlRTP-KmdEfKbuS5M");
-        map.put("GBV_CLINICAL_FSW-01", "ZgJZbVBlRTP-IYgcWYnFZn0");
-        map.put("GBV_CLINICAL_FSW-04", "ZgJZbVBlRTP-rx6RuqMmJYh");
-        map.put("GBV_CLINICAL_PWID-06", "ZgJZbVBlRTP-SmTngpAmqW3");
-        map.put("GBV_CLINICAL_MSM-01", "ZgJZbVBlRTP-TejGomIjzWu");
-        map.put("GBV_CLINICAL_PWID-02", "ZgJZbVBlRTP-D1Pib2THuTj");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-xpXBknJgiGa");
-        map.put("GBV_CLINICAL_TG_NOT_SW-03", "ZgJZbVBlRTP-t48Hbcn9Ych");
-        map.put("GBV_CLINICAL_TG_NOT_SW-02", "ZgJZbVBlRTP-GrhWQaCDCQ4");
-        map.put("GBV_CLINICAL_PWID-05", "ZgJZbVBlRTP-u2wSZLv6s7m");
-        map.put("GBV_CLINICAL_MSM-04", "ZgJZbVBlRTP-pB7iwg7m0n7");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-NjZP8M1crEZ");
-        map.put("GBV_CLINICAL_PWID-03", "ZgJZbVBlRTP-nzh3CoCJGY8");
-        map.put("GBV_CLINICAL_MSW-01", "ZgJZbVBlRTP-SsB5mmWsigU");
-        map.put("GBV_CLINICAL_FSW-02", "ZgJZbVBlRTP-LkV9MIzKs8R");
-        map.put("GBV_CLINICAL_MSM-03", "ZgJZbVBlRTP-O1bh1C2P1E8");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-nJevmP4V2K0");
-        map.put("GBV_CLINICAL_MSW-04", "ZgJZbVBlRTP-qyDLjwtfCNy");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-KWKBKX5TOZn");
-        map.put("GBV_CLINICAL_MSW-03", "ZgJZbVBlRTP-JrMuAKI6YlN");
-        map.put("GBV_CLINICAL_unknown", "ZgJZbVBlRTP-Ik8JJyPcQ2K");
-        map.put("GBV_CLINICAL_PWID-04", "ZgJZbVBlRTP-OeyhGmHtEKP");
-        map.put("GBV_CLINICAL_TG_SW-03", "ZgJZbVBlRTP-l0L6BfZ0L56");
-        map.put("GBV_CLINICAL_TG_SW-04", "ZgJZbVBlRTP-hAs4V5N4bJW");
-        map.put("GBV_LEGAL_SUPPORT_TG_NOT_SW-04", "vY1Uy4cUKiG-CDcn8cYAj0A");
-        map.put("GBV_LEGAL_SUPPORT_TG_NOT_SW-01", "vY1Uy4cUKiG-XWsizEtBiKC");
-        map.put("GBV_LEGAL_SUPPORT_PWID-08", "vY1Uy4cUKiG-ow8lNkkzEBr");
-        map.put("GBV_LEGAL_SUPPORT_PWID-01", "vY1Uy4cUKiG-cwsDiWLZ68M");
-        map.put("GBV_LEGAL_SUPPORT_MSW-03", "vY1Uy4cUKiG-JrMuAKI6YlN");
-        map.put("GBV_LEGAL_SUPPORT_MSW-02", "vY1Uy4cUKiG-G1GYY8G4GGU");
-        map.put("GBV_LEGAL_SUPPORT_PWID-02", "vY1Uy4cUKiG-D1Pib2THuTj");
-        map.put("GBV_LEGAL_SUPPORT_TG_SW-03", "vY1Uy4cUKiG-l0L6BfZ0L56");
-        map.put("GBV_LEGAL_SUPPORT_MSM-01", "vY1Uy4cUKiG-TejGomIjzWu");
-        map.put("GBV_LEGAL_SUPPORT_TG_SW-02", "vY1Uy4cUKiG-FAKFHbbYrby");
-        map.put("GBV_LEGAL_SUPPORT_FSW-03", "vY1Uy4cUKiG-KmdEfKbuS5M");
-        map.put("GBV_LEGAL_SUPPORT_PWID-06", "vY1Uy4cUKiG-SmTngpAmqW3");
-        map.put("GBV_LEGAL_SUPPORT_MSM-04", "vY1Uy4cUKiG-pB7iwg7m0n7");
-        map.put("GBV_LEGAL_SUPPORT_PWID-03", "vY1Uy4cUKiG-nzh3CoCJGY8");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-xpXBknJgiGa");
-        map.put("GBV_LEGAL_SUPPORT_MSM-02", "vY1Uy4cUKiG-EuibuYaLJpe");
-        map.put("GBV_LEGAL_SUPPORT_PWID-07", "vY1Uy4cUKiG-lQrQJYcTquG");
-        map.put("GBV_LEGAL_SUPPORT_PWID-04", "vY1Uy4cUKiG-OeyhGmHtEKP");
-        map.put("GBV_LEGAL_SUPPORT_PWID-05", "vY1Uy4cUKiG-u2wSZLv6s7m");
-        map.put("GBV_LEGAL_SUPPORT_MSW-04", "vY1Uy4cUKiG-qyDLjwtfCNy");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-NjZP8M1crEZ");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-KWKBKX5TOZn");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-nJevmP4V2K0");
-        map.put("GBV_LEGAL_SUPPORT_FSW-02", "vY1Uy4cUKiG-LkV9MIzKs8R");
-        map.put("GBV_LEGAL_SUPPORT_MSM-03", "vY1Uy4cUKiG-O1bh1C2P1E8");
-        map.put("GBV_LEGAL_SUPPORT_TG_SW-04", "vY1Uy4cUKiG-hAs4V5N4bJW");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-hTS4AwHXmy4");
-        map.put("GBV_LEGAL_SUPPORT_MSW-01", "vY1Uy4cUKiG-SsB5mmWsigU");
-        map.put("GBV_LEGAL_SUPPORT_TG_NOT_SW-02", "vY1Uy4cUKiG-GrhWQaCDCQ4");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-Ik8JJyPcQ2K");
-        map.put("GBV_LEGAL_SUPPORT_TG_SW-01", "vY1Uy4cUKiG-RQIIGrbMcFp");
-        map.put("GBV_LEGAL_SUPPORT_FSW-04", "vY1Uy4cUKiG-rx6RuqMmJYh");
-        map.put("GBV_LEGAL_SUPPORT_TG_NOT_SW-03", "vY1Uy4cUKiG-t48Hbcn9Ych");
-        map.put("GBV_LEGAL_SUPPORT_FSW-01", "vY1Uy4cUKiG-IYgcWYnFZn0");
-        map.put("GBV_LEGAL_SUPPORT_unknown", "vY1Uy4cUKiG-PAXPnr3E0bq");
-        map.put("GBV_POS_MSM-02", "J8GBNrQbDs7-EuibuYaLJpe");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-KWKBKX5TOZn");
-        map.put("GBV_POS_FSW-04", "J8GBNrQbDs7-rx6RuqMmJYh");
-        map.put("GBV_POS_TG_SW-04", "J8GBNrQbDs7-hAs4V5N4bJW");
-        map.put("GBV_POS_MSM-03", "J8GBNrQbDs7-O1bh1C2P1E8");
-        map.put("GBV_POS_PWID-05", "J8GBNrQbDs7-u2wSZLv6s7m");
-        map.put("GBV_POS_PWID-04", "J8GBNrQbDs7-OeyhGmHtEKP");
-        map.put("GBV_POS_FSW-01", "J8GBNrQbDs7-IYgcWYnFZn0");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-hTS4AwHXmy4");
-        map.put("GBV_POS_TG_SW-01", "J8GBNrQbDs7-RQIIGrbMcFp");
-        map.put("GBV_POS_MSW-04", "J8GBNrQbDs7-qyDLjwtfCNy");
-        map.put("GBV_POS_FSW-03", "J8GBNrQbDs7-KmdEfKbuS5M");
-        map.put("GBV_POS_TG_SW-03", "J8GBNrQbDs7-l0L6BfZ0L56");
-        map.put("GBV_POS_PWID-06", "J8GBNrQbDs7-SmTngpAmqW3");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-NjZP8M1crEZ");
-        map.put("GBV_POS_MSM-01", "J8GBNrQbDs7-TejGomIjzWu");
-        map.put("GBV_POS_TG_NOT_SW-02", "J8GBNrQbDs7-GrhWQaCDCQ4");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-PAXPnr3E0bq");
-        map.put("GBV_POS_MSW-03", "J8GBNrQbDs7-JrMuAKI6YlN");
-        map.put("GBV_POS_FSW-02", "J8GBNrQbDs7-LkV9MIzKs8R");
-        map.put("GBV_POS_PWID-03", "J8GBNrQbDs7-nzh3CoCJGY8");
-        map.put("GBV_POS_PWID-01", "J8GBNrQbDs7-cwsDiWLZ68M");
-        map.put("GBV_POS_PWID-07", "J8GBNrQbDs7-lQrQJYcTquG");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-Ik8JJyPcQ2K");
-        map.put("GBV_POS_TG_NOT_SW-04", "J8GBNrQbDs7-CDcn8cYAj0A");
-        map.put("GBV_POS_PWID-08", "J8GBNrQbDs7-ow8lNkkzEBr");
-        map.put("GBV_POS_TG_NOT_SW-03", "J8GBNrQbDs7-t48Hbcn9Ych");
-        map.put("GBV_POS_MSW-01", "J8GBNrQbDs7-SsB5mmWsigU");
-        map.put("GBV_POS_MSW-02", "J8GBNrQbDs7-G1GYY8G4GGU");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-nJevmP4V2K0");
-        map.put("GBV_POS_TG_NOT_SW-01", "J8GBNrQbDs7-XWsizEtBiKC");
-        map.put("GBV_POS_PWID-02", "J8GBNrQbDs7-D1Pib2THuTj");
-        map.put("GBV_POS_unknown", "J8GBNrQbDs7-xpXBknJgiGa");
-        map.put("GBV_POS_TG_SW-02", "J8GBNrQbDs7-FAKFHbbYrby");
-        map.put("GBV_POS_MSM-04", "J8GBNrQbDs7-pB7iwg7m0n7");
-        map.put("GBV_SCREEN_TG_SW-04", "mrSyW3UFeWI-hAs4V5N4bJW");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-NjZP8M1crEZ");
-        map.put("GBV_SCREEN_FSW-03", "mrSyW3UFeWI-KmdEfKbuS5M");
-        map.put("GBV_SCREEN_PWID-01", "mrSyW3UFeWI-cwsDiWLZ68M");
-        map.put("GBV_SCREEN_TG_SW-03", "mrSyW3UFeWI-l0L6BfZ0L56");
-        map.put("GBV_SCREEN_PWID-07", "mrSyW3UFeWI-lQrQJYcTquG");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-hTS4AwHXmy4");
-        map.put("GBV_SCREEN_MSM-02", "mrSyW3UFeWI-EuibuYaLJpe");
-        map.put("GBV_SCREEN_MSW-03", "mrSyW3UFeWI-JrMuAKI6YlN");
-        map.put("GBV_SCREEN_MSW-02", "mrSyW3UFeWI-G1GYY8G4GGU");
-        map.put("GBV_SCREEN_TG_NOT_SW-01", "mrSyW3UFeWI-XWsizEtBiKC");
-        map.put("GBV_SCREEN_PWID-08", "mrSyW3UFeWI-ow8lNkkzEBr");
-        map.put("GBV_SCREEN_PWID-05", "mrSyW3UFeWI-u2wSZLv6s7m");
-        map.put("GBV_SCREEN_PWID-02", "mrSyW3UFeWI-D1Pib2THuTj");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-KWKBKX5TOZn");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-xpXBknJgiGa");
-        map.put("GBV_SCREEN_PWID-03", "mrSyW3UFeWI-nzh3CoCJGY8");
-        map.put("GBV_SCREEN_MSM-03", "mrSyW3UFeWI-O1bh1C2P1E8");
-        map.put("GBV_SCREEN_TG_SW-02", "mrSyW3UFeWI-FAKFHbbYrby");
-        map.put("GBV_SCREEN_MSW-01", "mrSyW3UFeWI-SsB5mmWsigU");
-        map.put("GBV_SCREEN_MSM-04", "mrSyW3UFeWI-pB7iwg7m0n7");
-        map.put("GBV_SCREEN_PWID-04", "mrSyW3UFeWI-OeyhGmHtEKP");
-        map.put("GBV_SCREEN_TG_NOT_SW-04", "mrSyW3UFeWI-CDcn8cYAj0A");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-Ik8JJyPcQ2K");
-        map.put("GBV_SCREEN_FSW-02", "mrSyW3UFeWI-LkV9MIzKs8R");
-        map.put("GBV_SCREEN_PWID-06", "mrSyW3UFeWI-SmTngpAmqW3");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-nJevmP4V2K0");
-        map.put("GBV_SCREEN_TG_SW-01", "mrSyW3UFeWI-RQIIGrbMcFp");
-        map.put("GBV_SCREEN_TG_NOT_SW-02", "mrSyW3UFeWI-GrhWQaCDCQ4");
-        map.put("GBV_SCREEN_MSW-04", "mrSyW3UFeWI-qyDLjwtfCNy");
-        map.put("GBV_SCREEN_TG_NOT_SW-03", "mrSyW3UFeWI-t48Hbcn9Ych");
-        map.put("GBV_SCREEN_FSW-01", "mrSyW3UFeWI-IYgcWYnFZn0");
-        map.put("GBV_SCREEN_MSM-01", "mrSyW3UFeWI-TejGomIjzWu");
-        map.put("GBV_SCREEN_unknown", "mrSyW3UFeWI-PAXPnr3E0bq");
-        map.put("GBV_SCREEN_FSW-04", "mrSyW3UFeWI-rx6RuqMmJYh");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-PAXPnr3E0bq");
-        map.put("HTS_SELF_ASSISTED_PWID-06", "tePCfFFkby5-SmTngpAmqW3");
-        map.put("HTS_SELF_ASSISTED_PWID-01", "tePCfFFkby5-cwsDiWLZ68M");
-        map.put("HTS_SELF_ASSISTED_TG_NOT_SW-03", "tePCfFFkby5-t48Hbcn9Ych");
-        map.put("HTS_SELF_ASSISTED_TG_SW-02", "tePCfFFkby5-FAKFHbbYrby");
-        map.put("HTS_SELF_ASSISTED_TG_SW-01", "tePCfFFkby5-RQIIGrbMcFp");
-        map.put("HTS_SELF_ASSISTED_TG_NOT_SW-04", "tePCfFFkby5-CDcn8cYAj0A");
-        map.put("HTS_SELF_ASSISTED_MSW-04", "tePCfFFkby5-qyDLjwtfCNy");
-        map.put("HTS_SELF_ASSISTED_FSW-02", "tePCfFFkby5-LkV9MIzKs8R");
-        map.put("HTS_SELF_ASSISTED_MSM-02", "tePCfFFkby5-EuibuYaLJpe");
-        map.put("HTS_SELF_ASSISTED_FSW-04", "tePCfFFkby5-rx6RuqMmJYh");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-xpXBknJgiGa");
-        map.put("HTS_SELF_ASSISTED_MSM-01", "tePCfFFkby5-TejGomIjzWu");
-        map.put("HTS_SELF_ASSISTED_TG_NOT_SW-01", "tePCfFFkby5-XWsizEtBiKC");
-        map.put("HTS_SELF_ASSISTED_PWID-02", "tePCfFFkby5-D1Pib2THuTj");
-        map.put("HTS_SELF_ASSISTED_MSW-01", "tePCfFFkby5-SsB5mmWsigU");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-nJevmP4V2K0");
-        map.put("HTS_SELF_ASSISTED_MSM-04", "tePCfFFkby5-pB7iwg7m0n7");
-        map.put("HTS_SELF_ASSISTED_PWID-08", "tePCfFFkby5-ow8lNkkzEBr");
-        map.put("HTS_SELF_ASSISTED_FSW-01", "tePCfFFkby5-IYgcWYnFZn0");
-        map.put("HTS_SELF_ASSISTED_MSW-02", "tePCfFFkby5-G1GYY8G4GGU");
-        map.put("HTS_SELF_ASSISTED_FSW-03", "tePCfFFkby5-KmdEfKbuS5M");
-        map.put("HTS_SELF_ASSISTED_MSM-03", "tePCfFFkby5-O1bh1C2P1E8");
-        map.put("HTS_SELF_ASSISTED_TG_NOT_SW-02", "tePCfFFkby5-GrhWQaCDCQ4");
-        map.put("HTS_SELF_ASSISTED_PWID-03", "tePCfFFkby5-nzh3CoCJGY8");
-        map.put("HTS_SELF_ASSISTED_PWID-05", "tePCfFFkby5-u2wSZLv6s7m");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-hTS4AwHXmy4");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-KWKBKX5TOZn");
-        map.put("HTS_SELF_ASSISTED_PWID-07", "tePCfFFkby5-lQrQJYcTquG");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-Ik8JJyPcQ2K");
-        map.put("HTS_SELF_ASSISTED_PWID-04", "tePCfFFkby5-OeyhGmHtEKP");
-        map.put("HTS_SELF_ASSISTED_unknown", "tePCfFFkby5-NjZP8M1crEZ");
-        map.put("HTS_SELF_ASSISTED_TG_SW-03", "tePCfFFkby5-l0L6BfZ0L56");
-        map.put("HTS_SELF_ASSISTED_MSW-03", "tePCfFFkby5-JrMuAKI6YlN");
-        map.put("HTS_SELF_ASSISTED_TG_SW-04", "tePCfFFkby5-hAs4V5N4bJW");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-05", "oeX7WkboEik-u2wSZLv6s7m");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-01", "oeX7WkboEik-cwsDiWLZ68M");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSW-02", "oeX7WkboEik-G1GYY8G4GGU");
-        map.put("HTS_SELF_CONFIRMED_+VE_FSW-04", "oeX7WkboEik-rx6RuqMmJYh");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-PAXPnr3E0bq");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSW-04", "oeX7WkboEik-qyDLjwtfCNy");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSM-01", "oeX7WkboEik-TejGomIjzWu");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_NOT_SW-03", "oeX7WkboEik-t48Hbcn9Ych");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_NOT_SW-02", "oeX7WkboEik-GrhWQaCDCQ4");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_SW-01", "oeX7WkboEik-RQIIGrbMcFp");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-Ik8JJyPcQ2K");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-06", "oeX7WkboEik-SmTngpAmqW3");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-08", "oeX7WkboEik-ow8lNkkzEBr");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_SW-04", "oeX7WkboEik-hAs4V5N4bJW");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-xpXBknJgiGa");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-KWKBKX5TOZn");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_NOT_SW-04", "oeX7WkboEik-CDcn8cYAj0A");
-        map.put("HTS_SELF_CONFIRMED_+VE_FSW-03", "oeX7WkboEik-KmdEfKbuS5M");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_SW-03", "oeX7WkboEik-l0L6BfZ0L56");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-04", "oeX7WkboEik-OeyhGmHtEKP");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_NOT_SW-01", "oeX7WkboEik-XWsizEtBiKC");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSW-03", "oeX7WkboEik-JrMuAKI6YlN");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-07", "oeX7WkboEik-lQrQJYcTquG");
-        map.put("HTS_SELF_CONFIRMED_+VE_FSW-02", "oeX7WkboEik-LkV9MIzKs8R");
-        map.put("HTS_SELF_CONFIRMED_+VE_FSW-01", "oeX7WkboEik-IYgcWYnFZn0");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-hTS4AwHXmy4");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-02", "oeX7WkboEik-D1Pib2THuTj");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSM-03", "oeX7WkboEik-O1bh1C2P1E8");
-        map.put("HTS_SELF_CONFIRMED_+VE_PWID-03", "oeX7WkboEik-nzh3CoCJGY8");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-NjZP8M1crEZ");
-        map.put("HTS_SELF_CONFIRMED_+VE_TG_SW-02", "oeX7WkboEik-FAKFHbbYrby");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSM-04", "oeX7WkboEik-pB7iwg7m0n7");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSM-02", "oeX7WkboEik-EuibuYaLJpe");
-        map.put("HTS_SELF_CONFIRMED_+VE_unknown", "oeX7WkboEik-nJevmP4V2K0");
-        map.put("HTS_SELF_CONFIRMED_+VE_MSW-01", "oeX7WkboEik-SsB5mmWsigU");
-        map.put("HTS_SELF_UNASSISTED_PWID-04", "f9yUfz3UW7m-OeyhGmHtEKP");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-NjZP8M1crEZ");
-        map.put("HTS_SELF_UNASSISTED_PWID-02", "f9yUfz3UW7m-D1Pib2THuTj");
-        map.put("HTS_SELF_UNASSISTED_MSM-04", "f9yUfz3UW7m-pB7iwg7m0n7");
-        map.put("HTS_SELF_UNASSISTED_FSW-04", "f9yUfz3UW7m-rx6RuqMmJYh");
-        map.put("HTS_SELF_UNASSISTED_TG_NOT_SW-02", "f9yUfz3UW7m-GrhWQaCDCQ4");
-        map.put("HTS_SELF_UNASSISTED_TG_SW-02", "f9yUfz3UW7m-FAKFHbbYrby");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-Ik8JJyPcQ2K");
-        map.put("HTS_SELF_UNASSISTED_TG_SW-03", "f9yUfz3UW7m-l0L6BfZ0L56");
-        map.put("HTS_SELF_UNASSISTED_MSW-04", "f9yUfz3UW7m-qyDLjwtfCNy");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-hTS4AwHXmy4");
-        map.put("HTS_SELF_UNASSISTED_MSW-03", "f9yUfz3UW7m-JrMuAKI6YlN");
-        map.put("HTS_SELF_UNASSISTED_PWID-07", "f9yUfz3UW7m-lQrQJYcTquG");
-        map.put("HTS_SELF_UNASSISTED_PWID-01", "f9yUfz3UW7m-cwsDiWLZ68M");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-KWKBKX5TOZn");
-        map.put("HTS_SELF_UNASSISTED_PWID-05", "f9yUfz3UW7m-u2wSZLv6s7m");
-        map.put("HTS_SELF_UNASSISTED_PWID-08", "f9yUfz3UW7m-ow8lNkkzEBr");
-        map.put("HTS_SELF_UNASSISTED_MSW-02", "f9yUfz3UW7m-G1GYY8G4GGU");
-        map.put("HTS_SELF_UNASSISTED_PWID-03", "f9yUfz3UW7m-nzh3CoCJGY8");
-        map.put("HTS_SELF_UNASSISTED_FSW-01", "f9yUfz3UW7m-IYgcWYnFZn0");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-nJevmP4V2K0");
-        map.put("HTS_SELF_UNASSISTED_MSW-01", "f9yUfz3UW7m-SsB5mmWsigU");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-xpXBknJgiGa");
-        map.put("HTS_SELF_UNASSISTED_TG_SW-04", "f9yUfz3UW7m-hAs4V5N4bJW");
-        map.put("HTS_SELF_UNASSISTED_TG_NOT_SW-04", "f9yUfz3UW7m-CDcn8cYAj0A");
-        map.put("HTS_SELF_UNASSISTED_MSM-02", "f9yUfz3UW7m-EuibuYaLJpe");
-        map.put("HTS_SELF_UNASSISTED_TG_NOT_SW-03", "f9yUfz3UW7m-t48Hbcn9Ych");
-        map.put("HTS_SELF_UNASSISTED_TG_SW-01", "f9yUfz3UW7m-RQIIGrbMcFp");
-        map.put("HTS_SELF_UNASSISTED_PWID-06", "f9yUfz3UW7m-SmTngpAmqW3");
-        map.put("HTS_SELF_UNASSISTED_MSM-03", "f9yUfz3UW7m-O1bh1C2P1E8");
-        map.put("HTS_SELF_UNASSISTED_FSW-02", "f9yUfz3UW7m-LkV9MIzKs8R");
-        map.put("HTS_SELF_UNASSISTED_unknown", "f9yUfz3UW7m-PAXPnr3E0bq");
-        map.put("HTS_SELF_UNASSISTED_FSW-03", "f9yUfz3UW7m-KmdEfKbuS5M");
-        map.put("HTS_SELF_UNASSISTED_TG_NOT_SW-01", "f9yUfz3UW7m-XWsizEtBiKC");
-        map.put("HTS_SELF_UNASSISTED_MSM-01", "f9yUfz3UW7m-TejGomIjzWu");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-hTS4AwHXmy4");
-        map.put("HTS_TST_NEG_MSM-04", "K4NPVo3Ee1E-pB7iwg7m0n7");
-        map.put("HTS_TST_NEG_FSW-02", "K4NPVo3Ee1E-LkV9MIzKs8R");
-        map.put("HTS_TST_NEG_PWID-04", "K4NPVo3Ee1E-OeyhGmHtEKP");
-        map.put("HTS_TST_NEG_MSM-03", "K4NPVo3Ee1E-O1bh1C2P1E8");
-        map.put("HTS_TST_NEG_TG_SW-04", "K4NPVo3Ee1E-hAs4V5N4bJW");
-        map.put("HTS_TST_NEG_PWID-07", "K4NPVo3Ee1E-lQrQJYcTquG");
-        map.put("HTS_TST_NEG_MSW-02", "K4NPVo3Ee1E-G1GYY8G4GGU");
-        map.put("HTS_TST_NEG_TG_SW-01", "K4NPVo3Ee1E-RQIIGrbMcFp");
-        map.put("HTS_TST_NEG_TG_NOT_SW-03", "K4NPVo3Ee1E-t48Hbcn9Ych");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-nJevmP4V2K0");
-        map.put("HTS_TST_NEG_PWID-02", "K4NPVo3Ee1E-D1Pib2THuTj");
-        map.put("HTS_TST_NEG_MSW-01", "K4NPVo3Ee1E-SsB5mmWsigU");
-        map.put("HTS_TST_NEG_PWID-01", "K4NPVo3Ee1E-cwsDiWLZ68M");
-        map.put("HTS_TST_NEG_MSW-03", "K4NPVo3Ee1E-JrMuAKI6YlN");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-Ik8JJyPcQ2K");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-KWKBKX5TOZn");
-        map.put("HTS_TST_NEG_FSW-03", "K4NPVo3Ee1E-KmdEfKbuS5M");
-        map.put("HTS_TST_NEG_TG_SW-02", "K4NPVo3Ee1E-FAKFHbbYrby");
-        map.put("HTS_TST_NEG_PWID-08", "K4NPVo3Ee1E-ow8lNkkzEBr");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-NjZP8M1crEZ");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-xpXBknJgiGa");
-        map.put("HTS_TST_NEG_MSM-02", "K4NPVo3Ee1E-EuibuYaLJpe");
-        map.put("HTS_TST_NEG_PWID-03", "K4NPVo3Ee1E-nzh3CoCJGY8");
-        map.put("HTS_TST_NEG_TG_NOT_SW-01", "K4NPVo3Ee1E-XWsizEtBiKC");
-        map.put("HTS_TST_NEG_TG_NOT_SW-04", "K4NPVo3Ee1E-CDcn8cYAj0A");
-        map.put("HTS_TST_NEG_PWID-05", "K4NPVo3Ee1E-u2wSZLv6s7m");
-        map.put("HTS_TST_NEG_PWID-06", "K4NPVo3Ee1E-SmTngpAmqW3");
-        map.put("HTS_TST_NEG_unknown", "K4NPVo3Ee1E-PAXPnr3E0bq");
-        map.put("HTS_TST_NEG_MSM-01", "K4NPVo3Ee1E-TejGomIjzWu");
-        map.put("HTS_TST_NEG_TG_SW-03", "K4NPVo3Ee1E-l0L6BfZ0L56");
-        map.put("HTS_TST_NEG_FSW-04", "K4NPVo3Ee1E-rx6RuqMmJYh");
-        map.put("HTS_TST_NEG_MSW-04", "K4NPVo3Ee1E-qyDLjwtfCNy");
-        map.put("HTS_TST_NEG_FSW-01", "K4NPVo3Ee1E-IYgcWYnFZn0");
-        map.put("HTS_TST_NEG_TG_NOT_SW-02", "K4NPVo3Ee1E-GrhWQaCDCQ4");
-        map.put("CONTACT_ALL_PWID-07", "r8QR7Iqit3z-lQrQJYcTquG");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-hTS4AwHXmy4");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-KWKBKX5TOZn");
-        map.put("CONTACT_ALL_FSW-02", "r8QR7Iqit3z-LkV9MIzKs8R");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-Ik8JJyPcQ2K");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-PAXPnr3E0bq");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-nJevmP4V2K0");
-        map.put("CONTACT_ALL_FSW-03", "r8QR7Iqit3z-KmdEfKbuS5M");
-        map.put("CONTACT_ALL_MSM-03", "r8QR7Iqit3z-O1bh1C2P1E8");
-        map.put("CONTACT_ALL_TG_SW-04", "r8QR7Iqit3z-hAs4V5N4bJW");
-        map.put("CONTACT_ALL_TG_NOT_SW-01", "r8QR7Iqit3z-XWsizEtBiKC");
-        map.put("CONTACT_ALL_PWID-08", "r8QR7Iqit3z-ow8lNkkzEBr");
-        map.put("CONTACT_ALL_MSW-04", "r8QR7Iqit3z-qyDLjwtfCNy");
-        map.put("CONTACT_ALL_PWID-04", "r8QR7Iqit3z-OeyhGmHtEKP");
-        map.put("CONTACT_ALL_PWID-02", "r8QR7Iqit3z-D1Pib2THuTj");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-NjZP8M1crEZ");
-        map.put("CONTACT_ALL_MSW-02", "r8QR7Iqit3z-G1GYY8G4GGU");
-        map.put("CONTACT_ALL_unknown", "r8QR7Iqit3z-xpXBknJgiGa");
-        map.put("CONTACT_ALL_PWID-01", "r8QR7Iqit3z-cwsDiWLZ68M");
-        map.put("CONTACT_ALL_TG_SW-03", "r8QR7Iqit3z-l0L6BfZ0L56");
-        map.put("CONTACT_ALL_MSW-03", "r8QR7Iqit3z-JrMuAKI6YlN");
-        map.put("CONTACT_ALL_PWID-05", "r8QR7Iqit3z-u2wSZLv6s7m");
-        map.put("CONTACT_ALL_PWID-06", "r8QR7Iqit3z-SmTngpAmqW3");
-        map.put("CONTACT_ALL_MSM-02", "r8QR7Iqit3z-EuibuYaLJpe");
-        map.put("CONTACT_ALL_TG_NOT_SW-04", "r8QR7Iqit3z-CDcn8cYAj0A");
-        map.put("CONTACT_ALL_PWID-03", "r8QR7Iqit3z-nzh3CoCJGY8");
-        map.put("CONTACT_ALL_TG_SW-02", "r8QR7Iqit3z-FAKFHbbYrby");
-        map.put("CONTACT_ALL_TG_SW-01", "r8QR7Iqit3z-RQIIGrbMcFp");
-        map.put("CONTACT_ALL_TG_NOT_SW-02", "r8QR7Iqit3z-GrhWQaCDCQ4");
-        map.put("CONTACT_ALL_TG_NOT_SW-03", "r8QR7Iqit3z-t48Hbcn9Ych");
-        map.put("CONTACT_ALL_MSW-01", "r8QR7Iqit3z-SsB5mmWsigU");
-        map.put("CONTACT_ALL_FSW-01", "r8QR7Iqit3z-IYgcWYnFZn0");
-        map.put("CONTACT_ALL_FSW-04", "r8QR7Iqit3z-rx6RuqMmJYh");
-        map.put("CONTACT_ALL_MSM-04", "r8QR7Iqit3z-pB7iwg7m0n7");
-        map.put("CONTACT_ALL_MSM-01", "r8QR7Iqit3z-TejGomIjzWu");
-        map.put("CONTACT_HCW_MSW-02", "WnS2CYAnhhg-G1GYY8G4GGU");
-        map.put("CONTACT_HCW_TG_SW-03", "WnS2CYAnhhg-l0L6BfZ0L56");
-        map.put("CONTACT_HCW_PWID-06", "WnS2CYAnhhg-SmTngpAmqW3");
-        map.put("CONTACT_HCW_PWID-07", "WnS2CYAnhhg-lQrQJYcTquG");
-        map.put("CONTACT_HCW_PWID-01", "WnS2CYAnhhg-cwsDiWLZ68M");
-        map.put("CONTACT_HCW_MSM-03", "WnS2CYAnhhg-O1bh1C2P1E8");
-        map.put("CONTACT_HCW_TG_NOT_SW-01", "WnS2CYAnhhg-XWsizEtBiKC");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-KWKBKX5TOZn");
-        map.put("CONTACT_HCW_FSW-02", "WnS2CYAnhhg-LkV9MIzKs8R");
-        map.put("CONTACT_HCW_MSW-03", "WnS2CYAnhhg-JrMuAKI6YlN");
-        map.put("CONTACT_HCW_TG_SW-02", "WnS2CYAnhhg-FAKFHbbYrby");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-hTS4AwHXmy4");
-        map.put("CONTACT_HCW_MSM-01", "WnS2CYAnhhg-TejGomIjzWu");
-        map.put("CONTACT_HCW_FSW-04", "WnS2CYAnhhg-rx6RuqMmJYh");
-        map.put("CONTACT_HCW_FSW-03", "WnS2CYAnhhg-KmdEfKbuS5M");
-        map.put("CONTACT_HCW_PWID-05", "WnS2CYAnhhg-u2wSZLv6s7m");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-nJevmP4V2K0");
-        map.put("CONTACT_HCW_TG_SW-01", "WnS2CYAnhhg-RQIIGrbMcFp");
-        map.put("CONTACT_HCW_TG_NOT_SW-03", "WnS2CYAnhhg-t48Hbcn9Ych");
-        map.put("CONTACT_HCW_FSW-01", "WnS2CYAnhhg-IYgcWYnFZn0");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-PAXPnr3E0bq");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-Ik8JJyPcQ2K");
-        map.put("CONTACT_HCW_MSW-01", "WnS2CYAnhhg-SsB5mmWsigU");
-        map.put("CONTACT_HCW_MSM-04", "WnS2CYAnhhg-pB7iwg7m0n7");
-        map.put("CONTACT_HCW_PWID-02", "WnS2CYAnhhg-D1Pib2THuTj");
-        map.put("CONTACT_HCW_PWID-08", "WnS2CYAnhhg-ow8lNkkzEBr");
-        map.put("CONTACT_HCW_TG_NOT_SW-02", "WnS2CYAnhhg-GrhWQaCDCQ4");
-        map.put("CONTACT_HCW_MSW-04", "WnS2CYAnhhg-qyDLjwtfCNy");
-        map.put("CONTACT_HCW_TG_NOT_SW-04", "WnS2CYAnhhg-CDcn8cYAj0A");
-        map.put("CONTACT_HCW_PWID-03", "WnS2CYAnhhg-nzh3CoCJGY8");
-        map.put("CONTACT_HCW_PWID-04", "WnS2CYAnhhg-OeyhGmHtEKP");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-xpXBknJgiGa");
-        map.put("CONTACT_HCW_MSM-02", "WnS2CYAnhhg-EuibuYaLJpe");
-        map.put("CONTACT_HCW_unknown", "WnS2CYAnhhg-NjZP8M1crEZ");
-        map.put("CONTACT_HCW_TG_SW-04", "WnS2CYAnhhg-hAs4V5N4bJW");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-KWKBKX5TOZn");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-nJevmP4V2K0");
-        map.put("KP_CONTACT_NEW_FSW-01", "nFg8SCUal7w-IYgcWYnFZn0");
-        map.put("KP_CONTACT_NEW_MSW-04", "nFg8SCUal7w-qyDLjwtfCNy");
-        map.put("KP_CONTACT_NEW_MSM-02", "nFg8SCUal7w-EuibuYaLJpe");
-        map.put("KP_CONTACT_NEW_TG_SW-03", "nFg8SCUal7w-l0L6BfZ0L56");
-        map.put("KP_CONTACT_NEW_PWID-03", "nFg8SCUal7w-nzh3CoCJGY8");
-        map.put("KP_CONTACT_NEW_PWID-05", "nFg8SCUal7w-u2wSZLv6s7m");
-        map.put("KP_CONTACT_NEW_TG_SW-02", "nFg8SCUal7w-FAKFHbbYrby");
-        map.put("KP_CONTACT_NEW_MSM-01", "nFg8SCUal7w-TejGomIjzWu");
-        map.put("KP_CONTACT_NEW_MSW-01", "nFg8SCUal7w-SsB5mmWsigU");
-        map.put("KP_CONTACT_NEW_TG_NOT_SW-04", "nFg8SCUal7w-CDcn8cYAj0A");
-        map.put("KP_CONTACT_NEW_PWID-06", "nFg8SCUal7w-SmTngpAmqW3");
-        map.put("KP_CONTACT_NEW_FSW-02", "nFg8SCUal7w-LkV9MIzKs8R");
-        map.put("KP_CONTACT_NEW_MSW-02", "nFg8SCUal7w-G1GYY8G4GGU");
-        map.put("KP_CONTACT_NEW_FSW-03", "nFg8SCUal7w-KmdEfKbuS5M");
-        map.put("KP_CONTACT_NEW_FSW-04", "nFg8SCUal7w-rx6RuqMmJYh");
-        map.put("KP_CONTACT_NEW_TG_NOT_SW-01", "nFg8SCUal7w-XWsizEtBiKC");
-        map.put("KP_CONTACT_NEW_TG_NOT_SW-03", "nFg8SCUal7w-t48Hbcn9Ych");
-        map.put("KP_CONTACT_NEW_TG_SW-04", "nFg8SCUal7w-hAs4V5N4bJW");
-        map.put("KP_CONTACT_NEW_PWID-02", "nFg8SCUal7w-D1Pib2THuTj");
-        map.put("KP_CONTACT_NEW_MSM-04", "nFg8SCUal7w-pB7iwg7m0n7");
-        map.put("KP_CONTACT_NEW_MSM-03", "nFg8SCUal7w-O1bh1C2P1E8");
-        map.put("KP_CONTACT_NEW_TG_NOT_SW-02", "nFg8SCUal7w-GrhWQaCDCQ4");
-        map.put("KP_CONTACT_NEW_PWID-01", "nFg8SCUal7w-cwsDiWLZ68M");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-PAXPnr3E0bq");
-        map.put("KP_CONTACT_NEW_MSW-03", "nFg8SCUal7w-JrMuAKI6YlN");
-        map.put("KP_CONTACT_NEW_PWID-08", "nFg8SCUal7w-ow8lNkkzEBr");
-        map.put("KP_CONTACT_NEW_TG_SW-01", "nFg8SCUal7w-RQIIGrbMcFp");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-NjZP8M1crEZ");
-        map.put("KP_CONTACT_NEW_PWID-07", "nFg8SCUal7w-lQrQJYcTquG");
-        map.put("KP_CONTACT_NEW_PWID-04", "nFg8SCUal7w-OeyhGmHtEKP");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-hTS4AwHXmy4");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-Ik8JJyPcQ2K");
-        map.put("KP_CONTACT_NEW_unknown", "nFg8SCUal7w-xpXBknJgiGa");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-nJevmP4V2K0");
-        map.put("KP_CURR_PWID-05", "IfZnCTNMiec-u2wSZLv6s7m");
-        map.put("KP_CURR_MSM-01", "IfZnCTNMiec-TejGomIjzWu");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-Ik8JJyPcQ2K");
-        map.put("KP_CURR_TG_NOT_SW-01", "IfZnCTNMiec-XWsizEtBiKC");
-        map.put("KP_CURR_TG_SW-04", "IfZnCTNMiec-hAs4V5N4bJW");
-        map.put("KP_CURR_MSM-03", "IfZnCTNMiec-O1bh1C2P1E8");
-        map.put("KP_CURR_TG_NOT_SW-02", "IfZnCTNMiec-GrhWQaCDCQ4");
-        map.put("KP_CURR_FSW-01", "IfZnCTNMiec-IYgcWYnFZn0");
-        map.put("KP_CURR_PWID-02", "IfZnCTNMiec-D1Pib2THuTj");
-        map.put("KP_CURR_MSW-01", "IfZnCTNMiec-SsB5mmWsigU");
-        map.put("KP_CURR_PWID-03", "IfZnCTNMiec-nzh3CoCJGY8");
-        map.put("KP_CURR_TG_SW-01", "IfZnCTNMiec-RQIIGrbMcFp");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-hTS4AwHXmy4");
-        map.put("KP_CURR_MSM-02", "IfZnCTNMiec-EuibuYaLJpe");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-PAXPnr3E0bq");
-        map.put("KP_CURR_PWID-08", "IfZnCTNMiec-ow8lNkkzEBr");
-        map.put("KP_CURR_TG_SW-03", "IfZnCTNMiec-l0L6BfZ0L56");
-        map.put("KP_CURR_PWID-07", "IfZnCTNMiec-lQrQJYcTquG");
-        map.put("KP_CURR_PWID-04", "IfZnCTNMiec-OeyhGmHtEKP");
-        map.put("KP_CURR_PWID-06", "IfZnCTNMiec-SmTngpAmqW3");
-        map.put("KP_CURR_MSW-03", "IfZnCTNMiec-JrMuAKI6YlN");
-        map.put("KP_CURR_TG_NOT_SW-04", "IfZnCTNMiec-CDcn8cYAj0A");
-        map.put("KP_CURR_PWID-01", "IfZnCTNMiec-cwsDiWLZ68M");
-        map.put("KP_CURR_MSW-04", "IfZnCTNMiec-qyDLjwtfCNy");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-xpXBknJgiGa");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-KWKBKX5TOZn");
-        map.put("KP_CURR_unknown", "IfZnCTNMiec-NjZP8M1crEZ");
-        map.put("KP_CURR_MSW-02", "IfZnCTNMiec-G1GYY8G4GGU");
-        map.put("KP_CURR_TG_SW-02", "IfZnCTNMiec-FAKFHbbYrby");
-        map.put("KP_CURR_MSM-04", "IfZnCTNMiec-pB7iwg7m0n7");
-        map.put("KP_CURR_FSW-03", "IfZnCTNMiec-KmdEfKbuS5M");
-        map.put("KP_CURR_TG_NOT_SW-03", "IfZnCTNMiec-t48Hbcn9Ych");
-        map.put("KP_CURR_FSW-04", "IfZnCTNMiec-rx6RuqMmJYh");
-        map.put("KP_CURR_FSW-02", "IfZnCTNMiec-LkV9MIzKs8R");
-        map.put("KP_EVER_ENROLLED_TG_SW-01", "azaGW41sWgz-RQIIGrbMcFp");
-        map.put("KP_EVER_ENROLLED_PWID-07", "azaGW41sWgz-lQrQJYcTquG");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-PAXPnr3E0bq");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-hTS4AwHXmy4");
-        map.put("KP_EVER_ENROLLED_TG_NOT_SW-01", "azaGW41sWgz-XWsizEtBiKC");
-        map.put("KP_EVER_ENROLLED_TG_SW-02", "azaGW41sWgz-FAKFHbbYrby");
-        map.put("KP_EVER_ENROLLED_PWID-02", "azaGW41sWgz-D1Pib2THuTj");
-        map.put("KP_EVER_ENROLLED_MSW-01", "azaGW41sWgz-SsB5mmWsigU");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-Ik8JJyPcQ2K");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-nJevmP4V2K0");
-        map.put("KP_EVER_ENROLLED_MSW-03", "azaGW41sWgz-JrMuAKI6YlN");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-KWKBKX5TOZn");
-        map.put("KP_EVER_ENROLLED_MSM-02", "azaGW41sWgz-EuibuYaLJpe");
-        map.put("KP_EVER_ENROLLED_PWID-08", "azaGW41sWgz-ow8lNkkzEBr");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-NjZP8M1crEZ");
-        map.put("KP_EVER_ENROLLED_PWID-03", "azaGW41sWgz-nzh3CoCJGY8");
-        map.put("KP_EVER_ENROLLED_unknown", "azaGW41sWgz-xpXBknJgiGa");
-        map.put("KP_EVER_ENROLLED_PWID-01", "azaGW41sWgz-cwsDiWLZ68M");
-        map.put("KP_EVER_ENROLLED_MSW-02", "azaGW41sWgz-G1GYY8G4GGU");
-        map.put("KP_EVER_ENROLLED_TG_NOT_SW-04", "azaGW41sWgz-CDcn8cYAj0A");
-        map.put("KP_EVER_ENROLLED_TG_SW-04", "azaGW41sWgz-hAs4V5N4bJW");
-        map.put("KP_EVER_ENROLLED_TG_SW-03", "azaGW41sWgz-l0L6BfZ0L56");
-        map.put("KP_EVER_ENROLLED_TG_NOT_SW-02", "azaGW41sWgz-GrhWQaCDCQ4");
-        map.put("KP_EVER_ENROLLED_PWID-04", "azaGW41sWgz-OeyhGmHtEKP");
-        map.put("KP_EVER_ENROLLED_PWID-06", "azaGW41sWgz-SmTngpAmqW3");
-        map.put("KP_EVER_ENROLLED_PWID-05", "azaGW41sWgz-u2wSZLv6s7m");
-        map.put("KP_EVER_ENROLLED_FSW-01", "azaGW41sWgz-IYgcWYnFZn0");
-        map.put("KP_EVER_ENROLLED_MSW-04", "azaGW41sWgz-qyDLjwtfCNy");
-        map.put("KP_EVER_ENROLLED_FSW-04", "azaGW41sWgz-rx6RuqMmJYh");
-        map.put("KP_EVER_ENROLLED_FSW-02", "azaGW41sWgz-LkV9MIzKs8R");
-        map.put("KP_EVER_ENROLLED_MSM-01", "azaGW41sWgz-TejGomIjzWu");
-        map.put("KP_EVER_ENROLLED_MSM-04", "azaGW41sWgz-pB7iwg7m0n7");
-        map.put("KP_EVER_ENROLLED_TG_NOT_SW-03", "azaGW41sWgz-t48Hbcn9Ych");
-        map.put("KP_EVER_ENROLLED_MSM-03", "azaGW41sWgz-O1bh1C2P1E8");
-        map.put("KP_EVER_ENROLLED_FSW-03", "azaGW41sWgz-KmdEfKbuS5M");
-        map.put("KP_NET_ENROLLED_TG_NOT_SW-04", "n35ZQZJ9qYj-CDcn8cYAj0A");
-        map.put("KP_NET_ENROLLED_FSW-03", "n35ZQZJ9qYj-KmdEfKbuS5M");
-        map.put("KP_NET_ENROLLED_PWID-07", "n35ZQZJ9qYj-lQrQJYcTquG");
-        map.put("KP_NET_ENROLLED_PWID-04", "n35ZQZJ9qYj-OeyhGmHtEKP");
-        map.put("KP_NET_ENROLLED_TG_SW-01", "n35ZQZJ9qYj-RQIIGrbMcFp");
-        map.put("KP_NET_ENROLLED_PWID-02", "n35ZQZJ9qYj-D1Pib2THuTj");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-Ik8JJyPcQ2K");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-hTS4AwHXmy4");
-        map.put("KP_NET_ENROLLED_MSW-01", "n35ZQZJ9qYj-SsB5mmWsigU");
-        map.put("KP_NET_ENROLLED_MSM-04", "n35ZQZJ9qYj-pB7iwg7m0n7");
-        map.put("KP_NET_ENROLLED_MSM-03", "n35ZQZJ9qYj-O1bh1C2P1E8");
-        map.put("KP_NET_ENROLLED_TG_NOT_SW-03", "n35ZQZJ9qYj-t48Hbcn9Ych");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-PAXPnr3E0bq");
-        map.put("KP_NET_ENROLLED_FSW-01", "n35ZQZJ9qYj-IYgcWYnFZn0");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-nJevmP4V2K0");
-        map.put("KP_NET_ENROLLED_TG_SW-02", "n35ZQZJ9qYj-FAKFHbbYrby");
-        map.put("KP_NET_ENROLLED_MSM-01", "n35ZQZJ9qYj-TejGomIjzWu");
-        map.put("KP_NET_ENROLLED_MSM-02", "n35ZQZJ9qYj-EuibuYaLJpe");
-        map.put("KP_NET_ENROLLED_MSW-04", "n35ZQZJ9qYj-qyDLjwtfCNy");
-        map.put("KP_NET_ENROLLED_MSW-03", "n35ZQZJ9qYj-JrMuAKI6YlN");
-        map.put("KP_NET_ENROLLED_FSW-02", "n35ZQZJ9qYj-LkV9MIzKs8R");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-xpXBknJgiGa");
-        map.put("KP_NET_ENROLLED_TG_NOT_SW-02", "n35ZQZJ9qYj-GrhWQaCDCQ4");
-        map.put("KP_NET_ENROLLED_TG_SW-04", "n35ZQZJ9qYj-hAs4V5N4bJW");
-        map.put("KP_NET_ENROLLED_TG_SW-03", "n35ZQZJ9qYj-l0L6BfZ0L56");
-        map.put("KP_NET_ENROLLED_TG_NOT_SW-01", "n35ZQZJ9qYj-XWsizEtBiKC");
-        map.put("KP_NET_ENROLLED_FSW-04", "n35ZQZJ9qYj-rx6RuqMmJYh");
-        map.put("KP_NET_ENROLLED_PWID-03", "n35ZQZJ9qYj-nzh3CoCJGY8");
-        map.put("KP_NET_ENROLLED_PWID-08", "n35ZQZJ9qYj-ow8lNkkzEBr");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-KWKBKX5TOZn");
-        map.put("KP_NET_ENROLLED_PWID-01", "n35ZQZJ9qYj-cwsDiWLZ68M");
-        map.put("KP_NET_ENROLLED_unknown", "n35ZQZJ9qYj-NjZP8M1crEZ");
-        map.put("KP_NET_ENROLLED_MSW-02", "n35ZQZJ9qYj-G1GYY8G4GGU");
-        map.put("KP_NET_ENROLLED_PWID-05", "n35ZQZJ9qYj-u2wSZLv6s7m");
-        map.put("KP_NET_ENROLLED_PWID-06", "n35ZQZJ9qYj-SmTngpAmqW3");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-Ik8JJyPcQ2K");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-KWKBKX5TOZn");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-xpXBknJgiGa");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-nJevmP4V2K0");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-NjZP8M1crEZ");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-hTS4AwHXmy4");
-        map.put("KP_PE_RATIO_unknown", "Zv3KHEVIiSt-PAXPnr3E0bq");
-        map.put("KP_PE_RATIO_FSW-01", "Zv3KHEVIiSt-IYgcWYnFZn0");
-        map.put("KP_PREV_MSM-03", "omVwKvpcthH-O1bh1C2P1E8");
-        map.put("KP_PREV_MSW-04", "omVwKvpcthH-qyDLjwtfCNy");
-        map.put("KP_PREV_FSW-01", "omVwKvpcthH-IYgcWYnFZn0");
-        map.put("KP_PREV_TG_SW-04", "omVwKvpcthH-hAs4V5N4bJW");
-        map.put("KP_PREV_PWID-07", "omVwKvpcthH-lQrQJYcTquG");
-        map.put("KP_PREV_MSM-02", "omVwKvpcthH-EuibuYaLJpe");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-KWKBKX5TOZn");
-        map.put("KP_PREV_PWID-05", "omVwKvpcthH-u2wSZLv6s7m");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-Ik8JJyPcQ2K");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-NjZP8M1crEZ");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-nJevmP4V2K0");
-        map.put("KP_PREV_MSM-04", "omVwKvpcthH-pB7iwg7m0n7");
-        map.put("KP_PREV_MSW-01", "omVwKvpcthH-SsB5mmWsigU");
-        map.put("KP_PREV_PWID-04", "omVwKvpcthH-OeyhGmHtEKP");
-        map.put("KP_PREV_TG_NOT_SW-03", "omVwKvpcthH-t48Hbcn9Ych");
-        map.put("KP_PREV_PWID-02", "omVwKvpcthH-D1Pib2THuTj");
-        map.put("KP_PREV_TG_SW-03", "omVwKvpcthH-l0L6BfZ0L56");
-        map.put("KP_PREV_TG_NOT_SW-04", "omVwKvpcthH-CDcn8cYAj0A");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-xpXBknJgiGa");
-        map.put("KP_PREV_TG_SW-02", "omVwKvpcthH-FAKFHbbYrby");
-        map.put("KP_PREV_MSW-02", "omVwKvpcthH-G1GYY8G4GGU");
-        map.put("KP_PREV_PWID-01", "omVwKvpcthH-cwsDiWLZ68M");
-        map.put("KP_PREV_PWID-03", "omVwKvpcthH-nzh3CoCJGY8");
-        map.put("KP_PREV_MSW-03", "omVwKvpcthH-JrMuAKI6YlN");
-        map.put("KP_PREV_PWID-06", "omVwKvpcthH-SmTngpAmqW3");
-        map.put("KP_PREV_TG_SW-01", "omVwKvpcthH-RQIIGrbMcFp");
-        map.put("KP_PREV_PWID-08", "omVwKvpcthH-ow8lNkkzEBr");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-hTS4AwHXmy4");
-        map.put("KP_PREV_FSW-04", "omVwKvpcthH-rx6RuqMmJYh");
-        map.put("KP_PREV_FSW-02", "omVwKvpcthH-LkV9MIzKs8R");
-        map.put("KP_PREV_unknown", "omVwKvpcthH-PAXPnr3E0bq");
-        map.put("KP_PREV_FSW-03", "omVwKvpcthH-KmdEfKbuS5M");
-        map.put("KP_PREV_MSM-01", "omVwKvpcthH-TejGomIjzWu");
-        map.put("KP_PREV_TG_NOT_SW-01", "omVwKvpcthH-XWsizEtBiKC");
-        map.put("KP_PREV_TG_NOT_SW-02", "omVwKvpcthH-GrhWQaCDCQ4");
-        map.put("KP_PREV_TARGET_MSW-02", "SzRfzk6mC54-G1GYY8G4GGU");
-        map.put("KP_PREV_TARGET_PWID-02", "SzRfzk6mC54-D1Pib2THuTj");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-Ik8JJyPcQ2K");
-        map.put("KP_PREV_TARGET_PWID-07", "SzRfzk6mC54-lQrQJYcTquG");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-KWKBKX5TOZn");
-        map.put("KP_PREV_TARGET_PWID-05", "SzRfzk6mC54-u2wSZLv6s7m");
-        map.put("KP_PREV_TARGET_PWID-08", "SzRfzk6mC54-ow8lNkkzEBr");
-        map.put("KP_PREV_TARGET_MSM-01", "SzRfzk6mC54-TejGomIjzWu");
-        map.put("KP_PREV_TARGET_MSW-04", "SzRfzk6mC54-qyDLjwtfCNy");
-        map.put("KP_PREV_TARGET_TG_SW-02", "SzRfzk6mC54-FAKFHbbYrby");
-        map.put("KP_PREV_TARGET_MSM-03", "SzRfzk6mC54-O1bh1C2P1E8");
-        map.put("KP_PREV_TARGET_PWID-04", "SzRfzk6mC54-OeyhGmHtEKP");
-        map.put("KP_PREV_TARGET_TG_NOT_SW-02", "SzRfzk6mC54-GrhWQaCDCQ4");
-        map.put("KP_PREV_TARGET_PWID-06", "SzRfzk6mC54-SmTngpAmqW3");
-        map.put("KP_PREV_TARGET_TG_NOT_SW-03", "SzRfzk6mC54-t48Hbcn9Ych");
-        map.put("KP_PREV_TARGET_PWID-01", "SzRfzk6mC54-cwsDiWLZ68M");
-        map.put("KP_PREV_TARGET_PWID-03", "SzRfzk6mC54-nzh3CoCJGY8");
-        map.put("KP_PREV_TARGET_FSW-02", "SzRfzk6mC54-LkV9MIzKs8R");
-        map.put("KP_PREV_TARGET_TG_NOT_SW-04", "SzRfzk6mC54-CDcn8cYAj0A");
-        map.put("KP_PREV_TARGET_FSW-04", "SzRfzk6mC54-rx6RuqMmJYh");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-xpXBknJgiGa");
-        map.put("KP_PREV_TARGET_MSW-03", "SzRfzk6mC54-JrMuAKI6YlN");
-        map.put("KP_PREV_TARGET_TG_SW-03", "SzRfzk6mC54-l0L6BfZ0L56");
-        map.put("KP_PREV_TARGET_FSW-01", "SzRfzk6mC54-IYgcWYnFZn0");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-hTS4AwHXmy4");
-        map.put("KP_PREV_TARGET_FSW-03", "SzRfzk6mC54-KmdEfKbuS5M");
-        map.put("KP_PREV_TARGET_TG_SW-04", "SzRfzk6mC54-hAs4V5N4bJW");
-        map.put("KP_PREV_TARGET_TG_SW-01", "SzRfzk6mC54-RQIIGrbMcFp");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-PAXPnr3E0bq");
-        map.put("KP_PREV_TARGET_TG_NOT_SW-01", "SzRfzk6mC54-XWsizEtBiKC");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-NjZP8M1crEZ");
-        map.put("KP_PREV_TARGET_MSM-02", "SzRfzk6mC54-EuibuYaLJpe");
-        map.put("KP_PREV_TARGET_MSM-04", "SzRfzk6mC54-pB7iwg7m0n7");
-        map.put("KP_PREV_TARGET_unknown", "SzRfzk6mC54-nJevmP4V2K0");
-        map.put("KP_PREV_TARGET_MSW-01", "SzRfzk6mC54-SsB5mmWsigU");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_NOT_SW-04", "g3SlC62oOrH-CDcn8cYAj0A");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_NOT_SW-01", "g3SlC62oOrH-XWsizEtBiKC");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_SW-02", "g3SlC62oOrH-FAKFHbbYrby");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_SW-01", "g3SlC62oOrH-RQIIGrbMcFp");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSW-03", "g3SlC62oOrH-JrMuAKI6YlN");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-hTS4AwHXmy4");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-07", "g3SlC62oOrH-lQrQJYcTquG");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSM-02", "g3SlC62oOrH-EuibuYaLJpe");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-05", "g3SlC62oOrH-u2wSZLv6s7m");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-PAXPnr3E0bq");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_NOT_SW-02", "g3SlC62oOrH-GrhWQaCDCQ4");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-06", "g3SlC62oOrH-SmTngpAmqW3");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-Ik8JJyPcQ2K");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_SW-04", "g3SlC62oOrH-hAs4V5N4bJW");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-nJevmP4V2K0");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-NjZP8M1crEZ");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-03", "g3SlC62oOrH-nzh3CoCJGY8");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSW-02", "g3SlC62oOrH-G1GYY8G4GGU");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_NOT_SW-03", "g3SlC62oOrH-t48Hbcn9Ych");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSW-04", "g3SlC62oOrH-qyDLjwtfCNy");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_FSW-01", "g3SlC62oOrH-IYgcWYnFZn0");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSM-04", "g3SlC62oOrH-pB7iwg7m0n7");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-04", "g3SlC62oOrH-OeyhGmHtEKP");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-KWKBKX5TOZn");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_unknown", "g3SlC62oOrH-xpXBknJgiGa");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_TG_SW-03", "g3SlC62oOrH-l0L6BfZ0L56");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-08", "g3SlC62oOrH-ow8lNkkzEBr");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-01", "g3SlC62oOrH-cwsDiWLZ68M");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_FSW-04", "g3SlC62oOrH-rx6RuqMmJYh");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_PWID-02", "g3SlC62oOrH-D1Pib2THuTj");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSW-01", "g3SlC62oOrH-SsB5mmWsigU");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSM-01", "g3SlC62oOrH-TejGomIjzWu");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_FSW-03", "g3SlC62oOrH-KmdEfKbuS5M");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_FSW-02", "g3SlC62oOrH-LkV9MIzKs8R");
-        map.put("KP_SIZE_ESTIMATE_HOTSPOT_MSM-03", "g3SlC62oOrH-O1bh1C2P1E8");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSM-03", "FfYj5xhiH1H-O1bh1C2P1E8");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-xpXBknJgiGa");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-07", "FfYj5xhiH1H-lQrQJYcTquG");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSW-03", "FfYj5xhiH1H-JrMuAKI6YlN");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-KWKBKX5TOZn");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSW-04", "FfYj5xhiH1H-qyDLjwtfCNy");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-05", "FfYj5xhiH1H-u2wSZLv6s7m");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-04", "FfYj5xhiH1H-OeyhGmHtEKP");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_SW-02", "FfYj5xhiH1H-FAKFHbbYrby");
-        map.put("KP_SIZE_ESTIMATE_SNU_FSW-02", "FfYj5xhiH1H-LkV9MIzKs8R");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-hTS4AwHXmy4");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-06", "FfYj5xhiH1H-SmTngpAmqW3");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-Ik8JJyPcQ2K");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-PAXPnr3E0bq");
-        map.put("KP_SIZE_ESTIMATE_SNU_FSW-03", "FfYj5xhiH1H-KmdEfKbuS5M");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_SW-04", "FfYj5xhiH1H-hAs4V5N4bJW");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-NjZP8M1crEZ");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSW-02", "FfYj5xhiH1H-G1GYY8G4GGU");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_NOT_SW-03", "FfYj5xhiH1H-t48Hbcn9Ych");
-        map.put("KP_SIZE_ESTIMATE_SNU_FSW-04", "FfYj5xhiH1H-rx6RuqMmJYh");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_SW-03", "FfYj5xhiH1H-l0L6BfZ0L56");
-        map.put("KP_SIZE_ESTIMATE_SNU_FSW-01", "FfYj5xhiH1H-IYgcWYnFZn0");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-01", "FfYj5xhiH1H-cwsDiWLZ68M");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_NOT_SW-01", "FfYj5xhiH1H-XWsizEtBiKC");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_NOT_SW-02", "FfYj5xhiH1H-GrhWQaCDCQ4");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSM-01", "FfYj5xhiH1H-TejGomIjzWu");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_NOT_SW-04", "FfYj5xhiH1H-CDcn8cYAj0A");
-        map.put("KP_SIZE_ESTIMATE_SNU_TG_SW-01", "FfYj5xhiH1H-RQIIGrbMcFp");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-03", "FfYj5xhiH1H-nzh3CoCJGY8");
-        map.put("KP_SIZE_ESTIMATE_SNU_unknown", "FfYj5xhiH1H-nJevmP4V2K0");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSW-01", "FfYj5xhiH1H-SsB5mmWsigU");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-08", "FfYj5xhiH1H-ow8lNkkzEBr");
-        map.put("KP_SIZE_ESTIMATE_SNU_PWID-02", "FfYj5xhiH1H-D1Pib2THuTj");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSM-04", "FfYj5xhiH1H-pB7iwg7m0n7");
-        map.put("KP_SIZE_ESTIMATE_SNU_MSM-02", "FfYj5xhiH1H-EuibuYaLJpe");
-        map.put("KPLHIV_CURR_PWID-05", "U8ah8a3Up1f-u2wSZLv6s7m");
-        map.put("KPLHIV_CURR_TG_SW-04", "U8ah8a3Up1f-hAs4V5N4bJW");
-        map.put("KPLHIV_CURR_TG_SW-01", "U8ah8a3Up1f-RQIIGrbMcFp");
-        map.put("KPLHIV_CURR_TG_SW-03", "U8ah8a3Up1f-l0L6BfZ0L56");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-NjZP8M1crEZ");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-hTS4AwHXmy4");
-        map.put("KPLHIV_CURR_MSM-02", "U8ah8a3Up1f-EuibuYaLJpe");
-        map.put("KPLHIV_CURR_PWID-07", "U8ah8a3Up1f-lQrQJYcTquG");
-        map.put("KPLHIV_CURR_MSM-01", "U8ah8a3Up1f-TejGomIjzWu");
-        map.put("KPLHIV_CURR_MSM-04", "U8ah8a3Up1f-pB7iwg7m0n7");
-        map.put("KPLHIV_CURR_PWID-01", "U8ah8a3Up1f-cwsDiWLZ68M");
-        map.put("KPLHIV_CURR_MSW-02", "U8ah8a3Up1f-G1GYY8G4GGU");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-KWKBKX5TOZn");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-xpXBknJgiGa");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-nJevmP4V2K0");
-        map.put("KPLHIV_CURR_MSM-03", "U8ah8a3Up1f-O1bh1C2P1E8");
-        map.put("KPLHIV_CURR_PWID-04", "U8ah8a3Up1f-OeyhGmHtEKP");
-        map.put("KPLHIV_CURR_PWID-06", "U8ah8a3Up1f-SmTngpAmqW3");
-        map.put("KPLHIV_CURR_FSW-03", "U8ah8a3Up1f-KmdEfKbuS5M");
-        map.put("KPLHIV_CURR_FSW-02", "U8ah8a3Up1f-LkV9MIzKs8R");
-        map.put("KPLHIV_CURR_PWID-08", "U8ah8a3Up1f-ow8lNkkzEBr");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-Ik8JJyPcQ2K");
-        map.put("KPLHIV_CURR_PWID-03", "U8ah8a3Up1f-nzh3CoCJGY8");
-        map.put("KPLHIV_CURR_TG_SW-02", "U8ah8a3Up1f-FAKFHbbYrby");
-        map.put("KPLHIV_CURR_MSW-01", "U8ah8a3Up1f-SsB5mmWsigU");
-        map.put("KPLHIV_CURR_PWID-02", "U8ah8a3Up1f-D1Pib2THuTj");
-        map.put("KPLHIV_CURR_TG_NOT_SW-01", "U8ah8a3Up1f-XWsizEtBiKC");
-        map.put("KPLHIV_CURR_TG_NOT_SW-04", "U8ah8a3Up1f-CDcn8cYAj0A");
-        map.put("KPLHIV_CURR_FSW-01", "U8ah8a3Up1f-IYgcWYnFZn0");
-        map.put("KPLHIV_CURR_TG_NOT_SW-03", "U8ah8a3Up1f-t48Hbcn9Ych");
-        map.put("KPLHIV_CURR_MSW-03", "U8ah8a3Up1f-JrMuAKI6YlN");
-        map.put("KPLHIV_CURR_TG_NOT_SW-02", "U8ah8a3Up1f-GrhWQaCDCQ4");
-        map.put("KPLHIV_CURR_MSW-04", "U8ah8a3Up1f-qyDLjwtfCNy");
-        map.put("KPLHIV_CURR_FSW-04", "U8ah8a3Up1f-rx6RuqMmJYh");
-        map.put("KPLHIV_CURR_unknown", "U8ah8a3Up1f-PAXPnr3E0bq");
-        map.put("MAT_CURR_unknown", "M86WnmGkkTY-aAekeHTYSyJ");
-        map.put("MAT_CURR_PWID-01", "M86WnmGkkTY-QoY3lQvheKn");
-        map.put("MAT_CURR_PWID-08", "M86WnmGkkTY-I8B65pW9aeW");
-        map.put("MAT_CURR_unknown", "M86WnmGkkTY-C0a1Ts538fi");
-        map.put("MAT_CURR_PWID-02", "M86WnmGkkTY-Eo4s5dWcHsV");
-        map.put("MAT_CURR_PWID-03", "M86WnmGkkTY-mn5LOjejHwc");
-        map.put("MAT_CURR_PWID-07", "M86WnmGkkTY-frJioAo54fr");
-        map.put("MAT_CURR_PWID-05", "M86WnmGkkTY-oqVNy1x3Mca");
-        map.put("MAT_CURR_PWID-04", "M86WnmGkkTY-K4cywFJ1dsK");
-        map.put("MAT_CURR_PWID-06", "M86WnmGkkTY-RyN3Ky2qPN6");
-        map.put("MAT_ELIGIBLE_PWID-02", "ZWy98jTxv9T-Eo4s5dWcHsV");
-        map.put("MAT_ELIGIBLE_unknown", "ZWy98jTxv9T-C0a1Ts538fi");
-        map.put("MAT_ELIGIBLE_unknown", "ZWy98jTxv9T-aAekeHTYSyJ");
-        map.put("MAT_ELIGIBLE_PWID-01", "ZWy98jTxv9T-QoY3lQvheKn");
-        map.put("MAT_ELIGIBLE_PWID-07", "ZWy98jTxv9T-frJioAo54fr");
-        map.put("MAT_ELIGIBLE_PWID-04", "ZWy98jTxv9T-K4cywFJ1dsK");
-        map.put("MAT_ELIGIBLE_PWID-08", "ZWy98jTxv9T-I8B65pW9aeW");
-        map.put("MAT_ELIGIBLE_PWID-06", "ZWy98jTxv9T-RyN3Ky2qPN6");
-        map.put("MAT_ELIGIBLE_PWID-03", "ZWy98jTxv9T-mn5LOjejHwc");
-        map.put("MAT_ELIGIBLE_PWID-05", "ZWy98jTxv9T-oqVNy1x3Mca");
-        map.put("MAT_EVER_PWID-01", "dOToLFjClQ2-QoY3lQvheKn");
-        map.put("MAT_EVER_PWID-08", "dOToLFjClQ2-I8B65pW9aeW");
-        map.put("MAT_EVER_PWID-04", "dOToLFjClQ2-K4cywFJ1dsK");
-        map.put("MAT_EVER_PWID-06", "dOToLFjClQ2-RyN3Ky2qPN6");
-        map.put("MAT_EVER_unknown", "dOToLFjClQ2-C0a1Ts538fi");
-        map.put("MAT_EVER_PWID-02", "dOToLFjClQ2-Eo4s5dWcHsV");
-        map.put("MAT_EVER_PWID-05", "dOToLFjClQ2-oqVNy1x3Mca");
-        map.put("MAT_EVER_PWID-07", "dOToLFjClQ2-frJioAo54fr");
-        map.put("MAT_EVER_unknown", "dOToLFjClQ2-aAekeHTYSyJ");
-        map.put("MAT_EVER_PWID-03", "dOToLFjClQ2-mn5LOjejHwc");
-        map.put("MAT_NEW_PWID-04", "WTKXbwoYI2V-K4cywFJ1dsK");
-        map.put("MAT_NEW_PWID-08", "WTKXbwoYI2V-I8B65pW9aeW");
-        map.put("MAT_NEW_PWID-07", "WTKXbwoYI2V-frJioAo54fr");
-        map.put("MAT_NEW_unknown", "WTKXbwoYI2V-C0a1Ts538fi");
-        map.put("MAT_NEW_PWID-02", "WTKXbwoYI2V-Eo4s5dWcHsV");
-        map.put("MAT_NEW_PWID-06", "WTKXbwoYI2V-RyN3Ky2qPN6");
-        map.put("MAT_NEW_PWID-01", "WTKXbwoYI2V-QoY3lQvheKn");
-        map.put("MAT_NEW_unknown", "WTKXbwoYI2V-aAekeHTYSyJ");
-        map.put("MAT_NEW_PWID-03", "WTKXbwoYI2V-mn5LOjejHwc");
-        map.put("MAT_NEW_PWID-05", "WTKXbwoYI2V-oqVNy1x3Mca");
-        map.put("MAT_PREPARED_PWID-06", "eqNfxHqhimL-RyN3Ky2qPN6");
-        map.put("MAT_PREPARED_unknown", "eqNfxHqhimL-C0a1Ts538fi");
-        map.put("MAT_PREPARED_unknown", "eqNfxHqhimL-aAekeHTYSyJ");
-        map.put("MAT_PREPARED_PWID-02", "eqNfxHqhimL-Eo4s5dWcHsV");
-        map.put("MAT_PREPARED_PWID-03", "eqNfxHqhimL-mn5LOjejHwc");
-        map.put("MAT_PREPARED_PWID-01", "eqNfxHqhimL-QoY3lQvheKn");
-        map.put("MAT_PREPARED_PWID-08", "eqNfxHqhimL-I8B65pW9aeW");
-        map.put("MAT_PREPARED_PWID-07", "eqNfxHqhimL-frJioAo54fr");
-        map.put("MAT_PREPARED_PWID-05", "eqNfxHqhimL-oqVNy1x3Mca");
-        map.put("MAT_PREPARED_PWID-04", "eqNfxHqhimL-K4cywFJ1dsK");
-        map.put("MAT_REINDUCTED_PWID-04", "NEY5YmSbfTX-K4cywFJ1dsK");
-        map.put("MAT_REINDUCTED_PWID-05", "NEY5YmSbfTX-oqVNy1x3Mca");
-        map.put("MAT_REINDUCTED_PWID-01", "NEY5YmSbfTX-QoY3lQvheKn");
-        map.put("MAT_REINDUCTED_PWID-03", "NEY5YmSbfTX-mn5LOjejHwc");
-        map.put("MAT_REINDUCTED_PWID-06", "NEY5YmSbfTX-RyN3Ky2qPN6");
-        map.put("MAT_REINDUCTED_PWID-02", "NEY5YmSbfTX-Eo4s5dWcHsV");
-        map.put("MAT_REINDUCTED_unknown", "NEY5YmSbfTX-aAekeHTYSyJ");
-        map.put("MAT_REINDUCTED_PWID-08", "NEY5YmSbfTX-I8B65pW9aeW");
-        map.put("MAT_REINDUCTED_unknown", "NEY5YmSbfTX-C0a1Ts538fi");
-        map.put("MAT_REINDUCTED_PWID-07", "NEY5YmSbfTX-frJioAo54fr");
-        map.put("MMD_TG_NOT_SW-02", "xCjs0ES6xwx-GrhWQaCDCQ4");
-        map.put("MMD_unknown", "xCjs0ES6xwx-Ik8JJyPcQ2K");
-        map.put("MMD_unknown", "xCjs0ES6xwx-NjZP8M1crEZ");
-        map.put("MMD_unknown", "xCjs0ES6xwx-PAXPnr3E0bq");
-        map.put("MMD_TG_NOT_SW-01", "xCjs0ES6xwx-XWsizEtBiKC");
-        map.put("MMD_TG_NOT_SW-04", "xCjs0ES6xwx-CDcn8cYAj0A");
-        map.put("MMD_unknown", "xCjs0ES6xwx-xpXBknJgiGa");
-        map.put("MMD_MSM-04", "xCjs0ES6xwx-pB7iwg7m0n7");
-        map.put("MMD_PWID-06", "xCjs0ES6xwx-SmTngpAmqW3");
-        map.put("MMD_MSW-02", "xCjs0ES6xwx-G1GYY8G4GGU");
-        map.put("MMD_PWID-08", "xCjs0ES6xwx-ow8lNkkzEBr");
-        map.put("MMD_PWID-01", "xCjs0ES6xwx-cwsDiWLZ68M");
-        map.put("MMD_MSM-02", "xCjs0ES6xwx-EuibuYaLJpe");
-        map.put("MMD_unknown", "xCjs0ES6xwx-KWKBKX5TOZn");
-        map.put("MMD_TG_SW-04", "xCjs0ES6xwx-hAs4V5N4bJW");
-        map.put("MMD_FSW-02", "xCjs0ES6xwx-LkV9MIzKs8R");
-        map.put("MMD_PWID-03", "xCjs0ES6xwx-nzh3CoCJGY8");
-        map.put("MMD_MSW-04", "xCjs0ES6xwx-qyDLjwtfCNy");
-        map.put("MMD_MSW-03", "xCjs0ES6xwx-JrMuAKI6YlN");
-        map.put("MMD_unknown", "xCjs0ES6xwx-hTS4AwHXmy4");
-        map.put("MMD_PWID-07", "xCjs0ES6xwx-lQrQJYcTquG");
-        map.put("MMD_PWID-05", "xCjs0ES6xwx-u2wSZLv6s7m");
-        map.put("MMD_TG_SW-03", "xCjs0ES6xwx-l0L6BfZ0L56");
-        map.put("MMD_PWID-02", "xCjs0ES6xwx-D1Pib2THuTj");
-        map.put("MMD_TG_SW-01", "xCjs0ES6xwx-RQIIGrbMcFp");
-        map.put("MMD_MSW-01", "xCjs0ES6xwx-SsB5mmWsigU");
-        map.put("MMD_unknown", "xCjs0ES6xwx-nJevmP4V2K0");
-        map.put("MMD_PWID-04", "xCjs0ES6xwx-OeyhGmHtEKP");
-        map.put("MMD_FSW-03", "xCjs0ES6xwx-KmdEfKbuS5M");
-        map.put("MMD_TG_NOT_SW-03", "xCjs0ES6xwx-t48Hbcn9Ych");
-        map.put("MMD_TG_SW-02", "xCjs0ES6xwx-FAKFHbbYrby");
-        map.put("MMD_MSM-01", "xCjs0ES6xwx-TejGomIjzWu");
-        map.put("MMD_FSW-04", "xCjs0ES6xwx-rx6RuqMmJYh");
-        map.put("MMD_FSW-01", "xCjs0ES6xwx-IYgcWYnFZn0");
-        map.put("MMD_MSM-03", "xCjs0ES6xwx-O1bh1C2P1E8");
-        map.put("NEW_DICE_unknown", "xXKDhJqJWgF-HllvX50cXC0");
-        map.put("NEW_HOTSPOT_unknown", "XGQy6GYDCfH-HllvX50cXC0");
-        map.put("PNS_ACCEPTED_PWID-06", "Aj6vP6Zlw7A-SmTngpAmqW3");
-        map.put("PNS_ACCEPTED_MSW-04", "Aj6vP6Zlw7A-qyDLjwtfCNy");
-        map.put("PNS_ACCEPTED_PWID-02", "Aj6vP6Zlw7A-D1Pib2THuTj");
-        map.put("PNS_ACCEPTED_TG_SW-04", "Aj6vP6Zlw7A-hAs4V5N4bJW");
-        map.put("PNS_ACCEPTED_PWID-07", "Aj6vP6Zlw7A-lQrQJYcTquG");
-        map.put("PNS_ACCEPTED_MSM-04", "Aj6vP6Zlw7A-pB7iwg7m0n7");
-        map.put("PNS_ACCEPTED_FSW-02", "Aj6vP6Zlw7A-LkV9MIzKs8R");
-        map.put("PNS_ACCEPTED_PWID-05", "Aj6vP6Zlw7A-u2wSZLv6s7m");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-KWKBKX5TOZn");
-        map.put("PNS_ACCEPTED_TG_NOT_SW-01", "Aj6vP6Zlw7A-XWsizEtBiKC");
-        map.put("PNS_ACCEPTED_MSW-02", "Aj6vP6Zlw7A-G1GYY8G4GGU");
-        map.put("PNS_ACCEPTED_MSW-03", "Aj6vP6Zlw7A-JrMuAKI6YlN");
-        map.put("PNS_ACCEPTED_PWID-04", "Aj6vP6Zlw7A-OeyhGmHtEKP");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-nJevmP4V2K0");
-        map.put("PNS_ACCEPTED_TG_NOT_SW-02", "Aj6vP6Zlw7A-GrhWQaCDCQ4");
-        map.put("PNS_ACCEPTED_TG_SW-03", "Aj6vP6Zlw7A-l0L6BfZ0L56");
-        map.put("PNS_ACCEPTED_PWID-08", "Aj6vP6Zlw7A-ow8lNkkzEBr");
-        map.put("PNS_ACCEPTED_MSM-02", "Aj6vP6Zlw7A-EuibuYaLJpe");
-        map.put("PNS_ACCEPTED_PWID-01", "Aj6vP6Zlw7A-cwsDiWLZ68M");
-        map.put("PNS_ACCEPTED_TG_NOT_SW-04", "Aj6vP6Zlw7A-CDcn8cYAj0A");
-        map.put("PNS_ACCEPTED_MSW-01", "Aj6vP6Zlw7A-SsB5mmWsigU");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-xpXBknJgiGa");
-        map.put("PNS_ACCEPTED_TG_SW-01", "Aj6vP6Zlw7A-RQIIGrbMcFp");
-        map.put("PNS_ACCEPTED_PWID-03", "Aj6vP6Zlw7A-nzh3CoCJGY8");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-NjZP8M1crEZ");
-        map.put("PNS_ACCEPTED_MSM-01", "Aj6vP6Zlw7A-TejGomIjzWu");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-PAXPnr3E0bq");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-Ik8JJyPcQ2K");
-        map.put("PNS_ACCEPTED_MSM-03", "Aj6vP6Zlw7A-O1bh1C2P1E8");
-        map.put("PNS_ACCEPTED_FSW-03", "Aj6vP6Zlw7A-KmdEfKbuS5M");
-        map.put("PNS_ACCEPTED_TG_NOT_SW-03", "Aj6vP6Zlw7A-t48Hbcn9Ych");
-        map.put("PNS_ACCEPTED_unknown", "Aj6vP6Zlw7A-hTS4AwHXmy4");
-        map.put("PNS_ACCEPTED_FSW-04", "Aj6vP6Zlw7A-rx6RuqMmJYh");
-        map.put("PNS_ACCEPTED_TG_SW-02", "Aj6vP6Zlw7A-FAKFHbbYrby");
-        map.put("PNS_ACCEPTED_FSW-01", "Aj6vP6Zlw7A-IYgcWYnFZn0");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-fx7dJEmvv0C");
-        map.put("PNS_ELICITED_MSM-02", "Om2TkuDV50S-cTK94yIaPFu");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-reOMRQ2m2Wa");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-zshpUcItOlm");
-        map.put("PNS_ELICITED_MSM-01", "Om2TkuDV50S-B5NPhV97Qhm");
-        map.put("PNS_ELICITED_PWID-03", "Om2TkuDV50S-JfOYQjYTCI8");
-        map.put("PNS_ELICITED_MSM-04", "Om2TkuDV50S-AQt2ipYFt5e");
-        map.put("PNS_ELICITED_TG_NOT_SW-01", "Om2TkuDV50S-BX467EkTRoW");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-WKQ37Z2Fkqf");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-b1sI3G9PuUz");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-OqlKCjSd61j");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-QBe4zbG6XDQ");
-        map.put("PNS_ELICITED_PWID-06", "Om2TkuDV50S-PZcpyIWbKwE");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-p5IiOO4wML8");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-CINUkoY9F0M");
-        map.put("PNS_ELICITED_TG_NOT_SW-02", "Om2TkuDV50S-lz1TL2DcqCt");
-        map.put("PNS_ELICITED_PWID-07", "Om2TkuDV50S-wjE36JQkdBw");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-h5lFSEufxTL");
-        map.put("PNS_ELICITED_FSW-03", "Om2TkuDV50S-GwitL4Y88nP");
-        map.put("PNS_ELICITED_PWID-02", "Om2TkuDV50S-XzrCYiL728x");
-        map.put("PNS_ELICITED_TG_NOT_SW-03", "Om2TkuDV50S-aFfiEXP4wLy");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-tuPjvuCVVDI");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-mSxXvycm1pw");
-        map.put("PNS_ELICITED_MSW-02", "Om2TkuDV50S-cNNzOOQmeO5");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-IOAvbWaKEZL");
-        map.put("PNS_ELICITED_TG_SW-01", "Om2TkuDV50S-B4Q4bR5r3Cz");
-        map.put("PNS_ELICITED_TG_NOT_SW-04", "Om2TkuDV50S-Y9YHYFeVMeK");
-        map.put("PNS_ELICITED_PWID-01", "Om2TkuDV50S-Gf8eE3Luwkb");
-        map.put("PNS_ELICITED_PWID-08", "Om2TkuDV50S-pbBsX80C7Pa");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-RmFCWn37ikm");
-        map.put("PNS_ELICITED_TG_SW-04", "Om2TkuDV50S-eQHuih2TWMn");
-        map.put("PNS_ELICITED_TG_SW-02", "Om2TkuDV50S-hPmkXHz3CFk");
-        map.put("PNS_ELICITED_MSW-03", "Om2TkuDV50S-I9OBxcNAvem");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-fHSpNAmQbXD");
-        map.put("PNS_ELICITED_PWID-05", "Om2TkuDV50S-qCGe1ic0cll");
-        map.put("PNS_ELICITED_unknown", "Om2TkuDV50S-KMYcqfCgIbH");
-        map.put("PNS_ELICITED_FSW-01", "Om2TkuDV50S-Y7hwlW8TVfj");
-        map.put("PNS_ELICITED_", "Om2TkuDV50S-nr9bybf8bHw");
-        map.put("PNS_ELICITED_PWID-04", "Om2TkuDV50S-sBHUdnCp1yN");
-        map.put("PNS_ELICITED_MSM-03", "Om2TkuDV50S-rWKb1eZTDtv");
-        map.put("PNS_ELICITED_MSW-01", "Om2TkuDV50S-UMGQPbppH0s");
-        map.put("PNS_ELICITED_FSW-02", "Om2TkuDV50S-B43OnQyvHml");
-        map.put("PNS_ELICITED_MSW-04", "Om2TkuDV50S-RBIH82m8rb9");
-        map.put("PNS_ELICITED_FSW-04", "Om2TkuDV50S-yPbcQf9ns0B");
-        map.put("PNS_ELICITED_TG_SW-03", "Om2TkuDV50S-g28LR1f5BPx");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_SW-03", "KMxOHc1sq6A-g28LR1f5BPx");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-07", "KMxOHc1sq6A-wjE36JQkdBw");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-fHSpNAmQbXD");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-h5lFSEufxTL");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_SW-02", "KMxOHc1sq6A-hPmkXHz3CFk");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-p5IiOO4wML8");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-CINUkoY9F0M");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-04", "KMxOHc1sq6A-sBHUdnCp1yN");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSW-03", "KMxOHc1sq6A-I9OBxcNAvem");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-tuPjvuCVVDI");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_FSW-01", "KMxOHc1sq6A-Y7hwlW8TVfj");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-05", "KMxOHc1sq6A-qCGe1ic0cll");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_NOT_SW-01", "KMxOHc1sq6A-BX467EkTRoW");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-01", "KMxOHc1sq6A-Gf8eE3Luwkb");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_FSW-04", "KMxOHc1sq6A-yPbcQf9ns0B");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-08", "KMxOHc1sq6A-pbBsX80C7Pa");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSW-02", "KMxOHc1sq6A-cNNzOOQmeO5");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSM-01", "KMxOHc1sq6A-B5NPhV97Qhm");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSW-04", "KMxOHc1sq6A-RBIH82m8rb9");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-06", "KMxOHc1sq6A-PZcpyIWbKwE");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-IOAvbWaKEZL");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_SW-01", "KMxOHc1sq6A-B4Q4bR5r3Cz");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSM-04", "KMxOHc1sq6A-AQt2ipYFt5e");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-reOMRQ2m2Wa");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_NOT_SW-02", "KMxOHc1sq6A-lz1TL2DcqCt");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-RmFCWn37ikm");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-OqlKCjSd61j");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_NOT_SW-04", "KMxOHc1sq6A-Y9YHYFeVMeK");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-KMYcqfCgIbH");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_FSW-03", "KMxOHc1sq6A-GwitL4Y88nP");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-03", "KMxOHc1sq6A-JfOYQjYTCI8");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSM-02", "KMxOHc1sq6A-cTK94yIaPFu");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-mSxXvycm1pw");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-WKQ37Z2Fkqf");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-fx7dJEmvv0C");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-zshpUcItOlm");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_SW-04", "KMxOHc1sq6A-eQHuih2TWMn");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSM-03", "KMxOHc1sq6A-rWKb1eZTDtv");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_MSW-01", "KMxOHc1sq6A-UMGQPbppH0s");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-b1sI3G9PuUz");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_", "KMxOHc1sq6A-nr9bybf8bHw");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_FSW-02", "KMxOHc1sq6A-B43OnQyvHml");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_PWID-02", "KMxOHc1sq6A-XzrCYiL728x");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_TG_NOT_SW-03", "KMxOHc1sq6A-aFfiEXP4wLy");
-        map.put("PNS_KNOWN_POSITIVE_ENTRY_unknown", "KMxOHc1sq6A-QBe4zbG6XDQ");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-KMYcqfCgIbH");
-        map.put("PNS_NEW_HIV_NEG_MSM-04", "zJTUyNwTvCX-AQt2ipYFt5e");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-fx7dJEmvv0C");
-        map.put("PNS_NEW_HIV_NEG_MSM-01", "zJTUyNwTvCX-B5NPhV97Qhm");
-        map.put("PNS_NEW_HIV_NEG_FSW-04", "zJTUyNwTvCX-yPbcQf9ns0B");
-        map.put("PNS_NEW_HIV_NEG_TG_NOT_SW-03", "zJTUyNwTvCX-aFfiEXP4wLy");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-tuPjvuCVVDI");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-zshpUcItOlm");
-        map.put("PNS_NEW_HIV_NEG_TG_SW-04", "zJTUyNwTvCX-eQHuih2TWMn");
-        map.put("PNS_NEW_HIV_NEG_MSM-03", "zJTUyNwTvCX-rWKb1eZTDtv");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-nr9bybf8bHw");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-QBe4zbG6XDQ");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-mSxXvycm1pw");
-        map.put("PNS_NEW_HIV_NEG_MSW-03", "zJTUyNwTvCX-I9OBxcNAvem");
-        map.put("PNS_NEW_HIV_NEG_PWID-04", "zJTUyNwTvCX-sBHUdnCp1yN");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-OqlKCjSd61j");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-IOAvbWaKEZL");
-        map.put("PNS_NEW_HIV_NEG_TG_NOT_SW-04", "zJTUyNwTvCX-Y9YHYFeVMeK");
-        map.put("PNS_NEW_HIV_NEG_MSM-02", "zJTUyNwTvCX-cTK94yIaPFu");
-        map.put("PNS_NEW_HIV_NEG_MSW-01", "zJTUyNwTvCX-UMGQPbppH0s");
-        map.put("PNS_NEW_HIV_NEG_PWID-08", "zJTUyNwTvCX-pbBsX80C7Pa");
-        map.put("PNS_NEW_HIV_NEG_TG_SW-01", "zJTUyNwTvCX-B4Q4bR5r3Cz");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-RmFCWn37ikm");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-fHSpNAmQbXD");
-        map.put("PNS_NEW_HIV_NEG_PWID-07", "zJTUyNwTvCX-wjE36JQkdBw");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-CINUkoY9F0M");
-        map.put("PNS_NEW_HIV_NEG_FSW-02", "zJTUyNwTvCX-B43OnQyvHml");
-        map.put("PNS_NEW_HIV_NEG_unknown", "zJTUyNwTvCX-b1sI3G9PuUz");
-        map.put("PNS_NEW_HIV_NEG_PWID-02", "zJTUyNwTvCX-XzrCYiL728x");
-        map.put("PNS_NEW_HIV_NEG_TG_SW-03", "zJTUyNwTvCX-g28LR1f5BPx");
-        map.put("PNS_NEW_HIV_NEG_PWID-06", "zJTUyNwTvCX-PZcpyIWbKwE");
-        map.put("PNS_NEW_HIV_NEG_MSW-04", "zJTUyNwTvCX-RBIH82m8rb9");
-        map.put("PNS_NEW_HIV_NEG_PWID-01", "zJTUyNwTvCX-Gf8eE3Luwkb");
-        map.put("PNS_NEW_HIV_NEG_MSW-02", "zJTUyNwTvCX-cNNzOOQmeO5");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-WKQ37Z2Fkqf");
-        map.put("PNS_NEW_HIV_NEG_PWID-03", "zJTUyNwTvCX-JfOYQjYTCI8");
-        map.put("PNS_NEW_HIV_NEG_FSW-01", "zJTUyNwTvCX-Y7hwlW8TVfj");
-        map.put("PNS_NEW_HIV_NEG_TG_SW-02", "zJTUyNwTvCX-hPmkXHz3CFk");
-        map.put("PNS_NEW_HIV_NEG_TG_NOT_SW-02", "zJTUyNwTvCX-lz1TL2DcqCt");
-        map.put("PNS_NEW_HIV_NEG_PWID-05", "zJTUyNwTvCX-qCGe1ic0cll");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-reOMRQ2m2Wa");
-        map.put("PNS_NEW_HIV_NEG_TG_NOT_SW-01", "zJTUyNwTvCX-BX467EkTRoW");
-        map.put("PNS_NEW_HIV_NEG_FSW-03", "zJTUyNwTvCX-GwitL4Y88nP");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-p5IiOO4wML8");
-        map.put("PNS_NEW_HIV_NEG_", "zJTUyNwTvCX-h5lFSEufxTL");
-        map.put("PNS_NEW_HIV_POS_MSW-02", "FZJvTrHEG9I-cNNzOOQmeO5");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-OqlKCjSd61j");
-        map.put("PNS_NEW_HIV_POS_PWID-08", "FZJvTrHEG9I-pbBsX80C7Pa");
-        map.put("PNS_NEW_HIV_POS_TG_SW-03", "FZJvTrHEG9I-g28LR1f5BPx");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-IOAvbWaKEZL");
-        map.put("PNS_NEW_HIV_POS_TG_NOT_SW-04", "FZJvTrHEG9I-Y9YHYFeVMeK");
-        map.put("PNS_NEW_HIV_POS_MSM-03", "FZJvTrHEG9I-rWKb1eZTDtv");
-        map.put("PNS_NEW_HIV_POS_PWID-07", "FZJvTrHEG9I-wjE36JQkdBw");
-        map.put("PNS_NEW_HIV_POS_TG_NOT_SW-01", "FZJvTrHEG9I-BX467EkTRoW");
-        map.put("PNS_NEW_HIV_POS_PWID-03", "FZJvTrHEG9I-JfOYQjYTCI8");
-        map.put("PNS_NEW_HIV_POS_PWID-05", "FZJvTrHEG9I-qCGe1ic0cll");
-        map.put("PNS_NEW_HIV_POS_FSW-02", "FZJvTrHEG9I-B43OnQyvHml");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-CINUkoY9F0M");
-        map.put("PNS_NEW_HIV_POS_MSW-01", "FZJvTrHEG9I-UMGQPbppH0s");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-QBe4zbG6XDQ");
-        map.put("PNS_NEW_HIV_POS_FSW-01", "FZJvTrHEG9I-Y7hwlW8TVfj");
-        map.put("PNS_NEW_HIV_POS_TG_SW-02", "FZJvTrHEG9I-hPmkXHz3CFk");
-        map.put("PNS_NEW_HIV_POS_FSW-04", "FZJvTrHEG9I-yPbcQf9ns0B");
-        map.put("PNS_NEW_HIV_POS_TG_NOT_SW-02", "FZJvTrHEG9I-lz1TL2DcqCt");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-h5lFSEufxTL");
-        map.put("PNS_NEW_HIV_POS_FSW-03", "FZJvTrHEG9I-GwitL4Y88nP");
-        map.put("PNS_NEW_HIV_POS_MSM-04", "FZJvTrHEG9I-AQt2ipYFt5e");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-WKQ37Z2Fkqf");
-        map.put("PNS_NEW_HIV_POS_MSW-04", "FZJvTrHEG9I-RBIH82m8rb9");
-        map.put("PNS_NEW_HIV_POS_PWID-01", "FZJvTrHEG9I-Gf8eE3Luwkb");
-        map.put("PNS_NEW_HIV_POS_PWID-04", "FZJvTrHEG9I-sBHUdnCp1yN");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-p5IiOO4wML8");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-tuPjvuCVVDI");
-        map.put("PNS_NEW_HIV_POS_PWID-06", "FZJvTrHEG9I-PZcpyIWbKwE");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-fHSpNAmQbXD");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-fx7dJEmvv0C");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-reOMRQ2m2Wa");
-        map.put("PNS_NEW_HIV_POS_PWID-02", "FZJvTrHEG9I-XzrCYiL728x");
-        map.put("PNS_NEW_HIV_POS_MSW-03", "FZJvTrHEG9I-I9OBxcNAvem");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-nr9bybf8bHw");
-        map.put("PNS_NEW_HIV_POS_MSM-01", "FZJvTrHEG9I-B5NPhV97Qhm");
-        map.put("PNS_NEW_HIV_POS_MSM-02", "FZJvTrHEG9I-cTK94yIaPFu");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-mSxXvycm1pw");
-        map.put("PNS_NEW_HIV_POS_TG_SW-01", "FZJvTrHEG9I-B4Q4bR5r3Cz");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-zshpUcItOlm");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-b1sI3G9PuUz");
-        map.put("PNS_NEW_HIV_POS_", "FZJvTrHEG9I-RmFCWn37ikm");
-        map.put("PNS_NEW_HIV_POS_TG_NOT_SW-03", "FZJvTrHEG9I-aFfiEXP4wLy");
-        map.put("PNS_NEW_HIV_POS_unknown", "FZJvTrHEG9I-KMYcqfCgIbH");
-        map.put("PNS_NEW_HIV_POS_TG_SW-04", "FZJvTrHEG9I-eQHuih2TWMn");
-        map.put("PNS_OFFERED_TG_SW-02", "IRLMFsFMPeE-FAKFHbbYrby");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-NjZP8M1crEZ");
-        map.put("PNS_OFFERED_PWID-06", "IRLMFsFMPeE-SmTngpAmqW3");
-        map.put("PNS_OFFERED_PWID-08", "IRLMFsFMPeE-ow8lNkkzEBr");
-        map.put("PNS_OFFERED_PWID-01", "IRLMFsFMPeE-cwsDiWLZ68M");
-        map.put("PNS_OFFERED_MSW-02", "IRLMFsFMPeE-G1GYY8G4GGU");
-        map.put("PNS_OFFERED_TG_NOT_SW-01", "IRLMFsFMPeE-XWsizEtBiKC");
-        map.put("PNS_OFFERED_MSM-04", "IRLMFsFMPeE-pB7iwg7m0n7");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-PAXPnr3E0bq");
-        map.put("PNS_OFFERED_TG_SW-03", "IRLMFsFMPeE-l0L6BfZ0L56");
-        map.put("PNS_OFFERED_FSW-03", "IRLMFsFMPeE-KmdEfKbuS5M");
-        map.put("PNS_OFFERED_TG_NOT_SW-04", "IRLMFsFMPeE-CDcn8cYAj0A");
-        map.put("PNS_OFFERED_TG_NOT_SW-02", "IRLMFsFMPeE-GrhWQaCDCQ4");
-        map.put("PNS_OFFERED_MSM-01", "IRLMFsFMPeE-TejGomIjzWu");
-        map.put("PNS_OFFERED_PWID-02", "IRLMFsFMPeE-D1Pib2THuTj");
-        map.put("PNS_OFFERED_TG_NOT_SW-03", "IRLMFsFMPeE-t48Hbcn9Ych");
-        map.put("PNS_OFFERED_MSM-02", "IRLMFsFMPeE-EuibuYaLJpe");
-        map.put("PNS_OFFERED_MSW-01", "IRLMFsFMPeE-SsB5mmWsigU");
-        map.put("PNS_OFFERED_FSW-04", "IRLMFsFMPeE-rx6RuqMmJYh");
-        map.put("PNS_OFFERED_FSW-02", "IRLMFsFMPeE-LkV9MIzKs8R");
-        map.put("PNS_OFFERED_PWID-03", "IRLMFsFMPeE-nzh3CoCJGY8");
-        map.put("PNS_OFFERED_TG_SW-04", "IRLMFsFMPeE-hAs4V5N4bJW");
-        map.put("PNS_OFFERED_PWID-05", "IRLMFsFMPeE-u2wSZLv6s7m");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-nJevmP4V2K0");
-        map.put("PNS_OFFERED_MSM-03", "IRLMFsFMPeE-O1bh1C2P1E8");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-xpXBknJgiGa");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-KWKBKX5TOZn");
-        map.put("PNS_OFFERED_FSW-01", "IRLMFsFMPeE-IYgcWYnFZn0");
-        map.put("PNS_OFFERED_MSW-03", "IRLMFsFMPeE-JrMuAKI6YlN");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-hTS4AwHXmy4");
-        map.put("PNS_OFFERED_TG_SW-01", "IRLMFsFMPeE-RQIIGrbMcFp");
-        map.put("PNS_OFFERED_unknown", "IRLMFsFMPeE-Ik8JJyPcQ2K");
-        map.put("PNS_OFFERED_MSW-04", "IRLMFsFMPeE-qyDLjwtfCNy");
-        map.put("PNS_OFFERED_PWID-04", "IRLMFsFMPeE-OeyhGmHtEKP");
-        map.put("PNS_OFFERED_PWID-07", "IRLMFsFMPeE-lQrQJYcTquG");
-        map.put("PrEP_CURR_DICE_TG_NOT_SW-02", "jrVljG3ry1H-GrhWQaCDCQ4");
-        map.put("PrEP_CURR_DICE_TG_SW-03", "jrVljG3ry1H-l0L6BfZ0L56");
-        map.put("PrEP_CURR_DICE_TG_SW-01", "jrVljG3ry1H-RQIIGrbMcFp");
-        map.put("PrEP_CURR_DICE_PWID-05", "jrVljG3ry1H-u2wSZLv6s7m");
-        map.put("PrEP_CURR_DICE_FSW-01", "jrVljG3ry1H-IYgcWYnFZn0");
-        map.put("PrEP_CURR_DICE_MSW-02", "jrVljG3ry1H-G1GYY8G4GGU");
-        map.put("PrEP_CURR_DICE_FSW-04", "jrVljG3ry1H-rx6RuqMmJYh");
-        map.put("PrEP_CURR_DICE_MSM-02", "jrVljG3ry1H-EuibuYaLJpe");
-        map.put("PrEP_CURR_DICE_PWID-01", "jrVljG3ry1H-cwsDiWLZ68M");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-Ik8JJyPcQ2K");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-KWKBKX5TOZn");
-        map.put("PrEP_CURR_DICE_TG_SW-02", "jrVljG3ry1H-FAKFHbbYrby");
-        map.put("PrEP_CURR_DICE_TG_NOT_SW-03", "jrVljG3ry1H-t48Hbcn9Ych");
-        map.put("PrEP_CURR_DICE_TG_SW-04", "jrVljG3ry1H-hAs4V5N4bJW");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-NjZP8M1crEZ");
-        map.put("PrEP_CURR_DICE_PWID-08", "jrVljG3ry1H-ow8lNkkzEBr");
-        map.put("PrEP_CURR_DICE_MSM-01", "jrVljG3ry1H-TejGomIjzWu");
-        map.put("PrEP_CURR_DICE_PWID-04", "jrVljG3ry1H-OeyhGmHtEKP");
-        map.put("PrEP_CURR_DICE_PWID-07", "jrVljG3ry1H-lQrQJYcTquG");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-hTS4AwHXmy4");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-xpXBknJgiGa");
-        map.put("PrEP_CURR_DICE_TG_NOT_SW-01", "jrVljG3ry1H-XWsizEtBiKC");
-        map.put("PrEP_CURR_DICE_MSW-03", "jrVljG3ry1H-JrMuAKI6YlN");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-PAXPnr3E0bq");
-        map.put("PrEP_CURR_DICE_MSW-04", "jrVljG3ry1H-qyDLjwtfCNy");
-        map.put("PrEP_CURR_DICE_MSM-03", "jrVljG3ry1H-O1bh1C2P1E8");
-        map.put("PrEP_CURR_DICE_PWID-06", "jrVljG3ry1H-SmTngpAmqW3");
-        map.put("PrEP_CURR_DICE_TG_NOT_SW-04", "jrVljG3ry1H-CDcn8cYAj0A");
-        map.put("PrEP_CURR_DICE_FSW-03", "jrVljG3ry1H-KmdEfKbuS5M");
-        map.put("PrEP_CURR_DICE_unknown", "jrVljG3ry1H-nJevmP4V2K0");
-        map.put("PrEP_CURR_DICE_MSM-04", "jrVljG3ry1H-pB7iwg7m0n7");
-        map.put("PrEP_CURR_DICE_PWID-03", "jrVljG3ry1H-nzh3CoCJGY8");
-        map.put("PrEP_CURR_DICE_FSW-02", "jrVljG3ry1H-LkV9MIzKs8R");
-        map.put("PrEP_CURR_DICE_PWID-02", "jrVljG3ry1H-D1Pib2THuTj");
-        map.put("PrEP_CURR_DICE_MSW-01", "jrVljG3ry1H-SsB5mmWsigU");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSW-03", "nWMnSfWQw3F-JrMuAKI6YlN");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-01", "nWMnSfWQw3F-cwsDiWLZ68M");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSW-02", "nWMnSfWQw3F-G1GYY8G4GGU");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-03", "nWMnSfWQw3F-nzh3CoCJGY8");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-07", "nWMnSfWQw3F-lQrQJYcTquG");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-02", "nWMnSfWQw3F-FAKFHbbYrby");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-06", "nWMnSfWQw3F-SmTngpAmqW3");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-05", "nWMnSfWQw3F-u2wSZLv6s7m");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-KWKBKX5TOZn");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_FSW-04", "nWMnSfWQw3F-rx6RuqMmJYh");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-02", "nWMnSfWQw3F-GrhWQaCDCQ4");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-hTS4AwHXmy4");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-08", "nWMnSfWQw3F-ow8lNkkzEBr");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-04", "nWMnSfWQw3F-OeyhGmHtEKP");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-xpXBknJgiGa");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_FSW-01", "nWMnSfWQw3F-IYgcWYnFZn0");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSW-04", "nWMnSfWQw3F-qyDLjwtfCNy");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-Ik8JJyPcQ2K");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSM-02", "nWMnSfWQw3F-EuibuYaLJpe");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSW-01", "nWMnSfWQw3F-SsB5mmWsigU");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-01", "nWMnSfWQw3F-RQIIGrbMcFp");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-nJevmP4V2K0");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-03", "nWMnSfWQw3F-l0L6BfZ0L56");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-NjZP8M1crEZ");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSM-04", "nWMnSfWQw3F-pB7iwg7m0n7");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-04", "nWMnSfWQw3F-CDcn8cYAj0A");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-04", "nWMnSfWQw3F-hAs4V5N4bJW");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-01", "nWMnSfWQw3F-XWsizEtBiKC");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSM-03", "nWMnSfWQw3F-O1bh1C2P1E8");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_MSM-01", "nWMnSfWQw3F-TejGomIjzWu");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-03", "nWMnSfWQw3F-t48Hbcn9Ych");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "nWMnSfWQw3F-PAXPnr3E0bq");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_PWID-02", "nWMnSfWQw3F-D1Pib2THuTj");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_FSW-03", "nWMnSfWQw3F-KmdEfKbuS5M");
-        map.put("PrEP_CURR_VERIFY_NON_PEPFAR_SITE_FSW-02", "nWMnSfWQw3F-LkV9MIzKs8R");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_SW-04", "CCdVD9plUwm-hAs4V5N4bJW");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "CCdVD9plUwm-CDcn8cYAj0A");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_FSW-01", "CCdVD9plUwm-IYgcWYnFZn0");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-03", "CCdVD9plUwm-nzh3CoCJGY8");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSW-04", "CCdVD9plUwm-qyDLjwtfCNy");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-02", "CCdVD9plUwm-D1Pib2THuTj");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSW-01", "CCdVD9plUwm-SsB5mmWsigU");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-nJevmP4V2K0");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-Ik8JJyPcQ2K");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-07", "CCdVD9plUwm-lQrQJYcTquG");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_SW-01", "CCdVD9plUwm-RQIIGrbMcFp");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSW-02", "CCdVD9plUwm-G1GYY8G4GGU");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_SW-03", "CCdVD9plUwm-l0L6BfZ0L56");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-KWKBKX5TOZn");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-PAXPnr3E0bq");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-08", "CCdVD9plUwm-ow8lNkkzEBr");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-06", "CCdVD9plUwm-SmTngpAmqW3");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-01", "CCdVD9plUwm-cwsDiWLZ68M");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSM-02", "CCdVD9plUwm-EuibuYaLJpe");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "CCdVD9plUwm-GrhWQaCDCQ4");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSM-01", "CCdVD9plUwm-TejGomIjzWu");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-05", "CCdVD9plUwm-u2wSZLv6s7m");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-NjZP8M1crEZ");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_PWID-04", "CCdVD9plUwm-OeyhGmHtEKP");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_FSW-04", "CCdVD9plUwm-rx6RuqMmJYh");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-xpXBknJgiGa");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_unknown", "CCdVD9plUwm-hTS4AwHXmy4");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSW-03", "CCdVD9plUwm-JrMuAKI6YlN");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSM-04", "CCdVD9plUwm-pB7iwg7m0n7");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_SW-02", "CCdVD9plUwm-FAKFHbbYrby");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_FSW-03", "CCdVD9plUwm-KmdEfKbuS5M");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_MSM-03", "CCdVD9plUwm-O1bh1C2P1E8");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "CCdVD9plUwm-t48Hbcn9Ych");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_FSW-02", "CCdVD9plUwm-LkV9MIzKs8R");
-        map.put("PrEP_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "CCdVD9plUwm-XWsizEtBiKC");
-        map.put("PrEP_ELIGIBLE_MSM-03", "PYNRaXEewDC-O1bh1C2P1E8");
-        map.put("PrEP_ELIGIBLE_PWID-02", "PYNRaXEewDC-D1Pib2THuTj");
-        map.put("PrEP_ELIGIBLE_MSW-02", "PYNRaXEewDC-G1GYY8G4GGU");
-        map.put("PrEP_ELIGIBLE_TG_SW-03", "PYNRaXEewDC-l0L6BfZ0L56");
-        map.put("PrEP_ELIGIBLE_MSW-01", "PYNRaXEewDC-SsB5mmWsigU");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-xpXBknJgiGa");
-        map.put("PrEP_ELIGIBLE_TG_SW-01", "PYNRaXEewDC-RQIIGrbMcFp");
-        map.put("PrEP_ELIGIBLE_FSW-04", "PYNRaXEewDC-rx6RuqMmJYh");
-        map.put("PrEP_ELIGIBLE_TG_NOT_SW-03", "PYNRaXEewDC-t48Hbcn9Ych");
-        map.put("PrEP_ELIGIBLE_FSW-01", "PYNRaXEewDC-IYgcWYnFZn0");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-hTS4AwHXmy4");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-PAXPnr3E0bq");
-        map.put("PrEP_ELIGIBLE_TG_NOT_SW-02", "PYNRaXEewDC-GrhWQaCDCQ4");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-nJevmP4V2K0");
-        map.put("PrEP_ELIGIBLE_FSW-02", "PYNRaXEewDC-LkV9MIzKs8R");
-        map.put("PrEP_ELIGIBLE_MSM-01", "PYNRaXEewDC-TejGomIjzWu");
-        map.put("PrEP_ELIGIBLE_FSW-03", "PYNRaXEewDC-KmdEfKbuS5M");
-        map.put("PrEP_ELIGIBLE_PWID-04", "PYNRaXEewDC-OeyhGmHtEKP");
-        map.put("PrEP_ELIGIBLE_PWID-07", "PYNRaXEewDC-lQrQJYcTquG");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-NjZP8M1crEZ");
-        map.put("PrEP_ELIGIBLE_TG_SW-02", "PYNRaXEewDC-FAKFHbbYrby");
-        map.put("PrEP_ELIGIBLE_MSW-03", "PYNRaXEewDC-JrMuAKI6YlN");
-        map.put("PrEP_ELIGIBLE_MSM-04", "PYNRaXEewDC-pB7iwg7m0n7");
-        map.put("PrEP_ELIGIBLE_TG_NOT_SW-01", "PYNRaXEewDC-XWsizEtBiKC");
-        map.put("PrEP_ELIGIBLE_MSW-04", "PYNRaXEewDC-qyDLjwtfCNy");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-Ik8JJyPcQ2K");
-        map.put("PrEP_ELIGIBLE_PWID-01", "PYNRaXEewDC-cwsDiWLZ68M");
-        map.put("PrEP_ELIGIBLE_PWID-06", "PYNRaXEewDC-SmTngpAmqW3");
-        map.put("PrEP_ELIGIBLE_TG_NOT_SW-04", "PYNRaXEewDC-CDcn8cYAj0A");
-        map.put("PrEP_ELIGIBLE_PWID-05", "PYNRaXEewDC-u2wSZLv6s7m");
-        map.put("PrEP_ELIGIBLE_PWID-08", "PYNRaXEewDC-ow8lNkkzEBr");
-        map.put("PrEP_ELIGIBLE_TG_SW-04", "PYNRaXEewDC-hAs4V5N4bJW");
-        map.put("PrEP_ELIGIBLE_unknown", "PYNRaXEewDC-KWKBKX5TOZn");
-        map.put("PrEP_ELIGIBLE_MSM-02", "PYNRaXEewDC-EuibuYaLJpe");
-        map.put("PrEP_ELIGIBLE_PWID-03", "PYNRaXEewDC-nzh3CoCJGY8");
-        map.put("PrEP_NEW_DICE_TG_SW-02", "EZvsosbjCs3-FAKFHbbYrby");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-xpXBknJgiGa");
-        map.put("PrEP_NEW_DICE_PWID-05", "EZvsosbjCs3-u2wSZLv6s7m");
-        map.put("PrEP_NEW_DICE_TG_NOT_SW-02", "EZvsosbjCs3-GrhWQaCDCQ4");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-PAXPnr3E0bq");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-Ik8JJyPcQ2K");
-        map.put("PrEP_NEW_DICE_PWID-02", "EZvsosbjCs3-D1Pib2THuTj");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-NjZP8M1crEZ");
-        map.put("PrEP_NEW_DICE_MSW-02", "EZvsosbjCs3-G1GYY8G4GGU");
-        map.put("PrEP_NEW_DICE_PWID-01", "EZvsosbjCs3-cwsDiWLZ68M");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-hTS4AwHXmy4");
-        map.put("PrEP_NEW_DICE_MSM-01", "EZvsosbjCs3-TejGomIjzWu");
-        map.put("PrEP_NEW_DICE_PWID-03", "EZvsosbjCs3-nzh3CoCJGY8");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-KWKBKX5TOZn");
-        map.put("PrEP_NEW_DICE_TG_SW-03", "EZvsosbjCs3-l0L6BfZ0L56");
-        map.put("PrEP_NEW_DICE_TG_SW-04", "EZvsosbjCs3-hAs4V5N4bJW");
-        map.put("PrEP_NEW_DICE_FSW-04", "EZvsosbjCs3-rx6RuqMmJYh");
-        map.put("PrEP_NEW_DICE_FSW-01", "EZvsosbjCs3-IYgcWYnFZn0");
-        map.put("PrEP_NEW_DICE_MSM-02", "EZvsosbjCs3-EuibuYaLJpe");
-        map.put("PrEP_NEW_DICE_PWID-06", "EZvsosbjCs3-SmTngpAmqW3");
-        map.put("PrEP_NEW_DICE_TG_NOT_SW-04", "EZvsosbjCs3-CDcn8cYAj0A");
-        map.put("PrEP_NEW_DICE_MSW-03", "EZvsosbjCs3-JrMuAKI6YlN");
-        map.put("PrEP_NEW_DICE_MSW-04", "EZvsosbjCs3-qyDLjwtfCNy");
-        map.put("PrEP_NEW_DICE_PWID-07", "EZvsosbjCs3-lQrQJYcTquG");
-        map.put("PrEP_NEW_DICE_MSW-01", "EZvsosbjCs3-SsB5mmWsigU");
-        map.put("PrEP_NEW_DICE_PWID-08", "EZvsosbjCs3-ow8lNkkzEBr");
-        map.put("PrEP_NEW_DICE_unknown", "EZvsosbjCs3-nJevmP4V2K0");
-        map.put("PrEP_NEW_DICE_PWID-04", "EZvsosbjCs3-OeyhGmHtEKP");
-        map.put("PrEP_NEW_DICE_TG_SW-01", "EZvsosbjCs3-RQIIGrbMcFp");
-        map.put("PrEP_NEW_DICE_TG_NOT_SW-03", "EZvsosbjCs3-t48Hbcn9Ych");
-        map.put("PrEP_NEW_DICE_FSW-03", "EZvsosbjCs3-KmdEfKbuS5M");
-        map.put("PrEP_NEW_DICE_TG_NOT_SW-01", "EZvsosbjCs3-XWsizEtBiKC");
-        map.put("PrEP_NEW_DICE_MSM-03", "EZvsosbjCs3-O1bh1C2P1E8");
-        map.put("PrEP_NEW_DICE_MSM-04", "EZvsosbjCs3-pB7iwg7m0n7");
-        map.put("PrEP_NEW_DICE_FSW-02", "EZvsosbjCs3-LkV9MIzKs8R");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSW-03", "vIBLsWHogNU-JrMuAKI6YlN");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-01", "vIBLsWHogNU-XWsizEtBiKC");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-xpXBknJgiGa");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-Ik8JJyPcQ2K");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-NjZP8M1crEZ");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-03", "vIBLsWHogNU-t48Hbcn9Ych");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-08", "vIBLsWHogNU-ow8lNkkzEBr");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_SW-02", "vIBLsWHogNU-FAKFHbbYrby");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSM-02", "vIBLsWHogNU-EuibuYaLJpe");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-KWKBKX5TOZn");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-07", "vIBLsWHogNU-lQrQJYcTquG");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-01", "vIBLsWHogNU-cwsDiWLZ68M");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-04", "vIBLsWHogNU-CDcn8cYAj0A");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_SW-03", "vIBLsWHogNU-l0L6BfZ0L56");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSW-02", "vIBLsWHogNU-G1GYY8G4GGU");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-03", "vIBLsWHogNU-nzh3CoCJGY8");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSW-04", "vIBLsWHogNU-qyDLjwtfCNy");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-hTS4AwHXmy4");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_SW-01", "vIBLsWHogNU-RQIIGrbMcFp");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_SW-04", "vIBLsWHogNU-hAs4V5N4bJW");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSW-01", "vIBLsWHogNU-SsB5mmWsigU");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-02", "vIBLsWHogNU-D1Pib2THuTj");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-06", "vIBLsWHogNU-SmTngpAmqW3");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSM-04", "vIBLsWHogNU-pB7iwg7m0n7");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-05", "vIBLsWHogNU-u2wSZLv6s7m");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_FSW-04", "vIBLsWHogNU-rx6RuqMmJYh");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-nJevmP4V2K0");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_PWID-04", "vIBLsWHogNU-OeyhGmHtEKP");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_FSW-03", "vIBLsWHogNU-KmdEfKbuS5M");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_unknown", "vIBLsWHogNU-PAXPnr3E0bq");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSM-01", "vIBLsWHogNU-TejGomIjzWu");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_FSW-02", "vIBLsWHogNU-LkV9MIzKs8R");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-02", "vIBLsWHogNU-GrhWQaCDCQ4");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_MSM-03", "vIBLsWHogNU-O1bh1C2P1E8");
-        map.put("PrEP_NEW_VERIFY_NON_PEPFAR_SITE_FSW-01", "vIBLsWHogNU-IYgcWYnFZn0");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-PAXPnr3E0bq");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_FSW-02", "V322l8KD9oP-LkV9MIzKs8R");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-02", "V322l8KD9oP-D1Pib2THuTj");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "V322l8KD9oP-GrhWQaCDCQ4");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-xpXBknJgiGa");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "V322l8KD9oP-CDcn8cYAj0A");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSM-01", "V322l8KD9oP-TejGomIjzWu");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-nJevmP4V2K0");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_SW-01", "V322l8KD9oP-RQIIGrbMcFp");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-NjZP8M1crEZ");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSW-01", "V322l8KD9oP-SsB5mmWsigU");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSM-04", "V322l8KD9oP-pB7iwg7m0n7");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSW-02", "V322l8KD9oP-G1GYY8G4GGU");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_SW-02", "V322l8KD9oP-FAKFHbbYrby");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "V322l8KD9oP-XWsizEtBiKC");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_FSW-03", "V322l8KD9oP-KmdEfKbuS5M");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "V322l8KD9oP-t48Hbcn9Ych");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSW-04", "V322l8KD9oP-qyDLjwtfCNy");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_FSW-01", "V322l8KD9oP-IYgcWYnFZn0");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSM-03", "V322l8KD9oP-O1bh1C2P1E8");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSM-02", "V322l8KD9oP-EuibuYaLJpe");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-Ik8JJyPcQ2K");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_FSW-04", "V322l8KD9oP-rx6RuqMmJYh");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-08", "V322l8KD9oP-ow8lNkkzEBr");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-07", "V322l8KD9oP-lQrQJYcTquG");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-03", "V322l8KD9oP-nzh3CoCJGY8");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-01", "V322l8KD9oP-cwsDiWLZ68M");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-KWKBKX5TOZn");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-05", "V322l8KD9oP-u2wSZLv6s7m");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_SW-04", "V322l8KD9oP-hAs4V5N4bJW");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_TG_SW-03", "V322l8KD9oP-l0L6BfZ0L56");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-06", "V322l8KD9oP-SmTngpAmqW3");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_PWID-04", "V322l8KD9oP-OeyhGmHtEKP");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_unknown", "V322l8KD9oP-hTS4AwHXmy4");
-        map.put("PrEP_NEW_VERIFY_PEPFAR_SITE_MSW-03", "V322l8KD9oP-JrMuAKI6YlN");
-        map.put("PrEP_SCREEN_MSM-02", "EorBWIxtPG2-EuibuYaLJpe");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-Ik8JJyPcQ2K");
-        map.put("PrEP_SCREEN_PWID-06", "EorBWIxtPG2-SmTngpAmqW3");
-        map.put("PrEP_SCREEN_TG_SW-01", "EorBWIxtPG2-RQIIGrbMcFp");
-        map.put("PrEP_SCREEN_PWID-08", "EorBWIxtPG2-ow8lNkkzEBr");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-PAXPnr3E0bq");
-        map.put("PrEP_SCREEN_FSW-02", "EorBWIxtPG2-LkV9MIzKs8R");
-        map.put("PrEP_SCREEN_PWID-03", "EorBWIxtPG2-nzh3CoCJGY8");
-        map.put("PrEP_SCREEN_MSW-04", "EorBWIxtPG2-qyDLjwtfCNy");
-        map.put("PrEP_SCREEN_TG_NOT_SW-01", "EorBWIxtPG2-XWsizEtBiKC");
-        map.put("PrEP_SCREEN_TG_NOT_SW-02", "EorBWIxtPG2-GrhWQaCDCQ4");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-KWKBKX5TOZn");
-        map.put("PrEP_SCREEN_TG_SW-02", "EorBWIxtPG2-FAKFHbbYrby");
-        map.put("PrEP_SCREEN_PWID-07", "EorBWIxtPG2-lQrQJYcTquG");
-        map.put("PrEP_SCREEN_TG_SW-04", "EorBWIxtPG2-hAs4V5N4bJW");
-        map.put("PrEP_SCREEN_PWID-04", "EorBWIxtPG2-OeyhGmHtEKP");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-nJevmP4V2K0");
-        map.put("PrEP_SCREEN_MSW-01", "EorBWIxtPG2-SsB5mmWsigU");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-xpXBknJgiGa");
-        map.put("PrEP_SCREEN_TG_NOT_SW-04", "EorBWIxtPG2-CDcn8cYAj0A");
-        map.put("PrEP_SCREEN_PWID-05", "EorBWIxtPG2-u2wSZLv6s7m");
-        map.put("PrEP_SCREEN_MSW-03", "EorBWIxtPG2-JrMuAKI6YlN");
-        map.put("PrEP_SCREEN_MSM-03", "EorBWIxtPG2-O1bh1C2P1E8");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-NjZP8M1crEZ");
-        map.put("PrEP_SCREEN_TG_SW-03", "EorBWIxtPG2-l0L6BfZ0L56");
-        map.put("PrEP_SCREEN_PWID-02", "EorBWIxtPG2-D1Pib2THuTj");
-        map.put("PrEP_SCREEN_MSW-02", "EorBWIxtPG2-G1GYY8G4GGU");
-        map.put("PrEP_SCREEN_PWID-01", "EorBWIxtPG2-cwsDiWLZ68M");
-        map.put("PrEP_SCREEN_MSM-04", "EorBWIxtPG2-pB7iwg7m0n7");
-        map.put("PrEP_SCREEN_TG_NOT_SW-03", "EorBWIxtPG2-t48Hbcn9Ych");
-        map.put("PrEP_SCREEN_unknown", "EorBWIxtPG2-hTS4AwHXmy4");
-        map.put("PrEP_SCREEN_FSW-04", "EorBWIxtPG2-rx6RuqMmJYh");
-        map.put("PrEP_SCREEN_FSW-03", "EorBWIxtPG2-KmdEfKbuS5M");
-        map.put("PrEP_SCREEN_MSM-01", "EorBWIxtPG2-TejGomIjzWu");
-        map.put("PrEP_SCREEN_FSW-01", "EorBWIxtPG2-IYgcWYnFZn0");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-PAXPnr3E0bq");
-        map.put("RETEST_ELIGIBLE_MSW-03", "kOmj7azOXf0-JrMuAKI6YlN");
-        map.put("RETEST_ELIGIBLE_MSM-03", "kOmj7azOXf0-O1bh1C2P1E8");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-KWKBKX5TOZn");
-        map.put("RETEST_ELIGIBLE_MSW-01", "kOmj7azOXf0-SsB5mmWsigU");
-        map.put("RETEST_ELIGIBLE_TG_NOT_SW-01", "kOmj7azOXf0-XWsizEtBiKC");
-        map.put("RETEST_ELIGIBLE_PWID-07", "kOmj7azOXf0-lQrQJYcTquG");
-        map.put("RETEST_ELIGIBLE_FSW-02", "kOmj7azOXf0-LkV9MIzKs8R");
-        map.put("RETEST_ELIGIBLE_TG_NOT_SW-04", "kOmj7azOXf0-CDcn8cYAj0A");
-        map.put("RETEST_ELIGIBLE_TG_NOT_SW-03", "kOmj7azOXf0-t48Hbcn9Ych");
-        map.put("RETEST_ELIGIBLE_TG_SW-03", "kOmj7azOXf0-l0L6BfZ0L56");
-        map.put("RETEST_ELIGIBLE_MSM-01", "kOmj7azOXf0-TejGomIjzWu");
-        map.put("RETEST_ELIGIBLE_TG_SW-02", "kOmj7azOXf0-FAKFHbbYrby");
-        map.put("RETEST_ELIGIBLE_TG_SW-04", "kOmj7azOXf0-hAs4V5N4bJW");
-        map.put("RETEST_ELIGIBLE_FSW-01", "kOmj7azOXf0-IYgcWYnFZn0");
-        map.put("RETEST_ELIGIBLE_MSW-04", "kOmj7azOXf0-qyDLjwtfCNy");
-        map.put("RETEST_ELIGIBLE_TG_SW-01", "kOmj7azOXf0-RQIIGrbMcFp");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-nJevmP4V2K0");
-        map.put("RETEST_ELIGIBLE_FSW-03", "kOmj7azOXf0-KmdEfKbuS5M");
-        map.put("RETEST_ELIGIBLE_MSM-04", "kOmj7azOXf0-pB7iwg7m0n7");
-        map.put("RETEST_ELIGIBLE_FSW-04", "kOmj7azOXf0-rx6RuqMmJYh");
-        map.put("RETEST_ELIGIBLE_TG_NOT_SW-02", "kOmj7azOXf0-GrhWQaCDCQ4");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-hTS4AwHXmy4");
-        map.put("RETEST_ELIGIBLE_PWID-04", "kOmj7azOXf0-OeyhGmHtEKP");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-NjZP8M1crEZ");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-Ik8JJyPcQ2K");
-        map.put("RETEST_ELIGIBLE_unknown", "kOmj7azOXf0-xpXBknJgiGa");
-        map.put("RETEST_ELIGIBLE_PWID-06", "kOmj7azOXf0-SmTngpAmqW3");
-        map.put("RETEST_ELIGIBLE_PWID-05", "kOmj7azOXf0-u2wSZLv6s7m");
-        map.put("RETEST_ELIGIBLE_PWID-02", "kOmj7azOXf0-D1Pib2THuTj");
-        map.put("RETEST_ELIGIBLE_PWID-03", "kOmj7azOXf0-nzh3CoCJGY8");
-        map.put("RETEST_ELIGIBLE_PWID-08", "kOmj7azOXf0-ow8lNkkzEBr");
-        map.put("RETEST_ELIGIBLE_MSW-02", "kOmj7azOXf0-G1GYY8G4GGU");
-        map.put("RETEST_ELIGIBLE_MSM-02", "kOmj7azOXf0-EuibuYaLJpe");
-        map.put("RETEST_ELIGIBLE_PWID-01", "kOmj7azOXf0-cwsDiWLZ68M");
-        map.put("RETEST_HTS_TST_TG_NOT_SW-04", "KxPBLMcMfXX-CDcn8cYAj0A");
-        map.put("RETEST_HTS_TST_PWID-03", "KxPBLMcMfXX-nzh3CoCJGY8");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-PAXPnr3E0bq");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-KWKBKX5TOZn");
-        map.put("RETEST_HTS_TST_MSM-03", "KxPBLMcMfXX-O1bh1C2P1E8");
-        map.put("RETEST_HTS_TST_TG_NOT_SW-01", "KxPBLMcMfXX-XWsizEtBiKC");
-        map.put("RETEST_HTS_TST_PWID-07", "KxPBLMcMfXX-lQrQJYcTquG");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-nJevmP4V2K0");
-        map.put("RETEST_HTS_TST_FSW-01", "KxPBLMcMfXX-IYgcWYnFZn0");
-        map.put("RETEST_HTS_TST_FSW-04", "KxPBLMcMfXX-rx6RuqMmJYh");
-        map.put("RETEST_HTS_TST_MSM-01", "KxPBLMcMfXX-TejGomIjzWu");
-        map.put("RETEST_HTS_TST_TG_NOT_SW-02", "KxPBLMcMfXX-GrhWQaCDCQ4");
-        map.put("RETEST_HTS_TST_MSW-03", "KxPBLMcMfXX-JrMuAKI6YlN");
-        map.put("RETEST_HTS_TST_FSW-03", "KxPBLMcMfXX-KmdEfKbuS5M");
-        map.put("RETEST_HTS_TST_TG_SW-04", "KxPBLMcMfXX-hAs4V5N4bJW");
-        map.put("RETEST_HTS_TST_PWID-02", "KxPBLMcMfXX-D1Pib2THuTj");
-        map.put("RETEST_HTS_TST_TG_SW-03", "KxPBLMcMfXX-l0L6BfZ0L56");
-        map.put("RETEST_HTS_TST_TG_NOT_SW-03", "KxPBLMcMfXX-t48Hbcn9Ych");
-        map.put("RETEST_HTS_TST_FSW-02", "KxPBLMcMfXX-LkV9MIzKs8R");
-        map.put("RETEST_HTS_TST_TG_SW-02", "KxPBLMcMfXX-FAKFHbbYrby");
-        map.put("RETEST_HTS_TST_MSM-04", "KxPBLMcMfXX-pB7iwg7m0n7");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-NjZP8M1crEZ");
-        map.put("RETEST_HTS_TST_MSW-04", "KxPBLMcMfXX-qyDLjwtfCNy");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-Ik8JJyPcQ2K");
-        map.put("RETEST_HTS_TST_PWID-04", "KxPBLMcMfXX-OeyhGmHtEKP");
-        map.put("RETEST_HTS_TST_TG_SW-01", "KxPBLMcMfXX-RQIIGrbMcFp");
-        map.put("RETEST_HTS_TST_MSW-01", "KxPBLMcMfXX-SsB5mmWsigU");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-hTS4AwHXmy4");
-        map.put("RETEST_HTS_TST_unknown", "KxPBLMcMfXX-xpXBknJgiGa");
-        map.put("RETEST_HTS_TST_PWID-05", "KxPBLMcMfXX-u2wSZLv6s7m");
-        map.put("RETEST_HTS_TST_PWID-08", "KxPBLMcMfXX-ow8lNkkzEBr");
-        map.put("RETEST_HTS_TST_MSM-02", "KxPBLMcMfXX-EuibuYaLJpe");
-        map.put("RETEST_HTS_TST_MSW-02", "KxPBLMcMfXX-G1GYY8G4GGU");
-        map.put("RETEST_HTS_TST_PWID-06", "KxPBLMcMfXX-SmTngpAmqW3");
-        map.put("RETEST_HTS_TST_PWID-01", "KxPBLMcMfXX-cwsDiWLZ68M");
-        map.put("RETEST_HTS_TST_POS_PWID-01", "wHTtM3KK8xt-cwsDiWLZ68M");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-nJevmP4V2K0");
-        map.put("RETEST_HTS_TST_POS_PWID-04", "wHTtM3KK8xt-OeyhGmHtEKP");
-        map.put("RETEST_HTS_TST_POS_MSW-04", "wHTtM3KK8xt-qyDLjwtfCNy");
-        map.put("RETEST_HTS_TST_POS_PWID-03", "wHTtM3KK8xt-nzh3CoCJGY8");
-        map.put("RETEST_HTS_TST_POS_FSW-02", "wHTtM3KK8xt-LkV9MIzKs8R");
-        map.put("RETEST_HTS_TST_POS_TG_NOT_SW-01", "wHTtM3KK8xt-XWsizEtBiKC");
-        map.put("RETEST_HTS_TST_POS_MSM-03", "wHTtM3KK8xt-O1bh1C2P1E8");
-        map.put("RETEST_HTS_TST_POS_PWID-05", "wHTtM3KK8xt-u2wSZLv6s7m");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-NjZP8M1crEZ");
-        map.put("RETEST_HTS_TST_POS_PWID-08", "wHTtM3KK8xt-ow8lNkkzEBr");
-        map.put("RETEST_HTS_TST_POS_TG_NOT_SW-03", "wHTtM3KK8xt-t48Hbcn9Ych");
-        map.put("RETEST_HTS_TST_POS_MSW-01", "wHTtM3KK8xt-SsB5mmWsigU");
-        map.put("RETEST_HTS_TST_POS_FSW-04", "wHTtM3KK8xt-rx6RuqMmJYh");
-        map.put("RETEST_HTS_TST_POS_TG_NOT_SW-02", "wHTtM3KK8xt-GrhWQaCDCQ4");
-        map.put("RETEST_HTS_TST_POS_MSW-02", "wHTtM3KK8xt-G1GYY8G4GGU");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-Ik8JJyPcQ2K");
-        map.put("RETEST_HTS_TST_POS_MSM-01", "wHTtM3KK8xt-TejGomIjzWu");
-        map.put("RETEST_HTS_TST_POS_TG_SW-04", "wHTtM3KK8xt-hAs4V5N4bJW");
-        map.put("RETEST_HTS_TST_POS_TG_NOT_SW-04", "wHTtM3KK8xt-CDcn8cYAj0A");
-        map.put("RETEST_HTS_TST_POS_MSM-04", "wHTtM3KK8xt-pB7iwg7m0n7");
-        map.put("RETEST_HTS_TST_POS_PWID-02", "wHTtM3KK8xt-D1Pib2THuTj");
-        map.put("RETEST_HTS_TST_POS_PWID-06", "wHTtM3KK8xt-SmTngpAmqW3");
-        map.put("RETEST_HTS_TST_POS_FSW-01", "wHTtM3KK8xt-IYgcWYnFZn0");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-KWKBKX5TOZn");
-        map.put("RETEST_HTS_TST_POS_TG_SW-02", "wHTtM3KK8xt-FAKFHbbYrby");
-        map.put("RETEST_HTS_TST_POS_TG_SW-03", "wHTtM3KK8xt-l0L6BfZ0L56");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-PAXPnr3E0bq");
-        map.put("RETEST_HTS_TST_POS_FSW-03", "wHTtM3KK8xt-KmdEfKbuS5M");
-        map.put("RETEST_HTS_TST_POS_MSM-02", "wHTtM3KK8xt-EuibuYaLJpe");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-xpXBknJgiGa");
-        map.put("RETEST_HTS_TST_POS_MSW-03", "wHTtM3KK8xt-JrMuAKI6YlN");
-        map.put("RETEST_HTS_TST_POS_PWID-07", "wHTtM3KK8xt-lQrQJYcTquG");
-        map.put("RETEST_HTS_TST_POS_unknown", "wHTtM3KK8xt-hTS4AwHXmy4");
-        map.put("RETEST_HTS_TST_POS_TG_SW-01", "wHTtM3KK8xt-RQIIGrbMcFp");
-        map.put("SENSITIZE_HCW_unknown", "U1xVxgNUWBT-HllvX50cXC0");
-        map.put("SENSITIZE_STAKEHOLDERS_unknown", "Q3XaTig88iO-HllvX50cXC0");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-PAXPnr3E0bq");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-KWKBKX5TOZn");
-        map.put("SNS_PEERS_NEGATIVE_MSM-02", "PdTi8bCu4FE-EuibuYaLJpe");
-        map.put("SNS_PEERS_NEGATIVE_TG_SW-01", "PdTi8bCu4FE-RQIIGrbMcFp");
-        map.put("SNS_PEERS_NEGATIVE_TG_NOT_SW-04", "PdTi8bCu4FE-CDcn8cYAj0A");
-        map.put("SNS_PEERS_NEGATIVE_TG_SW-02", "PdTi8bCu4FE-FAKFHbbYrby");
-        map.put("SNS_PEERS_NEGATIVE_PWID-07", "PdTi8bCu4FE-lQrQJYcTquG");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-hTS4AwHXmy4");
-        map.put("SNS_PEERS_NEGATIVE_TG_NOT_SW-03", "PdTi8bCu4FE-t48Hbcn9Ych");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-nJevmP4V2K0");
-        map.put("SNS_PEERS_NEGATIVE_FSW-03", "PdTi8bCu4FE-KmdEfKbuS5M");
-        map.put("SNS_PEERS_NEGATIVE_MSW-01", "PdTi8bCu4FE-SsB5mmWsigU");
-        map.put("SNS_PEERS_NEGATIVE_MSM-01", "PdTi8bCu4FE-TejGomIjzWu");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-xpXBknJgiGa");
-        map.put("SNS_PEERS_NEGATIVE_TG_NOT_SW-01", "PdTi8bCu4FE-XWsizEtBiKC");
-        map.put("SNS_PEERS_NEGATIVE_PWID-02", "PdTi8bCu4FE-D1Pib2THuTj");
-        map.put("SNS_PEERS_NEGATIVE_MSM-04", "PdTi8bCu4FE-pB7iwg7m0n7");
-        map.put("SNS_PEERS_NEGATIVE_MSW-02", "PdTi8bCu4FE-G1GYY8G4GGU");
-        map.put("SNS_PEERS_NEGATIVE_FSW-02", "PdTi8bCu4FE-LkV9MIzKs8R");
-        map.put("SNS_PEERS_NEGATIVE_FSW-04", "PdTi8bCu4FE-rx6RuqMmJYh");
-        map.put("SNS_PEERS_NEGATIVE_TG_NOT_SW-02", "PdTi8bCu4FE-GrhWQaCDCQ4");
-        map.put("SNS_PEERS_NEGATIVE_PWID-03", "PdTi8bCu4FE-nzh3CoCJGY8");
-        map.put("SNS_PEERS_NEGATIVE_MSM-03", "PdTi8bCu4FE-O1bh1C2P1E8");
-        map.put("SNS_PEERS_NEGATIVE_PWID-08", "PdTi8bCu4FE-ow8lNkkzEBr");
-        map.put("SNS_PEERS_NEGATIVE_PWID-06", "PdTi8bCu4FE-SmTngpAmqW3");
-        map.put("SNS_PEERS_NEGATIVE_TG_SW-04", "PdTi8bCu4FE-hAs4V5N4bJW");
-        map.put("SNS_PEERS_NEGATIVE_MSW-03", "PdTi8bCu4FE-JrMuAKI6YlN");
-        map.put("SNS_PEERS_NEGATIVE_MSW-04", "PdTi8bCu4FE-qyDLjwtfCNy");
-        map.put("SNS_PEERS_NEGATIVE_FSW-01", "PdTi8bCu4FE-IYgcWYnFZn0");
-        map.put("SNS_PEERS_NEGATIVE_PWID-01", "PdTi8bCu4FE-cwsDiWLZ68M");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-NjZP8M1crEZ");
-        map.put("SNS_PEERS_NEGATIVE_unknown", "PdTi8bCu4FE-Ik8JJyPcQ2K");
-        map.put("SNS_PEERS_NEGATIVE_PWID-05", "PdTi8bCu4FE-u2wSZLv6s7m");
-        map.put("SNS_PEERS_NEGATIVE_PWID-04", "PdTi8bCu4FE-OeyhGmHtEKP");
-        map.put("SNS_PEERS_NEGATIVE_TG_SW-03", "PdTi8bCu4FE-l0L6BfZ0L56");
-        map.put("SNS_PEERS_POSITIVE_PWID-03", "U4YZcWJjsGj-nzh3CoCJGY8");
-        map.put("SNS_PEERS_POSITIVE_TG_SW-02", "U4YZcWJjsGj-FAKFHbbYrby");
-        map.put("SNS_PEERS_POSITIVE_PWID-08", "U4YZcWJjsGj-ow8lNkkzEBr");
-        map.put("SNS_PEERS_POSITIVE_TG_NOT_SW-04", "U4YZcWJjsGj-CDcn8cYAj0A");
-        map.put("SNS_PEERS_POSITIVE_MSM-04", "U4YZcWJjsGj-pB7iwg7m0n7");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-Ik8JJyPcQ2K");
-        map.put("SNS_PEERS_POSITIVE_MSM-01", "U4YZcWJjsGj-TejGomIjzWu");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-hTS4AwHXmy4");
-        map.put("SNS_PEERS_POSITIVE_TG_NOT_SW-01", "U4YZcWJjsGj-XWsizEtBiKC");
-        map.put("SNS_PEERS_POSITIVE_FSW-02", "U4YZcWJjsGj-LkV9MIzKs8R");
-        map.put("SNS_PEERS_POSITIVE_MSM-03", "U4YZcWJjsGj-O1bh1C2P1E8");
-        map.put("SNS_PEERS_POSITIVE_PWID-05", "U4YZcWJjsGj-u2wSZLv6s7m");
-        map.put("SNS_PEERS_POSITIVE_TG_SW-04", "U4YZcWJjsGj-hAs4V5N4bJW");
-        map.put("SNS_PEERS_POSITIVE_PWID-02", "U4YZcWJjsGj-D1Pib2THuTj");
-        map.put("SNS_PEERS_POSITIVE_MSW-01", "U4YZcWJjsGj-SsB5mmWsigU");
-        map.put("SNS_PEERS_POSITIVE_FSW-01", "U4YZcWJjsGj-IYgcWYnFZn0");
-        map.put("SNS_PEERS_POSITIVE_PWID-07", "U4YZcWJjsGj-lQrQJYcTquG");
-        map.put("SNS_PEERS_POSITIVE_MSM-02", "U4YZcWJjsGj-EuibuYaLJpe");
-        map.put("SNS_PEERS_POSITIVE_FSW-04", "U4YZcWJjsGj-rx6RuqMmJYh");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-PAXPnr3E0bq");
-        map.put("SNS_PEERS_POSITIVE_TG_NOT_SW-03", "U4YZcWJjsGj-t48Hbcn9Ych");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-nJevmP4V2K0");
-        map.put("SNS_PEERS_POSITIVE_FSW-03", "U4YZcWJjsGj-KmdEfKbuS5M");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-KWKBKX5TOZn");
-        map.put("SNS_PEERS_POSITIVE_TG_SW-03", "U4YZcWJjsGj-l0L6BfZ0L56");
-        map.put("SNS_PEERS_POSITIVE_PWID-01", "U4YZcWJjsGj-cwsDiWLZ68M");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-xpXBknJgiGa");
-        map.put("SNS_PEERS_POSITIVE_PWID-04", "U4YZcWJjsGj-OeyhGmHtEKP");
-        map.put("SNS_PEERS_POSITIVE_TG_SW-01", "U4YZcWJjsGj-RQIIGrbMcFp");
-        map.put("SNS_PEERS_POSITIVE_MSW-03", "U4YZcWJjsGj-JrMuAKI6YlN");
-        map.put("SNS_PEERS_POSITIVE_MSW-04", "U4YZcWJjsGj-qyDLjwtfCNy");
-        map.put("SNS_PEERS_POSITIVE_MSW-02", "U4YZcWJjsGj-G1GYY8G4GGU");
-        map.put("SNS_PEERS_POSITIVE_PWID-06", "U4YZcWJjsGj-SmTngpAmqW3");
-        map.put("SNS_PEERS_POSITIVE_TG_NOT_SW-02", "U4YZcWJjsGj-GrhWQaCDCQ4");
-        map.put("SNS_PEERS_POSITIVE_unknown", "U4YZcWJjsGj-NjZP8M1crEZ");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-hTS4AwHXmy4");
-        map.put("SNS_SEED_NEGATIVE_PWID-06", "SSxNRgFX0KG-SmTngpAmqW3");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-nJevmP4V2K0");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-KWKBKX5TOZn");
-        map.put("SNS_SEED_NEGATIVE_TG_SW-02", "SSxNRgFX0KG-FAKFHbbYrby");
-        map.put("SNS_SEED_NEGATIVE_TG_SW-01", "SSxNRgFX0KG-RQIIGrbMcFp");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-Ik8JJyPcQ2K");
-        map.put("SNS_SEED_NEGATIVE_PWID-07", "SSxNRgFX0KG-lQrQJYcTquG");
-        map.put("SNS_SEED_NEGATIVE_FSW-02", "SSxNRgFX0KG-LkV9MIzKs8R");
-        map.put("SNS_SEED_NEGATIVE_PWID-08", "SSxNRgFX0KG-ow8lNkkzEBr");
-        map.put("SNS_SEED_NEGATIVE_FSW-03", "SSxNRgFX0KG-KmdEfKbuS5M");
-        map.put("SNS_SEED_NEGATIVE_PWID-02", "SSxNRgFX0KG-D1Pib2THuTj");
-        map.put("SNS_SEED_NEGATIVE_TG_SW-03", "SSxNRgFX0KG-l0L6BfZ0L56");
-        map.put("SNS_SEED_NEGATIVE_TG_NOT_SW-01", "SSxNRgFX0KG-XWsizEtBiKC");
-        map.put("SNS_SEED_NEGATIVE_MSM-03", "SSxNRgFX0KG-O1bh1C2P1E8");
-        map.put("SNS_SEED_NEGATIVE_MSW-02", "SSxNRgFX0KG-G1GYY8G4GGU");
-        map.put("SNS_SEED_NEGATIVE_MSW-04", "SSxNRgFX0KG-qyDLjwtfCNy");
-        map.put("SNS_SEED_NEGATIVE_FSW-01", "SSxNRgFX0KG-IYgcWYnFZn0");
-        map.put("SNS_SEED_NEGATIVE_MSW-01", "SSxNRgFX0KG-SsB5mmWsigU");
-        map.put("SNS_SEED_NEGATIVE_TG_NOT_SW-03", "SSxNRgFX0KG-t48Hbcn9Ych");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-PAXPnr3E0bq");
-        map.put("SNS_SEED_NEGATIVE_MSM-01", "SSxNRgFX0KG-TejGomIjzWu");
-        map.put("SNS_SEED_NEGATIVE_FSW-04", "SSxNRgFX0KG-rx6RuqMmJYh");
-        map.put("SNS_SEED_NEGATIVE_MSM-04", "SSxNRgFX0KG-pB7iwg7m0n7");
-        map.put("SNS_SEED_NEGATIVE_TG_NOT_SW-02", "SSxNRgFX0KG-GrhWQaCDCQ4");
-        map.put("SNS_SEED_NEGATIVE_PWID-04", "SSxNRgFX0KG-OeyhGmHtEKP");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-NjZP8M1crEZ");
-        map.put("SNS_SEED_NEGATIVE_unknown", "SSxNRgFX0KG-xpXBknJgiGa");
-        map.put("SNS_SEED_NEGATIVE_PWID-01", "SSxNRgFX0KG-cwsDiWLZ68M");
-        map.put("SNS_SEED_NEGATIVE_TG_NOT_SW-04", "SSxNRgFX0KG-CDcn8cYAj0A");
-        map.put("SNS_SEED_NEGATIVE_TG_SW-04", "SSxNRgFX0KG-hAs4V5N4bJW");
-        map.put("SNS_SEED_NEGATIVE_PWID-03", "SSxNRgFX0KG-nzh3CoCJGY8");
-        map.put("SNS_SEED_NEGATIVE_PWID-05", "SSxNRgFX0KG-u2wSZLv6s7m");
-        map.put("SNS_SEED_NEGATIVE_MSM-02", "SSxNRgFX0KG-EuibuYaLJpe");
-        map.put("SNS_SEED_NEGATIVE_MSW-03", "SSxNRgFX0KG-JrMuAKI6YlN");
-        map.put("SNS_SEED_POSITIVE_PWID-01", "CugWAGLhlXf-cwsDiWLZ68M");
-        map.put("SNS_SEED_POSITIVE_TG_NOT_SW-04", "CugWAGLhlXf-CDcn8cYAj0A");
-        map.put("SNS_SEED_POSITIVE_MSM-02", "CugWAGLhlXf-EuibuYaLJpe");
-        map.put("SNS_SEED_POSITIVE_MSW-03", "CugWAGLhlXf-JrMuAKI6YlN");
-        map.put("SNS_SEED_POSITIVE_PWID-05", "CugWAGLhlXf-u2wSZLv6s7m");
-        map.put("SNS_SEED_POSITIVE_PWID-02", "CugWAGLhlXf-D1Pib2THuTj");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-NjZP8M1crEZ");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-xpXBknJgiGa");
-        map.put("SNS_SEED_POSITIVE_PWID-03", "CugWAGLhlXf-nzh3CoCJGY8");
-        map.put("SNS_SEED_POSITIVE_PWID-08", "CugWAGLhlXf-ow8lNkkzEBr");
-        map.put("SNS_SEED_POSITIVE_PWID-06", "CugWAGLhlXf-SmTngpAmqW3");
-        map.put("SNS_SEED_POSITIVE_TG_SW-02", "CugWAGLhlXf-FAKFHbbYrby");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-hTS4AwHXmy4");
-        map.put("SNS_SEED_POSITIVE_MSW-04", "CugWAGLhlXf-qyDLjwtfCNy");
-        map.put("SNS_SEED_POSITIVE_TG_SW-03", "CugWAGLhlXf-l0L6BfZ0L56");
-        map.put("SNS_SEED_POSITIVE_MSM-03", "CugWAGLhlXf-O1bh1C2P1E8");
-        map.put("SNS_SEED_POSITIVE_MSW-02", "CugWAGLhlXf-G1GYY8G4GGU");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-Ik8JJyPcQ2K");
-        map.put("SNS_SEED_POSITIVE_PWID-04", "CugWAGLhlXf-OeyhGmHtEKP");
-        map.put("SNS_SEED_POSITIVE_MSM-04", "CugWAGLhlXf-pB7iwg7m0n7");
-        map.put("SNS_SEED_POSITIVE_TG_SW-04", "CugWAGLhlXf-hAs4V5N4bJW");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-KWKBKX5TOZn");
-        map.put("SNS_SEED_POSITIVE_PWID-07", "CugWAGLhlXf-lQrQJYcTquG");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-PAXPnr3E0bq");
-        map.put("SNS_SEED_POSITIVE_TG_SW-01", "CugWAGLhlXf-RQIIGrbMcFp");
-        map.put("SNS_SEED_POSITIVE_unknown", "CugWAGLhlXf-nJevmP4V2K0");
-        map.put("SNS_SEED_POSITIVE_MSW-01", "CugWAGLhlXf-SsB5mmWsigU");
-        map.put("SNS_SEED_POSITIVE_TG_NOT_SW-01", "CugWAGLhlXf-XWsizEtBiKC");
-        map.put("SNS_SEED_POSITIVE_FSW-02", "CugWAGLhlXf-LkV9MIzKs8R");
-        map.put("SNS_SEED_POSITIVE_TG_NOT_SW-03", "CugWAGLhlXf-t48Hbcn9Ych");
-        map.put("SNS_SEED_POSITIVE_FSW-03", "CugWAGLhlXf-KmdEfKbuS5M");
-        map.put("SNS_SEED_POSITIVE_FSW-04", "CugWAGLhlXf-rx6RuqMmJYh");
-        map.put("SNS_SEED_POSITIVE_TG_NOT_SW-02", "CugWAGLhlXf-GrhWQaCDCQ4");
-        map.put("SNS_SEED_POSITIVE_FSW-01", "CugWAGLhlXf-IYgcWYnFZn0");
-        map.put("SNS_SEED_POSITIVE_MSM-01", "CugWAGLhlXf-TejGomIjzWu");
-        map.put("STI_SCREEN_TG_SW-01", "D1UmxuQdovX-RQIIGrbMcFp");
-        map.put("STI_SCREEN_MSW-03", "D1UmxuQdovX-JrMuAKI6YlN");
-        map.put("STI_SCREEN_PWID-06", "D1UmxuQdovX-SmTngpAmqW3");
-        map.put("STI_SCREEN_TG_NOT_SW-04", "D1UmxuQdovX-CDcn8cYAj0A");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-PAXPnr3E0bq");
-        map.put("STI_SCREEN_TG_NOT_SW-01", "D1UmxuQdovX-XWsizEtBiKC");
-        map.put("STI_SCREEN_PWID-03", "D1UmxuQdovX-nzh3CoCJGY8");
-        map.put("STI_SCREEN_MSM-02", "D1UmxuQdovX-EuibuYaLJpe");
-        map.put("STI_SCREEN_PWID-07", "D1UmxuQdovX-lQrQJYcTquG");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-hTS4AwHXmy4");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-xpXBknJgiGa");
-        map.put("STI_SCREEN_PWID-01", "D1UmxuQdovX-cwsDiWLZ68M");
-        map.put("STI_SCREEN_TG_SW-03", "D1UmxuQdovX-l0L6BfZ0L56");
-        map.put("STI_SCREEN_PWID-08", "D1UmxuQdovX-ow8lNkkzEBr");
-        map.put("STI_SCREEN_TG_SW-02", "D1UmxuQdovX-FAKFHbbYrby");
-        map.put("STI_SCREEN_PWID-05", "D1UmxuQdovX-u2wSZLv6s7m");
-        map.put("STI_SCREEN_MSW-04", "D1UmxuQdovX-qyDLjwtfCNy");
-        map.put("STI_SCREEN_MSW-02", "D1UmxuQdovX-G1GYY8G4GGU");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-NjZP8M1crEZ");
-        map.put("STI_SCREEN_PWID-04", "D1UmxuQdovX-OeyhGmHtEKP");
-        map.put("STI_SCREEN_FSW-03", "D1UmxuQdovX-KmdEfKbuS5M");
-        map.put("STI_SCREEN_MSM-01", "D1UmxuQdovX-TejGomIjzWu");
-        map.put("STI_SCREEN_FSW-01", "D1UmxuQdovX-IYgcWYnFZn0");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-Ik8JJyPcQ2K");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-KWKBKX5TOZn");
-        map.put("STI_SCREEN_MSM-03", "D1UmxuQdovX-O1bh1C2P1E8");
-        map.put("STI_SCREEN_PWID-02", "D1UmxuQdovX-D1Pib2THuTj");
-        map.put("STI_SCREEN_TG_SW-04", "D1UmxuQdovX-hAs4V5N4bJW");
-        map.put("STI_SCREEN_TG_NOT_SW-02", "D1UmxuQdovX-GrhWQaCDCQ4");
-        map.put("STI_SCREEN_FSW-04", "D1UmxuQdovX-rx6RuqMmJYh");
-        map.put("STI_SCREEN_unknown", "D1UmxuQdovX-nJevmP4V2K0");
-        map.put("STI_SCREEN_MSM-04", "D1UmxuQdovX-pB7iwg7m0n7");
-        map.put("STI_SCREEN_FSW-02", "D1UmxuQdovX-LkV9MIzKs8R");
-        map.put("STI_SCREEN_MSW-01", "D1UmxuQdovX-SsB5mmWsigU");
-        map.put("STI_SCREEN_TG_NOT_SW-03", "D1UmxuQdovX-t48Hbcn9Ych");
-        map.put("STI_SCREEN_POS_TG_NOT_SW-02", "cccAY22KB4P-GrhWQaCDCQ4");
-        map.put("STI_SCREEN_POS_FSW-03", "cccAY22KB4P-KmdEfKbuS5M");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-xpXBknJgiGa");
-        map.put("STI_SCREEN_POS_PWID-02", "cccAY22KB4P-D1Pib2THuTj");
-        map.put("STI_SCREEN_POS_MSM-01", "cccAY22KB4P-TejGomIjzWu");
-        map.put("STI_SCREEN_POS_TG_NOT_SW-01", "cccAY22KB4P-XWsizEtBiKC");
-        map.put("STI_SCREEN_POS_TG_SW-02", "cccAY22KB4P-FAKFHbbYrby");
-        map.put("STI_SCREEN_POS_PWID-03", "cccAY22KB4P-nzh3CoCJGY8");
-        map.put("STI_SCREEN_POS_MSM-04", "cccAY22KB4P-pB7iwg7m0n7");
-        map.put("STI_SCREEN_POS_MSM-02", "cccAY22KB4P-EuibuYaLJpe");
-        map.put("STI_SCREEN_POS_FSW-04", "cccAY22KB4P-rx6RuqMmJYh");
-        map.put("STI_SCREEN_POS_FSW-01", "cccAY22KB4P-IYgcWYnFZn0");
-        map.put("STI_SCREEN_POS_FSW-02", "cccAY22KB4P-LkV9MIzKs8R");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-nJevmP4V2K0");
-        map.put("STI_SCREEN_POS_MSW-04", "cccAY22KB4P-qyDLjwtfCNy");
-        map.put("STI_SCREEN_POS_TG_SW-01", "cccAY22KB4P-RQIIGrbMcFp");
-        map.put("STI_SCREEN_POS_TG_NOT_SW-03", "cccAY22KB4P-t48Hbcn9Ych");
-        map.put("STI_SCREEN_POS_MSM-03", "cccAY22KB4P-O1bh1C2P1E8");
-        map.put("STI_SCREEN_POS_PWID-08", "cccAY22KB4P-ow8lNkkzEBr");
-        map.put("STI_SCREEN_POS_PWID-01", "cccAY22KB4P-cwsDiWLZ68M");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-Ik8JJyPcQ2K");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-PAXPnr3E0bq");
-        map.put("STI_SCREEN_POS_MSW-01", "cccAY22KB4P-SsB5mmWsigU");
-        map.put("STI_SCREEN_POS_TG_NOT_SW-04", "cccAY22KB4P-CDcn8cYAj0A");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-hTS4AwHXmy4");
-        map.put("STI_SCREEN_POS_MSW-02", "cccAY22KB4P-G1GYY8G4GGU");
-        map.put("STI_SCREEN_POS_PWID-05", "cccAY22KB4P-u2wSZLv6s7m");
-        map.put("STI_SCREEN_POS_PWID-06", "cccAY22KB4P-SmTngpAmqW3");
-        map.put("STI_SCREEN_POS_MSW-03", "cccAY22KB4P-JrMuAKI6YlN");
-        map.put("STI_SCREEN_POS_TG_SW-04", "cccAY22KB4P-hAs4V5N4bJW");
-        map.put("STI_SCREEN_POS_PWID-07", "cccAY22KB4P-lQrQJYcTquG");
-        map.put("STI_SCREEN_POS_PWID-04", "cccAY22KB4P-OeyhGmHtEKP");
-        map.put("STI_SCREEN_POS_TG_SW-03", "cccAY22KB4P-l0L6BfZ0L56");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-NjZP8M1crEZ");
-        map.put("STI_SCREEN_POS_unknown", "cccAY22KB4P-KWKBKX5TOZn");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-Ik8JJyPcQ2K");
-        map.put("STI_TX_PWID-05", "EbkN2jKcxym-u2wSZLv6s7m");
-        map.put("STI_TX_FSW-03", "EbkN2jKcxym-KmdEfKbuS5M");
-        map.put("STI_TX_TG_SW-03", "EbkN2jKcxym-l0L6BfZ0L56");
-        map.put("STI_TX_PWID-06", "EbkN2jKcxym-SmTngpAmqW3");
-        map.put("STI_TX_PWID-02", "EbkN2jKcxym-D1Pib2THuTj");
-        map.put("STI_TX_FSW-04", "EbkN2jKcxym-rx6RuqMmJYh");
-        map.put("STI_TX_PWID-04", "EbkN2jKcxym-OeyhGmHtEKP");
-        map.put("STI_TX_MSW-01", "EbkN2jKcxym-SsB5mmWsigU");
-        map.put("STI_TX_MSM-02", "EbkN2jKcxym-EuibuYaLJpe");
-        map.put("STI_TX_MSM-04", "EbkN2jKcxym-pB7iwg7m0n7");
-        map.put("STI_TX_TG_NOT_SW-03", "EbkN2jKcxym-t48Hbcn9Ych");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-KWKBKX5TOZn");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-nJevmP4V2K0");
-        map.put("STI_TX_PWID-01", "EbkN2jKcxym-cwsDiWLZ68M");
-        map.put("STI_TX_PWID-03", "EbkN2jKcxym-nzh3CoCJGY8");
-        map.put("STI_TX_MSM-01", "EbkN2jKcxym-TejGomIjzWu");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-xpXBknJgiGa");
-        map.put("STI_TX_FSW-01", "EbkN2jKcxym-IYgcWYnFZn0");
-        map.put("STI_TX_TG_SW-04", "EbkN2jKcxym-hAs4V5N4bJW");
-        map.put("STI_TX_MSM-03", "EbkN2jKcxym-O1bh1C2P1E8");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-NjZP8M1crEZ");
-        map.put("STI_TX_MSW-02", "EbkN2jKcxym-G1GYY8G4GGU");
-        map.put("STI_TX_TG_SW-02", "EbkN2jKcxym-FAKFHbbYrby");
-        map.put("STI_TX_MSW-04", "EbkN2jKcxym-qyDLjwtfCNy");
-        map.put("STI_TX_FSW-02", "EbkN2jKcxym-LkV9MIzKs8R");
-        map.put("STI_TX_PWID-08", "EbkN2jKcxym-ow8lNkkzEBr");
-        map.put("STI_TX_TG_NOT_SW-04", "EbkN2jKcxym-CDcn8cYAj0A");
-        map.put("STI_TX_TG_NOT_SW-01", "EbkN2jKcxym-XWsizEtBiKC");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-hTS4AwHXmy4");
-        map.put("STI_TX_MSW-03", "EbkN2jKcxym-JrMuAKI6YlN");
-        map.put("STI_TX_TG_SW-01", "EbkN2jKcxym-RQIIGrbMcFp");
-        map.put("STI_TX_unknown", "EbkN2jKcxym-PAXPnr3E0bq");
-        map.put("STI_TX_PWID-07", "EbkN2jKcxym-lQrQJYcTquG");
-        map.put("STI_TX_TG_NOT_SW-02", "EbkN2jKcxym-GrhWQaCDCQ4");
-        map.put("SUPPORT_GROUPS_MSM-01", "zfiXKEUJgR8-TejGomIjzWu");
-        map.put("SUPPORT_GROUPS_FSW-04", "zfiXKEUJgR8-rx6RuqMmJYh");
-        map.put("SUPPORT_GROUPS_MSM-04", "zfiXKEUJgR8-pB7iwg7m0n7");
-        map.put("SUPPORT_GROUPS_MSM-03", "zfiXKEUJgR8-O1bh1C2P1E8");
-        map.put("SUPPORT_GROUPS_FSW-01", "zfiXKEUJgR8-IYgcWYnFZn0");
-        map.put("SUPPORT_GROUPS_TG_SW-03", "zfiXKEUJgR8-l0L6BfZ0L56");
-        map.put("SUPPORT_GROUPS_TG_SW-04", "zfiXKEUJgR8-hAs4V5N4bJW");
-        map.put("SUPPORT_GROUPS_PWID-04", "zfiXKEUJgR8-OeyhGmHtEKP");
-        map.put("SUPPORT_GROUPS_FSW-03", "zfiXKEUJgR8-KmdEfKbuS5M");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-NjZP8M1crEZ");
-        map.put("SUPPORT_GROUPS_PWID-05", "zfiXKEUJgR8-u2wSZLv6s7m");
-        map.put("SUPPORT_GROUPS_TG_NOT_SW-02", "zfiXKEUJgR8-GrhWQaCDCQ4");
-        map.put("SUPPORT_GROUPS_TG_NOT_SW-03", "zfiXKEUJgR8-t48Hbcn9Ych");
-        map.put("SUPPORT_GROUPS_MSW-03", "zfiXKEUJgR8-JrMuAKI6YlN");
-        map.put("SUPPORT_GROUPS_FSW-02", "zfiXKEUJgR8-LkV9MIzKs8R");
-        map.put("SUPPORT_GROUPS_PWID-01", "zfiXKEUJgR8-cwsDiWLZ68M");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-KWKBKX5TOZn");
-        map.put("SUPPORT_GROUPS_MSW-01", "zfiXKEUJgR8-SsB5mmWsigU");
-        map.put("SUPPORT_GROUPS_PWID-07", "zfiXKEUJgR8-lQrQJYcTquG");
-        map.put("SUPPORT_GROUPS_TG_SW-01", "zfiXKEUJgR8-RQIIGrbMcFp");
-        map.put("SUPPORT_GROUPS_PWID-03", "zfiXKEUJgR8-nzh3CoCJGY8");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-hTS4AwHXmy4");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-PAXPnr3E0bq");
-        map.put("SUPPORT_GROUPS_TG_SW-02", "zfiXKEUJgR8-FAKFHbbYrby");
-        map.put("SUPPORT_GROUPS_PWID-06", "zfiXKEUJgR8-SmTngpAmqW3");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-Ik8JJyPcQ2K");
-        map.put("SUPPORT_GROUPS_PWID-08", "zfiXKEUJgR8-ow8lNkkzEBr");
-        map.put("SUPPORT_GROUPS_MSW-04", "zfiXKEUJgR8-qyDLjwtfCNy");
-        map.put("SUPPORT_GROUPS_PWID-02", "zfiXKEUJgR8-D1Pib2THuTj");
-        map.put("SUPPORT_GROUPS_TG_NOT_SW-04", "zfiXKEUJgR8-CDcn8cYAj0A");
-        map.put("SUPPORT_GROUPS_MSW-02", "zfiXKEUJgR8-G1GYY8G4GGU");
-        map.put("SUPPORT_GROUPS_TG_NOT_SW-01", "zfiXKEUJgR8-XWsizEtBiKC");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-xpXBknJgiGa");
-        map.put("SUPPORT_GROUPS_unknown", "zfiXKEUJgR8-nJevmP4V2K0");
-        map.put("SUPPORT_GROUPS_MSM-02", "zfiXKEUJgR8-EuibuYaLJpe");
-        map.put("SUPPORT_GRP_MTGS_unknown", "wAlXi986zA8-HllvX50cXC0");
-        map.put("TX_CURR_DICE_TG_SW-03", "bVnurJnr7SM-l0L6BfZ0L56");
-        map.put("TX_CURR_DICE_MSM-04", "bVnurJnr7SM-pB7iwg7m0n7");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-NjZP8M1crEZ");
-        map.put("TX_CURR_DICE_TG_NOT_SW-04", "bVnurJnr7SM-CDcn8cYAj0A");
-        map.put("TX_CURR_DICE_PWID-08", "bVnurJnr7SM-ow8lNkkzEBr");
-        map.put("TX_CURR_DICE_TG_SW-01", "bVnurJnr7SM-RQIIGrbMcFp");
-        map.put("TX_CURR_DICE_MSM-01", "bVnurJnr7SM-TejGomIjzWu");
-        map.put("TX_CURR_DICE_FSW-03", "bVnurJnr7SM-KmdEfKbuS5M");
-        map.put("TX_CURR_DICE_FSW-02", "bVnurJnr7SM-LkV9MIzKs8R");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-KWKBKX5TOZn");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-PAXPnr3E0bq");
-        map.put("TX_CURR_DICE_MSW-03", "bVnurJnr7SM-JrMuAKI6YlN");
-        map.put("TX_CURR_DICE_MSM-03", "bVnurJnr7SM-O1bh1C2P1E8");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-hTS4AwHXmy4");
-        map.put("TX_CURR_DICE_FSW-01", "bVnurJnr7SM-IYgcWYnFZn0");
-        map.put("TX_CURR_DICE_PWID-04", "bVnurJnr7SM-OeyhGmHtEKP");
-        map.put("TX_CURR_DICE_TG_SW-04", "bVnurJnr7SM-hAs4V5N4bJW");
-        map.put("TX_CURR_DICE_TG_NOT_SW-03", "bVnurJnr7SM-t48Hbcn9Ych");
-        map.put("TX_CURR_DICE_TG_NOT_SW-02", "bVnurJnr7SM-GrhWQaCDCQ4");
-        map.put("TX_CURR_DICE_PWID-07", "bVnurJnr7SM-lQrQJYcTquG");
-        map.put("TX_CURR_DICE_PWID-05", "bVnurJnr7SM-u2wSZLv6s7m");
-        map.put("TX_CURR_DICE_PWID-03", "bVnurJnr7SM-nzh3CoCJGY8");
-        map.put("TX_CURR_DICE_MSW-04", "bVnurJnr7SM-qyDLjwtfCNy");
-        map.put("TX_CURR_DICE_FSW-04", "bVnurJnr7SM-rx6RuqMmJYh");
-        map.put("TX_CURR_DICE_MSW-02", "bVnurJnr7SM-G1GYY8G4GGU");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-Ik8JJyPcQ2K");
-        map.put("TX_CURR_DICE_PWID-06", "bVnurJnr7SM-SmTngpAmqW3");
-        map.put("TX_CURR_DICE_TG_SW-02", "bVnurJnr7SM-FAKFHbbYrby");
-        map.put("TX_CURR_DICE_PWID-01", "bVnurJnr7SM-cwsDiWLZ68M");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-nJevmP4V2K0");
-        map.put("TX_CURR_DICE_PWID-02", "bVnurJnr7SM-D1Pib2THuTj");
-        map.put("TX_CURR_DICE_MSW-01", "bVnurJnr7SM-SsB5mmWsigU");
-        map.put("TX_CURR_DICE_unknown", "bVnurJnr7SM-xpXBknJgiGa");
-        map.put("TX_CURR_DICE_TG_NOT_SW-01", "bVnurJnr7SM-XWsizEtBiKC");
-        map.put("TX_CURR_DICE_MSM-02", "bVnurJnr7SM-EuibuYaLJpe");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSM-02", "UG1nFQQ7Yz2-EuibuYaLJpe");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSM-04", "UG1nFQQ7Yz2-pB7iwg7m0n7");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-04", "UG1nFQQ7Yz2-CDcn8cYAj0A");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-03", "UG1nFQQ7Yz2-nzh3CoCJGY8");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-nJevmP4V2K0");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSW-01", "UG1nFQQ7Yz2-SsB5mmWsigU");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-03", "UG1nFQQ7Yz2-t48Hbcn9Ych");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-01", "UG1nFQQ7Yz2-RQIIGrbMcFp");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-04", "UG1nFQQ7Yz2-hAs4V5N4bJW");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-03", "UG1nFQQ7Yz2-l0L6BfZ0L56");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-05", "UG1nFQQ7Yz2-u2wSZLv6s7m");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-01", "UG1nFQQ7Yz2-cwsDiWLZ68M");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSW-03", "UG1nFQQ7Yz2-JrMuAKI6YlN");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-01", "UG1nFQQ7Yz2-XWsizEtBiKC");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-02", "UG1nFQQ7Yz2-D1Pib2THuTj");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_SW-02", "UG1nFQQ7Yz2-FAKFHbbYrby");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-NjZP8M1crEZ");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-08", "UG1nFQQ7Yz2-ow8lNkkzEBr");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSW-04", "UG1nFQQ7Yz2-qyDLjwtfCNy");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-06", "UG1nFQQ7Yz2-SmTngpAmqW3");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSM-03", "UG1nFQQ7Yz2-O1bh1C2P1E8");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-KWKBKX5TOZn");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-xpXBknJgiGa");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-Ik8JJyPcQ2K");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-04", "UG1nFQQ7Yz2-OeyhGmHtEKP");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSW-02", "UG1nFQQ7Yz2-G1GYY8G4GGU");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_MSM-01", "UG1nFQQ7Yz2-TejGomIjzWu");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_FSW-03", "UG1nFQQ7Yz2-KmdEfKbuS5M");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_FSW-04", "UG1nFQQ7Yz2-rx6RuqMmJYh");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_PWID-07", "UG1nFQQ7Yz2-lQrQJYcTquG");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-hTS4AwHXmy4");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_FSW-01", "UG1nFQQ7Yz2-IYgcWYnFZn0");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-02", "UG1nFQQ7Yz2-GrhWQaCDCQ4");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_unknown", "UG1nFQQ7Yz2-PAXPnr3E0bq");
-        map.put("TX_CURR_VERIFY_NON_PEPFAR_SITE_FSW-02", "UG1nFQQ7Yz2-LkV9MIzKs8R");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-05", "mKinaTjSI8O-u2wSZLv6s7m");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_SW-03", "mKinaTjSI8O-l0L6BfZ0L56");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSM-01", "mKinaTjSI8O-TejGomIjzWu");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-04", "mKinaTjSI8O-OeyhGmHtEKP");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_FSW-03", "mKinaTjSI8O-KmdEfKbuS5M");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "mKinaTjSI8O-XWsizEtBiKC");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_SW-02", "mKinaTjSI8O-FAKFHbbYrby");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "mKinaTjSI8O-GrhWQaCDCQ4");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-PAXPnr3E0bq");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-01", "mKinaTjSI8O-cwsDiWLZ68M");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_FSW-02", "mKinaTjSI8O-LkV9MIzKs8R");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-nJevmP4V2K0");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-NjZP8M1crEZ");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSW-02", "mKinaTjSI8O-G1GYY8G4GGU");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-hTS4AwHXmy4");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-07", "mKinaTjSI8O-lQrQJYcTquG");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-06", "mKinaTjSI8O-SmTngpAmqW3");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSM-02", "mKinaTjSI8O-EuibuYaLJpe");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_SW-04", "mKinaTjSI8O-hAs4V5N4bJW");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-KWKBKX5TOZn");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-xpXBknJgiGa");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-02", "mKinaTjSI8O-D1Pib2THuTj");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_unknown", "mKinaTjSI8O-Ik8JJyPcQ2K");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSM-03", "mKinaTjSI8O-O1bh1C2P1E8");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSW-03", "mKinaTjSI8O-JrMuAKI6YlN");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-03", "mKinaTjSI8O-nzh3CoCJGY8");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "mKinaTjSI8O-CDcn8cYAj0A");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_PWID-08", "mKinaTjSI8O-ow8lNkkzEBr");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSW-04", "mKinaTjSI8O-qyDLjwtfCNy");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_FSW-04", "mKinaTjSI8O-rx6RuqMmJYh");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "mKinaTjSI8O-t48Hbcn9Ych");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSM-04", "mKinaTjSI8O-pB7iwg7m0n7");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_FSW-01", "mKinaTjSI8O-IYgcWYnFZn0");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_MSW-01", "mKinaTjSI8O-SsB5mmWsigU");
-        map.put("TX_CURR_VERIFY_PEPFAR_SITE_TG_SW-01", "mKinaTjSI8O-RQIIGrbMcFp");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-KWKBKX5TOZn");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-Ik8JJyPcQ2K");
-        map.put("TX_LTFU_RECENT_TG_SW-04", "aFEeprnyU6w-hAs4V5N4bJW");
-        map.put("TX_LTFU_RECENT_MSM-02", "aFEeprnyU6w-EuibuYaLJpe");
-        map.put("TX_LTFU_RECENT_PWID-06", "aFEeprnyU6w-SmTngpAmqW3");
-        map.put("TX_LTFU_RECENT_PWID-07", "aFEeprnyU6w-lQrQJYcTquG");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-hTS4AwHXmy4");
-        map.put("TX_LTFU_RECENT_MSW-04", "aFEeprnyU6w-qyDLjwtfCNy");
-        map.put("TX_LTFU_RECENT_FSW-01", "aFEeprnyU6w-IYgcWYnFZn0");
-        map.put("TX_LTFU_RECENT_PWID-05", "aFEeprnyU6w-u2wSZLv6s7m");
-        map.put("TX_LTFU_RECENT_FSW-04", "aFEeprnyU6w-rx6RuqMmJYh");
-        map.put("TX_LTFU_RECENT_TG_NOT_SW-02", "aFEeprnyU6w-GrhWQaCDCQ4");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-xpXBknJgiGa");
-        map.put("TX_LTFU_RECENT_PWID-03", "aFEeprnyU6w-nzh3CoCJGY8");
-        map.put("TX_LTFU_RECENT_FSW-02", "aFEeprnyU6w-LkV9MIzKs8R");
-        map.put("TX_LTFU_RECENT_TG_SW-03", "aFEeprnyU6w-l0L6BfZ0L56");
-        map.put("TX_LTFU_RECENT_FSW-03", "aFEeprnyU6w-KmdEfKbuS5M");
-        map.put("TX_LTFU_RECENT_TG_SW-01", "aFEeprnyU6w-RQIIGrbMcFp");
-        map.put("TX_LTFU_RECENT_MSW-03", "aFEeprnyU6w-JrMuAKI6YlN");
-        map.put("TX_LTFU_RECENT_TG_NOT_SW-04", "aFEeprnyU6w-CDcn8cYAj0A");
-        map.put("TX_LTFU_RECENT_PWID-04", "aFEeprnyU6w-OeyhGmHtEKP");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-PAXPnr3E0bq");
-        map.put("TX_LTFU_RECENT_PWID-08", "aFEeprnyU6w-ow8lNkkzEBr");
-        map.put("TX_LTFU_RECENT_MSM-01", "aFEeprnyU6w-TejGomIjzWu");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-NjZP8M1crEZ");
-        map.put("TX_LTFU_RECENT_MSW-02", "aFEeprnyU6w-G1GYY8G4GGU");
-        map.put("TX_LTFU_RECENT_PWID-01", "aFEeprnyU6w-cwsDiWLZ68M");
-        map.put("TX_LTFU_RECENT_TG_NOT_SW-01", "aFEeprnyU6w-XWsizEtBiKC");
-        map.put("TX_LTFU_RECENT_MSW-01", "aFEeprnyU6w-SsB5mmWsigU");
-        map.put("TX_LTFU_RECENT_PWID-02", "aFEeprnyU6w-D1Pib2THuTj");
-        map.put("TX_LTFU_RECENT_unknown", "aFEeprnyU6w-nJevmP4V2K0");
-        map.put("TX_LTFU_RECENT_TG_SW-02", "aFEeprnyU6w-FAKFHbbYrby");
-        map.put("TX_LTFU_RECENT_MSM-03", "aFEeprnyU6w-O1bh1C2P1E8");
-        map.put("TX_LTFU_RECENT_TG_NOT_SW-03", "aFEeprnyU6w-t48Hbcn9Ych");
-        map.put("TX_LTFU_RECENT_MSM-04", "aFEeprnyU6w-pB7iwg7m0n7");
-        map.put("TX_NEW_DICE_FSW-03", "ayMFkwavWB7-KmdEfKbuS5M");
-        map.put("TX_NEW_DICE_PWID-08", "ayMFkwavWB7-ow8lNkkzEBr");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-PAXPnr3E0bq");
-        map.put("TX_NEW_DICE_TG_NOT_SW-01", "ayMFkwavWB7-XWsizEtBiKC");
-        map.put("TX_NEW_DICE_PWID-04", "ayMFkwavWB7-OeyhGmHtEKP");
-        map.put("TX_NEW_DICE_FSW-04", "ayMFkwavWB7-rx6RuqMmJYh");
-        map.put("TX_NEW_DICE_PWID-06", "ayMFkwavWB7-SmTngpAmqW3");
-        map.put("TX_NEW_DICE_PWID-01", "ayMFkwavWB7-cwsDiWLZ68M");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-xpXBknJgiGa");
-        map.put("TX_NEW_DICE_TG_NOT_SW-03", "ayMFkwavWB7-t48Hbcn9Ych");
-        map.put("TX_NEW_DICE_MSW-03", "ayMFkwavWB7-JrMuAKI6YlN");
-        map.put("TX_NEW_DICE_TG_NOT_SW-04", "ayMFkwavWB7-CDcn8cYAj0A");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-NjZP8M1crEZ");
-        map.put("TX_NEW_DICE_MSW-02", "ayMFkwavWB7-G1GYY8G4GGU");
-        map.put("TX_NEW_DICE_MSM-02", "ayMFkwavWB7-EuibuYaLJpe");
-        map.put("TX_NEW_DICE_FSW-02", "ayMFkwavWB7-LkV9MIzKs8R");
-        map.put("TX_NEW_DICE_MSM-04", "ayMFkwavWB7-pB7iwg7m0n7");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-nJevmP4V2K0");
-        map.put("TX_NEW_DICE_MSM-03", "ayMFkwavWB7-O1bh1C2P1E8");
-        map.put("TX_NEW_DICE_TG_SW-02", "ayMFkwavWB7-FAKFHbbYrby");
-        map.put("TX_NEW_DICE_PWID-02", "ayMFkwavWB7-D1Pib2THuTj");
-        map.put("TX_NEW_DICE_FSW-01", "ayMFkwavWB7-IYgcWYnFZn0");
-        map.put("TX_NEW_DICE_MSW-01", "ayMFkwavWB7-SsB5mmWsigU");
-        map.put("TX_NEW_DICE_PWID-03", "ayMFkwavWB7-nzh3CoCJGY8");
-        map.put("TX_NEW_DICE_PWID-05", "ayMFkwavWB7-u2wSZLv6s7m");
-        map.put("TX_NEW_DICE_TG_SW-03", "ayMFkwavWB7-l0L6BfZ0L56");
-        map.put("TX_NEW_DICE_TG_SW-04", "ayMFkwavWB7-hAs4V5N4bJW");
-        map.put("TX_NEW_DICE_TG_NOT_SW-02", "ayMFkwavWB7-GrhWQaCDCQ4");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-hTS4AwHXmy4");
-        map.put("TX_NEW_DICE_MSM-01", "ayMFkwavWB7-TejGomIjzWu");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-Ik8JJyPcQ2K");
-        map.put("TX_NEW_DICE_TG_SW-01", "ayMFkwavWB7-RQIIGrbMcFp");
-        map.put("TX_NEW_DICE_MSW-04", "ayMFkwavWB7-qyDLjwtfCNy");
-        map.put("TX_NEW_DICE_unknown", "ayMFkwavWB7-KWKBKX5TOZn");
-        map.put("TX_NEW_DICE_PWID-07", "ayMFkwavWB7-lQrQJYcTquG");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_SW-01", "zYZe7ERpD0Z-RQIIGrbMcFp");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_NOT_SW-03", "zYZe7ERpD0Z-t48Hbcn9Ych");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_FSW-04", "zYZe7ERpD0Z-rx6RuqMmJYh");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-04", "zYZe7ERpD0Z-OeyhGmHtEKP");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_SW-02", "zYZe7ERpD0Z-FAKFHbbYrby");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_NOT_SW-01", "zYZe7ERpD0Z-XWsizEtBiKC");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_FSW-01", "zYZe7ERpD0Z-IYgcWYnFZn0");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_FSW-03", "zYZe7ERpD0Z-KmdEfKbuS5M");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-PAXPnr3E0bq");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_FSW-02", "zYZe7ERpD0Z-LkV9MIzKs8R");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSM-01", "zYZe7ERpD0Z-TejGomIjzWu");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-hTS4AwHXmy4");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-07", "zYZe7ERpD0Z-lQrQJYcTquG");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-NjZP8M1crEZ");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_NOT_SW-02", "zYZe7ERpD0Z-GrhWQaCDCQ4");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_SW-04", "zYZe7ERpD0Z-hAs4V5N4bJW");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSW-04", "zYZe7ERpD0Z-qyDLjwtfCNy");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSM-03", "zYZe7ERpD0Z-O1bh1C2P1E8");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-KWKBKX5TOZn");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSW-03", "zYZe7ERpD0Z-JrMuAKI6YlN");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSM-04", "zYZe7ERpD0Z-pB7iwg7m0n7");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_SW-03", "zYZe7ERpD0Z-l0L6BfZ0L56");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-nJevmP4V2K0");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-02", "zYZe7ERpD0Z-D1Pib2THuTj");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSW-01", "zYZe7ERpD0Z-SsB5mmWsigU");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-Ik8JJyPcQ2K");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSM-02", "zYZe7ERpD0Z-EuibuYaLJpe");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-08", "zYZe7ERpD0Z-ow8lNkkzEBr");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_unknown", "zYZe7ERpD0Z-xpXBknJgiGa");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-01", "zYZe7ERpD0Z-cwsDiWLZ68M");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-03", "zYZe7ERpD0Z-nzh3CoCJGY8");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-06", "zYZe7ERpD0Z-SmTngpAmqW3");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_PWID-05", "zYZe7ERpD0Z-u2wSZLv6s7m");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_MSW-02", "zYZe7ERpD0Z-G1GYY8G4GGU");
-        map.put("TX_NEW_VERIFY_NON_PEPFAR_TG_NOT_SW-04", "zYZe7ERpD0Z-CDcn8cYAj0A");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSM-04", "bVPCYIWpJAs-pB7iwg7m0n7");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSW-01", "bVPCYIWpJAs-SsB5mmWsigU");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-03", "bVPCYIWpJAs-nzh3CoCJGY8");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-07", "bVPCYIWpJAs-lQrQJYcTquG");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-Ik8JJyPcQ2K");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_FSW-01", "bVPCYIWpJAs-IYgcWYnFZn0");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "bVPCYIWpJAs-CDcn8cYAj0A");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-02", "bVPCYIWpJAs-D1Pib2THuTj");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_SW-04", "bVPCYIWpJAs-hAs4V5N4bJW");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_SW-03", "bVPCYIWpJAs-l0L6BfZ0L56");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-xpXBknJgiGa");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-04", "bVPCYIWpJAs-OeyhGmHtEKP");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-hTS4AwHXmy4");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-NjZP8M1crEZ");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_SW-01", "bVPCYIWpJAs-RQIIGrbMcFp");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-nJevmP4V2K0");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-05", "bVPCYIWpJAs-u2wSZLv6s7m");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSW-04", "bVPCYIWpJAs-qyDLjwtfCNy");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-06", "bVPCYIWpJAs-SmTngpAmqW3");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-KWKBKX5TOZn");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-08", "bVPCYIWpJAs-ow8lNkkzEBr");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_SW-02", "bVPCYIWpJAs-FAKFHbbYrby");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_FSW-04", "bVPCYIWpJAs-rx6RuqMmJYh");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "bVPCYIWpJAs-GrhWQaCDCQ4");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "bVPCYIWpJAs-XWsizEtBiKC");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSM-02", "bVPCYIWpJAs-EuibuYaLJpe");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_PWID-01", "bVPCYIWpJAs-cwsDiWLZ68M");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSW-03", "bVPCYIWpJAs-JrMuAKI6YlN");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSW-02", "bVPCYIWpJAs-G1GYY8G4GGU");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSM-03", "bVPCYIWpJAs-O1bh1C2P1E8");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "bVPCYIWpJAs-t48Hbcn9Ych");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_MSM-01", "bVPCYIWpJAs-TejGomIjzWu");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_FSW-03", "bVPCYIWpJAs-KmdEfKbuS5M");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_unknown", "bVPCYIWpJAs-PAXPnr3E0bq");
-        map.put("TX_NEW_VERIFY_PEPFAR_SITE_FSW-02", "bVPCYIWpJAs-LkV9MIzKs8R");
-        map.put("TX_PVLS_DICE_(D)_PWID-05", "Ob0tw9E09m6-u2wSZLv6s7m");
-        map.put("TX_PVLS_DICE_(D)_MSM-01", "Ob0tw9E09m6-TejGomIjzWu");
-        map.put("TX_PVLS_DICE_(D)_TG_NOT_SW-01", "Ob0tw9E09m6-XWsizEtBiKC");
-        map.put("TX_PVLS_DICE_(D)_PWID-02", "Ob0tw9E09m6-D1Pib2THuTj");
-        map.put("TX_PVLS_DICE_(D)_TG_SW-01", "Ob0tw9E09m6-RQIIGrbMcFp");
-        map.put("TX_PVLS_DICE_(D)_MSM-04", "Ob0tw9E09m6-pB7iwg7m0n7");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-PAXPnr3E0bq");
-        map.put("TX_PVLS_DICE_(D)_TG_NOT_SW-02", "Ob0tw9E09m6-GrhWQaCDCQ4");
-        map.put("TX_PVLS_DICE_(D)_FSW-01", "Ob0tw9E09m6-IYgcWYnFZn0");
-        map.put("TX_PVLS_DICE_(D)_FSW-03", "Ob0tw9E09m6-KmdEfKbuS5M");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-NjZP8M1crEZ");
-        map.put("TX_PVLS_DICE_(D)_PWID-03", "Ob0tw9E09m6-nzh3CoCJGY8");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_DICE_(D)_FSW-04", "Ob0tw9E09m6-rx6RuqMmJYh");
-        map.put("TX_PVLS_DICE_(D)_MSW-03", "Ob0tw9E09m6-JrMuAKI6YlN");
-        map.put("TX_PVLS_DICE_(D)_MSW-01", "Ob0tw9E09m6-SsB5mmWsigU");
-        map.put("TX_PVLS_DICE_(D)_MSM-03", "Ob0tw9E09m6-O1bh1C2P1E8");
-        map.put("TX_PVLS_DICE_(D)_PWID-07", "Ob0tw9E09m6-lQrQJYcTquG");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-nJevmP4V2K0");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-hTS4AwHXmy4");
-        map.put("TX_PVLS_DICE_(D)_TG_NOT_SW-03", "Ob0tw9E09m6-t48Hbcn9Ych");
-        map.put("TX_PVLS_DICE_(D)_TG_SW-02", "Ob0tw9E09m6-FAKFHbbYrby");
-        map.put("TX_PVLS_DICE_(D)_FSW-02", "Ob0tw9E09m6-LkV9MIzKs8R");
-        map.put("TX_PVLS_DICE_(D)_PWID-01", "Ob0tw9E09m6-cwsDiWLZ68M");
-        map.put("TX_PVLS_DICE_(D)_TG_SW-03", "Ob0tw9E09m6-l0L6BfZ0L56");
-        map.put("TX_PVLS_DICE_(D)_MSW-02", "Ob0tw9E09m6-G1GYY8G4GGU");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-xpXBknJgiGa");
-        map.put("TX_PVLS_DICE_(D)_PWID-06", "Ob0tw9E09m6-SmTngpAmqW3");
-        map.put("TX_PVLS_DICE_(D)_TG_NOT_SW-04", "Ob0tw9E09m6-CDcn8cYAj0A");
-        map.put("TX_PVLS_DICE_(D)_MSM-02", "Ob0tw9E09m6-EuibuYaLJpe");
-        map.put("TX_PVLS_DICE_(D)_TG_SW-04", "Ob0tw9E09m6-hAs4V5N4bJW");
-        map.put("TX_PVLS_DICE_(D)_PWID-08", "Ob0tw9E09m6-ow8lNkkzEBr");
-        map.put("TX_PVLS_DICE_(D)_PWID-04", "Ob0tw9E09m6-OeyhGmHtEKP");
-        map.put("TX_PVLS_DICE_(D)_MSW-04", "Ob0tw9E09m6-qyDLjwtfCNy");
-        map.put("TX_PVLS_DICE_(D)_unknown", "Ob0tw9E09m6-KWKBKX5TOZn");
-        map.put("TX_PVLS_DICE_(N)_FSW-02", "gKzh3U8KiEF-LkV9MIzKs8R");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-NjZP8M1crEZ");
-        map.put("TX_PVLS_DICE_(N)_MSW-04", "gKzh3U8KiEF-qyDLjwtfCNy");
-        map.put("TX_PVLS_DICE_(N)_TG_NOT_SW-03", "gKzh3U8KiEF-t48Hbcn9Ych");
-        map.put("TX_PVLS_DICE_(N)_MSM-01", "gKzh3U8KiEF-TejGomIjzWu");
-        map.put("TX_PVLS_DICE_(N)_FSW-03", "gKzh3U8KiEF-KmdEfKbuS5M");
-        map.put("TX_PVLS_DICE_(N)_FSW-04", "gKzh3U8KiEF-rx6RuqMmJYh");
-        map.put("TX_PVLS_DICE_(N)_TG_SW-02", "gKzh3U8KiEF-FAKFHbbYrby");
-        map.put("TX_PVLS_DICE_(N)_MSW-01", "gKzh3U8KiEF-SsB5mmWsigU");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-nJevmP4V2K0");
-        map.put("TX_PVLS_DICE_(N)_TG_SW-01", "gKzh3U8KiEF-RQIIGrbMcFp");
-        map.put("TX_PVLS_DICE_(N)_FSW-01", "gKzh3U8KiEF-IYgcWYnFZn0");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-PAXPnr3E0bq");
-        map.put("TX_PVLS_DICE_(N)_MSW-03", "gKzh3U8KiEF-JrMuAKI6YlN");
-        map.put("TX_PVLS_DICE_(N)_PWID-03", "gKzh3U8KiEF-nzh3CoCJGY8");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-hTS4AwHXmy4");
-        map.put("TX_PVLS_DICE_(N)_TG_NOT_SW-02", "gKzh3U8KiEF-GrhWQaCDCQ4");
-        map.put("TX_PVLS_DICE_(N)_TG_NOT_SW-01", "gKzh3U8KiEF-XWsizEtBiKC");
-        map.put("TX_PVLS_DICE_(N)_PWID-07", "gKzh3U8KiEF-lQrQJYcTquG");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_DICE_(N)_PWID-02", "gKzh3U8KiEF-D1Pib2THuTj");
-        map.put("TX_PVLS_DICE_(N)_MSM-04", "gKzh3U8KiEF-pB7iwg7m0n7");
-        map.put("TX_PVLS_DICE_(N)_MSM-03", "gKzh3U8KiEF-O1bh1C2P1E8");
-        map.put("TX_PVLS_DICE_(N)_MSM-02", "gKzh3U8KiEF-EuibuYaLJpe");
-        map.put("TX_PVLS_DICE_(N)_PWID-04", "gKzh3U8KiEF-OeyhGmHtEKP");
-        map.put("TX_PVLS_DICE_(N)_MSW-02", "gKzh3U8KiEF-G1GYY8G4GGU");
-        map.put("TX_PVLS_DICE_(N)_TG_SW-04", "gKzh3U8KiEF-hAs4V5N4bJW");
-        map.put("TX_PVLS_DICE_(N)_TG_NOT_SW-04", "gKzh3U8KiEF-CDcn8cYAj0A");
-        map.put("TX_PVLS_DICE_(N)_TG_SW-03", "gKzh3U8KiEF-l0L6BfZ0L56");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-xpXBknJgiGa");
-        map.put("TX_PVLS_DICE_(N)_PWID-08", "gKzh3U8KiEF-ow8lNkkzEBr");
-        map.put("TX_PVLS_DICE_(N)_PWID-06", "gKzh3U8KiEF-SmTngpAmqW3");
-        map.put("TX_PVLS_DICE_(N)_PWID-01", "gKzh3U8KiEF-cwsDiWLZ68M");
-        map.put("TX_PVLS_DICE_(N)_PWID-05", "gKzh3U8KiEF-u2wSZLv6s7m");
-        map.put("TX_PVLS_DICE_(N)_unknown", "gKzh3U8KiEF-KWKBKX5TOZn");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-06", "MyaBDZA5l8o-SmTngpAmqW3");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSM-01", "MyaBDZA5l8o-TejGomIjzWu");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_FSW-03", "MyaBDZA5l8o-KmdEfKbuS5M");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSW-04", "MyaBDZA5l8o-qyDLjwtfCNy");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-01", "MyaBDZA5l8o-cwsDiWLZ68M");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_FSW-04", "MyaBDZA5l8o-rx6RuqMmJYh");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSW-01", "MyaBDZA5l8o-SsB5mmWsigU");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_SW-03", "MyaBDZA5l8o-l0L6BfZ0L56");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSW-03", "MyaBDZA5l8o-JrMuAKI6YlN");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_NOT_SW-02", "MyaBDZA5l8o-GrhWQaCDCQ4");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_SW-01", "MyaBDZA5l8o-RQIIGrbMcFp");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-PAXPnr3E0bq");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-nJevmP4V2K0");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_NOT_SW-03", "MyaBDZA5l8o-t48Hbcn9Ych");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-hTS4AwHXmy4");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_NOT_SW-01", "MyaBDZA5l8o-XWsizEtBiKC");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_SW-02", "MyaBDZA5l8o-FAKFHbbYrby");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-xpXBknJgiGa");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-08", "MyaBDZA5l8o-ow8lNkkzEBr");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_FSW-01", "MyaBDZA5l8o-IYgcWYnFZn0");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSM-04", "MyaBDZA5l8o-pB7iwg7m0n7");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-02", "MyaBDZA5l8o-D1Pib2THuTj");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSM-03", "MyaBDZA5l8o-O1bh1C2P1E8");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_FSW-02", "MyaBDZA5l8o-LkV9MIzKs8R");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-07", "MyaBDZA5l8o-lQrQJYcTquG");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSM-02", "MyaBDZA5l8o-EuibuYaLJpe");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_NOT_SW-04", "MyaBDZA5l8o-CDcn8cYAj0A");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_MSW-02", "MyaBDZA5l8o-G1GYY8G4GGU");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_TG_SW-04", "MyaBDZA5l8o-hAs4V5N4bJW");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-04", "MyaBDZA5l8o-OeyhGmHtEKP");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-NjZP8M1crEZ");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_unknown", "MyaBDZA5l8o-KWKBKX5TOZn");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-03", "MyaBDZA5l8o-nzh3CoCJGY8");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(D)_PWID-05", "MyaBDZA5l8o-u2wSZLv6s7m");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-KWKBKX5TOZn");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-07", "YFVW39TeCC5-lQrQJYcTquG");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-hTS4AwHXmy4");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSM-03", "YFVW39TeCC5-O1bh1C2P1E8");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_NOT_SW-01", "YFVW39TeCC5-XWsizEtBiKC");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_FSW-03", "YFVW39TeCC5-KmdEfKbuS5M");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-nJevmP4V2K0");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_NOT_SW-02", "YFVW39TeCC5-GrhWQaCDCQ4");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_SW-03", "YFVW39TeCC5-l0L6BfZ0L56");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-02", "YFVW39TeCC5-D1Pib2THuTj");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_SW-01", "YFVW39TeCC5-RQIIGrbMcFp");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-04", "YFVW39TeCC5-OeyhGmHtEKP");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSW-01", "YFVW39TeCC5-SsB5mmWsigU");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-03", "YFVW39TeCC5-nzh3CoCJGY8");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSM-04", "YFVW39TeCC5-pB7iwg7m0n7");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_SW-04", "YFVW39TeCC5-hAs4V5N4bJW");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSW-04", "YFVW39TeCC5-qyDLjwtfCNy");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_FSW-02", "YFVW39TeCC5-LkV9MIzKs8R");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSW-03", "YFVW39TeCC5-JrMuAKI6YlN");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_FSW-01", "YFVW39TeCC5-IYgcWYnFZn0");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-PAXPnr3E0bq");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSM-01", "YFVW39TeCC5-TejGomIjzWu");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_SW-02", "YFVW39TeCC5-FAKFHbbYrby");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_FSW-04", "YFVW39TeCC5-rx6RuqMmJYh");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_NOT_SW-03", "YFVW39TeCC5-t48Hbcn9Ych");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSW-02", "YFVW39TeCC5-G1GYY8G4GGU");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_MSM-02", "YFVW39TeCC5-EuibuYaLJpe");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-08", "YFVW39TeCC5-ow8lNkkzEBr");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-01", "YFVW39TeCC5-cwsDiWLZ68M");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_TG_NOT_SW-04", "YFVW39TeCC5-CDcn8cYAj0A");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-xpXBknJgiGa");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_unknown", "YFVW39TeCC5-NjZP8M1crEZ");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-06", "YFVW39TeCC5-SmTngpAmqW3");
-        map.put("TX_PVLS_VERIFY_NON_PEPFAR_SITE_(N)_PWID-05", "YFVW39TeCC5-u2wSZLv6s7m");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSW-03", "FNVxVWLWSlP-JrMuAKI6YlN");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-05", "FNVxVWLWSlP-u2wSZLv6s7m");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSM-02", "FNVxVWLWSlP-EuibuYaLJpe");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_SW-02", "FNVxVWLWSlP-FAKFHbbYrby");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_NOT_SW-03", "FNVxVWLWSlP-t48Hbcn9Ych");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_SW-01", "FNVxVWLWSlP-RQIIGrbMcFp");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-xpXBknJgiGa");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_SW-04", "FNVxVWLWSlP-hAs4V5N4bJW");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-PAXPnr3E0bq");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-hTS4AwHXmy4");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-06", "FNVxVWLWSlP-SmTngpAmqW3");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-KWKBKX5TOZn");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSW-04", "FNVxVWLWSlP-qyDLjwtfCNy");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_NOT_SW-04", "FNVxVWLWSlP-CDcn8cYAj0A");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSM-01", "FNVxVWLWSlP-TejGomIjzWu");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-01", "FNVxVWLWSlP-cwsDiWLZ68M");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-04", "FNVxVWLWSlP-OeyhGmHtEKP");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-03", "FNVxVWLWSlP-nzh3CoCJGY8");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSM-03", "FNVxVWLWSlP-O1bh1C2P1E8");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-NjZP8M1crEZ");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-07", "FNVxVWLWSlP-lQrQJYcTquG");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_FSW-04", "FNVxVWLWSlP-rx6RuqMmJYh");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_FSW-03", "FNVxVWLWSlP-KmdEfKbuS5M");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_FSW-01", "FNVxVWLWSlP-IYgcWYnFZn0");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_NOT_SW-02", "FNVxVWLWSlP-GrhWQaCDCQ4");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-08", "FNVxVWLWSlP-ow8lNkkzEBr");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSW-02", "FNVxVWLWSlP-G1GYY8G4GGU");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_SW-03", "FNVxVWLWSlP-l0L6BfZ0L56");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSM-04", "FNVxVWLWSlP-pB7iwg7m0n7");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_unknown", "FNVxVWLWSlP-nJevmP4V2K0");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_FSW-02", "FNVxVWLWSlP-LkV9MIzKs8R");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_MSW-01", "FNVxVWLWSlP-SsB5mmWsigU");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_PWID-02", "FNVxVWLWSlP-D1Pib2THuTj");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(D)_TG_NOT_SW-01", "FNVxVWLWSlP-XWsizEtBiKC");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_SW-02", "HDX9dYK1S8C-FAKFHbbYrby");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_SW-01", "HDX9dYK1S8C-RQIIGrbMcFp");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSW-01", "HDX9dYK1S8C-SsB5mmWsigU");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_NOT_SW-01", "HDX9dYK1S8C-XWsizEtBiKC");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSM-02", "HDX9dYK1S8C-EuibuYaLJpe");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-03", "HDX9dYK1S8C-nzh3CoCJGY8");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-hTS4AwHXmy4");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-07", "HDX9dYK1S8C-lQrQJYcTquG");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-02", "HDX9dYK1S8C-D1Pib2THuTj");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSW-03", "HDX9dYK1S8C-JrMuAKI6YlN");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_FSW-02", "HDX9dYK1S8C-LkV9MIzKs8R");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-PAXPnr3E0bq");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_NOT_SW-04", "HDX9dYK1S8C-CDcn8cYAj0A");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_NOT_SW-02", "HDX9dYK1S8C-GrhWQaCDCQ4");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSM-03", "HDX9dYK1S8C-O1bh1C2P1E8");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSW-04", "HDX9dYK1S8C-qyDLjwtfCNy");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_FSW-01", "HDX9dYK1S8C-IYgcWYnFZn0");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-04", "HDX9dYK1S8C-OeyhGmHtEKP");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSM-04", "HDX9dYK1S8C-pB7iwg7m0n7");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_FSW-03", "HDX9dYK1S8C-KmdEfKbuS5M");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_FSW-04", "HDX9dYK1S8C-rx6RuqMmJYh");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-NjZP8M1crEZ");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSM-01", "HDX9dYK1S8C-TejGomIjzWu");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_NOT_SW-03", "HDX9dYK1S8C-t48Hbcn9Ych");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-nJevmP4V2K0");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-06", "HDX9dYK1S8C-SmTngpAmqW3");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_MSW-02", "HDX9dYK1S8C-G1GYY8G4GGU");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-05", "HDX9dYK1S8C-u2wSZLv6s7m");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-KWKBKX5TOZn");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_unknown", "HDX9dYK1S8C-xpXBknJgiGa");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_SW-04", "HDX9dYK1S8C-hAs4V5N4bJW");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_TG_SW-03", "HDX9dYK1S8C-l0L6BfZ0L56");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-08", "HDX9dYK1S8C-ow8lNkkzEBr");
-        map.put("TX_PVLS_VERIFY_PEPFAR_SITE_(N)_PWID-01", "HDX9dYK1S8C-cwsDiWLZ68M");
-        map.put("TX_RTT_MSM-02", "Hm9jOlXPqlx-EuibuYaLJpe");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-KWKBKX5TOZn");
-        map.put("TX_RTT_MSW-04", "Hm9jOlXPqlx-qyDLjwtfCNy");
-        map.put("TX_RTT_MSW-03", "Hm9jOlXPqlx-JrMuAKI6YlN");
-        map.put("TX_RTT_PWID-07", "Hm9jOlXPqlx-lQrQJYcTquG");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-nJevmP4V2K0");
-        map.put("TX_RTT_TG_NOT_SW-02", "Hm9jOlXPqlx-GrhWQaCDCQ4");
-        map.put("TX_RTT_MSW-02", "Hm9jOlXPqlx-G1GYY8G4GGU");
-        map.put("TX_RTT_FSW-02", "Hm9jOlXPqlx-LkV9MIzKs8R");
-        map.put("TX_RTT_FSW-03", "Hm9jOlXPqlx-KmdEfKbuS5M");
-        map.put("TX_RTT_TG_NOT_SW-01", "Hm9jOlXPqlx-XWsizEtBiKC");
-        map.put("TX_RTT_PWID-04", "Hm9jOlXPqlx-OeyhGmHtEKP");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-PAXPnr3E0bq");
-        map.put("TX_RTT_FSW-04", "Hm9jOlXPqlx-rx6RuqMmJYh");
-        map.put("TX_RTT_FSW-01", "Hm9jOlXPqlx-IYgcWYnFZn0");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-xpXBknJgiGa");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-Ik8JJyPcQ2K");
-        map.put("TX_RTT_TG_SW-02", "Hm9jOlXPqlx-FAKFHbbYrby");
-        map.put("TX_RTT_TG_NOT_SW-03", "Hm9jOlXPqlx-t48Hbcn9Ych");
-        map.put("TX_RTT_MSM-03", "Hm9jOlXPqlx-O1bh1C2P1E8");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-hTS4AwHXmy4");
-        map.put("TX_RTT_TG_SW-01", "Hm9jOlXPqlx-RQIIGrbMcFp");
-        map.put("TX_RTT_MSM-01", "Hm9jOlXPqlx-TejGomIjzWu");
-        map.put("TX_RTT_PWID-02", "Hm9jOlXPqlx-D1Pib2THuTj");
-        map.put("TX_RTT_MSW-01", "Hm9jOlXPqlx-SsB5mmWsigU");
-        map.put("TX_RTT_MSM-04", "Hm9jOlXPqlx-pB7iwg7m0n7");
-        map.put("TX_RTT_PWID-08", "Hm9jOlXPqlx-ow8lNkkzEBr");
-        map.put("TX_RTT_TG_SW-03", "Hm9jOlXPqlx-l0L6BfZ0L56");
-        map.put("TX_RTT_TG_NOT_SW-04", "Hm9jOlXPqlx-CDcn8cYAj0A");
-        map.put("TX_RTT_TG_SW-04", "Hm9jOlXPqlx-hAs4V5N4bJW");
-        map.put("TX_RTT_PWID-01", "Hm9jOlXPqlx-cwsDiWLZ68M");
-        map.put("TX_RTT_PWID-06", "Hm9jOlXPqlx-SmTngpAmqW3");
-        map.put("TX_RTT_PWID-05", "Hm9jOlXPqlx-u2wSZLv6s7m");
-        map.put("TX_RTT_unknown", "Hm9jOlXPqlx-NjZP8M1crEZ");
-        map.put("TX_RTT_PWID-03", "Hm9jOlXPqlx-nzh3CoCJGY8");
-        map.put("KP_EVER_POS_MSW-03", "vKtYvZGWdQ3-JrMuAKI6YlN");
-        map.put("KP_EVER_POS_PWID-06", "vKtYvZGWdQ3-SmTngpAmqW3");
-        map.put("KP_EVER_POS_MSW-02", "vKtYvZGWdQ3-G1GYY8G4GGU");
-        map.put("KP_EVER_POS_PWID-05", "vKtYvZGWdQ3-u2wSZLv6s7m");
-        map.put("KP_EVER_POS_TG_NOT_SW-01", "vKtYvZGWdQ3-XWsizEtBiKC");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-nJevmP4V2K0");
-        map.put("KP_EVER_POS_PWID-04", "vKtYvZGWdQ3-OeyhGmHtEKP");
-        map.put("KP_EVER_POS_PWID-07", "vKtYvZGWdQ3-lQrQJYcTquG");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-hTS4AwHXmy4");
-        map.put("KP_EVER_POS_PWID-02", "vKtYvZGWdQ3-D1Pib2THuTj");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-KWKBKX5TOZn");
-        map.put("KP_EVER_POS_MSM-03", "vKtYvZGWdQ3-O1bh1C2P1E8");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-PAXPnr3E0bq");
-        map.put("KP_EVER_POS_TG_NOT_SW-04", "vKtYvZGWdQ3-CDcn8cYAj0A");
-        map.put("KP_EVER_POS_PWID-01", "vKtYvZGWdQ3-cwsDiWLZ68M");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-Ik8JJyPcQ2K");
-        map.put("KP_EVER_POS_MSM-01", "vKtYvZGWdQ3-TejGomIjzWu");
-        map.put("KP_EVER_POS_TG_SW-01", "vKtYvZGWdQ3-RQIIGrbMcFp");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-xpXBknJgiGa");
-        map.put("KP_EVER_POS_TG_SW-03", "vKtYvZGWdQ3-l0L6BfZ0L56");
-        map.put("KP_EVER_POS_TG_NOT_SW-03", "vKtYvZGWdQ3-t48Hbcn9Ych");
-        map.put("KP_EVER_POS_FSW-01", "vKtYvZGWdQ3-IYgcWYnFZn0");
-        map.put("KP_EVER_POS_MSW-04", "vKtYvZGWdQ3-qyDLjwtfCNy");
-        map.put("KP_EVER_POS_unknown", "vKtYvZGWdQ3-NjZP8M1crEZ");
-        map.put("KP_EVER_POS_MSM-02", "vKtYvZGWdQ3-EuibuYaLJpe");
-        map.put("KP_EVER_POS_FSW-04", "vKtYvZGWdQ3-rx6RuqMmJYh");
-        map.put("KP_EVER_POS_PWID-08", "vKtYvZGWdQ3-ow8lNkkzEBr");
-        map.put("KP_EVER_POS_TG_NOT_SW-02", "vKtYvZGWdQ3-GrhWQaCDCQ4");
-        map.put("KP_EVER_POS_TG_SW-04", "vKtYvZGWdQ3-hAs4V5N4bJW");
-        map.put("KP_EVER_POS_FSW-02", "vKtYvZGWdQ3-LkV9MIzKs8R");
-        map.put("KP_EVER_POS_TG_SW-02", "vKtYvZGWdQ3-FAKFHbbYrby");
-        map.put("KP_EVER_POS_PWID-03", "vKtYvZGWdQ3-nzh3CoCJGY8");
-        map.put("KP_EVER_POS_FSW-03", "vKtYvZGWdQ3-KmdEfKbuS5M");
-        map.put("KP_EVER_POS_MSW-01", "vKtYvZGWdQ3-SsB5mmWsigU");
-        map.put("KP_EVER_POS_MSM-04", "vKtYvZGWdQ3-pB7iwg7m0n7");
-        map.put("TX_EVER_DICE_MSM-03", "PhOOi3jpyU5-O1bh1C2P1E8");
-        map.put("TX_EVER_DICE_PWID-02", "PhOOi3jpyU5-D1Pib2THuTj");
-        map.put("TX_EVER_DICE_FSW-04", "PhOOi3jpyU5-rx6RuqMmJYh");
-        map.put("TX_EVER_DICE_TG_SW-02", "PhOOi3jpyU5-FAKFHbbYrby");
-        map.put("TX_EVER_DICE_PWID-01", "PhOOi3jpyU5-cwsDiWLZ68M");
-        map.put("TX_EVER_DICE_PWID-04", "PhOOi3jpyU5-OeyhGmHtEKP");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-nJevmP4V2K0");
-        map.put("TX_EVER_DICE_TG_SW-03", "PhOOi3jpyU5-l0L6BfZ0L56");
-        map.put("TX_EVER_DICE_TG_NOT_SW-03", "PhOOi3jpyU5-t48Hbcn9Ych");
-        map.put("TX_EVER_DICE_MSM-04", "PhOOi3jpyU5-pB7iwg7m0n7");
-        map.put("TX_EVER_DICE_MSW-02", "PhOOi3jpyU5-G1GYY8G4GGU");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-xpXBknJgiGa");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-NjZP8M1crEZ");
-        map.put("TX_EVER_DICE_PWID-05", "PhOOi3jpyU5-u2wSZLv6s7m");
-        map.put("TX_EVER_DICE_MSM-02", "PhOOi3jpyU5-EuibuYaLJpe");
-        map.put("TX_EVER_DICE_FSW-02", "PhOOi3jpyU5-LkV9MIzKs8R");
-        map.put("TX_EVER_DICE_TG_SW-04", "PhOOi3jpyU5-hAs4V5N4bJW");
-        map.put("TX_EVER_DICE_FSW-01", "PhOOi3jpyU5-IYgcWYnFZn0");
-        map.put("TX_EVER_DICE_MSW-01", "PhOOi3jpyU5-SsB5mmWsigU");
-        map.put("TX_EVER_DICE_PWID-08", "PhOOi3jpyU5-ow8lNkkzEBr");
-        map.put("TX_EVER_DICE_TG_NOT_SW-04", "PhOOi3jpyU5-CDcn8cYAj0A");
-        map.put("TX_EVER_DICE_PWID-06", "PhOOi3jpyU5-SmTngpAmqW3");
-        map.put("TX_EVER_DICE_TG_NOT_SW-01", "PhOOi3jpyU5-XWsizEtBiKC");
-        map.put("TX_EVER_DICE_MSW-03", "PhOOi3jpyU5-JrMuAKI6YlN");
-        map.put("TX_EVER_DICE_PWID-03", "PhOOi3jpyU5-nzh3CoCJGY8");
-        map.put("TX_EVER_DICE_TG_NOT_SW-02", "PhOOi3jpyU5-GrhWQaCDCQ4");
-        map.put("TX_EVER_DICE_TG_SW-01", "PhOOi3jpyU5-RQIIGrbMcFp");
-        map.put("TX_EVER_DICE_MSW-04", "PhOOi3jpyU5-qyDLjwtfCNy");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-PAXPnr3E0bq");
-        map.put("TX_EVER_DICE_FSW-03", "PhOOi3jpyU5-KmdEfKbuS5M");
-        map.put("TX_EVER_DICE_MSM-01", "PhOOi3jpyU5-TejGomIjzWu");
-        map.put("TX_EVER_DICE_PWID-07", "PhOOi3jpyU5-lQrQJYcTquG");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-hTS4AwHXmy4");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-Ik8JJyPcQ2K");
-        map.put("TX_EVER_DICE_unknown", "PhOOi3jpyU5-KWKBKX5TOZn");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_FSW-04", "hotT1X2G7Ss-rx6RuqMmJYh");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_FSW-02", "hotT1X2G7Ss-LkV9MIzKs8R");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-07", "hotT1X2G7Ss-lQrQJYcTquG");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-xpXBknJgiGa");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSW-02", "hotT1X2G7Ss-G1GYY8G4GGU");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSW-04", "hotT1X2G7Ss-qyDLjwtfCNy");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSM-03", "hotT1X2G7Ss-O1bh1C2P1E8");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-04", "hotT1X2G7Ss-CDcn8cYAj0A");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSW-01", "hotT1X2G7Ss-SsB5mmWsigU");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_FSW-03", "hotT1X2G7Ss-KmdEfKbuS5M");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-05", "hotT1X2G7Ss-u2wSZLv6s7m");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-PAXPnr3E0bq");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-03", "hotT1X2G7Ss-nzh3CoCJGY8");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_FSW-01", "hotT1X2G7Ss-IYgcWYnFZn0");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSM-01", "hotT1X2G7Ss-TejGomIjzWu");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-08", "hotT1X2G7Ss-ow8lNkkzEBr");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-01", "hotT1X2G7Ss-XWsizEtBiKC");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_SW-02", "hotT1X2G7Ss-FAKFHbbYrby");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-02", "hotT1X2G7Ss-GrhWQaCDCQ4");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_SW-01", "hotT1X2G7Ss-RQIIGrbMcFp");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-06", "hotT1X2G7Ss-SmTngpAmqW3");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-02", "hotT1X2G7Ss-D1Pib2THuTj");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSM-04", "hotT1X2G7Ss-pB7iwg7m0n7");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-nJevmP4V2K0");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-03", "hotT1X2G7Ss-t48Hbcn9Ych");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSW-03", "hotT1X2G7Ss-JrMuAKI6YlN");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-01", "hotT1X2G7Ss-cwsDiWLZ68M");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-Ik8JJyPcQ2K");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_MSM-02", "hotT1X2G7Ss-EuibuYaLJpe");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-hTS4AwHXmy4");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-KWKBKX5TOZn");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_unknown", "hotT1X2G7Ss-NjZP8M1crEZ");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_SW-04", "hotT1X2G7Ss-hAs4V5N4bJW");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_PWID-04", "hotT1X2G7Ss-OeyhGmHtEKP");
-        map.put("TX_EVER_VERIFY_NON_PEPFAR_SITE_TG_SW-03", "hotT1X2G7Ss-l0L6BfZ0L56");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_FSW-04", "E26PZb2eocw-rx6RuqMmJYh");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "E26PZb2eocw-t48Hbcn9Ych");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "E26PZb2eocw-CDcn8cYAj0A");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-08", "E26PZb2eocw-ow8lNkkzEBr");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_FSW-03", "E26PZb2eocw-KmdEfKbuS5M");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_FSW-01", "E26PZb2eocw-IYgcWYnFZn0");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSM-01", "E26PZb2eocw-TejGomIjzWu");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_SW-01", "E26PZb2eocw-RQIIGrbMcFp");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSW-02", "E26PZb2eocw-G1GYY8G4GGU");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-01", "E26PZb2eocw-cwsDiWLZ68M");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSW-01", "E26PZb2eocw-SsB5mmWsigU");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_SW-02", "E26PZb2eocw-FAKFHbbYrby");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_SW-03", "E26PZb2eocw-l0L6BfZ0L56");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "E26PZb2eocw-GrhWQaCDCQ4");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-Ik8JJyPcQ2K");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-02", "E26PZb2eocw-D1Pib2THuTj");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-PAXPnr3E0bq");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "E26PZb2eocw-XWsizEtBiKC");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-05", "E26PZb2eocw-u2wSZLv6s7m");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSM-03", "E26PZb2eocw-O1bh1C2P1E8");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSM-04", "E26PZb2eocw-pB7iwg7m0n7");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-03", "E26PZb2eocw-nzh3CoCJGY8");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-KWKBKX5TOZn");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-nJevmP4V2K0");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_FSW-02", "E26PZb2eocw-LkV9MIzKs8R");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSM-02", "E26PZb2eocw-EuibuYaLJpe");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-hTS4AwHXmy4");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_TG_SW-04", "E26PZb2eocw-hAs4V5N4bJW");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-NjZP8M1crEZ");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSW-04", "E26PZb2eocw-qyDLjwtfCNy");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-04", "E26PZb2eocw-OeyhGmHtEKP");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_MSW-03", "E26PZb2eocw-JrMuAKI6YlN");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-07", "E26PZb2eocw-lQrQJYcTquG");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_PWID-06", "E26PZb2eocw-SmTngpAmqW3");
-        map.put("TX_EVER_VERIFY_PEPFAR_SITE_unknown", "E26PZb2eocw-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_DICE_FSW-02", "wEATMdiockB-LkV9MIzKs8R");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-nJevmP4V2K0");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-hTS4AwHXmy4");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-07", "wEATMdiockB-lQrQJYcTquG");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-KWKBKX5TOZn");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSM-03", "wEATMdiockB-O1bh1C2P1E8");
-        map.put("TX_PVLS_ELIGIBLE_DICE_FSW-03", "wEATMdiockB-KmdEfKbuS5M");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSW-01", "wEATMdiockB-SsB5mmWsigU");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSM-04", "wEATMdiockB-pB7iwg7m0n7");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_SW-02", "wEATMdiockB-FAKFHbbYrby");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_NOT_SW-02", "wEATMdiockB-GrhWQaCDCQ4");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-04", "wEATMdiockB-OeyhGmHtEKP");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-02", "wEATMdiockB-D1Pib2THuTj");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_SW-01", "wEATMdiockB-RQIIGrbMcFp");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-05", "wEATMdiockB-u2wSZLv6s7m");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-03", "wEATMdiockB-nzh3CoCJGY8");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSW-02", "wEATMdiockB-G1GYY8G4GGU");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_SW-03", "wEATMdiockB-l0L6BfZ0L56");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSM-01", "wEATMdiockB-TejGomIjzWu");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_NOT_SW-04", "wEATMdiockB-CDcn8cYAj0A");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-PAXPnr3E0bq");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_NOT_SW-03", "wEATMdiockB-t48Hbcn9Ych");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_SW-04", "wEATMdiockB-hAs4V5N4bJW");
-        map.put("TX_PVLS_ELIGIBLE_DICE_TG_NOT_SW-01", "wEATMdiockB-XWsizEtBiKC");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-08", "wEATMdiockB-ow8lNkkzEBr");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSM-02", "wEATMdiockB-EuibuYaLJpe");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-06", "wEATMdiockB-SmTngpAmqW3");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSW-04", "wEATMdiockB-qyDLjwtfCNy");
-        map.put("TX_PVLS_ELIGIBLE_DICE_PWID-01", "wEATMdiockB-cwsDiWLZ68M");
-        map.put("TX_PVLS_ELIGIBLE_DICE_MSW-03", "wEATMdiockB-JrMuAKI6YlN");
-        map.put("TX_PVLS_ELIGIBLE_DICE_unknown", "wEATMdiockB-NjZP8M1crEZ");
-        map.put("TX_PVLS_ELIGIBLE_DICE_FSW-04", "wEATMdiockB-rx6RuqMmJYh");
-        map.put("TX_PVLS_ELIGIBLE_DICE_FSW-01", "wEATMdiockB-IYgcWYnFZn0");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_FSW-03", "mhkO6IPf1nE-KmdEfKbuS5M");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-06", "mhkO6IPf1nE-SmTngpAmqW3");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-02", "mhkO6IPf1nE-D1Pib2THuTj");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSW-01", "mhkO6IPf1nE-SsB5mmWsigU");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_FSW-04", "mhkO6IPf1nE-rx6RuqMmJYh");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_FSW-02", "mhkO6IPf1nE-LkV9MIzKs8R");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-nJevmP4V2K0");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_SW-02", "mhkO6IPf1nE-FAKFHbbYrby");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_NOT_SW-02", "mhkO6IPf1nE-GrhWQaCDCQ4");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSW-03", "mhkO6IPf1nE-JrMuAKI6YlN");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-03", "mhkO6IPf1nE-nzh3CoCJGY8");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSM-01", "mhkO6IPf1nE-TejGomIjzWu");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSM-04", "mhkO6IPf1nE-pB7iwg7m0n7");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-PAXPnr3E0bq");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSM-02", "mhkO6IPf1nE-EuibuYaLJpe");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_FSW-01", "mhkO6IPf1nE-IYgcWYnFZn0");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_SW-01", "mhkO6IPf1nE-RQIIGrbMcFp");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-hTS4AwHXmy4");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSM-03", "mhkO6IPf1nE-O1bh1C2P1E8");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_NOT_SW-01", "mhkO6IPf1nE-XWsizEtBiKC");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-NjZP8M1crEZ");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_NOT_SW-03", "mhkO6IPf1nE-t48Hbcn9Ych");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-04", "mhkO6IPf1nE-OeyhGmHtEKP");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_SW-04", "mhkO6IPf1nE-hAs4V5N4bJW");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_unknown", "mhkO6IPf1nE-KWKBKX5TOZn");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-05", "mhkO6IPf1nE-u2wSZLv6s7m");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-07", "mhkO6IPf1nE-lQrQJYcTquG");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSW-04", "mhkO6IPf1nE-qyDLjwtfCNy");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_SW-03", "mhkO6IPf1nE-l0L6BfZ0L56");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-01", "mhkO6IPf1nE-cwsDiWLZ68M");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_PWID-08", "mhkO6IPf1nE-ow8lNkkzEBr");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_TG_NOT_SW-04", "mhkO6IPf1nE-CDcn8cYAj0A");
-        map.put("TX_PVLS_ELIGIBLE_DONE_DICE_MSW-02", "mhkO6IPf1nE-G1GYY8G4GGU");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_SW-01", "O4M0FcApmzi-RQIIGrbMcFp");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-hTS4AwHXmy4");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-04", "O4M0FcApmzi-CDcn8cYAj0A");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_FSW-01", "O4M0FcApmzi-IYgcWYnFZn0");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-01", "O4M0FcApmzi-XWsizEtBiKC");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSM-02", "O4M0FcApmzi-EuibuYaLJpe");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_SW-02", "O4M0FcApmzi-FAKFHbbYrby");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-03", "O4M0FcApmzi-nzh3CoCJGY8");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-03", "O4M0FcApmzi-t48Hbcn9Ych");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-nJevmP4V2K0");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_FSW-02", "O4M0FcApmzi-LkV9MIzKs8R");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSW-01", "O4M0FcApmzi-SsB5mmWsigU");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_FSW-03", "O4M0FcApmzi-KmdEfKbuS5M");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-04", "O4M0FcApmzi-OeyhGmHtEKP");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-PAXPnr3E0bq");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSM-03", "O4M0FcApmzi-O1bh1C2P1E8");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSM-01", "O4M0FcApmzi-TejGomIjzWu");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-02", "O4M0FcApmzi-GrhWQaCDCQ4");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSM-04", "O4M0FcApmzi-pB7iwg7m0n7");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-02", "O4M0FcApmzi-D1Pib2THuTj");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSW-02", "O4M0FcApmzi-G1GYY8G4GGU");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-NjZP8M1crEZ");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_FSW-04", "O4M0FcApmzi-rx6RuqMmJYh");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-05", "O4M0FcApmzi-u2wSZLv6s7m");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_unknown", "O4M0FcApmzi-KWKBKX5TOZn");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-07", "O4M0FcApmzi-lQrQJYcTquG");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_SW-04", "O4M0FcApmzi-hAs4V5N4bJW");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSW-04", "O4M0FcApmzi-qyDLjwtfCNy");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-01", "O4M0FcApmzi-cwsDiWLZ68M");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_MSW-03", "O4M0FcApmzi-JrMuAKI6YlN");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-08", "O4M0FcApmzi-ow8lNkkzEBr");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_PWID-06", "O4M0FcApmzi-SmTngpAmqW3");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_NON_PEPFAR_SITE_TG_SW-03", "O4M0FcApmzi-l0L6BfZ0L56");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSM-03", "cn1u70K6fMZ-O1bh1C2P1E8");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-01", "cn1u70K6fMZ-cwsDiWLZ68M");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_SW-04", "cn1u70K6fMZ-hAs4V5N4bJW");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-04", "cn1u70K6fMZ-OeyhGmHtEKP");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-nJevmP4V2K0");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSW-01", "cn1u70K6fMZ-SsB5mmWsigU");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSW-04", "cn1u70K6fMZ-qyDLjwtfCNy");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "cn1u70K6fMZ-t48Hbcn9Ych");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_FSW-02", "cn1u70K6fMZ-LkV9MIzKs8R");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_SW-01", "cn1u70K6fMZ-RQIIGrbMcFp");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-NjZP8M1crEZ");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-hTS4AwHXmy4");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSW-03", "cn1u70K6fMZ-JrMuAKI6YlN");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-02", "cn1u70K6fMZ-D1Pib2THuTj");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSM-04", "cn1u70K6fMZ-pB7iwg7m0n7");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-06", "cn1u70K6fMZ-SmTngpAmqW3");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-03", "cn1u70K6fMZ-nzh3CoCJGY8");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-05", "cn1u70K6fMZ-u2wSZLv6s7m");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_SW-03", "cn1u70K6fMZ-l0L6BfZ0L56");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSW-02", "cn1u70K6fMZ-G1GYY8G4GGU");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-07", "cn1u70K6fMZ-lQrQJYcTquG");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-KWKBKX5TOZn");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_FSW-03", "cn1u70K6fMZ-KmdEfKbuS5M");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_PWID-08", "cn1u70K6fMZ-ow8lNkkzEBr");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "cn1u70K6fMZ-CDcn8cYAj0A");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSM-02", "cn1u70K6fMZ-EuibuYaLJpe");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_SW-02", "cn1u70K6fMZ-FAKFHbbYrby");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_MSM-01", "cn1u70K6fMZ-TejGomIjzWu");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "cn1u70K6fMZ-GrhWQaCDCQ4");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "cn1u70K6fMZ-XWsizEtBiKC");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_FSW-04", "cn1u70K6fMZ-rx6RuqMmJYh");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_unknown", "cn1u70K6fMZ-PAXPnr3E0bq");
-        map.put("TX_PVLS_ELIGIBLE_DONE_VERIFY_PEPFAR_SITE_FSW-01", "cn1u70K6fMZ-IYgcWYnFZn0");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-04", "b5pkOaXA4d7-OeyhGmHtEKP");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-NjZP8M1crEZ");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-02", "b5pkOaXA4d7-D1Pib2THuTj");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_FSW-01", "b5pkOaXA4d7-IYgcWYnFZn0");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-03", "b5pkOaXA4d7-t48Hbcn9Ych");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-KWKBKX5TOZn");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSM-02", "b5pkOaXA4d7-EuibuYaLJpe");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSW-02", "b5pkOaXA4d7-G1GYY8G4GGU");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-08", "b5pkOaXA4d7-ow8lNkkzEBr");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-01", "b5pkOaXA4d7-XWsizEtBiKC");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-nJevmP4V2K0");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-PAXPnr3E0bq");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-07", "b5pkOaXA4d7-lQrQJYcTquG");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-05", "b5pkOaXA4d7-u2wSZLv6s7m");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_SW-02", "b5pkOaXA4d7-FAKFHbbYrby");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSW-03", "b5pkOaXA4d7-JrMuAKI6YlN");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-04", "b5pkOaXA4d7-CDcn8cYAj0A");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-01", "b5pkOaXA4d7-cwsDiWLZ68M");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSW-01", "b5pkOaXA4d7-SsB5mmWsigU");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSM-04", "b5pkOaXA4d7-pB7iwg7m0n7");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_FSW-04", "b5pkOaXA4d7-rx6RuqMmJYh");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_SW-04", "b5pkOaXA4d7-hAs4V5N4bJW");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSM-03", "b5pkOaXA4d7-O1bh1C2P1E8");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-06", "b5pkOaXA4d7-SmTngpAmqW3");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_PWID-03", "b5pkOaXA4d7-nzh3CoCJGY8");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_FSW-02", "b5pkOaXA4d7-LkV9MIzKs8R");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_FSW-03", "b5pkOaXA4d7-KmdEfKbuS5M");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_NOT_SW-02", "b5pkOaXA4d7-GrhWQaCDCQ4");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSW-04", "b5pkOaXA4d7-qyDLjwtfCNy");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_unknown", "b5pkOaXA4d7-hTS4AwHXmy4");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_SW-03", "b5pkOaXA4d7-l0L6BfZ0L56");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_TG_SW-01", "b5pkOaXA4d7-RQIIGrbMcFp");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_NON_PEPFAR_SITE_MSM-01", "b5pkOaXA4d7-TejGomIjzWu");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-xpXBknJgiGa");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_SW-01", "tcKlzWxQG6w-RQIIGrbMcFp");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-hTS4AwHXmy4");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-01", "tcKlzWxQG6w-cwsDiWLZ68M");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-02", "tcKlzWxQG6w-D1Pib2THuTj");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-KWKBKX5TOZn");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-07", "tcKlzWxQG6w-lQrQJYcTquG");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_NOT_SW-04", "tcKlzWxQG6w-CDcn8cYAj0A");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-03", "tcKlzWxQG6w-nzh3CoCJGY8");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-05", "tcKlzWxQG6w-u2wSZLv6s7m");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_FSW-03", "tcKlzWxQG6w-KmdEfKbuS5M");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSM-02", "tcKlzWxQG6w-EuibuYaLJpe");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSW-02", "tcKlzWxQG6w-G1GYY8G4GGU");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-06", "tcKlzWxQG6w-SmTngpAmqW3");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_FSW-01", "tcKlzWxQG6w-IYgcWYnFZn0");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_FSW-04", "tcKlzWxQG6w-rx6RuqMmJYh");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-NjZP8M1crEZ");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-04", "tcKlzWxQG6w-OeyhGmHtEKP");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSM-01", "tcKlzWxQG6w-TejGomIjzWu");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_SW-02", "tcKlzWxQG6w-FAKFHbbYrby");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSW-03", "tcKlzWxQG6w-JrMuAKI6YlN");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_SW-04", "tcKlzWxQG6w-hAs4V5N4bJW");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-PAXPnr3E0bq");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_PWID-08", "tcKlzWxQG6w-ow8lNkkzEBr");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_SW-03", "tcKlzWxQG6w-l0L6BfZ0L56");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_NOT_SW-02", "tcKlzWxQG6w-GrhWQaCDCQ4");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_NOT_SW-03", "tcKlzWxQG6w-t48Hbcn9Ych");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-Ik8JJyPcQ2K");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSW-04", "tcKlzWxQG6w-qyDLjwtfCNy");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_TG_NOT_SW-01", "tcKlzWxQG6w-XWsizEtBiKC");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSM-03", "tcKlzWxQG6w-O1bh1C2P1E8");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSM-04", "tcKlzWxQG6w-pB7iwg7m0n7");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_FSW-02", "tcKlzWxQG6w-LkV9MIzKs8R");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_unknown", "tcKlzWxQG6w-nJevmP4V2K0");
-        map.put("TX_PVLS_ELIGIBLE_VERIFY_PEPFAR_SITE_MSW-01", "tcKlzWxQG6w-SsB5mmWsigU");
-
-
-        return map.get(indicatorDisaggr);
+        return KpifIndicatorMappings.getInstance().getIndicatorId(indicatorDisaggr);
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyaemr.EmrConstants;
 import org.openmrs.module.kenyaemr.EmrWebConstants;
 import org.openmrs.module.kenyaemr.regimen.RegimenManager;
+import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenHistory;
 import org.openmrs.module.kenyaemr.util.EncounterBasedRegimenUtils;
 import org.openmrs.module.kenyaui.annotation.SharedPage;
 import org.openmrs.ui.framework.SimpleObject;
@@ -59,9 +60,10 @@ public class RegimenEditorPageController {
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		List<SimpleObject> obshistory = EncounterBasedRegimenUtils.getRegimenHistoryFromObservations(patient, category);
+		EncounterBasedRegimenHistory regimenHistory = EncounterBasedRegimenHistory.forPatient(patient);
+		List<SimpleObject> obshistory = regimenHistory.getHistory(category);
 		model.put("regimenFromObs", obshistory);
-		Encounter lastEnc = EncounterBasedRegimenUtils.getLastEncounterForCategory(patient, category);
+		Encounter lastEnc = regimenHistory.getLastEncounter(category);
 
 		SimpleObject lastEncDetails = null;
 		String event = null;
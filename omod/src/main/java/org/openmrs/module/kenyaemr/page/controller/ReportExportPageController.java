@@ -9,14 +9,12 @@
  */
 package org.openmrs.module.kenyaemr.page.controller;
 
-import org.apache.commons.io.FileUtils;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.CoreUtils;
-import org.openmrs.module.kenyacore.UiResource;
-import org.openmrs.module.kenyacore.report.HybridReportDescriptor;
 import org.openmrs.module.kenyacore.report.IndicatorReportDescriptor;
 import org.openmrs.module.kenyacore.report.ReportDescriptor;
 import org.openmrs.module.kenyacore.report.ReportManager;
+import org.openmrs.module.kenyaemr.ExcelTemplateCache;
 import org.openmrs.module.kenyaemr.api.KenyaEmrService;
 import org.openmrs.module.kenyaemr.reporting.renderer.AdxReportRenderer;
 import org.openmrs.module.kenyaemr.reporting.renderer.MergedCsvReportRenderer;
@@ -27,7 +25,6 @@ import org.openmrs.module.reporting.common.ContentType;
 import org.openmrs.module.reporting.evaluation.EvaluationContext;
 import org.openmrs.module.reporting.report.ReportData;
 import org.openmrs.module.reporting.report.ReportDesign;
-import org.openmrs.module.reporting.report.ReportDesignResource;
 import org.openmrs.module.reporting.report.ReportRequest;
 import org.openmrs.module.reporting.report.definition.ReportDefinition;
 import org.openmrs.module.reporting.report.renderer.CsvReportRenderer;
@@ -41,13 +38,12 @@ import org.openmrs.ui.framework.resource.ResourceFactory;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.Properties;
 
 /**
  * Download report data as Excel or CSV
@@ -68,7 +64,8 @@ public class ReportExportPageController {
 					@SpringBean ReportManager reportManager,
 					@SpringBean KenyaUiUtils kenyaUi,
 					@SpringBean ResourceFactory resourceFactory,
-					@SpringBean ReportService reportService) throws Exception {
+					@SpringBean ReportService reportService,
+					@SpringBean ExcelTemplateCache templateCache) throws Exception {
 
 		ReportDefinition definition = reportRequest.getReportDefinition().getParameterizable();
 		ReportDescriptor report = reportManager.getReportDescriptor(definition);
@@ -78,7 +75,7 @@ public class ReportExportPageController {
 		ReportData reportData = reportService.loadReportData(reportRequest);
 
 		if (EXPORT_TYPE_EXCEL.equals(type)) {
-			return renderAsExcel(report, reportData, resourceFactory);
+			return renderAsExcel(report, reportData, resourceFactory, templateCache);
 		}
 		else if (EXPORT_TYPE_CSV.equals(type)) {
 			return renderAsCsv(report, reportData);
@@ -100,64 +97,37 @@ public class ReportExportPageController {
 	 */
 	protected FileDownload renderAsExcel(ReportDescriptor report,
 										 ReportData data,
-										 ResourceFactory resourceFactory) throws IOException {
+										 ResourceFactory resourceFactory,
+										 ExcelTemplateCache templateCache) throws IOException {
 
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeExcel(report, data, templateCache.getDesign(report, resourceFactory), out);
 
-		if (!(report instanceof IndicatorReportDescriptor) && !(report instanceof HybridReportDescriptor)) {
-			throw new RuntimeException("Only indicator/hybrid reports can be rendered as Excel");
-		}
-
-		ReportDefinition definition = report.getTarget();
-		UiResource template = (report instanceof IndicatorReportDescriptor) ? ((IndicatorReportDescriptor) report).getTemplate() : ((HybridReportDescriptor) report).getTemplate();
-
-		if (template == null || !template.getPath().endsWith(".xls")) {
-			throw new RuntimeException("Report doesn't specify a Excel template");
-		}
+		return new FileDownload(
+				getDownloadFilename(report.getTarget(), data.getContext(), "xls"),
+				ContentType.EXCEL.getContentType(),
+				out.toByteArray()
+		);
+	}
 
-		// Load report template
-		byte[] templateData = loadTemplateResource(resourceFactory, template);
-
-		ExcelTemplateRenderer renderer;
-		{
-			// this is a bit of a hack, copied from ExcelRendererTest in the reporting module, to avoid
-			// needing to save the template and report design in the database
-			ReportDesignResource resource = new ReportDesignResource();
-			resource.setName("template.xls");
-			resource.setContents(templateData);
-
-			final ReportDesign design = new ReportDesign();
-			design.setName(report.getName());
-			design.setReportDefinition(definition);
-			design.setRendererType(ExcelTemplateRenderer.class);
-
-			if (report instanceof HybridReportDescriptor){
-				Properties props = new Properties();
-				String repeatingSections = ((HybridReportDescriptor) report).getRepeatingSection();
-				if (repeatingSections != null){
-					props.put("repeatingSections", repeatingSections);
-					design.setProperties(props);
-				}
+	/**
+	 * Writes an indicator or hybrid report as Excel to a stream
+	 * @param report the report
+	 * @param data the evaluated report data
+	 * @param design the Excel report design
+	 * @param out the output stream
+	 * @throws IOException
+	 */
+	public void writeExcel(ReportDescriptor report, ReportData data, final ReportDesign design, OutputStream out) throws IOException {
+		ExcelTemplateRenderer renderer = new ExcelTemplateRenderer() {
+			public ReportDesign getDesign(String argument) {
+				return design;
 			}
-
-			design.addResource(resource);
-
-			renderer = new ExcelTemplateRenderer() {
-				public ReportDesign getDesign(String argument) {
-					return design;
-				}
-			};
-		}
+		};
 
 		addExtraContextValues(data, data.getContext());
 
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		renderer.render(data, null, out);
-
-		return new FileDownload(
-				getDownloadFilename(definition, data.getContext(), "xls"),
-				ContentType.EXCEL.getContentType(),
-				out.toByteArray()
-		);
 	}
 
 	/**
@@ -221,14 +191,24 @@ public class ReportExportPageController {
 	 * @throws IOException
 	 */
 	protected FileDownload renderAsCsv(ReportDescriptor report, ReportData data) throws IOException {
-		ReportRenderer renderer = (report instanceof IndicatorReportDescriptor) ? new MergedCsvReportRenderer() : new CsvReportRenderer();
-
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		renderer.render(data, null, out);
+		writeCsv(report, data, out);
 
 		return new FileDownload(getDownloadFilename(report.getTarget(), data.getContext(), "csv"), ContentType.CSV.getContentType(), out.toByteArray());
 	}
 
+	/**
+	 * Writes report data as CSV to a stream
+	 * @param report the report
+	 * @param data the evaluated report data
+	 * @param out the output stream
+	 * @throws IOException
+	 */
+	public void writeCsv(ReportDescriptor report, ReportData data, OutputStream out) throws IOException {
+		ReportRenderer renderer = (report instanceof IndicatorReportDescriptor) ? new MergedCsvReportRenderer() : new CsvReportRenderer();
+		renderer.render(data, null, out);
+	}
+
 	protected FileDownload renderAsAdx(ReportDescriptor report, ReportData data) throws IOException {
 		ReportRenderer renderer = new AdxReportRenderer();
 
@@ -238,18 +218,6 @@ public class ReportExportPageController {
 		return new FileDownload(getDownloadFilename(report.getTarget(), data.getContext(), "xml"), ContentType.XML.getContentType(), out.toByteArray());
 	}
 
-	/**
-	 * Loads a template resource as a byte array
-	 * @param resourceFactory the resource factory
-	 * @param template the template resource
-	 * @return the byte array
-	 * @throws IOException if resource couldn't be loaded
-	 */
-	protected byte[] loadTemplateResource(ResourceFactory resourceFactory, UiResource template) throws IOException {
-		File file = resourceFactory.getResource(template.getProvider(), "reports/" + template.getPath());
-		return FileUtils.readFileToByteArray(file);
-	}
-
 	/**
 	 * Gets the filename to use for downloads
 	 * @param ec the evaluation context
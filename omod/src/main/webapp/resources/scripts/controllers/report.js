@@ -91,7 +91,13 @@ kenyaemrApp.controller('ReportController', ['$scope', '$http', '$timeout', funct
 	 * @param type the export type
 	 */
 	$scope.exportReportData = function(requestId, type) {
-		ui.navigate('kenyaemr', 'reportExport', { appId: $scope.appId, request: requestId, type: type });
+		if (type == 'csv' || type == 'excel') {
+			// These are streamed rather than built in memory as a file download
+			location.href = '/' + OPENMRS_CONTEXT_PATH + '/kenyaemr/reportExport.htm?' + $.param({ appId: $scope.appId, request: requestId, type: type });
+		}
+		else {
+			ui.navigate('kenyaemr', 'reportExport', { appId: $scope.appId, request: requestId, type: type });
+		}
 	};
 
 	/**
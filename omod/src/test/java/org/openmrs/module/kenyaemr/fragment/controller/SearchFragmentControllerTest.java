@@ -16,16 +16,23 @@ import org.openmrs.Location;
 import org.openmrs.LocationAttribute;
 import org.openmrs.LocationAttributeType;
 import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.test.TestUtils;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.FacilityMetadata;
+import org.openmrs.module.kenyaemr.search.PatientSearchIndex;
 import org.openmrs.module.kenyaemr.test.TestUiUtils;
 import org.openmrs.module.metadatadeploy.MetadataUtils;
 import org.openmrs.ui.framework.SimpleObject;
+import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.sql.PreparedStatement;
+import java.util.List;
+
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 
@@ -110,4 +117,55 @@ public class SearchFragmentControllerTest extends BaseModuleWebContextSensitiveT
 		Assert.assertThat(result, hasEntry("id", (Object) new Integer(7)));
 		Assert.assertThat(result, hasEntry("name", (Object) "Chebaskwony, Collet Test"));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @see SearchFragmentController#patients(String, String, org.openmrs.ui.framework.UiUtils)
+	 */
+	@Test
+	public void patients_shouldAttachActiveVisitsOfMatchedPatients() {
+		Patient patient7 = TestUtils.getPatient(7);
+		Patient patient8 = TestUtils.getPatient(8);
+		VisitType outpatient = MetadataUtils.existing(VisitType.class, CommonMetadata._VisitType.OUTPATIENT);
+		Visit visit = TestUtils.saveVisit(patient7, outpatient, TestUtils.date(2012, 1, 1, 10, 0, 0), null);
+		TestUtils.saveVisit(patient8, outpatient, TestUtils.date(2012, 1, 1, 10, 0, 0), null);
+
+		List<SimpleObject> result = controller.patients("Chebaskwony", "all", ui);
+		Assert.assertThat(result.size(), is(1));
+		Assert.assertThat(result.get(0), hasEntry("id", (Object) new Integer(7)));
+		Assert.assertThat(((SimpleObject) result.get(0).get("activeVisit")).get("id"), is((Object) visit.getId()));
+
+		result = controller.patients("Chebaskwony", "checked-in", ui);
+		Assert.assertThat(result.size(), is(1));
+	}
+
+	/**
+	 * @see SearchFragmentController#getPatientsByNameOrID(String)
+	 */
+	@Test
+	public void getPatientsByNameOrID_shouldRankExactIdentifierMatchBeforeApplyingMaximumResults() throws Exception {
+		executeSql("UPDATE patient_identifier SET identifier = 'ZQ123' WHERE patient_id = 2");
+		executeSql("UPDATE patient_identifier SET identifier = 'ZQ1234' WHERE patient_id = 7");
+		executeSql("UPDATE patient_identifier SET identifier = 'ZQ12' WHERE patient_id = 8");
+		Context.getRegisteredComponents(PatientSearchIndex.class).get(0).build();
+
+		Context.getAdministrationService().setGlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_PERSON_SEARCH_MAX_RESULTS, "2");
+
+		// All three patients match, but only the exact match and the lowest prefix match fit
+		List<Patient> result = controller.getPatientsByNameOrID("ZQ12");
+		Assert.assertThat(result.size(), is(2));
+		Assert.assertThat(result.get(0).getPatientId(), is(8));
+		Assert.assertThat(result.get(1).getPatientId(), is(2));
+	}
+
+	/**
+	 * Helper method to execute SQL on the test database
+	 * @param sql the SQL statement
+	 */
+	private void executeSql(String sql) throws Exception {
+		PreparedStatement ps = getConnection().prepareStatement(sql);
+		ps.execute();
+		ps.close();
+
+		Context.clearSession();
+	}
+}
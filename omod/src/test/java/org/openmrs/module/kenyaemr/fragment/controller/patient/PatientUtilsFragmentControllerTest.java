@@ -16,6 +16,8 @@ import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
 import org.openmrs.module.kenyacore.calculation.CalculationManager;
 import org.openmrs.module.kenyacore.test.TestUtils;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagCache;
+import org.openmrs.module.kenyaemr.calculation.PatientFlagEvaluator;
 import org.openmrs.module.kenyaemr.metadata.CommonMetadata;
 import org.openmrs.module.kenyaemr.metadata.HivMetadata;
 import org.openmrs.module.kenyaemr.metadata.MchMetadata;
@@ -25,9 +27,11 @@ import org.openmrs.ui.framework.SimpleObject;
 import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.not;
@@ -53,6 +57,12 @@ public class PatientUtilsFragmentControllerTest extends BaseModuleWebContextSens
 	@Autowired
 	private CalculationManager calculationManager;
 
+	@Autowired
+	private PatientFlagEvaluator flagEvaluator;
+
+	@Autowired
+	private PatientFlagCache flagCache;
+
 	@Autowired
 	private TestUiUtils ui;
 
@@ -73,6 +83,7 @@ public class PatientUtilsFragmentControllerTest extends BaseModuleWebContextSens
 		controller = new PatientUtilsFragmentController();
 
 		calculationManager.refresh();
+		flagCache.clear();
 	}
 
 	/**
@@ -90,11 +101,11 @@ public class PatientUtilsFragmentControllerTest extends BaseModuleWebContextSens
 	}
 
 	/**
-	 * @see PatientUtilsFragmentController#getFlags(Integer, org.openmrs.module.kenyacore.calculation.CalculationManager)
+	 * @see PatientUtilsFragmentController#getFlags(Integer, org.openmrs.module.kenyacore.calculation.CalculationManager, PatientFlagEvaluator)
 	 */
 	@Test
 	public void getFlags_shouldReturnAllFlags() {
-		List<SimpleObject> flags = controller.getFlags(7, calculationManager);
+		List<SimpleObject> flags = controller.getFlags(7, calculationManager, flagEvaluator);
 
 		// Check that every flag object has a message and that it doesn't start with "ERROR..."
 	 	for (SimpleObject flag : flags) {
@@ -105,6 +116,20 @@ public class PatientUtilsFragmentControllerTest extends BaseModuleWebContextSens
 		}
 	}
 
+	/**
+	 * @see PatientUtilsFragmentController#getFlagsForPatients(java.util.List, org.openmrs.module.kenyacore.calculation.CalculationManager, PatientFlagEvaluator)
+	 */
+	@Test
+	public void getFlagsForPatients_shouldReturnSameFlagsAsForEachPatient() {
+		SimpleObject flagsByPatient = controller.getFlagsForPatients(Arrays.asList(6, 7, 8), calculationManager, flagEvaluator);
+
+		Assert.assertThat(flagsByPatient.keySet(), contains("6", "7", "8"));
+
+		for (Integer patientId : Arrays.asList(6, 7, 8)) {
+			Assert.assertEquals(controller.getFlags(patientId, calculationManager, flagEvaluator), flagsByPatient.get(String.valueOf(patientId)));
+		}
+	}
+
 	/**
 	 * @see PatientUtilsFragmentController#getMothers(org.openmrs.Patient, org.openmrs.ui.framework.UiUtils)
 	 */